@@ -0,0 +1,689 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
+
+/**
+ * <p>Collection of entities of one entity type that stores the values column by column.</p>
+ * <p>There is one column for each primitive, single-valued property of the entity type.
+ * Int32, Int64, Double, and Boolean values are held in primitive arrays, strings are dictionary-encoded,
+ * and all other values are held as objects; <code>null</code> values are marked in a bitmap.
+ * Properties of other kinds (complex and collection properties) are kept as {@link Property} objects per row.</p>
+ * <p>The entities of the collection are views onto a row; their column properties are created on demand
+ * and changes to them are not written back, but {@link Entity#addProperty(Property)} stores the property
+ * in the row; see {@link Row} for what else can be changed. Serializers may read the columns directly instead.</p>
+ */
+public class ColumnarEntityCollection extends AbstractEntityCollection {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final String typeName;
+  private final Map<String, Column> columns = new LinkedHashMap<String, Column>();
+  private int size = 0;
+  private int capacity = INITIAL_CAPACITY;
+  private URI[] ids;
+  private Map<Integer, List<Property>> otherProperties;
+  private String[] eTags;
+  private Integer count;
+  private URI next;
+  private URI deltaLink;
+
+  /**
+   * Creates an empty collection with a column for each primitive, single-valued property
+   * of the given entity type.
+   * @param entityType the entity type
+   */
+  public ColumnarEntityCollection(final EdmEntityType entityType) {
+    typeName = entityType.getFullQualifiedName().getFullQualifiedNameAsString();
+    for (final String propertyName : entityType.getPropertyNames()) {
+      final EdmProperty property = entityType.getStructuralProperty(propertyName);
+      if (property.isPrimitive() && !property.isCollection()) {
+        columns.put(propertyName, new Column(propertyName,
+            property.getType().getFullQualifiedName().getFullQualifiedNameAsString(),
+            property.getType().getKind() == EdmTypeKind.PRIMITIVE ?
+                EdmPrimitiveTypeKind.valueOfFQN(property.getType().getFullQualifiedName()) :
+                null,
+            capacity));
+      }
+    }
+  }
+
+  /**
+   * Adds a row where all values are <code>null</code>.
+   * @return the index of the new row
+   */
+  public int addRow() {
+    if (size == capacity) {
+      capacity += capacity >> 1;
+      for (final Column column : columns.values()) {
+        column.grow(capacity);
+      }
+      if (ids != null) {
+        ids = Arrays.copyOf(ids, capacity);
+      }
+      if (eTags != null) {
+        eTags = Arrays.copyOf(eTags, capacity);
+      }
+    }
+    return size++;
+  }
+
+  /**
+   * Gets the number of rows.
+   * @return number of rows
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Gets the column for the given property.
+   * @param propertyName name of the property
+   * @return the column or <code>null</code> if there is no column for this property
+   */
+  public Column getColumn(final String propertyName) {
+    return columns.get(propertyName);
+  }
+
+  /**
+   * Gets all columns in the order of the properties in the entity type.
+   * @return the columns
+   */
+  public List<Column> getColumns() {
+    return Collections.unmodifiableList(new ArrayList<Column>(columns.values()));
+  }
+
+  /**
+   * Gets the name of the entity type.
+   * @return full-qualified name of the entity type
+   */
+  public String getType() {
+    return typeName;
+  }
+
+  public URI getId(final int row) {
+    checkRow(row);
+    return ids == null ? null : ids[row];
+  }
+
+  public void setId(final int row, final URI id) {
+    checkRow(row);
+    if (ids == null) {
+      ids = new URI[capacity];
+    }
+    ids[row] = id;
+  }
+
+  public String getETag(final int row) {
+    checkRow(row);
+    return eTags == null ? null : eTags[row];
+  }
+
+  public void setETag(final int row, final String eTag) {
+    checkRow(row);
+    if (eTags == null) {
+      eTags = new String[capacity];
+    }
+    eTags[row] = eTag;
+  }
+
+  /**
+   * Gets the properties of the given row that have no column, e.g., complex or collection properties.
+   * @param row index of the row
+   * @return the properties; an empty list if there are none
+   */
+  public List<Property> getOtherProperties(final int row) {
+    checkRow(row);
+    final List<Property> properties = otherProperties == null ? null : otherProperties.get(row);
+    return properties == null ? Collections.<Property> emptyList() : Collections.unmodifiableList(properties);
+  }
+
+  /**
+   * Stores a property in the given row.
+   * The value of a property with a column is written into the column; other properties are kept as they are,
+   * replacing a property with the same name.
+   * @param row index of the row
+   * @param property the property
+   * @throws ClassCastException if the value does not fit the column
+   */
+  public void setProperty(final int row, final Property property) {
+    checkRow(row);
+    final Column column = columns.get(property.getName());
+    if (column != null) {
+      column.setValue(row, property.getValue());
+      return;
+    }
+    if (otherProperties == null) {
+      otherProperties = new HashMap<Integer, List<Property>>();
+    }
+    List<Property> properties = otherProperties.get(row);
+    if (properties == null) {
+      properties = new ArrayList<Property>();
+      otherProperties.put(row, properties);
+    }
+    for (final Iterator<Property> iterator = properties.iterator(); iterator.hasNext();) {
+      if (property.getName().equals(iterator.next().getName())) {
+        iterator.remove();
+      }
+    }
+    properties.add(property);
+  }
+
+  /**
+   * Gets a view onto the given row.
+   * @param row index of the row
+   * @return the entity
+   */
+  public Row getEntity(final int row) {
+    checkRow(row);
+    return new Row(this, row);
+  }
+
+  @Override
+  public Iterator<Entity> iterator() {
+    return new Iterator<Entity>() {
+      private int row = 0;
+
+      @Override
+      public boolean hasNext() {
+        return row < size;
+      }
+
+      @Override
+      public Entity next() {
+        if (row >= size) {
+          throw new NoSuchElementException();
+        }
+        return new Row(ColumnarEntityCollection.this, row++);
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  public void setCount(final Integer count) {
+    this.count = count;
+  }
+
+  @Override
+  public Integer getCount() {
+    return count;
+  }
+
+  public void setNext(final URI next) {
+    this.next = next;
+  }
+
+  @Override
+  public URI getNext() {
+    return next;
+  }
+
+  public void setDeltaLink(final URI deltaLink) {
+    this.deltaLink = deltaLink;
+  }
+
+  @Override
+  public URI getDeltaLink() {
+    return deltaLink;
+  }
+
+  private void checkRow(final int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row: " + row + ", Size: " + size);
+    }
+  }
+
+  /**
+   * Values of one property for all rows of a {@link ColumnarEntityCollection}.
+   */
+  public final class Column {
+
+    private final String name;
+    private final String type;
+    private final Class<?> unboxedType;
+    private final boolean isString;
+    private final BitSet present = new BitSet();
+    private int[] ints;
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+    private BitSet booleans;
+    private List<String> dictionary;
+    private Map<String, Integer> codes;
+
+    private Column(final String name, final String type, final EdmPrimitiveTypeKind kind, final int capacity) {
+      this.name = name;
+      this.type = type;
+      isString = kind == EdmPrimitiveTypeKind.String;
+      unboxedType = kind == EdmPrimitiveTypeKind.Int32 ? int.class
+          : kind == EdmPrimitiveTypeKind.Int64 ? long.class
+          : kind == EdmPrimitiveTypeKind.Double ? double.class
+          : kind == EdmPrimitiveTypeKind.Boolean ? boolean.class
+          : null;
+      if (unboxedType == int.class || isString) {
+        ints = new int[capacity];
+      } else if (unboxedType == long.class) {
+        longs = new long[capacity];
+      } else if (unboxedType == double.class) {
+        doubles = new double[capacity];
+      } else if (unboxedType == null) {
+        objects = new Object[capacity];
+      }
+      if (isString) {
+        dictionary = new ArrayList<String>();
+        codes = new HashMap<String, Integer>();
+      }
+    }
+
+    private void grow(final int capacity) {
+      if (ints != null) {
+        ints = Arrays.copyOf(ints, capacity);
+      } else if (longs != null) {
+        longs = Arrays.copyOf(longs, capacity);
+      } else if (doubles != null) {
+        doubles = Arrays.copyOf(doubles, capacity);
+      } else if (objects != null) {
+        objects = Arrays.copyOf(objects, capacity);
+      }
+    }
+
+    /**
+     * Gets the name of the property.
+     * @return name of the property
+     */
+    public String getName() {
+      return name;
+    }
+
+    /**
+     * Gets the name of the property's type.
+     * @return full-qualified name of the type
+     */
+    public String getType() {
+      return type;
+    }
+
+    /**
+     * Gets the Java primitive type of the values if they are stored unboxed.
+     * @return one of <code>int.class</code>, <code>long.class</code>, <code>double.class</code>,
+     * and <code>boolean.class</code>, or <code>null</code> if the values are stored as objects
+     */
+    public Class<?> getUnboxedType() {
+      return unboxedType;
+    }
+
+    public boolean isNull(final int row) {
+      checkRow(row);
+      return !present.get(row);
+    }
+
+    public void setNull(final int row) {
+      checkRow(row);
+      present.clear(row);
+      if (objects != null) {
+        objects[row] = null;
+      }
+    }
+
+    public int getInt(final int row) {
+      checkValue(row, int.class);
+      return ints[row];
+    }
+
+    public long getLong(final int row) {
+      checkValue(row, unboxedType == int.class ? int.class : long.class);
+      return unboxedType == int.class ? ints[row] : longs[row];
+    }
+
+    public double getDouble(final int row) {
+      checkValue(row, double.class);
+      return doubles[row];
+    }
+
+    public boolean getBoolean(final int row) {
+      checkValue(row, boolean.class);
+      return values().get(row);
+    }
+
+    public void setInt(final int row, final int value) {
+      checkType(row, int.class);
+      ints[row] = value;
+      present.set(row);
+    }
+
+    public void setLong(final int row, final long value) {
+      checkType(row, long.class);
+      longs[row] = value;
+      present.set(row);
+    }
+
+    public void setDouble(final int row, final double value) {
+      checkType(row, double.class);
+      doubles[row] = value;
+      present.set(row);
+    }
+
+    public void setBoolean(final int row, final boolean value) {
+      checkType(row, boolean.class);
+      values().set(row, value);
+      present.set(row);
+    }
+
+    /**
+     * Gets the value; unboxed values are boxed.
+     * @param row index of the row
+     * @return the value or <code>null</code>
+     */
+    public Object getValue(final int row) {
+      checkRow(row);
+      if (!present.get(row)) {
+        return null;
+      } else if (isString) {
+        return dictionary.get(ints[row]);
+      } else if (unboxedType == int.class) {
+        return ints[row];
+      } else if (unboxedType == long.class) {
+        return longs[row];
+      } else if (unboxedType == double.class) {
+        return doubles[row];
+      } else if (unboxedType == boolean.class) {
+        return values().get(row);
+      } else {
+        return objects[row];
+      }
+    }
+
+    /**
+     * Sets the value.
+     * @param row index of the row
+     * @param value the value; for unboxed values and strings it must be of the according wrapper type
+     * @throws ClassCastException if the value does not fit the column
+     */
+    public void setValue(final int row, final Object value) {
+      if (value == null) {
+        setNull(row);
+      } else if (isString) {
+        checkRow(row);
+        final String string = (String) value;
+        Integer code = codes.get(string);
+        if (code == null) {
+          code = dictionary.size();
+          dictionary.add(string);
+          codes.put(string, code);
+        }
+        ints[row] = code;
+        present.set(row);
+      } else if (unboxedType == int.class) {
+        setInt(row, (Integer) value);
+      } else if (unboxedType == long.class) {
+        setLong(row, (Long) value);
+      } else if (unboxedType == double.class) {
+        setDouble(row, (Double) value);
+      } else if (unboxedType == boolean.class) {
+        setBoolean(row, (Boolean) value);
+      } else {
+        checkRow(row);
+        objects[row] = value;
+        present.set(row);
+      }
+    }
+
+    /**
+     * Gets the value as property.
+     * @param row index of the row
+     * @return the property, with the value unboxed if possible, or <code>null</code> if the value is <code>null</code>
+     */
+    public Property getProperty(final int row) {
+      if (isNull(row)) {
+        return null;
+      }
+      final Property property = new Property(type, name);
+      if (unboxedType == int.class) {
+        property.setIntValue(ints[row]);
+      } else if (unboxedType == long.class) {
+        property.setLongValue(longs[row]);
+      } else if (unboxedType == double.class) {
+        property.setDoubleValue(doubles[row]);
+      } else if (unboxedType == boolean.class) {
+        property.setBooleanValue(values().get(row));
+      } else {
+        property.setValue(ValueType.PRIMITIVE, getValue(row));
+      }
+      return property;
+    }
+
+    /** Boolean values are kept in a bitmap of their own. */
+    private BitSet values() {
+      if (booleans == null) {
+        booleans = new BitSet();
+      }
+      return booleans;
+    }
+
+    private void checkType(final int row, final Class<?> expectedType) {
+      checkRow(row);
+      if (unboxedType != expectedType) {
+        throw new ClassCastException("Column " + name + " of type " + type + " cannot hold " + expectedType + ".");
+      }
+    }
+
+    private void checkValue(final int row, final Class<?> expectedType) {
+      checkType(row, expectedType);
+      if (!present.get(row)) {
+        throw new NullPointerException("The value of " + name + " in row " + row + " is null.");
+      }
+    }
+  }
+
+  /**
+   * <p>View onto a row of a {@link ColumnarEntityCollection}; each iteration creates new views.</p>
+   * <p>What a row can hold is stored in the collection: {@link #setId(URI)}, {@link #setETag(String)},
+   * and {@link #addProperty(Property)} write into the row and are visible in every view onto it.
+   * Everything else cannot be stored, so changing it throws an {@link UnsupportedOperationException}:
+   * the type is that of the collection, the lists of properties, links, operations, and annotations
+   * are unmodifiable, and there are no media or link values to set.</p>
+   */
+  public static final class Row extends Entity {
+
+    private final ColumnarEntityCollection collection;
+    private final int row;
+    private List<Property> properties;
+
+    private Row(final ColumnarEntityCollection collection, final int row) {
+      this.collection = collection;
+      this.row = row;
+    }
+
+    public ColumnarEntityCollection getCollection() {
+      return collection;
+    }
+
+    public int getRowIndex() {
+      return row;
+    }
+
+    @Override
+    public URI getId() {
+      return collection.getId(row);
+    }
+
+    @Override
+    public String getETag() {
+      return collection.getETag(row);
+    }
+
+    @Override
+    public void setId(final URI id) {
+      collection.setId(row, id);
+    }
+
+    @Override
+    public void setETag(final String eTag) {
+      collection.setETag(row, eTag);
+    }
+
+    @Override
+    public String getType() {
+      return collection.getType();
+    }
+
+    @Override
+    public void setType(final String type) {
+      throw unsupported("type");
+    }
+
+    @Override
+    public void setBaseURI(final URI baseURI) {
+      throw unsupported("base URI");
+    }
+
+    @Override
+    public void setCommonProperty(final String key, final String value) {
+      throw unsupported(key);
+    }
+
+    @Override
+    public void setSelfLink(final Link selfLink) {
+      throw unsupported("self link");
+    }
+
+    @Override
+    public void setEditLink(final Link editLink) {
+      throw unsupported("edit link");
+    }
+
+    @Override
+    public void setMediaContentType(final String mediaContentType) {
+      throw unsupported("media content type");
+    }
+
+    @Override
+    public void setMediaContentSource(final URI mediaContentSource) {
+      throw unsupported("media content source");
+    }
+
+    @Override
+    public void setMediaETag(final String eTag) {
+      throw unsupported("media ETag");
+    }
+
+    @Override
+    public List<Link> getMediaEditLinks() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public List<Operation> getOperations() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public List<Link> getAssociationLinks() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public List<Link> getNavigationLinks() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public List<Link> getNavigationBindings() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public List<Annotation> getAnnotations() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public List<Property> getProperties() {
+      if (properties == null) {
+        List<Property> rowProperties = new ArrayList<Property>(collection.columns.size());
+        for (final Column column : collection.columns.values()) {
+          final Property property = column.getProperty(row);
+          if (property != null) {
+            rowProperties.add(property);
+          }
+        }
+        rowProperties.addAll(collection.getOtherProperties(row));
+        properties = Collections.unmodifiableList(rowProperties);
+      }
+      return properties;
+    }
+
+    /**
+     * Stores the property in the row of the collection, so that it is visible in every view onto the row.
+     */
+    @Override
+    public Entity addProperty(final Property property) {
+      collection.setProperty(row, property);
+      properties = null;
+      return this;
+    }
+
+    @Override
+    public Property getProperty(final String name) {
+      if (properties == null) {
+        final Column column = collection.getColumn(name);
+        if (column != null) {
+          return column.getProperty(row);
+        }
+        for (final Property property : collection.getOtherProperties(row)) {
+          if (name.equals(property.getName())) {
+            return property;
+          }
+        }
+        return null;
+      }
+      for (final Property property : properties) {
+        if (name.equals(property.getName())) {
+          return property;
+        }
+      }
+      return null;
+    }
+
+    private UnsupportedOperationException unsupported(final String what) {
+      return new UnsupportedOperationException("The " + what + " of row " + row
+          + " cannot be stored in a ColumnarEntityCollection.");
+    }
+  }
+}
@@ -76,6 +76,15 @@ public abstract class EntityIterator extends AbstractEntityCollection implements
     throw new ODataNotSupportedException("Entity Iterator does not support getNext()");
   }
 
+  /**
+   * Determines whether this iterator supports server-driven paging, i.e., whether {@link #getNext()}
+   * may be called. Iterators overriding {@link #getNext()} must override this method as well.
+   * @return <code>false</code> by default
+   */
+  public boolean hasNextLink() {
+    return false;
+  }
+
   /**
    * {@inheritDoc}
    * <p/>
@@ -0,0 +1,187 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import java.lang.reflect.Array;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Collection value of primitive numbers or booleans backed by a primitive array.
+ * The elements are boxed only when they are accessed through the {@link java.util.List} interface;
+ * the typed accessors avoid that. <code>null</code> elements are not supported.
+ */
+public final class PrimitiveArrayList extends AbstractList<Object> implements RandomAccess {
+
+  private final Class<?> elementType;
+  private Object elements;
+  private int size = 0;
+
+  /**
+   * Creates a new collection.
+   * @param elementType the Java primitive type of the elements; one of <code>int.class</code>,
+   * <code>long.class</code>, <code>double.class</code>, and <code>boolean.class</code>
+   */
+  public PrimitiveArrayList(final Class<?> elementType) {
+    this(elementType, 10);
+  }
+
+  /**
+   * Creates a new collection.
+   * @param elementType the Java primitive type of the elements; one of <code>int.class</code>,
+   * <code>long.class</code>, <code>double.class</code>, and <code>boolean.class</code>
+   * @param initialCapacity the initial capacity
+   */
+  public PrimitiveArrayList(final Class<?> elementType, final int initialCapacity) {
+    if (elementType != int.class && elementType != long.class
+        && elementType != double.class && elementType != boolean.class) {
+      throw new IllegalArgumentException("Unsupported element type " + elementType);
+    }
+    this.elementType = elementType;
+    elements = Array.newInstance(elementType, initialCapacity);
+  }
+
+  /**
+   * Get the Java primitive type of the elements.
+   * @return one of <code>int.class</code>, <code>long.class</code>, <code>double.class</code>,
+   * and <code>boolean.class</code>
+   */
+  public Class<?> getElementType() {
+    return elementType;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Object get(final int index) {
+    checkIndex(index);
+    return Array.get(elements, index);
+  }
+
+  public int getInt(final int index) {
+    checkIndex(index);
+    return ((int[]) elements)[index];
+  }
+
+  public long getLong(final int index) {
+    checkIndex(index);
+    return elementType == int.class ? ((int[]) elements)[index] : ((long[]) elements)[index];
+  }
+
+  public double getDouble(final int index) {
+    checkIndex(index);
+    return elementType == double.class ? ((double[]) elements)[index] : getLong(index);
+  }
+
+  public boolean getBoolean(final int index) {
+    checkIndex(index);
+    return ((boolean[]) elements)[index];
+  }
+
+  public void addInt(final int value) {
+    ensureCapacity(size + 1);
+    ((int[]) elements)[size++] = value;
+    modCount++;
+  }
+
+  public void addLong(final long value) {
+    ensureCapacity(size + 1);
+    ((long[]) elements)[size++] = value;
+    modCount++;
+  }
+
+  public void addDouble(final double value) {
+    ensureCapacity(size + 1);
+    ((double[]) elements)[size++] = value;
+    modCount++;
+  }
+
+  public void addBoolean(final boolean value) {
+    ensureCapacity(size + 1);
+    ((boolean[]) elements)[size++] = value;
+    modCount++;
+  }
+
+  /**
+   * {@inheritDoc}
+   * @throws IllegalArgumentException if the element is <code>null</code> or does not fit the element type
+   */
+  @Override
+  public Object set(final int index, final Object element) {
+    checkIndex(index);
+    final Object previous = Array.get(elements, index);
+    Array.set(elements, index, element);
+    return previous;
+  }
+
+  /**
+   * {@inheritDoc}
+   * @throws IllegalArgumentException if the element is <code>null</code> or does not fit the element type
+   */
+  @Override
+  public void add(final int index, final Object element) {
+    if (index < 0 || index > size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+    ensureCapacity(size + 1);
+    System.arraycopy(elements, index, elements, index + 1, size - index);
+    try {
+      Array.set(elements, index, element);
+    } catch (final RuntimeException e) {
+      System.arraycopy(elements, index + 1, elements, index, size - index);
+      throw e;
+    }
+    size++;
+    modCount++;
+  }
+
+  @Override
+  public Object remove(final int index) {
+    checkIndex(index);
+    final Object previous = Array.get(elements, index);
+    System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+    size--;
+    modCount++;
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+
+  private void checkIndex(final int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+
+  private void ensureCapacity(final int capacity) {
+    final int length = Array.getLength(elements);
+    if (capacity > length) {
+      final Object newElements = Array.newInstance(elementType, Math.max(capacity, length + (length >> 1) + 1));
+      System.arraycopy(elements, 0, newElements, 0, size);
+      elements = newElements;
+    }
+  }
+}
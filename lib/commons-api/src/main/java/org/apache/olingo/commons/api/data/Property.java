@@ -72,12 +72,13 @@ public class Property extends Valuable {
 
   /**
    * Check if this property is <code>null</code> (value == null) or the type is <code>"Edm.Null"</code>.
+   * An unboxed primitive value is not <code>null</code>; it is not boxed for this check.
    * @return <code>true</code> if this property is <code>null</code> (value == null)
    *          or the type is <code>"Edm.Null"</code>. Otherwise <code>false</code>.
    */
   @Override
   public boolean isNull() {
-    return getValue() == null || "Edm.Null".equals(getType());
+    return "Edm.Null".equals(getType()) || getUnboxedType() == null && getValue() == null;
   }
 
   @Override
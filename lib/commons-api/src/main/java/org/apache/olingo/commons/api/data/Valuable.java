@@ -30,13 +30,16 @@ public abstract class Valuable extends Annotatable {
   private ValueType valueType = null;
   private Object value = null;
   private String type;
+  /** The Java primitive type of an unboxed value, or <code>null</code> if the value is held as object. */
+  private Class<?> unboxedType = null;
+  private long unboxedBits;
 
   /**
    * Check if according value is <code>null</code>.
    * @return <code>true</code> if value is <code>null</code>, otherwise <code>false</code>
    */
   public boolean isNull() {
-    return value == null;
+    return value == null && unboxedType == null;
   }
 
   /**
@@ -106,7 +109,7 @@ public abstract class Valuable extends Annotatable {
    * @return primitive representation or null if it is not based on a primitive ValueType
    */
   public Object asPrimitive() {
-    return isPrimitive() && !isCollection() ? value : null;
+    return isPrimitive() && !isCollection() ? getValue() : null;
   }
 
   /**
@@ -151,6 +154,13 @@ public abstract class Valuable extends Annotatable {
    * @return the value
    */
   public Object getValue() {
+    if (unboxedType != null) {
+      // Box an unboxed value on each access; the boxed value is not stored, so that reading has no side effects.
+      return unboxedType == int.class ? Integer.valueOf((int) unboxedBits)
+          : unboxedType == long.class ? Long.valueOf(unboxedBits)
+          : unboxedType == double.class ? Double.valueOf(Double.longBitsToDouble(unboxedBits))
+          : Boolean.valueOf(unboxedBits != 0);
+    }
     return value;
   }
 
@@ -162,6 +172,97 @@ public abstract class Valuable extends Annotatable {
   public void setValue(final ValueType valueType, final Object value) {
     this.valueType = valueType;
     this.value = value;
+    unboxedType = null;
+  }
+
+  /**
+   * Set a primitive value of type Edm.Int32 without boxing it.
+   * @param value value
+   */
+  public void setIntValue(final int value) {
+    setUnboxedValue(int.class, value);
+  }
+
+  /**
+   * Set a primitive value of type Edm.Int64 without boxing it.
+   * @param value value
+   */
+  public void setLongValue(final long value) {
+    setUnboxedValue(long.class, value);
+  }
+
+  /**
+   * Set a primitive value of type Edm.Double without boxing it.
+   * @param value value
+   */
+  public void setDoubleValue(final double value) {
+    setUnboxedValue(double.class, Double.doubleToRawLongBits(value));
+  }
+
+  /**
+   * Set a primitive value of type Edm.Boolean without boxing it.
+   * @param value value
+   */
+  public void setBooleanValue(final boolean value) {
+    setUnboxedValue(boolean.class, value ? 1 : 0);
+  }
+
+  private void setUnboxedValue(final Class<?> unboxedType, final long bits) {
+    valueType = ValueType.PRIMITIVE;
+    value = null;
+    this.unboxedType = unboxedType;
+    unboxedBits = bits;
+  }
+
+  /**
+   * Get the Java primitive type of the value if it has been set without boxing.
+   * @return one of <code>int.class</code>, <code>long.class</code>, <code>double.class</code>,
+   * and <code>boolean.class</code>, or <code>null</code> if the value is held as object
+   */
+  public Class<?> getUnboxedType() {
+    return unboxedType;
+  }
+
+  /**
+   * Get the numeric value as <code>int</code>.
+   * @return the value
+   * @throws NullPointerException if the value is <code>null</code>
+   * @throws ClassCastException if the value is not numeric
+   */
+  public int getIntValue() {
+    return unboxedType == int.class ? (int) unboxedBits : ((Number) getValue()).intValue();
+  }
+
+  /**
+   * Get the numeric value as <code>long</code>.
+   * @return the value
+   * @throws NullPointerException if the value is <code>null</code>
+   * @throws ClassCastException if the value is not numeric
+   */
+  public long getLongValue() {
+    return unboxedType == int.class || unboxedType == long.class ? unboxedBits : ((Number) getValue()).longValue();
+  }
+
+  /**
+   * Get the numeric value as <code>double</code>.
+   * @return the value
+   * @throws NullPointerException if the value is <code>null</code>
+   * @throws ClassCastException if the value is not numeric
+   */
+  public double getDoubleValue() {
+    return unboxedType == double.class ? Double.longBitsToDouble(unboxedBits)
+        : unboxedType == int.class || unboxedType == long.class ? unboxedBits
+        : ((Number) getValue()).doubleValue();
+  }
+
+  /**
+   * Get the value as <code>boolean</code>.
+   * @return the value
+   * @throws NullPointerException if the value is <code>null</code>
+   * @throws ClassCastException if the value is not a Boolean
+   */
+  public boolean getBooleanValue() {
+    return unboxedType == boolean.class ? unboxedBits != 0 : (Boolean) getValue();
   }
 
   /**
@@ -184,7 +285,7 @@ public abstract class Valuable extends Annotatable {
     final Valuable other = (Valuable) o;
     return getAnnotations().equals(other.getAnnotations())
         && (valueType == null ? other.valueType == null : valueType.equals(other.valueType))
-        && (value == null ? other.value == null : value.equals(other.value))
+        && (getValue() == null ? other.getValue() == null : getValue().equals(other.getValue()))
         && (type == null ? other.type == null : type.equals(other.type));
   }
 
@@ -192,13 +293,13 @@ public abstract class Valuable extends Annotatable {
   public int hashCode() {
     int result = getAnnotations().hashCode();
     result = 31 * result + (valueType == null ? 0 : valueType.hashCode());
-    result = 31 * result + (value == null ? 0 : value.hashCode());
+    result = 31 * result + (getValue() == null ? 0 : getValue().hashCode());
     result = 31 * result + (type == null ? 0 : type.hashCode());
     return result;
   }
 
   @Override
   public String toString() {
-    return value == null ? "null" : value.toString();
+    return getValue() == null ? "null" : getValue().toString();
   }
 }
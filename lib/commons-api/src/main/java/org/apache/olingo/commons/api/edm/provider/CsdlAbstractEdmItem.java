@@ -18,14 +18,18 @@
  */
 package org.apache.olingo.commons.api.edm.provider;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 
 /**
- * Super type of all CsdlEdmItems
+ * Super type of all CsdlEdmItems.
+ * The items are serializable so that parsed metadata can be stored and loaded again.
  */
-public abstract class CsdlAbstractEdmItem {
+public abstract class CsdlAbstractEdmItem implements Serializable {
+
+  private static final long serialVersionUID = -1640911390813766578L;
 
   /**
    * Gets one by name.
@@ -25,6 +25,8 @@ import java.util.List;
  */
 public class CsdlAction extends CsdlOperation {
 
+  private static final long serialVersionUID = 2339009427655502388L;
+
   @Override
   public CsdlAction setName(final String name) {
     this.name = name;
@@ -27,6 +27,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public class CsdlActionImport extends CsdlOperationImport {
 
+  private static final long serialVersionUID = -8714157077089525563L;
+
   private FullQualifiedName action;
 
   @Override
@@ -28,6 +28,8 @@ import org.apache.olingo.commons.api.edm.provider.annotation.CsdlExpression;
  */
 public class CsdlAnnotation extends CsdlAbstractEdmItem implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 2536081481629062937L;
+
   private String term;
 
   private String qualifier;
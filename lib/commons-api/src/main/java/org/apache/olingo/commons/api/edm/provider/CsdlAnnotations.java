@@ -26,6 +26,8 @@ import java.util.List;
  */
 public class CsdlAnnotations extends CsdlAbstractEdmItem implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 5810258984252192448L;
+
   private List<CsdlAnnotation> annotations = new ArrayList<CsdlAnnotation>();
 
   private String target;
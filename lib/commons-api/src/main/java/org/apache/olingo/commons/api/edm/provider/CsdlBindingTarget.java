@@ -28,6 +28,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public abstract class CsdlBindingTarget extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = -4121419313094597166L;
+
   /**
    * The Name.
    */
@@ -27,6 +27,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public class CsdlComplexType extends CsdlStructuralType {
 
+  private static final long serialVersionUID = 6545636085983108117L;
+
   @Override
   public CsdlComplexType setName(final String name) {
     this.name = name;
@@ -28,6 +28,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public class CsdlEntityContainer extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = 9098250213488347697L;
+
   private String name;
 
   private FullQualifiedName extendsContainer;
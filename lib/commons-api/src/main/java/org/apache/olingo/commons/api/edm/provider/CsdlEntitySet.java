@@ -27,6 +27,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public class CsdlEntitySet extends CsdlBindingTarget {
 
+  private static final long serialVersionUID = 2042386421794632822L;
+
   // Default for EntitySets is true
   private boolean includeInServiceDocument = true;
 
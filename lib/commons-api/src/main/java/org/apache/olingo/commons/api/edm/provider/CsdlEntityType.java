@@ -27,6 +27,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public class CsdlEntityType extends CsdlStructuralType {
 
+  private static final long serialVersionUID = 1028104779795456485L;
+
   private List<CsdlPropertyRef> key;
 
   private boolean hasStream = false;
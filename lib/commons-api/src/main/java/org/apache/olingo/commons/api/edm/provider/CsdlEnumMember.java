@@ -26,6 +26,8 @@ import java.util.List;
  */
 public class CsdlEnumMember extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = -5106247851015290659L;
+
   private String name;
 
   private String value;
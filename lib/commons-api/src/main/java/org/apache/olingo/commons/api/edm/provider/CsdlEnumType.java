@@ -28,6 +28,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public class CsdlEnumType extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = 9075491304016267046L;
+
   private String name;
 
   private boolean isFlags;
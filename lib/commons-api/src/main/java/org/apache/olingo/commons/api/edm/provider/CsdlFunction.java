@@ -25,6 +25,8 @@ import java.util.List;
  */
 public class CsdlFunction extends CsdlOperation {
 
+  private static final long serialVersionUID = -6925898360220928481L;
+
   private boolean isComposable = false;
 
   /**
@@ -27,6 +27,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public class CsdlFunctionImport extends CsdlOperationImport {
 
+  private static final long serialVersionUID = -572035673731020796L;
+
   private FullQualifiedName function;
 
   // Default include in service document is false for function imports
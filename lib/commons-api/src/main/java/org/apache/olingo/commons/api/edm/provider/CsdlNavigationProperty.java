@@ -28,6 +28,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public class CsdlNavigationProperty extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = -5894039149145097893L;
+
   private String name;
 
   private FullQualifiedName type;
@@ -23,6 +23,8 @@ package org.apache.olingo.commons.api.edm.provider;
  */
 public class CsdlNavigationPropertyBinding extends CsdlAbstractEdmItem {
 
+  private static final long serialVersionUID = 5710889795919683484L;
+
   private String path;
 
   private String target;
@@ -26,6 +26,8 @@ import java.util.List;
  */
 public class CsdlOnDelete extends CsdlAbstractEdmItem implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 2799108099883101649L;
+
   private CsdlOnDeleteAction action = CsdlOnDeleteAction.None;
   
   private List<CsdlAnnotation> annotations = new ArrayList<CsdlAnnotation>();
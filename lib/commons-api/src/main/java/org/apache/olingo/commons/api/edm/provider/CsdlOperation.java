@@ -26,6 +26,8 @@ import java.util.List;
  */
 public abstract class CsdlOperation extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = -3665822313950964846L;
+
   /**
    * The Name.
    */
@@ -26,6 +26,8 @@ import java.util.List;
  */
 public abstract class CsdlOperationImport extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = 7867767567872741359L;
+
   /**
    * The Name.
    */
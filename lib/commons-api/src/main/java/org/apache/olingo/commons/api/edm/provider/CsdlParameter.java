@@ -29,6 +29,8 @@ import org.apache.olingo.commons.api.edm.geo.SRID;
  */
 public class CsdlParameter extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = -9223102116571686170L;
+
   private String name;
 
   private String type;
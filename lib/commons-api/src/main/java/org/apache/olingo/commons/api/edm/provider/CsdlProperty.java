@@ -29,6 +29,8 @@ import org.apache.olingo.commons.api.edm.geo.SRID;
  */
 public class CsdlProperty extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = 7570539309740603685L;
+
   private String name;
 
   private String type;
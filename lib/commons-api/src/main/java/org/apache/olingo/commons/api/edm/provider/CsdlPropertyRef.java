@@ -23,6 +23,8 @@ package org.apache.olingo.commons.api.edm.provider;
  */
 public class CsdlPropertyRef extends CsdlAbstractEdmItem implements CsdlNamed {
 
+  private static final long serialVersionUID = -8388993387393249143L;
+
   private String name;
 
   private String alias;
@@ -26,6 +26,8 @@ import java.util.List;
  */
 public class CsdlReferentialConstraint extends CsdlAbstractEdmItem implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = -4991026984805515327L;
+
   private String property;
 
   private String referencedProperty;
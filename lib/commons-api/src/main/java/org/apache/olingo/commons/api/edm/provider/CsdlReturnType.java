@@ -29,6 +29,8 @@ import org.apache.olingo.commons.api.edm.geo.SRID;
  */
 public class CsdlReturnType extends CsdlAbstractEdmItem implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = -6564036238429144591L;
+
   private String type;
 
   private boolean isCollection;
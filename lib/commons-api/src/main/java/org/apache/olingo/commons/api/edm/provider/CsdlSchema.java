@@ -26,6 +26,8 @@ import java.util.List;
  */
 public class CsdlSchema extends CsdlAbstractEdmItem implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = -9148911506884888078L;
+
   private String namespace;
 
   private String alias;
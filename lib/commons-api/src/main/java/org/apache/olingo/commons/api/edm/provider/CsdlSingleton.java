@@ -27,6 +27,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public class CsdlSingleton extends CsdlBindingTarget {
 
+  private static final long serialVersionUID = 1752216583726233251L;
+
   @Override
   public CsdlSingleton setName(final String name) {
     this.name = name;
@@ -28,6 +28,8 @@ import org.apache.olingo.commons.api.edm.FullQualifiedName;
  */
 public abstract class CsdlStructuralType extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = 3327009258834373390L;
+
   /**
    * The Name.
    */
@@ -28,6 +28,8 @@ import org.apache.olingo.commons.api.edm.geo.SRID;
  */
 public class CsdlTerm extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = 1730405504087350084L;
+
   private String name;
 
   private String type;
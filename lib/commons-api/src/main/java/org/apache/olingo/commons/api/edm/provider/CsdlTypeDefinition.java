@@ -29,6 +29,8 @@ import org.apache.olingo.commons.api.edm.geo.SRID;
  */
 public class CsdlTypeDefinition extends CsdlAbstractEdmItem implements CsdlNamed, CsdlAnnotatable {
 
+  private static final long serialVersionUID = 166567222715450844L;
+
   private String name;
 
   private FullQualifiedName underlyingType;
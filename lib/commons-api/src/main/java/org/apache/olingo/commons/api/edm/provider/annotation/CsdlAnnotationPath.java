@@ -23,6 +23,8 @@ package org.apache.olingo.commons.api.edm.provider.annotation;
  */
 public class CsdlAnnotationPath extends CsdlDynamicExpression {
 
+  private static final long serialVersionUID = -7163228285390889359L;
+
   private String value;
 
   public CsdlAnnotationPath setValue(final String value) {
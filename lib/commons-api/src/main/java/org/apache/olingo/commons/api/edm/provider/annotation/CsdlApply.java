@@ -26,6 +26,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
 
 public class CsdlApply extends CsdlDynamicExpression implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 5833387410684010807L;
+
   private String function;
   private List<CsdlExpression> parameters = new ArrayList<CsdlExpression>();
   private List<CsdlAnnotation> annotations = new ArrayList<CsdlAnnotation>();
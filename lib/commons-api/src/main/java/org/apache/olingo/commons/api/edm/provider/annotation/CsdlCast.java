@@ -31,6 +31,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
  */
 public class CsdlCast extends CsdlDynamicExpression implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = -4813611718183068106L;
+
   private String type;
   private Integer maxLength;
   private Integer precision;
@@ -28,6 +28,8 @@ import java.util.List;
  */
 public class CsdlCollection extends CsdlDynamicExpression {
 
+  private static final long serialVersionUID = 684866361536364650L;
+
   private List<CsdlExpression> items = new ArrayList<CsdlExpression>();
 
   /**
@@ -20,6 +20,8 @@ package org.apache.olingo.commons.api.edm.provider.annotation;
 
 public class CsdlConstantExpression extends CsdlExpression {
 
+  private static final long serialVersionUID = 9170959987457252393L;
+
   private final ConstantExpressionType type;
   private String value;
 
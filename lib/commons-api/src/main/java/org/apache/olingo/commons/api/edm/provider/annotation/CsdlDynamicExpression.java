@@ -22,6 +22,8 @@ import java.util.Collection;
 
 public abstract class CsdlDynamicExpression extends CsdlExpression {
 
+  private static final long serialVersionUID = -7887749891763555832L;
+
   /**
    * Returns true if the expression is a logical expression
    * @return true if the expression is a logical expression
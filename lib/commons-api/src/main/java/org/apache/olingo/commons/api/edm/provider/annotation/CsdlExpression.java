@@ -22,6 +22,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmItem;
 
 public abstract class CsdlExpression extends CsdlAbstractEdmItem {
 
+  private static final long serialVersionUID = 7337354360907438275L;
+
   /**
    * Return true if the expression is constant
    * @return true if the expression is constant
@@ -29,6 +29,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
  */
 public class CsdlIf extends CsdlDynamicExpression implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 3107281163725645351L;
+
   private CsdlExpression guard;
   private CsdlExpression _then;
   private CsdlExpression _else;
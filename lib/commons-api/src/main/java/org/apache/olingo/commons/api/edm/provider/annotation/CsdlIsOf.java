@@ -31,6 +31,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
  */
 public class CsdlIsOf extends CsdlDynamicExpression implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 1256022635777891469L;
+
   private String type;
   private Integer maxLength;
   private Integer precision;
@@ -29,6 +29,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
  */
 public class CsdlLabeledElement extends CsdlDynamicExpression implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 645233521457750658L;
+
   private String name;
   private CsdlExpression value;
   private List<CsdlAnnotation> annotations = new ArrayList<CsdlAnnotation>();
@@ -24,6 +24,8 @@ package org.apache.olingo.commons.api.edm.provider.annotation;
  */
 public class CsdlLabeledElementReference extends CsdlDynamicExpression {
 
+  private static final long serialVersionUID = 7871428701068118190L;
+
   private String value;
 
   /**
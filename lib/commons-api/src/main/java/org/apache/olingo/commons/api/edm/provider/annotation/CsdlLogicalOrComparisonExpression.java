@@ -26,6 +26,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
 
 public class CsdlLogicalOrComparisonExpression extends CsdlDynamicExpression implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 5522771760780449546L;
+
   private final LogicalOrComparisonExpressionType type;
   private CsdlExpression left;
   private CsdlExpression right;
@@ -23,6 +23,9 @@ package org.apache.olingo.commons.api.edm.provider.annotation;
  * built-in abstract type Edm.NavigationPropertyPath
  */
 public class CsdlNavigationPropertyPath extends CsdlDynamicExpression {
+
+  private static final long serialVersionUID = -3381501895192449966L;
+
   
   private String value;
 
@@ -29,6 +29,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
  */
 public class CsdlNull extends CsdlDynamicExpression implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 4108535996551448395L;
+
   private List<CsdlAnnotation> annotations = new ArrayList<CsdlAnnotation>();
 
   @Override
@@ -24,6 +24,9 @@ package org.apache.olingo.commons.api.edm.provider.annotation;
  *  navigation properties of structured types, and properties of structured types.
  */
 public class CsdlPath extends CsdlDynamicExpression {
+
+  private static final long serialVersionUID = -4569332048633232609L;
+
   
   private String value;
 
@@ -24,6 +24,8 @@ package org.apache.olingo.commons.api.edm.provider.annotation;
  */
 public class CsdlPropertyPath extends CsdlDynamicExpression {
 
+  private static final long serialVersionUID = -3615317533220632034L;
+
   private String value;
 
   /**
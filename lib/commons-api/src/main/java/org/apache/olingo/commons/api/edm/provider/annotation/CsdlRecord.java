@@ -30,6 +30,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
  */
 public class CsdlRecord extends CsdlDynamicExpression implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = 4634144894335422304L;
+
   private String type;
   private List<CsdlPropertyValue> propertyValues = new ArrayList<CsdlPropertyValue>();
   private List<CsdlAnnotation> annotations = new ArrayList<CsdlAnnotation>();
@@ -30,6 +30,8 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
  */
 public class CsdlUrlRef extends CsdlDynamicExpression implements CsdlAnnotatable {
 
+  private static final long serialVersionUID = -5855476477838655055L;
+
   private CsdlExpression value;
   private List<CsdlAnnotation> annotations = new ArrayList<CsdlAnnotation>();
 
@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.commons.api.edmx;
 
+import java.io.Serializable;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -29,7 +30,9 @@ import org.apache.olingo.commons.api.edm.provider.CsdlAnnotation;
 /**
  * POJO for Edmx Reference.
  */
-public class EdmxReference implements CsdlAnnotatable{
+public class EdmxReference implements CsdlAnnotatable, Serializable {
+
+  private static final long serialVersionUID = -2817640919185813093L;
 
   private final URI uri;
   private final List<EdmxReferenceInclude> edmxIncludes;
@@ -18,10 +18,13 @@
  */
 package org.apache.olingo.commons.api.edmx;
 
+import java.io.Serializable;
+
 /**
  * edmx:Include elements that specify the schemas to include from the target document.
  */
-public class EdmxReferenceInclude {
+public class EdmxReferenceInclude implements Serializable {
+  private static final long serialVersionUID = 5196441283405946125L;
   private final String namespace;
   private final String alias;
 
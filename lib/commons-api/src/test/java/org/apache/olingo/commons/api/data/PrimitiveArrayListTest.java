@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.commons.api.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PrimitiveArrayListTest {
+
+  @Test
+  public void intElements() {
+    PrimitiveArrayList list = new PrimitiveArrayList(int.class, 1);
+    list.addInt(1);
+    list.addInt(2);
+    list.add(3);
+    assertEquals(3, list.size());
+    assertEquals(2, list.getInt(1));
+    assertEquals(3L, list.getLong(2));
+    assertEquals(Arrays.asList(1, 2, 3), list);
+
+    list.add(0, 0);
+    assertEquals(Integer.valueOf(2), list.remove(2));
+    assertEquals(Integer.valueOf(0), list.set(0, 5));
+    assertEquals(Arrays.asList(5, 1, 3), list);
+    try {
+      list.add(4L);
+      fail("Expected exception not thrown.");
+    } catch (final IllegalArgumentException e) {
+      assertEquals(Arrays.asList(5, 1, 3), list);
+    }
+    try {
+      list.add(null);
+      fail("Expected exception not thrown.");
+    } catch (final IllegalArgumentException e) {
+      assertEquals(3, list.size());
+    }
+  }
+
+  @Test
+  public void otherElements() {
+    PrimitiveArrayList doubles = new PrimitiveArrayList(double.class);
+    doubles.addDouble(1.5);
+    doubles.add(2);
+    assertEquals(Arrays.asList(1.5, 2.0), doubles);
+
+    PrimitiveArrayList booleans = new PrimitiveArrayList(boolean.class);
+    booleans.addBoolean(true);
+    assertTrue(booleans.getBoolean(0));
+    assertEquals(Arrays.asList(true), booleans);
+
+    try {
+      new PrimitiveArrayList(String.class);
+      fail("Expected exception not thrown.");
+    } catch (final IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("String"));
+    }
+  }
+
+  @Test
+  public void unboxedValuable() {
+    Property property = new Property(null, "Number");
+    property.setLongValue(42L);
+    assertEquals(long.class, property.getUnboxedType());
+    assertFalse(property.isNull());
+    assertEquals(42, property.getIntValue());
+    assertEquals(42.0, property.getDoubleValue(), 0);
+    assertEquals(42L, property.getValue());
+    assertEquals(42L, property.asPrimitive());
+    assertEquals(new Property(null, "Number", ValueType.PRIMITIVE, 42L), property);
+
+    property.setValue(ValueType.PRIMITIVE, null);
+    assertNull(property.getUnboxedType());
+    assertTrue(property.isNull());
+  }
+
+  @Test
+  public void isNullUsesGetValue() {
+    Property property = new Property(null, "Number") {
+      @Override
+      public Object getValue() {
+        return null;
+      }
+    };
+    property.setValue(ValueType.PRIMITIVE, 1);
+    assertTrue(property.isNull());
+    // An unboxed value is not null and is checked without boxing it.
+    property.setIntValue(0);
+    assertFalse(property.isNull());
+    property.setType("Edm.Null");
+    assertTrue(property.isNull());
+    // Reading the value does not replace the unboxed value.
+    Property unboxed = new Property(null, "Number");
+    unboxed.setDoubleValue(1.5);
+    assertEquals(1.5, unboxed.getValue());
+    assertEquals(double.class, unboxed.getUnboxedType());
+  }
+}
@@ -19,8 +19,6 @@
 package org.apache.olingo.commons.core.edm.primitivetype;
 
 import java.util.Calendar;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
@@ -29,8 +27,6 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
  */
 public final class EdmDate extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile("(-?\\p{Digit}{4,})-(\\p{Digit}{2})-(\\p{Digit}{2})");
-
   private static final EdmDate INSTANCE = new EdmDate();
 
   public static EdmDate getInstance() {
@@ -47,18 +43,20 @@ public final class EdmDate extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode, final Class<T> returnType) throws EdmPrimitiveTypeException {
 
-    final Calendar dateTimeValue = Calendar.getInstance();
-    dateTimeValue.clear();
-
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()) {
+    // The literal has the form -?YYYY+-MM-DD.
+    final int yearStart = !value.isEmpty() && value.charAt(0) == '-' ? 1 : 0;
+    final int yearEnd = EdmDateTimeOffset.skipDigits(value, yearStart);
+    final int year = EdmDateTimeOffset.parseYear(value, yearStart, yearEnd);
+    final int month = EdmDateTimeOffset.parseDigits(value, yearEnd + 1, yearEnd + 3);
+    final int day = EdmDateTimeOffset.parseDigits(value, yearEnd + 4, yearEnd + 6);
+    if (year < 0 || month < 0 || day < 0 || value.length() != yearEnd + 6
+        || value.charAt(yearEnd) != '-' || value.charAt(yearEnd + 3) != '-') {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
 
-    dateTimeValue.set(
-        Integer.parseInt(matcher.group(1)),
-        Byte.parseByte(matcher.group(2)) - 1, // month is zero-based
-        Byte.parseByte(matcher.group(3)));
+    final Calendar dateTimeValue = Calendar.getInstance();
+    dateTimeValue.clear();
+    dateTimeValue.set(yearStart == 0 ? year : -year, month - 1, day); // month is zero-based
 
     try {
       return EdmDateTimeOffset.convertDateTime(dateTimeValue, 0, returnType);
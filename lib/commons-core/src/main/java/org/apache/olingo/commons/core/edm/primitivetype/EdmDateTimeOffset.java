@@ -23,8 +23,8 @@ import java.sql.Timestamp;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.TimeZone;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
@@ -33,10 +33,10 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
  */
 public final class EdmDateTimeOffset extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(-?\\p{Digit}{4,})-(\\p{Digit}{2})-(\\p{Digit}{2})"
-          + "T(\\p{Digit}{2}):(\\p{Digit}{2})(?::(\\p{Digit}{2})(\\.(\\p{Digit}{0,12}?)0*)?)?"
-          + "(Z|([-+]\\p{Digit}{2}:\\p{Digit}{2}))?");
+  private static final TimeZone GMT = TimeZone.getTimeZone("GMT");
+
+  /** Time zones for fixed offsets, keyed by the offset in minutes; looking them up by ID is expensive. */
+  private static final ConcurrentMap<Integer, TimeZone> TIME_ZONES = new ConcurrentHashMap<Integer, TimeZone>();
 
   private static final EdmDateTimeOffset INSTANCE = new EdmDateTimeOffset();
 
@@ -54,53 +54,44 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode, final Class<T> returnType) throws EdmPrimitiveTypeException {
 
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()) {
+    // The literal has the form -?YYYY+-MM-DDTHH:MM(:SS(.s+)?)?(Z|[+-]HH:MM)?, scanned without regular expressions.
+    final int length = value.length();
+    final int yearStart = length > 0 && value.charAt(0) == '-' ? 1 : 0;
+    int pos = skipDigits(value, yearStart);
+    final int year = parseYear(value, yearStart, pos);
+    if (year < 0
+        || !isChar(value, pos, '-') || !isChar(value, pos + 3, '-') || !isChar(value, pos + 6, 'T')
+        || !isChar(value, pos + 9, ':')) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
-
-    final String timeZoneOffset = matcher.group(9) == null || matcher.group(10) == null
-        || matcher.group(10).matches("[-+]0+:0+") ? "" : matcher.group(10);
-    final Calendar dateTimeValue = Calendar.getInstance(TimeZone.getTimeZone("GMT" + timeZoneOffset));
-    if (dateTimeValue.get(Calendar.ZONE_OFFSET) == 0 && !timeZoneOffset.isEmpty()) {
+    final int month = parseDigits(value, pos + 1, pos + 3);
+    final int day = parseDigits(value, pos + 4, pos + 6);
+    final int hour = parseDigits(value, pos + 7, pos + 9);
+    final int minute = parseDigits(value, pos + 10, pos + 12);
+    pos += 12;
+    int second = 0;
+    int fractionStart = -1;
+    int fractionEnd = -1;
+    if (isChar(value, pos, ':')) {
+      second = parseDigits(value, pos + 1, pos + 3);
+      pos += 3;
+      if (isChar(value, pos, '.')) {
+        fractionStart = pos;
+        fractionEnd = skipDigits(value, pos + 1);
+        pos = fractionEnd;
+      }
+    }
+    final int offsetInMinutes = parseOffset(value, pos);
+    if (month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0 || offsetInMinutes == Integer.MIN_VALUE) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
+
+    final Calendar dateTimeValue = Calendar.getInstance(getTimeZone(offsetInMinutes));
     dateTimeValue.clear();
+    dateTimeValue.set(yearStart == 0 ? year : -year, month - 1, day, hour, minute, second); // month is zero-based
 
-    dateTimeValue.set(
-        Short.parseShort(matcher.group(1)),
-        Byte.parseByte(matcher.group(2)) - 1, // month is zero-based
-        Byte.parseByte(matcher.group(3)),
-        Byte.parseByte(matcher.group(4)),
-        Byte.parseByte(matcher.group(5)),
-        matcher.group(6) == null ? 0 : Byte.parseByte(matcher.group(6)));
-
-    int nanoSeconds = 0;
-    if (matcher.group(7) != null) {
-      if (matcher.group(7).length() == 1 || matcher.group(7).length() > 13) {
-        throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
-      }
-      final String decimals = matcher.group(8);
-      if (decimals.length() > (precision == null ? 0 : precision)) {
-        throw new EdmPrimitiveTypeException("The literal '" + value + "' does not match the facets' constraints.");
-      }
-      if (returnType.isAssignableFrom(Timestamp.class)) {
-        if (decimals.length() <= 9) {
-          nanoSeconds = Integer.parseInt(decimals + "000000000".substring(decimals.length()));
-        } else {
-          throw new EdmPrimitiveTypeException("The literal '" + value
-              + "' cannot be converted to value type " + returnType + ".");
-        }
-      } else {
-        if (decimals.length() <= 3) {
-          final String milliSeconds = decimals + "000".substring(decimals.length());
-          dateTimeValue.set(Calendar.MILLISECOND, Short.parseShort(milliSeconds));
-        } else {
-          throw new EdmPrimitiveTypeException("The literal '" + value
-              + "' cannot be converted to value type " + returnType + ".");
-        }
-      }
-    }
+    final int nanoSeconds = fractionStart < 0 ? 0 :
+        parseFractionalSeconds(value, fractionStart, fractionEnd, precision, returnType, dateTimeValue);
 
     try {
       return convertDateTime(dateTimeValue, nanoSeconds, returnType);
@@ -111,6 +102,136 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
     }
   }
 
+  /**
+   * Parses the fractional seconds of a date/time literal and either returns them as nanoseconds
+   * (for the {@link Timestamp} return type) or sets them as milliseconds in the given {@link Calendar}.
+   * @param value the literal
+   * @param start the position of the decimal point
+   * @param end the position after the last digit
+   * @param precision the upper limit for decimal digits (optional, defaults to zero)
+   * @param returnType the class of the value to be returned
+   * @param dateTimeValue the calendar to set the milliseconds in
+   * @return the nanoseconds, or zero if they have been set as milliseconds
+   * @throws EdmPrimitiveTypeException if the fractional seconds are not valid
+   */
+  protected static int parseFractionalSeconds(final String value, final int start, final int end,
+      final Integer precision, final Class<?> returnType, final Calendar dateTimeValue)
+      throws EdmPrimitiveTypeException {
+    if (end - start == 1 || end - start > 13) {
+      throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+    }
+    int significantEnd = end;
+    while (significantEnd > start + 1 && value.charAt(significantEnd - 1) == '0') {
+      significantEnd--;
+    }
+    final int decimals = significantEnd - start - 1;
+    if (decimals > (precision == null ? 0 : precision)) {
+      throw new EdmPrimitiveTypeException("The literal '" + value + "' does not match the facets' constraints.");
+    }
+    final boolean isNano = returnType.isAssignableFrom(Timestamp.class);
+    if (decimals > (isNano ? 9 : 3)) {
+      throw new EdmPrimitiveTypeException("The literal '" + value
+          + "' cannot be converted to value type " + returnType + ".");
+    }
+    int fractionalSeconds = parseDigits(value, start + 1, significantEnd);
+    for (int digits = decimals; digits < (isNano ? 9 : 3); digits++) {
+      fractionalSeconds *= 10;
+    }
+    if (isNano) {
+      return fractionalSeconds;
+    } else {
+      dateTimeValue.set(Calendar.MILLISECOND, fractionalSeconds);
+      return 0;
+    }
+  }
+
+  /**
+   * Parses the decimal digits between the given positions.
+   * @return the nonnegative value, or -1 if the positions are out of range or there is a non-digit character
+   */
+  protected static int parseDigits(final String value, final int start, final int end) {
+    if (start < 0 || end > value.length()) {
+      return -1;
+    }
+    int result = 0;
+    for (int i = start; i < end; i++) {
+      final char c = value.charAt(i);
+      if (c < '0' || c > '9') {
+        return -1;
+      }
+      result = result * 10 + (c - '0');
+    }
+    return result;
+  }
+
+  /** Returns the position of the first non-digit character at or after the given position. */
+  protected static int skipDigits(final String value, final int start) {
+    int pos = start;
+    while (pos < value.length() && value.charAt(pos) >= '0' && value.charAt(pos) <= '9') {
+      pos++;
+    }
+    return pos;
+  }
+
+  /**
+   * Parses a year of at least four digits.
+   * @return the year, or -1 if it has not enough or too many digits
+   */
+  protected static int parseYear(final String value, final int start, final int end) {
+    return end - start < 4 || end - start > 9 ? -1 : parseDigits(value, start, end);
+  }
+
+  protected static boolean isChar(final String value, final int pos, final char c) {
+    return pos < value.length() && value.charAt(pos) == c;
+  }
+
+  /**
+   * Parses the time-zone offset at the end of a date/time literal.
+   * @return the offset in minutes (zero if there is none), or {@link Integer#MIN_VALUE} if it is not valid
+   */
+  private static int parseOffset(final String value, final int pos) {
+    final int length = value.length();
+    if (pos == length) {
+      return 0;
+    } else if (pos == length - 1 && value.charAt(pos) == 'Z') {
+      return 0;
+    } else if (pos == length - 6 && (value.charAt(pos) == '+' || value.charAt(pos) == '-')
+        && value.charAt(pos + 3) == ':') {
+      final int hours = parseDigits(value, pos + 1, pos + 3);
+      final int minutes = parseDigits(value, pos + 4, pos + 6);
+      if (hours >= 0 && hours <= 23 && minutes >= 0 && minutes <= 59) {
+        return (value.charAt(pos) == '-' ? -1 : 1) * (hours * 60 + minutes);
+      }
+    }
+    return Integer.MIN_VALUE;
+  }
+
+  /**
+   * Returns a time zone with the given fixed offset from GMT.
+   * The instances are cached; each call returns a copy because time zones are mutable.
+   */
+  private static TimeZone getTimeZone(final int offsetInMinutes) {
+    if (offsetInMinutes == 0) {
+      return (TimeZone) GMT.clone();
+    }
+    TimeZone timeZone = TIME_ZONES.get(offsetInMinutes);
+    if (timeZone == null) {
+      final StringBuilder id = new StringBuilder(9).append("GMT");
+      appendOffset(id, offsetInMinutes);
+      timeZone = TimeZone.getTimeZone(id.toString());
+      TIME_ZONES.putIfAbsent(offsetInMinutes, timeZone);
+    }
+    return (TimeZone) timeZone.clone();
+  }
+
+  /** Appends the given offset in the form [+-]HH:MM. */
+  private static void appendOffset(final StringBuilder result, final int offsetInMinutes) {
+    result.append(offsetInMinutes < 0 ? '-' : '+');
+    appendTwoDigits(result, Math.abs(offsetInMinutes) / 60);
+    result.append(':');
+    appendTwoDigits(result, Math.abs(offsetInMinutes) % 60);
+  }
+
   /**
    * <p>Converts a {@link Calendar} value into the requested return type if possible.</p>
    * <p>It is expected that the {@link Calendar} value will already be in the desired time zone.</p>
@@ -172,7 +293,7 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
 
     final Calendar dateTimeValue = createDateTime(value, false);
 
-    StringBuilder result = new StringBuilder();
+    final StringBuilder result = new StringBuilder(29); // enough for nanoseconds and an offset
     final int year = dateTimeValue.get(Calendar.YEAR);
     appendTwoDigits(result, year / 100);
     appendTwoDigits(result, year % 100);
@@ -198,10 +319,11 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
 
     final int offsetInMinutes = (dateTimeValue.get(Calendar.ZONE_OFFSET)
         + dateTimeValue.get(Calendar.DST_OFFSET)) / 60 / 1000;
-    final int offsetHours = offsetInMinutes / 60;
-    final int offsetMinutes = Math.abs(offsetInMinutes % 60);
-    final String offsetString = offsetInMinutes == 0 ? "Z" : String.format("%+03d:%02d", offsetHours, offsetMinutes);
-    result.append(offsetString);
+    if (offsetInMinutes == 0) {
+      result.append('Z');
+    } else {
+      appendOffset(result, offsetInMinutes);
+    }
 
     return result.toString();
   }
@@ -217,12 +339,12 @@ public final class EdmDateTimeOffset extends SingletonPrimitiveType {
   protected static <T> Calendar createDateTime(final T value, final boolean isLocal) throws EdmPrimitiveTypeException {
     Calendar dateTimeValue;
     if (value instanceof Date) {
-      dateTimeValue = Calendar.getInstance(isLocal ? TimeZone.getDefault() : TimeZone.getTimeZone("GMT"));
+      dateTimeValue = Calendar.getInstance(isLocal ? TimeZone.getDefault() : GMT);
       dateTimeValue.setTime((Date) value);
     } else if (value instanceof Calendar) {
       dateTimeValue = (Calendar) ((Calendar) value).clone();
     } else if (value instanceof Long) {
-      dateTimeValue = Calendar.getInstance(isLocal ? TimeZone.getDefault() : TimeZone.getTimeZone("GMT"));
+      dateTimeValue = Calendar.getInstance(isLocal ? TimeZone.getDefault() : GMT);
       dateTimeValue.setTimeInMillis((Long) value);
     } else {
       throw new EdmPrimitiveTypeException("The value type " + value.getClass() + " is not supported.");
@@ -20,8 +20,6 @@ package org.apache.olingo.commons.core.edm.primitivetype;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
@@ -31,8 +29,6 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
  */
 public final class EdmDecimal extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile("(?:\\+|-)?(?:0*(\\p{Digit}+?))(?:\\.(\\p{Digit}+?)0*)?");
-
   private static final EdmDecimal INSTANCE = new EdmDecimal();
 
   public static EdmDecimal getInstance() {
@@ -66,17 +62,39 @@ public final class EdmDecimal extends SingletonPrimitiveType {
         : validateLiteral(value) && validatePrecisionAndScale(value, precision, scale);
   }
 
+  /** Checks for the form [+-]?digits(.digits)?. */
   private static boolean validateLiteral(final String value) {
-    return PATTERN.matcher(value).matches();
+    final int start = value.startsWith("+") || value.startsWith("-") ? 1 : 0;
+    final int integerEnd = EdmDateTimeOffset.skipDigits(value, start);
+    if (integerEnd == start) {
+      return false;
+    } else if (integerEnd == value.length()) {
+      return true;
+    } else {
+      return value.charAt(integerEnd) == '.' && integerEnd + 1 < value.length()
+          && EdmDateTimeOffset.skipDigits(value, integerEnd + 1) == value.length();
+    }
   }
 
   private static boolean validatePrecisionAndScale(final String value, final Integer precision,
       final Integer scale) {
 
-    final Matcher matcher = PATTERN.matcher(value);
-    matcher.matches();
-    final int significantIntegerDigits = matcher.group(1).equals("0") ? 0 : matcher.group(1).length();
-    final int decimals = matcher.group(2) == null ? 0 : matcher.group(2).length();
+    // Leading zeroes in the integer part and trailing zeroes in the decimals part are not significant,
+    // but the decimals part has at least one digit if there is a decimal point.
+    int pos = value.startsWith("+") || value.startsWith("-") ? 1 : 0;
+    while (pos < value.length() && value.charAt(pos) == '0') {
+      pos++;
+    }
+    final int integerEnd = EdmDateTimeOffset.skipDigits(value, pos);
+    final int significantIntegerDigits = integerEnd - pos;
+    int decimals = 0;
+    if (integerEnd < value.length()) {
+      int end = value.length();
+      while (end > integerEnd + 2 && value.charAt(end - 1) == '0') {
+        end--;
+      }
+      decimals = end - integerEnd - 1;
+    }
     return (precision == null || precision >= significantIntegerDigits + decimals)
         && (decimals <= (scale == null ? 0 : scale));
   }
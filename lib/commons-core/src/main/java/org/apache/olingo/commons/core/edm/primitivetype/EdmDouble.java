@@ -19,7 +19,6 @@
 package org.apache.olingo.commons.core.edm.primitivetype;
 
 import java.math.BigDecimal;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
@@ -35,9 +34,6 @@ public final class EdmDouble extends SingletonPrimitiveType {
 
   protected static final String NaN = "NaN";
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(?:\\+|-)?\\p{Digit}{1,17}(?:\\.\\p{Digit}{1,17})?(?:(?:E|e)(?:\\+|-)?\\p{Digit}{1,3})?");
-
   private static final EdmDouble INSTANCE = new EdmDouble();
 
   public static EdmDouble getInstance() {
@@ -76,7 +72,7 @@ public final class EdmDouble extends SingletonPrimitiveType {
       result = Double.NaN;
     } else {
       // Now only "normal" numbers remain.
-      if (!PATTERN.matcher(value).matches()) {
+      if (!isNumber(value, 17, 3)) {
         throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
       }
 
@@ -111,6 +107,36 @@ public final class EdmDouble extends SingletonPrimitiveType {
     }
   }
 
+  /**
+   * Checks for the form [+-]?digits(.digits)?([Ee][+-]?digits)? of a floating-point literal.
+   * @param value the literal
+   * @param maxDigits the maximum number of digits in the integer part and in the decimals part
+   * @param maxExponentDigits the maximum number of digits in the exponent
+   */
+  protected static boolean isNumber(final String value, final int maxDigits, final int maxExponentDigits) {
+    final int length = value.length();
+    int start = length > 0 && (value.charAt(0) == '+' || value.charAt(0) == '-') ? 1 : 0;
+    int end = EdmDateTimeOffset.skipDigits(value, start);
+    if (end == start || end - start > maxDigits) {
+      return false;
+    }
+    if (end < length && value.charAt(end) == '.') {
+      start = end + 1;
+      end = EdmDateTimeOffset.skipDigits(value, start);
+      if (end == start || end - start > maxDigits) {
+        return false;
+      }
+    }
+    if (end < length && (value.charAt(end) == 'E' || value.charAt(end) == 'e')) {
+      start = end + 1 < length && (value.charAt(end + 1) == '+' || value.charAt(end + 1) == '-') ? end + 2 : end + 1;
+      end = EdmDateTimeOffset.skipDigits(value, start);
+      if (end == start || end - start > maxExponentDigits) {
+        return false;
+      }
+    }
+    return end == length;
+  }
+
   @Override
   protected <T> String internalValueToString(final T value,
       final Boolean isNullable, final Integer maxLength, final Integer precision,
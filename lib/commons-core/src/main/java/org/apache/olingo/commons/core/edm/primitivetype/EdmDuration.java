@@ -20,17 +20,11 @@ package org.apache.olingo.commons.core.edm.primitivetype;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
 public class EdmDuration extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "[-+]?P(?:(\\p{Digit}+)D)?(?:T(?:(\\p{Digit}+)H)?(?:(\\p{Digit}+)M)?"
-          + "(?:(\\p{Digit}+(?:\\.(?:\\p{Digit}+?)0*)?)S)?)?");
-
   private static final EdmDuration INSTANCE = new EdmDuration();
 
   {
@@ -52,20 +46,44 @@ public class EdmDuration extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode, final Class<T> returnType) throws EdmPrimitiveTypeException {
 
-    final Matcher matcher = PATTERN.matcher(value);
-    if (!matcher.matches()
-        || matcher.group(1) == null && matcher.group(2) == null && matcher.group(3) == null
-        && matcher.group(4) == null) {
+    // The literal has the form [-+]?P(nD)?(T(nH)?(nM)?(n(.n)?S)?)?, with at least one component.
+    final int length = value.length();
+    int pos = length > 0 && (value.charAt(0) == '-' || value.charAt(0) == '+') ? 1 : 0;
+    if (!EdmDateTimeOffset.isChar(value, pos, 'P')) {
+      throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
+    }
+    pos++;
+    BigDecimal result = null;
+    int end = EdmDateTimeOffset.skipDigits(value, pos);
+    if (end > pos && EdmDateTimeOffset.isChar(value, end, 'D')) {
+      result = add(result, value.substring(pos, end), 24 * 60 * 60);
+      pos = end + 1;
+    }
+    if (EdmDateTimeOffset.isChar(value, pos, 'T')) {
+      pos++;
+      end = EdmDateTimeOffset.skipDigits(value, pos);
+      if (end > pos && EdmDateTimeOffset.isChar(value, end, 'H')) {
+        result = add(result, value.substring(pos, end), 60 * 60);
+        pos = end + 1;
+        end = EdmDateTimeOffset.skipDigits(value, pos);
+      }
+      if (end > pos && EdmDateTimeOffset.isChar(value, end, 'M')) {
+        result = add(result, value.substring(pos, end), 60);
+        pos = end + 1;
+        end = EdmDateTimeOffset.skipDigits(value, pos);
+      }
+      if (end > pos && EdmDateTimeOffset.isChar(value, end, '.')
+          && EdmDateTimeOffset.skipDigits(value, end + 1) > end + 1) {
+        end = EdmDateTimeOffset.skipDigits(value, end + 1);
+      }
+      if (end > pos && EdmDateTimeOffset.isChar(value, end, 'S')) {
+        result = add(result, value.substring(pos, end), 1);
+        pos = end + 1;
+      }
+    }
+    if (result == null || pos != length) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
     }
-
-    BigDecimal result = (matcher.group(1) == null ? BigDecimal.ZERO
-        : new BigDecimal(matcher.group(1)).multiply(BigDecimal.valueOf(24 * 60 * 60))).
-        add(matcher.group(2) == null ? BigDecimal.ZERO
-            : new BigDecimal(matcher.group(2)).multiply(BigDecimal.valueOf(60 * 60))).
-            add(matcher.group(3) == null ? BigDecimal.ZERO
-                : new BigDecimal(matcher.group(3)).multiply(BigDecimal.valueOf(60))).
-                add(matcher.group(4) == null ? BigDecimal.ZERO : new BigDecimal(matcher.group(4)));
 
     if (result.scale() <= (precision == null ? 0 : precision)) {
       result = value.charAt(0) == '-' ? result.negate() : result;
@@ -83,6 +101,13 @@ public class EdmDuration extends SingletonPrimitiveType {
     }
   }
 
+  private static BigDecimal add(final BigDecimal sum, final String number, final int factor) {
+    final BigDecimal value = factor == 1 ?
+        new BigDecimal(number) :
+        new BigDecimal(number).multiply(BigDecimal.valueOf(factor));
+    return sum == null ? value : sum.add(value);
+  }
+
   @Override
   protected <T> String internalValueToString(final T value,
       final Boolean isNullable, final Integer maxLength, final Integer precision,
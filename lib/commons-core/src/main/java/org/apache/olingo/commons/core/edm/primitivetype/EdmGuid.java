@@ -27,8 +27,6 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
  */
 public final class EdmGuid extends SingletonPrimitiveType {
 
-  private static final String PATTERN = "\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}";
-
   private static final EdmGuid INSTANCE = new EdmGuid();
 
   public static EdmGuid getInstance() {
@@ -47,8 +45,20 @@ public final class EdmGuid extends SingletonPrimitiveType {
     return value == null ? isNullable == null || isNullable : validateLiteral(value);
   }
 
+  /** Checks for the form 8-4-4-4-12 of hexadecimal digits. */
   private boolean validateLiteral(final String value) {
-    return value.matches(PATTERN);
+    if (value.length() != 36) {
+      return false;
+    }
+    for (int i = 0; i < 36; i++) {
+      final char c = value.charAt(i);
+      if (i == 8 || i == 13 || i == 18 || i == 23
+          ? c != '-'
+          : (c < '0' || c > '9') && (c < 'a' || c > 'f') && (c < 'A' || c > 'F')) {
+        return false;
+      }
+    }
+    return true;
   }
 
   @Override
@@ -19,7 +19,6 @@
 package org.apache.olingo.commons.core.edm.primitivetype;
 
 import java.math.BigDecimal;
-import java.util.regex.Pattern;
 
 import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
@@ -29,9 +28,6 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
  */
 public final class EdmSingle extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN = Pattern.compile(
-      "(?:\\+|-)?\\p{Digit}{1,9}(?:\\.\\p{Digit}{1,9})?(?:(?:E|e)(?:\\+|-)?\\p{Digit}{1,2})?");
-
   private static final EdmSingle INSTANCE = new EdmSingle();
 
   public static EdmSingle getInstance() {
@@ -69,7 +65,7 @@ public final class EdmSingle extends SingletonPrimitiveType {
       result = Float.NaN;
     } else {
       // Now only "normal" numbers remain.
-      if (!PATTERN.matcher(value).matches()) {
+      if (!EdmDouble.isNumber(value, 9, 2)) {
         throw new EdmPrimitiveTypeException("The literal '" + value + "' has illegal content.");
       }
 
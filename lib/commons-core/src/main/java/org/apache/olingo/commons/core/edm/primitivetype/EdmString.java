@@ -18,8 +18,6 @@
  */
 package org.apache.olingo.commons.core.edm.primitivetype;
 
-import java.util.regex.Pattern;
-
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
 
 /**
@@ -27,8 +25,6 @@ import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
  */
 public final class EdmString extends SingletonPrimitiveType {
 
-  private static final Pattern PATTERN_ASCII = Pattern.compile("\\p{ASCII}*");
-
   private static final EdmString INSTANCE = new EdmString();
 
   {
@@ -50,7 +46,7 @@ public final class EdmString extends SingletonPrimitiveType {
       final Boolean isNullable, final Integer maxLength, final Integer precision,
       final Integer scale, final Boolean isUnicode, final Class<T> returnType) throws EdmPrimitiveTypeException {
 
-    if (isUnicode != null && !isUnicode && !PATTERN_ASCII.matcher(value).matches()
+    if (isUnicode != null && !isUnicode && !isAscii(value)
         || maxLength != null && maxLength < value.length()) {
       throw new EdmPrimitiveTypeException("The literal '" + value + "' does not match the facets' constraints.");
     }
@@ -69,7 +65,7 @@ public final class EdmString extends SingletonPrimitiveType {
 
     final String result = value instanceof String ? (String) value : String.valueOf(value);
 
-    if (isUnicode != null && !isUnicode && !PATTERN_ASCII.matcher(result).matches()
+    if (isUnicode != null && !isUnicode && !isAscii(result)
         || maxLength != null && maxLength < result.length()) {
       throw new EdmPrimitiveTypeException("The value '" + value + "' does not match the facets' constraints.");
     }
@@ -77,6 +73,15 @@ public final class EdmString extends SingletonPrimitiveType {
     return result;
   }
 
+  private static boolean isAscii(final String value) {
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > 0x7F) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   @Override
   public String toUriLiteral(final String literal) {
     if (literal == null) {
@@ -146,6 +146,14 @@ public class EdmDateTimeOffsetTest extends PrimitiveTypeBaseTest {
     expectContentErrorInValueOfString(instance, "2012-02-30T01:02:03");
     expectContentErrorInValueOfString(instance, "2012-02-29T23:32:02.");
     expectContentErrorInValueOfString(instance, "2012-02-29T23:32:02.0000000000000");
+    expectContentErrorInValueOfString(instance, "2012-02-29T23:32:02+01:60");
+    expectContentErrorInValueOfString(instance, "2012-02-29T23:32:02+0100");
+    expectContentErrorInValueOfString(instance, "2012-02-29T23:32:02Z ");
+    expectContentErrorInValueOfString(instance, "2012-02-29T23:32.5");
+    expectContentErrorInValueOfString(instance, "2012-02-29T23");
+    expectContentErrorInValueOfString(instance, "2012-02-29 23:32:02");
+    expectContentErrorInValueOfString(instance, "12345678901-02-29T23:32:02");
+    expectContentErrorInValueOfString(instance, "");
 
     expectUnconvertibleErrorInValueOfString(instance, "2012-02-29T23:32:02.1234", Calendar.class);
     expectUnconvertibleErrorInValueOfString(instance, "2012-02-29T23:32:02.0123456789", Timestamp.class);
@@ -113,6 +113,8 @@ public class EdmDecimalTest extends PrimitiveTypeBaseTest {
     expectContentErrorInValueOfString(instance, "1.0.1");
     expectContentErrorInValueOfString(instance, "1M");
     expectContentErrorInValueOfString(instance, "0x42");
+    expectContentErrorInValueOfString(instance, "+");
+    expectContentErrorInValueOfString(instance, "+-1");
 
     expectUnconvertibleErrorInValueOfString(instance, "-129", Byte.class);
     expectUnconvertibleErrorInValueOfString(instance, "128", Byte.class);
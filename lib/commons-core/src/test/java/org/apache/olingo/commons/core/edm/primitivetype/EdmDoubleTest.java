@@ -106,6 +106,9 @@ public class EdmDoubleTest extends PrimitiveTypeBaseTest {
     expectContentErrorInValueOfString(instance, "42.42.42");
     expectContentErrorInValueOfString(instance, "42F");
     expectContentErrorInValueOfString(instance, "0x42P42");
+    expectContentErrorInValueOfString(instance, "42E");
+    expectContentErrorInValueOfString(instance, "42E+");
+    expectContentErrorInValueOfString(instance, "42E1234");
 
     expectUnconvertibleErrorInValueOfString(instance, "INF", BigDecimal.class);
     expectUnconvertibleErrorInValueOfString(instance, "NaN", BigDecimal.class);
@@ -92,6 +92,10 @@ public class EdmDurationTest extends PrimitiveTypeBaseTest {
     expectContentErrorInValueOfString(instance, "P2012Y2M29DT23H32M2S");
     expectContentErrorInValueOfString(instance, "PT-1H");
     expectContentErrorInValueOfString(instance, "PT");
+    expectContentErrorInValueOfString(instance, "P");
+    expectContentErrorInValueOfString(instance, "PT1.S");
+    expectContentErrorInValueOfString(instance, "PT1M1H");
+    expectContentErrorInValueOfString(instance, "P1DT1H ");
 
     expectUnconvertibleErrorInValueOfString(instance, "-PT2M9S", Byte.class);
     expectUnconvertibleErrorInValueOfString(instance, "PT2M8S", Byte.class);
@@ -62,6 +62,9 @@ public class EdmGuidTest extends PrimitiveTypeBaseTest {
         UUID.class));
 
     expectContentErrorInValueOfString(instance, "AABBCCDDAABBCCDDEEFFAABBCCDDEEFF");
+    expectContentErrorInValueOfString(instance, "AABBCCDD-AABB-CCDD-EEFF-AABBCCDDEEFG");
+    expectContentErrorInValueOfString(instance, "AABBCCDDA-ABB-CCDD-EEFF-AABBCCDDEEFF");
+    expectContentErrorInValueOfString(instance, "AABBCCDD-AABB-CCDD-EEFF-AABBCCDDEEFF0");
 
     expectTypeErrorInValueOfString(instance, uuid.toString());
   }
@@ -115,6 +115,9 @@ public class EdmTimeOfDayTest extends PrimitiveTypeBaseTest {
     expectContentErrorInValueOfString(instance, "11:12:13.0.1");
     expectContentErrorInValueOfString(instance, "11:12:13.");
     expectContentErrorInValueOfString(instance, "11:12:13.0000000000000");
+    expectContentErrorInValueOfString(instance, "11:12:");
+    expectContentErrorInValueOfString(instance, "11:12.5");
+    expectContentErrorInValueOfString(instance, "11-12");
 
     expectTypeErrorInValueOfString(instance, "11:12:13");
   }
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Media content of known length, e.g., of a media entity or a stream property, set as response body with
+ * {@link ODataResponse#setMediaContent(MediaContent)}.
+ * <p>
+ * In contrast to an {@link InputStream} set as content, media content is transferred directly from its source
+ * to the connection, without copying it through the Java heap where the platform allows, and parts of it
+ * can be requested with the HTTP header <code>Range</code>.
+ * @see OData#createMediaContent(File)
+ */
+public interface MediaContent {
+
+  /**
+   * Gets the length of the content.
+   * @return the number of bytes
+   */
+  long getLength();
+
+  /**
+   * Transfers a part of the content to the given channel.
+   * @param position the position of the first byte to transfer, counted from zero
+   * @param count    the number of bytes to transfer
+   * @param target   the channel to write to; it is not closed
+   * @return the number of bytes transferred, less than <code>count</code> only at the end of the content
+   * @throws IOException if the content cannot be read or written
+   */
+  long transferTo(long position, long count, WritableByteChannel target) throws IOException;
+
+  /**
+   * Gets the whole content as stream, e.g., to include it in a batch response.
+   * @return a new stream the caller has to close
+   * @throws IOException if the content cannot be read
+   */
+  InputStream getContent() throws IOException;
+
+  /**
+   * Gets the file the content is stored in, if any.
+   * The file allows the application server to send the content with zero-copy operations of the platform.
+   * @return the file or <code>null</code>
+   */
+  File getFile();
+}
@@ -18,6 +18,7 @@
  */
 package org.apache.olingo.server.api;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.List;
 
@@ -27,12 +28,15 @@ import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.async.AsyncOptions;
+import org.apache.olingo.server.api.async.AsyncSupport;
 import org.apache.olingo.server.api.debug.DebugResponseHelper;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.FixedFormatDeserializer;
 import org.apache.olingo.server.api.deserializer.ODataDeserializer;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.paging.SkipTokenHelper;
 import org.apache.olingo.server.api.prefer.Preferences;
 import org.apache.olingo.server.api.serializer.FixedFormatSerializer;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
@@ -92,6 +96,8 @@ public abstract class OData {
 
   /**
    * Creates a new ODataHttpHandler for handling OData requests in an HTTP context.
+   * The handler can be created once, e.g., in the <code>init</code> method of a servlet,
+   * and shared by all threads once processors and extensions have been registered.
    *
    * @param serviceMetadata - metadata object required to handle an OData request
    */
@@ -161,6 +167,15 @@ public abstract class OData {
    */
   public abstract ETagHelper createETagHelper();
 
+  /**
+   * Creates a new skip-token helper object for keyset pagination.
+   * It can be used in Processor implementations.
+   * @param secret the key used to sign the skip tokens;
+   *               it has to be the same for all instances serving the same service
+   * @return a skip-token helper
+   */
+  public abstract SkipTokenHelper createSkipTokenHelper(byte[] secret);
+
   /**
    * Creates a new Preferences object out of Prefer HTTP request headers.
    * It can be used in Processor implementations.
@@ -175,4 +190,23 @@ public abstract class OData {
    * @return a debug-response helper
    */
   public abstract DebugResponseHelper createDebugResponseHelper(String debugFormat);
+
+  /**
+   * Creates the asynchronous processing of requests with the preference <code>respond-async</code>.
+   * It has to be registered at the handlers that should use it.
+   * @param options options for the asynchronous processing
+   * @return the asynchronous processing
+   * @see ODataHttpHandler#register(AsyncSupport)
+   */
+  public abstract AsyncSupport createAsyncSupport(AsyncOptions options);
+
+  /**
+   * Creates media content for a response body stored in a file.
+   * Responses with such content are sent with zero-copy operations where possible
+   * and support requests for byte ranges.
+   * @param file the file; it is read each time the content is sent
+   * @return the media content
+   * @see ODataResponse#setMediaContent(MediaContent)
+   */
+  public abstract MediaContent createMediaContent(File file);
 }
@@ -21,12 +21,19 @@ package org.apache.olingo.server.api;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.cache.ResponseCache;
+import org.apache.olingo.server.api.compression.HttpCompression;
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.ODataMetrics;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 
 /**
- * Handles HTTP requests as OData requests.
+ * <p>Handles HTTP requests as OData requests.</p>
+ * <p>A handler keeps no state of the requests it processes, so one instance can serve
+ * all threads of a servlet. Register processors and extensions before the first request;
+ * registered processors are then shared between threads and must be thread-safe themselves.</p>
  */
 public interface ODataHttpHandler extends ODataHandler {
 
@@ -53,6 +60,32 @@ public interface ODataHttpHandler extends ODataHandler {
    */
   void register(DebugSupport debugSupport);
 
+  /**
+   * Registers the asynchronous processing of requests with the preference <code>respond-async</code>.
+   * @param asyncSupport asynchronous processing to register
+   * @see OData#createAsyncSupport(org.apache.olingo.server.api.async.AsyncOptions)
+   */
+  void register(AsyncSupport asyncSupport);
+
+  /**
+   * Registers the receiver of timings and payload sizes.
+   * @param metrics receiver to register
+   * @see org.apache.olingo.server.api.metrics.HistogramMetrics
+   */
+  void register(ODataMetrics metrics);
+
+  /**
+   * Registers a cache for the responses of read requests.
+   * @param responseCache the cache, or <code>null</code> to stop caching
+   */
+  void register(ResponseCache responseCache);
+
+  /**
+   * Registers support for compressed request and response content.
+   * @param compression the compression support, or <code>null</code> to send and accept only uncompressed content
+   */
+  void register(HttpCompression compression);
+
   /**
    * Registers a service implementation for modifying the standard list of supported
    * content types.
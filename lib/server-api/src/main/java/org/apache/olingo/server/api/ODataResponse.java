@@ -140,4 +140,22 @@ public class ODataResponse {
   public ODataContent getODataContent() {
     return odataContent;
   }
+  private MediaContent mediaContent;
+
+  /**
+   * Sets media content as body. It is sent directly from its source and
+   * supports requests for byte ranges; see {@link MediaContent}.
+   * @param mediaContent the media content
+   */
+  public void setMediaContent(final MediaContent mediaContent) {
+    this.mediaContent = mediaContent;
+  }
+
+  /**
+   * Gets the media content.
+   * @return the media content or <code>null</code> if the body has been set otherwise
+   */
+  public MediaContent getMediaContent() {
+    return mediaContent;
+  }
 }
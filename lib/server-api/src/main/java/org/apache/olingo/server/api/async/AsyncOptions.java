@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.async;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/** Options for the asynchronous processing of requests. */
+public class AsyncOptions {
+  private int threads = 4;
+  private int queueCapacity = 100;
+  private long resultExpiryMillis = TimeUnit.MINUTES.toMillis(10);
+  private int memoryThreshold = 1024 * 1024;
+  private File spillDirectory;
+
+  /** Gets the number of worker threads; the default is 4. */
+  public int getThreads() {
+    return threads;
+  }
+
+  /** Gets the number of requests that may wait for a worker thread; the default is 100. */
+  public int getQueueCapacity() {
+    return queueCapacity;
+  }
+
+  /**
+   * Gets the time in milliseconds a result is kept after the request has been completed;
+   * the default is ten minutes.
+   */
+  public long getResultExpiryMillis() {
+    return resultExpiryMillis;
+  }
+
+  /** Gets the size in bytes above which request and response bodies are stored in files; the default is one MiB. */
+  public int getMemoryThreshold() {
+    return memoryThreshold;
+  }
+
+  /** Gets the directory for the files of large bodies; <code>null</code> for the default directory. */
+  public File getSpillDirectory() {
+    return spillDirectory;
+  }
+
+  private AsyncOptions() {}
+
+  /** Initializes the options builder. */
+  public static Builder with() {
+    return new Builder();
+  }
+
+  /** Builder of options for the asynchronous processing. */
+  public static final class Builder {
+
+    private final AsyncOptions options;
+
+    private Builder() {
+      options = new AsyncOptions();
+    }
+
+    /** Sets the number of worker threads. */
+    public Builder threads(final int threads) {
+      if (threads < 1) {
+        throw new IllegalArgumentException("At least one thread is required.");
+      }
+      options.threads = threads;
+      return this;
+    }
+
+    /** Sets the number of requests that may wait for a worker thread. */
+    public Builder queueCapacity(final int queueCapacity) {
+      if (queueCapacity < 1) {
+        throw new IllegalArgumentException("The queue capacity must be positive.");
+      }
+      options.queueCapacity = queueCapacity;
+      return this;
+    }
+
+    /** Sets the time a result is kept after the request has been completed. */
+    public Builder resultExpiry(final long duration, final TimeUnit unit) {
+      options.resultExpiryMillis = unit.toMillis(duration);
+      return this;
+    }
+
+    /** Sets the size in bytes above which request and response bodies are stored in files. */
+    public Builder memoryThreshold(final int memoryThreshold) {
+      options.memoryThreshold = memoryThreshold;
+      return this;
+    }
+
+    /** Sets the directory for the files of large bodies. */
+    public Builder spillDirectory(final File spillDirectory) {
+      options.spillDirectory = spillDirectory;
+      return this;
+    }
+
+    /** Builds the options. */
+    public AsyncOptions build() {
+      return options;
+    }
+  }
+}
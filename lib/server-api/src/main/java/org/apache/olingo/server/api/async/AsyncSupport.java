@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.async;
+
+import java.io.IOException;
+
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+
+/**
+ * <p>Asynchronous processing of requests that carry the preference <code>respond-async</code>.</p>
+ * <p>Once registered at an {@link org.apache.olingo.server.api.ODataHttpHandler}, such requests are answered
+ * immediately with <code>202 Accepted</code> and the URL of a status monitor in the <code>Location</code>
+ * header, and are processed by a bounded pool of worker threads. A <code>GET</code> request to the status
+ * monitor returns <code>202 Accepted</code> while the request is still processed and the complete response
+ * in the format <code>application/http</code> afterwards; a <code>DELETE</code> request cancels the request.
+ * If the queue of the pool is full, requests are processed synchronously as if the preference had not been
+ * given.</p>
+ * <p>Instances are created with {@link org.apache.olingo.server.api.OData#createAsyncSupport(AsyncOptions)}
+ * and can be shared by several handlers.</p>
+ */
+public interface AsyncSupport {
+
+  /** Path segment, relative to the service root, of the status-monitor resources. */
+  String STATUS_MONITOR_SEGMENT = "$async";
+
+  /**
+   * Processing of a request submitted for asynchronous processing.
+   */
+  interface Task {
+    /**
+     * Processes the request.
+     * @return the response
+     * @throws Exception if the request cannot be processed
+     */
+    ODataResponse process() throws Exception;
+
+    /**
+     * Creates the error response for an exception thrown while processing the request
+     * or while writing the response content.
+     * @param exception the exception
+     * @return the error response
+     */
+    ODataResponse handleException(Exception exception);
+  }
+
+  /**
+   * Whether the request asks for asynchronous processing.
+   * @param request the request
+   * @return <code>true</code> if the preference <code>respond-async</code> has been given
+   */
+  boolean isAsyncRequested(ODataRequest request);
+
+  /**
+   * Whether the request addresses a status monitor.
+   * @param request the request
+   * @return <code>true</code> if the request has to be handled by {@link #handleStatusMonitor(ODataRequest)}
+   */
+  boolean isStatusMonitor(ODataRequest request);
+
+  /**
+   * Handles a request to a status monitor.
+   * @param request the request
+   * @return the response
+   */
+  ODataResponse handleStatusMonitor(ODataRequest request);
+
+  /**
+   * Submits a request for asynchronous processing.
+   * If there is capacity left, the request body is read completely before this method returns,
+   * because the container may release it when the current thread returns; large bodies are stored
+   * in temporary files.
+   * @param request the request
+   * @param task the processing of the request
+   * @return the response with the status-monitor URL, or <code>null</code> if there is
+   *         no capacity left and the request has to be processed synchronously
+   * @throws IOException if the request body cannot be read
+   */
+  ODataResponse submit(ODataRequest request, Task task) throws IOException;
+
+  /**
+   * Gets the number of requests whose results are still held, running or not.
+   * @return the number of requests
+   */
+  int getRequestCount();
+
+  /**
+   * Stops the worker threads, cancels all running requests, and deletes all stored results.
+   */
+  void shutdown();
+}
@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.commons.api.edm.EdmNavigationPropertyBinding;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.debug.DebugSupport;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourceSingleton;
+
+/**
+ * Opt-in cache for the serialized responses of read requests, registered at the ODataHttpHandler.
+ * <p>
+ * Successful GET responses are stored as bytes, keyed by the request URI with sorted query options and the
+ * request headers that influence the response, such as <code>Accept</code> and <code>Prefer</code>.
+ * Conditional requests and debug requests bypass the cache. So do, by default, authenticated requests,
+ * i.e., requests with credentials or cookies and requests of a user authenticated by the servlet container;
+ * see {@link #isCacheable(ODataRequest)}. The least recently used responses are evicted when the cache
+ * exceeds its size.
+ * <p>
+ * Every response depends on the entity sets and singletons its request can read, i.e., the target of the
+ * resource path and everything reachable from it through navigation property bindings. When the handler
+ * processes a modifying request, also inside a $batch change set, the responses depending on the modified
+ * entity sets are dropped. Modifications the handler does not see have to be reported with
+ * {@link #invalidate(String)} or {@link #invalidateAll()}.
+ */
+public class ResponseCache {
+
+  /** Dependency of responses that can read any entity set, e.g., of function calls. */
+  private static final String ALL = "*";
+  private static final List<String> VARYING_HEADERS = Arrays.asList(HttpHeader.ACCEPT, HttpHeader.ACCEPT_CHARSET,
+      HttpHeader.ACCEPT_LANGUAGE, HttpHeader.PREFER, HttpHeader.ODATA_MAX_VERSION, HttpHeader.ODATA_ISOLATION);
+  private static final int BUFFER_SIZE = 8192;
+
+  private final long maxBytes;
+  private final int maxEntryBytes;
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75F, true);
+  /** Modification counter at the time of the last modification of each entity set. */
+  private final Map<String, Long> modifications = new HashMap<String, Long>();
+  private long modificationCount;
+  private long usedBytes;
+  private long hitCount;
+  private long missCount;
+
+  /**
+   * @param maxBytes the maximum size of all cached response bodies
+   * @param maxEntryBytes the maximum size of a single cached response body
+   */
+  public ResponseCache(final long maxBytes, final int maxEntryBytes) {
+    this.maxBytes = maxBytes;
+    this.maxEntryBytes = maxEntryBytes;
+  }
+
+  /**
+   * Computes the cache key of a request.
+   * @return the key, or <code>null</code> if the request must not be answered from the cache
+   */
+  public String getKey(final ODataRequest request) {
+    if (request.getMethod() != HttpMethod.GET
+        || request.getHeader(HttpHeader.IF_MATCH) != null
+        || request.getHeader(HttpHeader.IF_NONE_MATCH) != null
+        || !isCacheable(request)) {
+      return null;
+    }
+    final String query = request.getRawQueryPath();
+    final List<String> queryOptions = new ArrayList<String>();
+    if (query != null && query.length() > 0) {
+      for (final String option : query.split("&")) {
+        if (option.startsWith(DebugSupport.ODATA_DEBUG_QUERY_PARAMETER)) {
+          return null;
+        }
+        queryOptions.add(option);
+      }
+      Collections.sort(queryOptions);
+    }
+    final StringBuilder key = new StringBuilder(request.getRawBaseUri()).append(request.getRawODataPath());
+    for (final String option : queryOptions) {
+      key.append('\n').append(option);
+    }
+    for (final String header : VARYING_HEADERS) {
+      final List<String> values = request.getHeaders(header);
+      if (values != null) {
+        key.append('\n').append(header).append(':').append(values);
+      }
+    }
+    return key.toString();
+  }
+
+  /**
+   * Answers a request from the cache.
+   * @return <code>true</code> if a cached response has been copied into the given response
+   */
+  public boolean serve(final String key, final ODataResponse response) {
+    Entry entry;
+    synchronized (this) {
+      entry = entries.get(key);
+      if (entry == null) {
+        missCount++;
+        return false;
+      }
+      hitCount++;
+    }
+    response.setStatusCode(entry.statusCode);
+    for (final Map.Entry<String, List<String>> header : entry.headers.entrySet()) {
+      response.setHeader(header.getKey(), header.getValue().get(0));
+      if (header.getValue().size() > 1) {
+        response.addHeader(header.getKey(), header.getValue().subList(1, header.getValue().size()));
+      }
+    }
+    response.setContent(new ByteArrayInputStream(entry.content));
+    return true;
+  }
+
+  /**
+   * Marks the start of processing a read request that might be stored.
+   * @return the token to be passed to {@link #store(String, long, UriInfo, ODataResponse)}
+   */
+  public synchronized long startRead() {
+    return modificationCount;
+  }
+
+  /**
+   * Stores a successful response. The response body is buffered and its content replaced by the buffer.
+   * Responses are not stored if a data they depend on has been modified since the request started,
+   * if they set a cookie, or if they have a content coding; the content coding depends on the
+   * <code>Accept-Encoding</code> request header, which is not part of the key.
+   * @param key the cache key of the request
+   * @param token the value returned by {@link #startRead()} before the request was processed
+   * @param uriInfo the parsed request URI
+   * @param response the response
+   * @throws IOException if the response body cannot be read
+   */
+  public void store(final String key, final long token, final UriInfo uriInfo, final ODataResponse response)
+      throws IOException {
+    if (response.getStatusCode() != HttpStatusCode.OK.getStatusCode() || !isCacheable(uriInfo)
+        || response.getHeader(HttpHeader.SET_COOKIE) != null
+        || response.getHeader(HttpHeader.CONTENT_ENCODING) != null) {
+      return;
+    }
+    final byte[] content = buffer(response);
+    if (content == null || content.length > maxEntryBytes) {
+      return;
+    }
+    final Set<String> dependencies = getDependencies(uriInfo);
+    final Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+    for (final Map.Entry<String, List<String>> header : response.getAllHeaders().entrySet()) {
+      headers.put(header.getKey(), new ArrayList<String>(header.getValue()));
+    }
+    synchronized (this) {
+      if (isModifiedSince(dependencies, token)) {
+        return;
+      }
+      final Entry previous = entries.put(key,
+          new Entry(response.getStatusCode(), headers, content, dependencies));
+      if (previous != null) {
+        usedBytes -= previous.content.length;
+      }
+      usedBytes += content.length;
+      final Iterator<Entry> iterator = entries.values().iterator();
+      while (usedBytes > maxBytes && iterator.hasNext()) {
+        usedBytes -= iterator.next().content.length;
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Drops the responses that depend on the data modified by a request.
+   * @param uriInfo the parsed URI of the modifying request
+   * @param method the HTTP method of the modifying request
+   */
+  public void invalidate(final UriInfo uriInfo, final HttpMethod method) {
+    if (uriInfo.getKind() == UriInfoKind.batch) {
+      // the parts of the batch request are processed, and invalidate, one by one
+      return;
+    }
+    final Set<String> modified = getModifiedEntitySets(uriInfo, method);
+    synchronized (this) {
+      if (modified.contains(ALL)) {
+        invalidateAll();
+      } else {
+        for (final String name : modified) {
+          invalidate(name);
+        }
+      }
+    }
+  }
+
+  /**
+   * Drops the responses that depend on an entity set or singleton.
+   * @param entitySetName the name of the entity set or singleton
+   */
+  public synchronized void invalidate(final String entitySetName) {
+    modifications.put(entitySetName, ++modificationCount);
+    final Iterator<Entry> iterator = entries.values().iterator();
+    while (iterator.hasNext()) {
+      final Entry entry = iterator.next();
+      if (entry.dependencies.contains(entitySetName) || entry.dependencies.contains(ALL)) {
+        usedBytes -= entry.content.length;
+        iterator.remove();
+      }
+    }
+  }
+
+  /** Drops all responses. */
+  public synchronized void invalidateAll() {
+    modifications.put(ALL, ++modificationCount);
+    entries.clear();
+    usedBytes = 0;
+  }
+
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  public synchronized long getUsedBytes() {
+    return usedBytes;
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  /**
+   * Tells whether a read request may be answered from the cache and its response stored. By default
+   * requests with an <code>Authorization</code> or <code>Cookie</code> header are not cached, since
+   * their responses may depend on the user; services whose responses do not, or which add the user to the
+   * request URI, override this method. Requests of a user authenticated by the servlet container are
+   * never cached. If a $batch request or a request processed asynchronously is not cacheable, neither are
+   * the requests processed on its behalf.
+   * @param request the request
+   */
+  public boolean isCacheable(final ODataRequest request) {
+    return request.getHeader(HttpHeader.AUTHORIZATION) == null && request.getHeader(HttpHeader.COOKIE) == null;
+  }
+
+  /**
+   * Tells whether the response of a read request may be stored. By default all responses except
+   * $batch responses are stored; services override this method to restrict caching to certain resources.
+   * @param uriInfo the parsed request URI
+   */
+  protected boolean isCacheable(final UriInfo uriInfo) {
+    return uriInfo.getKind() != UriInfoKind.batch;
+  }
+
+  /**
+   * Determines the entity sets and singletons a modifying request changes. By default these are the
+   * targets of the resource path and, for requests with a body, their direct navigation targets, which
+   * covers deep inserts and changes of navigation links. Requests to actions and functions are assumed to
+   * change everything.
+   * @param uriInfo the parsed request URI
+   * @param method the HTTP method of the request
+   * @return the names of the modified entity sets and singletons, or <code>*</code> for all of them
+   */
+  protected Set<String> getModifiedEntitySets(final UriInfo uriInfo, final HttpMethod method) {
+    final Set<String> modified = new HashSet<String>();
+    final List<EdmBindingTarget> targets = getPathTargets(uriInfo);
+    if (targets == null) {
+      modified.add(ALL);
+      return modified;
+    }
+    for (final EdmBindingTarget target : targets) {
+      modified.add(target.getName());
+      if (method != HttpMethod.DELETE) {
+        for (final EdmNavigationPropertyBinding binding : target.getNavigationPropertyBindings()) {
+          final EdmBindingTarget related = target.getRelatedBindingTarget(binding.getPath());
+          if (related != null) {
+            modified.add(related.getName());
+          }
+        }
+      }
+    }
+    return modified;
+  }
+
+  private Set<String> getDependencies(final UriInfo uriInfo) {
+    final Set<String> dependencies = new HashSet<String>();
+    switch (uriInfo.getKind()) {
+    case metadata:
+    case service:
+      break;
+    case resource:
+      final List<EdmBindingTarget> targets = getPathTargets(uriInfo);
+      if (targets == null || targets.isEmpty()) {
+        dependencies.add(ALL);
+      } else {
+        addReachable(dependencies, targets.get(0));
+      }
+      break;
+    default:
+      dependencies.add(ALL);
+    }
+    return dependencies;
+  }
+
+  /** Adds a binding target and all binding targets reachable from it through navigation property bindings. */
+  private void addReachable(final Set<String> names, final EdmBindingTarget start) {
+    final List<EdmBindingTarget> pending = new ArrayList<EdmBindingTarget>();
+    pending.add(start);
+    while (!pending.isEmpty()) {
+      final EdmBindingTarget target = pending.remove(pending.size() - 1);
+      names.add(target.getName());
+      for (final EdmNavigationPropertyBinding binding : target.getNavigationPropertyBindings()) {
+        final EdmBindingTarget related = target.getRelatedBindingTarget(binding.getPath());
+        if (related != null && !names.contains(related.getName())) {
+          pending.add(related);
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the entity sets and singletons the resource path passes, or <code>null</code> if the path
+   * contains an operation or a navigation without navigation property binding.
+   */
+  private List<EdmBindingTarget> getPathTargets(final UriInfo uriInfo) {
+    if (uriInfo.getKind() != UriInfoKind.resource) {
+      return null;
+    }
+    final List<EdmBindingTarget> targets = new ArrayList<EdmBindingTarget>();
+    EdmBindingTarget current = null;
+    for (final UriResource part : uriInfo.getUriResourceParts()) {
+      switch (part.getKind()) {
+      case entitySet:
+        current = ((UriResourceEntitySet) part).getEntitySet();
+        break;
+      case singleton:
+        current = ((UriResourceSingleton) part).getSingleton();
+        break;
+      case navigationProperty:
+        current = current == null ? null
+            : current.getRelatedBindingTarget(((UriResourceNavigation) part).getProperty().getName());
+        if (current == null) {
+          return null;
+        }
+        break;
+      case action:
+      case function:
+        return null;
+      default:
+        continue;
+      }
+      targets.add(current);
+    }
+    return targets;
+  }
+
+  private boolean isModifiedSince(final Set<String> dependencies, final long token) {
+    if (modificationCount == token) {
+      return false;
+    }
+    final Long all = modifications.get(ALL);
+    if (dependencies.contains(ALL) || all != null && all > token) {
+      return true;
+    }
+    for (final String name : dependencies) {
+      final Long modification = modifications.get(name);
+      if (modification != null && modification > token) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static byte[] buffer(final ODataResponse response) throws IOException {
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+    final ODataContent oDataContent = response.getODataContent();
+    final InputStream content = response.getContent();
+    if (content != null) {
+      try {
+        final byte[] bytes = new byte[BUFFER_SIZE];
+        int count;
+        while ((count = content.read(bytes)) != -1) {
+          buffer.write(bytes, 0, count);
+        }
+      } finally {
+        content.close();
+      }
+    } else if (oDataContent != null) {
+      oDataContent.write(buffer);
+      response.setODataContent(null);
+    } else {
+      return null;
+    }
+    final byte[] result = buffer.toByteArray();
+    response.setContent(new ByteArrayInputStream(result));
+    return result;
+  }
+
+  private static class Entry {
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final byte[] content;
+    private final Set<String> dependencies;
+
+    private Entry(final int statusCode, final Map<String, List<String>> headers, final byte[] content,
+        final Set<String> dependencies) {
+      this.statusCode = statusCode;
+      this.headers = headers;
+      this.content = content;
+      this.dependencies = dependencies;
+    }
+  }
+}
@@ -0,0 +1,343 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+
+/**
+ * Opt-in content coding of HTTP messages, registered at the ODataHttpHandler.
+ * <p>
+ * Responses are compressed with <code>gzip</code> or <code>deflate</code> as accepted by the
+ * <code>Accept-Encoding</code> request header. Only textual content types are compressed, so media streams
+ * are sent as they are, and so are responses that already have a content coding such as the pre-compressed
+ * metadata document. The decision is deferred until the content exceeds the minimum size, so small responses
+ * are sent uncompressed even if they are streamed.
+ * <p>
+ * Request bodies with the <code>Content-Encoding</code> <code>gzip</code> or <code>deflate</code> are
+ * decompressed transparently.
+ */
+public class HttpCompression {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+  public static final String IDENTITY = "identity";
+
+  /** Responses with fewer bytes are not compressed. */
+  public static final int DEFAULT_MIN_SIZE = 1024;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final int minSize;
+  private final int level;
+
+  /**
+   * Creates content coding support with the default minimum size and compression level.
+   */
+  public HttpCompression() {
+    this(DEFAULT_MIN_SIZE, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Creates content coding support.
+   * @param minSize the size in bytes a response must exceed to be compressed
+   * @param level   the compression level from 0 to 9, or {@link Deflater#DEFAULT_COMPRESSION}
+   */
+  public HttpCompression(final int minSize, final int level) {
+    if (minSize < 0) {
+      throw new IllegalArgumentException("The minimum size must not be negative.");
+    }
+    if ((level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+        && level != Deflater.DEFAULT_COMPRESSION) {
+      throw new IllegalArgumentException("Invalid compression level " + level + '.');
+    }
+    this.minSize = minSize;
+    this.level = level;
+  }
+
+  public int getMinSize() {
+    return minSize;
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Determines the content coding of a response and announces in its <code>Vary</code> header
+   * that the response depends on the <code>Accept-Encoding</code> request header.
+   * @return <code>gzip</code>, <code>deflate</code>, or <code>null</code> if the response is sent as it is
+   */
+  public String prepare(final ODataRequest request, final ODataResponse response) {
+    if ((response.getContent() == null && response.getODataContent() == null)
+        || response.getMediaContent() != null
+        || response.getHeader(HttpHeader.CONTENT_ENCODING) != null
+        || response.getHeader(HttpHeader.CONTENT_RANGE) != null
+        || response.getStatusCode() < HttpStatusCode.OK.getStatusCode()
+        || response.getStatusCode() == HttpStatusCode.NO_CONTENT.getStatusCode()
+        || response.getStatusCode() == HttpStatusCode.PARTIAL_CONTENT.getStatusCode()
+        || response.getStatusCode() == HttpStatusCode.NOT_MODIFIED.getStatusCode()
+        || !isCompressible(response.getHeader(HttpHeader.CONTENT_TYPE))) {
+      return null;
+    }
+    addVary(response);
+    final String contentLength = response.getHeader(HttpHeader.CONTENT_LENGTH);
+    if (contentLength != null) {
+      try {
+        if (Long.parseLong(contentLength.trim()) <= minSize) {
+          return null;
+        }
+      } catch (final NumberFormatException e) {
+        return null;
+      }
+    }
+    return getContentCoding(request.getHeaders(HttpHeader.ACCEPT_ENCODING));
+  }
+
+  /**
+   * Wraps the output stream of a response so that the content is compressed with the given content coding
+   * as soon as it exceeds the minimum size. The stream must be closed to complete the response.
+   * The <code>Content-Length</code> header of the response is set if the content is sent uncompressed.
+   * @param servletResponse the response; its headers must not have been sent yet
+   * @param contentCoding   <code>gzip</code> or <code>deflate</code>
+   */
+  public OutputStream wrap(final HttpServletResponse servletResponse, final String contentCoding) {
+    return new CompressingOutputStream(servletResponse, contentCoding);
+  }
+
+  /**
+   * Wraps a request body so that it is decompressed according to its <code>Content-Encoding</code>.
+   * @param body           the request body
+   * @param contentCodings the values of the <code>Content-Encoding</code> header, may be <code>null</code>
+   * @return the decompressing body, or <code>null</code> if a content coding is not supported
+   */
+  public InputStream decode(final InputStream body, final List<String> contentCodings) throws IOException {
+    if (contentCodings == null || body == null) {
+      return body;
+    }
+    InputStream result = body;
+    for (int i = contentCodings.size() - 1; i >= 0; i--) {
+      final String[] codings = contentCodings.get(i).split(",");
+      // Codings are listed in the order they were applied, so they are undone starting from the last one.
+      for (int j = codings.length - 1; j >= 0; j--) {
+        final String coding = codings[j].trim();
+        if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+          result = new GZIPInputStream(result, BUFFER_SIZE);
+        } else if (DEFLATE.equalsIgnoreCase(coding)) {
+          result = new InflaterInputStream(result);
+        } else if (!IDENTITY.equalsIgnoreCase(coding) && coding.length() > 0) {
+          return null;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Determines whether content of the given type is worth compressing.
+   * Textual formats are, binary media streams like images usually are compressed already.
+   * @param contentType the value of the <code>Content-Type</code> header, may be <code>null</code>
+   */
+  protected boolean isCompressible(final String contentType) {
+    if (contentType == null) {
+      return false;
+    }
+    final int end = contentType.indexOf(';');
+    final String mediaType = (end < 0 ? contentType : contentType.substring(0, end)).trim().toLowerCase(Locale.ROOT);
+    return mediaType.startsWith("text/")
+        || mediaType.equals("application/json")
+        || mediaType.equals("application/xml")
+        || mediaType.endsWith("+json")
+        || mediaType.endsWith("+xml")
+        || mediaType.equals("multipart/mixed");
+  }
+
+  private static void addVary(final ODataResponse response) {
+    final List<String> vary = response.getHeaders(HttpHeader.VARY);
+    if (vary != null) {
+      for (final String value : vary) {
+        for (final String header : value.split(",")) {
+          if (HttpHeader.ACCEPT_ENCODING.equalsIgnoreCase(header.trim()) || "*".equals(header.trim())) {
+            return;
+          }
+        }
+      }
+    }
+    response.addHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+  }
+
+  /**
+   * Determines the preferred compressing content coding from the Accept-Encoding header.
+   * Of <code>gzip</code> and <code>deflate</code> the one with the higher quality value is chosen,
+   * <code>gzip</code> if both are equally acceptable.
+   * @param acceptEncodingHeaders the values of the <code>Accept-Encoding</code> header, may be <code>null</code>
+   * @return the content coding or <code>null</code> if the content should not be compressed
+   */
+  public static String getContentCoding(final List<String> acceptEncodingHeaders) {
+    if (acceptEncodingHeaders == null) {
+      return null;
+    }
+    double gzip = -1;
+    double deflate = -1;
+    double any = -1;
+    for (final String header : acceptEncodingHeaders) {
+      for (final String element : header.split(",")) {
+        final String[] parts = element.split(";");
+        final String coding = parts[0].trim();
+        double quality = 1;
+        for (int i = 1; i < parts.length; i++) {
+          final String parameter = parts[i].trim();
+          if (parameter.startsWith("q=")) {
+            try {
+              quality = Double.parseDouble(parameter.substring(2).trim());
+            } catch (final NumberFormatException e) {
+              quality = 0;
+            }
+          }
+        }
+        if (GZIP.equalsIgnoreCase(coding) || "x-gzip".equalsIgnoreCase(coding)) {
+          gzip = Math.max(gzip, quality);
+        } else if (DEFLATE.equalsIgnoreCase(coding)) {
+          deflate = Math.max(deflate, quality);
+        } else if ("*".equals(coding)) {
+          any = quality;
+        }
+      }
+    }
+    if (gzip < 0) {
+      gzip = any;
+    }
+    if (deflate < 0) {
+      deflate = any;
+    }
+    if (gzip > 0 && gzip >= deflate) {
+      return GZIP;
+    } else if (deflate > 0) {
+      return DEFLATE;
+    } else {
+      return null;
+    }
+  }
+
+  /**
+   * Buffers the content up to the minimum size and then either compresses it or,
+   * if the content turns out to be small, sends it as it is.
+   */
+  private class CompressingOutputStream extends OutputStream {
+
+    private final HttpServletResponse servletResponse;
+    private final String contentCoding;
+    private final byte[] buffer;
+    private int count = 0;
+    private Deflater deflater;
+    private OutputStream output;
+    private boolean closed = false;
+
+    CompressingOutputStream(final HttpServletResponse servletResponse, final String contentCoding) {
+      this.servletResponse = servletResponse;
+      this.contentCoding = contentCoding;
+      buffer = new byte[minSize];
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+      write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      if (closed) {
+        throw new IOException("The stream has been closed.");
+      }
+      if (output == null) {
+        if (count + len <= buffer.length) {
+          System.arraycopy(b, off, buffer, count, len);
+          count += len;
+          return;
+        }
+        startCompression();
+      }
+      output.write(b, off, len);
+    }
+
+    private void startCompression() throws IOException {
+      servletResponse.setHeader(HttpHeader.CONTENT_ENCODING, contentCoding);
+      if (GZIP.equals(contentCoding)) {
+        output = new LeveledGZIPOutputStream(servletResponse.getOutputStream(), level);
+      } else {
+        deflater = new Deflater(level);
+        output = new DeflaterOutputStream(servletResponse.getOutputStream(), deflater, BUFFER_SIZE);
+      }
+      output.write(buffer, 0, count);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      // Small content is held back until it is clear whether it will be compressed.
+      if (output != null) {
+        output.flush();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      if (output == null) {
+        servletResponse.setContentLength(count);
+        final OutputStream servletOutput = servletResponse.getOutputStream();
+        servletOutput.write(buffer, 0, count);
+        servletOutput.close();
+      } else {
+        try {
+          output.close();
+        } finally {
+          if (deflater != null) {
+            deflater.end();
+          }
+        }
+      }
+    }
+  }
+
+  /** GZIP stream with a configurable compression level. */
+  private static class LeveledGZIPOutputStream extends GZIPOutputStream {
+    LeveledGZIPOutputStream(final OutputStream output, final int level) throws IOException {
+      super(output, BUFFER_SIZE);
+      def.setLevel(level);
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.etag;
+
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.server.api.OlingoExtension;
+import org.apache.olingo.server.api.uri.UriInfo;
+
+/**
+ * <p>Services that can tell the current ETag of an entity cheaply, for example from a version column,
+ * can implement this interface to answer conditional GET requests without loading the entity.</p>
+ * <p>If implemented this interface can be registered at the ODataHttpHandler, or implemented by a registered
+ * processor. For GET requests with an if-match or if-none-match header on a single entity or media value the
+ * handler asks for the ETag first and answers with "304 Not Modified" or "412 Precondition Failed" itself;
+ * the processor is called only if the request has to be answered with content.</p>
+ */
+public interface ConditionalReadSupport extends OlingoExtension {
+
+  /**
+   * Returns the current ETag of the entity or media value addressed by the request.
+   * This method is called before any processor and should not load the entity.
+   * @param uriInfo the parsed request URI
+   * @param entitySetOrSingleton the entity set or singleton of the addressed entity
+   * @param isMediaValue true if the media value of the entity is requested
+   * @return the ETag, or <code>null</code> if it is unknown and the request has to be dispatched
+   */
+  String getETag(UriInfo uriInfo, EdmBindingTarget entitySetOrSingleton, boolean isMediaValue);
+
+  /**
+   * Tells whether the handler should compute a weak ETag from the serialized body of a successful GET
+   * response which does not carry an ETag yet. The body is buffered for that purpose; bodies larger than
+   * one MiB and streamed bodies get no ETag.
+   * @param uriInfo the parsed request URI
+   * @return true if a content ETag should be computed
+   */
+  boolean hasContentETag(UriInfo uriInfo);
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Thread-safe histogram of nonnegative long values with a bounded relative error.</p>
+ * <p>Values below 64 are counted exactly; larger values are counted in buckets whose width grows
+ * with the magnitude of the value, so that the relative error stays below about three percent
+ * over the whole range of long values while the histogram has a fixed size.
+ * Recording does not allocate and does not lock.</p>
+ */
+public final class Histogram {
+
+  private static final int SUB_BUCKET_BITS = 6;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int HALF_SUB_BUCKETS = SUB_BUCKETS / 2;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * HALF_SUB_BUCKETS + HALF_SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  /**
+   * Records a value; negative values are recorded as zero.
+   * @param value the value
+   */
+  public void record(final long value) {
+    final long nonNegative = Math.max(value, 0);
+    counts.incrementAndGet(index(nonNegative));
+    count.incrementAndGet();
+    sum.addAndGet(nonNegative);
+    long currentMax = max.get();
+    while (nonNegative > currentMax && !max.compareAndSet(currentMax, nonNegative)) {
+      currentMax = max.get();
+    }
+  }
+
+  /**
+   * Gets the number of recorded values.
+   * @return number of values
+   */
+  public long getCount() {
+    return count.get();
+  }
+
+  /**
+   * Gets the sum of all recorded values.
+   * @return sum of the values
+   */
+  public long getSum() {
+    return sum.get();
+  }
+
+  /**
+   * Gets the largest recorded value.
+   * @return the largest value or 0 if no values have been recorded
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Gets the arithmetic mean of all recorded values.
+   * @return the mean or 0 if no values have been recorded
+   */
+  public double getMean() {
+    final long n = count.get();
+    return n == 0 ? 0 : (double) sum.get() / n;
+  }
+
+  /**
+   * Gets the value below or at which the given percentage of recorded values lies.
+   * The result is the largest value that is counted in the same bucket.
+   * @param percentile the percentage between 0 and 100
+   * @return the value or 0 if no values have been recorded
+   */
+  public long getValueAtPercentile(final double percentile) {
+    final long n = count.get();
+    if (n == 0) {
+      return 0;
+    }
+    final long target = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * n));
+    long seen = 0;
+    for (int index = 0; index < BUCKETS; index++) {
+      seen += counts.get(index);
+      if (seen >= target) {
+        return Math.min(highestValue(index), max.get());
+      }
+    }
+    return max.get();
+  }
+
+  /** Removes all recorded values. Values recorded concurrently may get lost. */
+  public void reset() {
+    for (int index = 0; index < BUCKETS; index++) {
+      counts.set(index, 0);
+    }
+    count.set(0);
+    sum.set(0);
+    max.set(0);
+  }
+
+  private static int index(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    // The value shifted right is between HALF_SUB_BUCKETS and SUB_BUCKETS - 1.
+    final int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+    return shift * HALF_SUB_BUCKETS + (int) (value >>> shift);
+  }
+
+  private static long highestValue(final int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    final int shift = index / HALF_SUB_BUCKETS - 1;
+    final long lowest = (long) (index % HALF_SUB_BUCKETS + HALF_SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  @Override
+  public String toString() {
+    return "count=" + getCount() + ", mean=" + getMean() + ", p50=" + getValueAtPercentile(50)
+        + ", p99=" + getValueAtPercentile(99) + ", max=" + getMax();
+  }
+}
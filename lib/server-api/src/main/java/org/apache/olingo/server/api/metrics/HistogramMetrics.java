@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Default implementation of {@link ODataMetrics} that keeps a {@link Histogram} in memory
+ * for every stage and every payload.
+ */
+public class HistogramMetrics implements ODataMetrics {
+
+  private final Map<Stage, Histogram> times = new EnumMap<Stage, Histogram>(Stage.class);
+  private final Map<Payload, Histogram> sizes = new EnumMap<Payload, Histogram>(Payload.class);
+
+  public HistogramMetrics() {
+    // The maps are filled once and only read afterwards, so they can be shared between threads.
+    for (final Stage stage : Stage.values()) {
+      times.put(stage, new Histogram());
+    }
+    for (final Payload payload : Payload.values()) {
+      sizes.put(payload, new Histogram());
+    }
+  }
+
+  @Override
+  public void recordTime(final Stage stage, final long nanos) {
+    times.get(stage).record(nanos);
+  }
+
+  @Override
+  public void recordSize(final Payload payload, final long bytes) {
+    sizes.get(payload).record(bytes);
+  }
+
+  /**
+   * Gets the histogram of the times spent in the given stage.
+   * @param stage the stage
+   * @return the histogram of times in nanoseconds
+   */
+  public Histogram getHistogram(final Stage stage) {
+    return times.get(stage);
+  }
+
+  /**
+   * Gets the histogram of the sizes of the given payload.
+   * @param payload the payload
+   * @return the histogram of sizes in bytes
+   */
+  public Histogram getHistogram(final Payload payload) {
+    return sizes.get(payload);
+  }
+
+  /** Removes all recorded values. */
+  public void reset() {
+    for (final Histogram histogram : times.values()) {
+      histogram.reset();
+    }
+    for (final Histogram histogram : sizes.values()) {
+      histogram.reset();
+    }
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder result = new StringBuilder();
+    for (final Map.Entry<Stage, Histogram> entry : times.entrySet()) {
+      result.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+    }
+    for (final Map.Entry<Payload, Histogram> entry : sizes.entrySet()) {
+      result.append(entry.getKey()).append(": ").append(entry.getValue()).append('\n');
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+/**
+ * <p>Register this interface to receive timings and payload sizes of request processing.</p>
+ * <p>The methods are called for every request, so implementations must be fast and thread-safe;
+ * a single instance is usually shared by all request handlers.</p>
+ * @see HistogramMetrics
+ */
+public interface ODataMetrics {
+
+  /** Stages of request processing; a stage includes the time of the stages nested in it. */
+  enum Stage {
+    /** Filling the OData request from the HTTP request. */
+    REQUEST_FILL,
+    /** Parsing the resource path and the query options. */
+    URI_PARSING,
+    /** Validating the parsed URI against the HTTP method. */
+    URI_VALIDATION,
+    /** Determining the content type of the response. */
+    CONTENT_NEGOTIATION,
+    /** Dispatching the request to the processor, including content negotiation and serialization. */
+    PROCESSOR,
+    /**
+     * Serializing response content by a serializer created by the library.
+     * Streamed entity collections are serialized while the response is written, within {@link #RESPONSE_WRITE}.
+     */
+    SERIALIZATION,
+    /** Writing the response to the HTTP response. */
+    RESPONSE_WRITE,
+    /** Processing the complete request. */
+    TOTAL
+  }
+
+  /** Payloads whose sizes are recorded. */
+  enum Payload {
+    /** Bytes read from the request body. */
+    REQUEST_BODY,
+    /** Bytes written to the response body. */
+    RESPONSE_BODY
+  }
+
+  /**
+   * Records the time spent in a stage.
+   * @param stage the stage
+   * @param nanos the time in nanoseconds
+   */
+  void recordTime(Stage stage, long nanos);
+
+  /**
+   * Records the size of a payload.
+   * @param payload the payload
+   * @param bytes the size in bytes
+   */
+  void recordSize(Payload payload, long bytes);
+}
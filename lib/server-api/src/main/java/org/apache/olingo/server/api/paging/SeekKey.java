@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.paging;
+
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmProperty;
+
+/**
+ * One component of a position in an ordered entity collection:
+ * the value of an ordering property of the last entity delivered.
+ */
+public interface SeekKey {
+
+  /**
+   * Gets the path to the primitive property, starting at the entity type;
+   * all properties but the last one are complex properties.
+   * @return the property path
+   */
+  List<EdmProperty> getPropertyPath();
+
+  /**
+   * Gets whether the entity collection is sorted descending by this property.
+   * @return <code>true</code> for descending order
+   */
+  boolean isDescending();
+
+  /**
+   * Gets the property value, in the default Java type of the primitive type.
+   * @return the value; can be <code>null</code>
+   */
+  Object getValue();
+}
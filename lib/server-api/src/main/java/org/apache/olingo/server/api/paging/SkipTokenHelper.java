@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.paging;
+
+import java.net.URI;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+
+/**
+ * <p>Used for keyset pagination with <code>$skiptoken</code>.</p>
+ * <p>A skip token encodes the values of the ordering properties of the last entity of a page,
+ * i.e., the values of the simple properties in <code>$orderby</code> followed by the key properties
+ * not already contained in <code>$orderby</code>. The next page starts with the first entity
+ * sorted after this position, so that it can be found with an index seek
+ * instead of reading and discarding all preceding entities.</p>
+ * <p>Skip tokens are signed; a token is only accepted for the entity type and the <code>$orderby</code>
+ * it has been created for and only if it has not been modified by the client.
+ * Entities are compared with <code>null</code> values sorted before all other values.</p>
+ */
+public interface SkipTokenHelper {
+
+  /**
+   * Creates a skip token pointing to the position directly after the given entity.
+   * @param entityType the type of the entity
+   * @param orderBy the $orderby system query option of the request or <code>null</code>
+   * @param lastEntity the last entity of the current page
+   * @return the opaque skip token
+   * @throws SkipTokenException if the order is not supported or a value cannot be converted
+   */
+  String createSkipToken(EdmEntityType entityType, OrderByOption orderBy, Entity lastEntity)
+      throws SkipTokenException;
+
+  /**
+   * Parses a skip token into the position it points to.
+   * @param entityType the type of the entities in the collection
+   * @param orderBy the $orderby system query option of the request or <code>null</code>
+   * @param skipToken the skip token
+   * @return the components of the position, in sort order
+   * @throws SkipTokenException if the skip token is not valid for the given type and order
+   */
+  List<SeekKey> parseSkipToken(EdmEntityType entityType, OrderByOption orderBy, String skipToken)
+      throws SkipTokenException;
+
+  /**
+   * Determines whether an entity is sorted after the given position.
+   * This can be used by services that evaluate the order themselves.
+   * @param entity the entity
+   * @param position the position as returned by {@link #parseSkipToken(EdmEntityType, OrderByOption, String)}
+   * @return <code>true</code> if the entity belongs to a page following the position
+   */
+  boolean isAfter(Entity entity, List<SeekKey> position);
+
+  /**
+   * Creates the next link of a page: the request URI
+   * with the given skip token instead of the system query options $skiptoken and $skip.
+   * @param requestUri the raw request URI, including the query part
+   * @param skipToken the skip token of the next page
+   * @return the next link
+   */
+  URI createNextLink(String requestUri, String skipToken);
+}
@@ -31,9 +31,12 @@ import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.compression.HttpCompression;
 import org.apache.olingo.server.api.etag.ETagHelper;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
+import org.apache.olingo.server.api.serializer.RenderedDocument;
+import org.apache.olingo.server.api.serializer.RenderedDocumentSupport;
 import org.apache.olingo.server.api.uri.UriInfo;
 
 /**
@@ -57,23 +60,28 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
   @Override
   public void readServiceDocument(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
       final ContentType requestedContentType) throws ODataApplicationException, ODataLibraryException {
-    boolean isNotModified = false;
-    ServiceMetadataETagSupport eTagSupport = serviceMetadata.getServiceMetadataETagSupport();
-    if (eTagSupport != null && eTagSupport.getServiceDocumentETag() != null) {
-      // Set application etag at response
-      response.setHeader(HttpHeader.ETAG, eTagSupport.getServiceDocumentETag());
-      // Check if service document has been modified
-      ETagHelper eTagHelper = odata.createETagHelper();
-      isNotModified = eTagHelper.checkReadPreconditions(eTagSupport.getServiceDocumentETag(), request
-          .getHeaders(HttpHeader.IF_MATCH), request.getHeaders(HttpHeader.IF_NONE_MATCH));
-    }
+    final RenderedDocument document = serviceMetadata instanceof RenderedDocumentSupport ?
+        ((RenderedDocumentSupport) serviceMetadata).getServiceDocument(requestedContentType, null) :
+        null;
+    final String contentCoding = document == null ? null :
+        HttpCompression.getContentCoding(request.getHeaders(HttpHeader.ACCEPT_ENCODING));
+    final ServiceMetadataETagSupport eTagSupport = serviceMetadata.getServiceMetadataETagSupport();
+    // An application etag takes precedence over the etag derived from the document content.
+    final String eTag = getETag(eTagSupport != null && eTagSupport.getServiceDocumentETag() != null ?
+        eTagSupport.getServiceDocumentETag() :
+        document == null ? null : document.getETag(),
+        contentCoding);
 
     // Send the correct response
-    if (isNotModified) {
+    if (isNotModified(request, response, eTag)) {
       response.setStatusCode(HttpStatusCode.NOT_MODIFIED.getStatusCode());
     } else {
-      ODataSerializer serializer = odata.createSerializer(requestedContentType);
-      response.setContent(serializer.serviceDocument(serviceMetadata, null).getContent());
+      if (document == null) {
+        ODataSerializer serializer = odata.createSerializer(requestedContentType);
+        response.setContent(serializer.serviceDocument(serviceMetadata, null).getContent());
+      } else {
+        setContent(response, document, contentCoding);
+      }
       response.setStatusCode(HttpStatusCode.OK.getStatusCode());
       response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
     }
@@ -82,28 +90,68 @@ public class DefaultProcessor implements MetadataProcessor, ServiceDocumentProce
   @Override
   public void readMetadata(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo,
       final ContentType requestedContentType) throws ODataApplicationException, ODataLibraryException {
-    boolean isNotModified = false;
-    ServiceMetadataETagSupport eTagSupport = serviceMetadata.getServiceMetadataETagSupport();
-    if (eTagSupport != null && eTagSupport.getMetadataETag() != null) {
-      // Set application etag at response
-      response.setHeader(HttpHeader.ETAG, eTagSupport.getMetadataETag());
-      // Check if metadata document has been modified
-      ETagHelper eTagHelper = odata.createETagHelper();
-      isNotModified = eTagHelper.checkReadPreconditions(eTagSupport.getMetadataETag(), request
-          .getHeaders(HttpHeader.IF_MATCH), request.getHeaders(HttpHeader.IF_NONE_MATCH));
-    }
+    final RenderedDocument document = serviceMetadata instanceof RenderedDocumentSupport ?
+        ((RenderedDocumentSupport) serviceMetadata).getMetadataDocument(requestedContentType) :
+        null;
+    final String contentCoding = document == null ? null :
+        HttpCompression.getContentCoding(request.getHeaders(HttpHeader.ACCEPT_ENCODING));
+    final ServiceMetadataETagSupport eTagSupport = serviceMetadata.getServiceMetadataETagSupport();
+    // An application etag takes precedence over the etag derived from the document content.
+    final String eTag = getETag(eTagSupport != null && eTagSupport.getMetadataETag() != null ?
+        eTagSupport.getMetadataETag() :
+        document == null ? null : document.getETag(),
+        contentCoding);
 
     // Send the correct response
-    if (isNotModified) {
+    if (isNotModified(request, response, eTag)) {
       response.setStatusCode(HttpStatusCode.NOT_MODIFIED.getStatusCode());
     } else {
-      ODataSerializer serializer = odata.createSerializer(requestedContentType);
-      response.setContent(serializer.metadataDocument(serviceMetadata).getContent());
+      if (document == null) {
+        ODataSerializer serializer = odata.createSerializer(requestedContentType);
+        response.setContent(serializer.metadataDocument(serviceMetadata).getContent());
+      } else {
+        setContent(response, document, contentCoding);
+      }
       response.setStatusCode(HttpStatusCode.OK.getStatusCode());
       response.setHeader(HttpHeader.CONTENT_TYPE, requestedContentType.toContentTypeString());
     }
   }
 
+  private boolean isNotModified(final ODataRequest request, final ODataResponse response, final String eTag)
+      throws ODataLibraryException {
+    if (eTag == null) {
+      return false;
+    }
+    // Set etag at response
+    response.setHeader(HttpHeader.ETAG, eTag);
+    // Check if the document has been modified
+    ETagHelper eTagHelper = odata.createETagHelper();
+    return eTagHelper.checkReadPreconditions(eTag,
+        request.getHeaders(HttpHeader.IF_MATCH), request.getHeaders(HttpHeader.IF_NONE_MATCH));
+  }
+
+  private void setContent(final ODataResponse response, final RenderedDocument document,
+      final String contentCoding) {
+    if (contentCoding == null) {
+      response.setContent(document.getContent());
+    } else {
+      response.setContent(document.getContent(contentCoding));
+      response.setHeader(HttpHeader.CONTENT_ENCODING, contentCoding);
+    }
+    response.setHeader(HttpHeader.VARY, HttpHeader.ACCEPT_ENCODING);
+  }
+
+  /**
+   * Gets the etag of the representation in the given content coding.
+   * A strong etag must differ between representations, so the content coding is appended to it;
+   * weak etags are used for all representations.
+   */
+  private String getETag(final String eTag, final String contentCoding) {
+    return eTag == null || contentCoding == null || eTag.startsWith("W/") || !eTag.endsWith("\"") ?
+        eTag :
+        eTag.substring(0, eTag.length() - 1) + '-' + contentCoding + '"';
+  }
+
   @Override
   public void processError(final ODataRequest request, final ODataResponse response,
       final ODataServerError serverError,
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import java.io.InputStream;
+
+import org.apache.olingo.commons.api.format.ContentType;
+
+/**
+ * A document that has been serialized once and is kept in memory,
+ * e.g., the metadata document or the service document.
+ * Compressed variants are created together with the document.
+ */
+public interface RenderedDocument {
+
+  /**
+   * Gets the content type the document has been serialized in.
+   * @return the content type
+   */
+  ContentType getContentType();
+
+  /**
+   * Gets the strong ETag of the uncompressed document, derived from a hash of its content.
+   * Compressed representations need ETags of their own.
+   * @return the ETag, including the surrounding double quotes
+   */
+  String getETag();
+
+  /**
+   * Gets the uncompressed content.
+   * @return the content
+   */
+  InputStream getContent();
+
+  /**
+   * Gets the content in the given content coding as used in the HTTP header Content-Encoding.
+   * @param contentCoding the content coding, e.g., <code>gzip</code> or <code>deflate</code>
+   * @return the encoded content or <code>null</code> if the content coding is not supported
+   */
+  InputStream getContent(String contentCoding);
+}
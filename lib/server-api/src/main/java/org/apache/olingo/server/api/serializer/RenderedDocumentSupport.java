@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.serializer;
+
+import org.apache.olingo.commons.api.format.ContentType;
+
+/**
+ * <p>Optional interface of a {@link org.apache.olingo.server.api.ServiceMetadata} implementation
+ * that serves the metadata document and the service document as {@link RenderedDocument} instances.</p>
+ * <p>The default processor uses the rendered documents if the service metadata implements this interface
+ * and serializes the documents on each request otherwise.</p>
+ */
+public interface RenderedDocumentSupport {
+
+  /**
+   * Gets the metadata document in the given format.
+   * The document is serialized on first access and then kept in memory.
+   * @param contentType the format of the document
+   * @return the rendered metadata document or <code>null</code> if it is not available in the given format
+   * @throws SerializerException if the document cannot be serialized in the given format
+   */
+  RenderedDocument getMetadataDocument(ContentType contentType) throws SerializerException;
+
+  /**
+   * Gets the service document in the given format.
+   * The document is serialized on first access and then kept in memory.
+   * @param contentType the format of the document
+   * @param serviceRoot the service-root URI; may be <code>null</code>
+   * @return the rendered service document or <code>null</code> if it is not available in the given format
+   * @throws SerializerException if the document cannot be serialized in the given format
+   */
+  RenderedDocument getServiceDocument(ContentType contentType, String serviceRoot) throws SerializerException;
+}
@@ -20,6 +20,7 @@ package org.apache.olingo.server.api.uri;
 
 import java.util.List;
 
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
 import org.apache.olingo.server.api.uri.queryoption.CustomQueryOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
@@ -94,6 +95,11 @@ public interface UriInfoResource {
    */
   SkipTokenOption getSkipTokenOption();
 
+  /**
+   * @return Object containing information of the $apply option
+   */
+  ApplyOption getApplyOption();
+
   /**
    * @return Object containing information of the $top option
    */
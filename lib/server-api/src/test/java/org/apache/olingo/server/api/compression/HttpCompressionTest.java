@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.compression;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletResponse;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.junit.Test;
+
+public class HttpCompressionTest {
+
+  @Test
+  public void contentCoding() {
+    assertNull(HttpCompression.getContentCoding(null));
+    assertEquals("gzip", HttpCompression.getContentCoding(Collections.singletonList("gzip, deflate")));
+    assertEquals("gzip", HttpCompression.getContentCoding(Collections.singletonList("deflate, gzip")));
+    assertEquals("deflate", HttpCompression.getContentCoding(Collections.singletonList("gzip;q=0.5, deflate")));
+    assertEquals("deflate", HttpCompression.getContentCoding(Arrays.asList("deflate", "gzip;q=0")));
+    assertEquals("gzip", HttpCompression.getContentCoding(Collections.singletonList("*")));
+    assertEquals("deflate", HttpCompression.getContentCoding(Collections.singletonList("gzip;q=0.000, *")));
+    assertNull(HttpCompression.getContentCoding(Collections.singletonList("identity")));
+    assertNull(HttpCompression.getContentCoding(Collections.singletonList("br, *;q=0")));
+  }
+
+  @Test
+  public void prepare() {
+    final HttpCompression compression = new HttpCompression();
+    ODataRequest request = new ODataRequest();
+    request.addHeader(HttpHeader.ACCEPT_ENCODING, "gzip");
+
+    ODataResponse response = createResponse(ContentType.JSON.toContentTypeString());
+    assertEquals("gzip", compression.prepare(request, response));
+    assertEquals(HttpHeader.ACCEPT_ENCODING, response.getHeader(HttpHeader.VARY));
+
+    // Already compressed, e.g., the metadata document
+    response = createResponse(ContentType.APPLICATION_XML.toContentTypeString());
+    response.setHeader(HttpHeader.CONTENT_ENCODING, "deflate");
+    assertNull(compression.prepare(request, response));
+
+    // Media stream
+    response = createResponse("image/png");
+    assertNull(compression.prepare(request, response));
+    assertNull(response.getHeader(HttpHeader.VARY));
+
+    response = createResponse(ContentType.MULTIPART_MIXED.toContentTypeString());
+    response.setHeader(HttpHeader.CONTENT_LENGTH, "100");
+    assertNull(compression.prepare(request, response));
+    assertEquals(HttpHeader.ACCEPT_ENCODING, response.getHeader(HttpHeader.VARY));
+
+    response = createResponse(ContentType.TEXT_PLAIN.toContentTypeString());
+    response.setStatusCode(HttpStatusCode.NOT_MODIFIED.getStatusCode());
+    assertNull(compression.prepare(request, response));
+
+    assertNull(compression.prepare(new ODataRequest(), createResponse(ContentType.JSON.toContentTypeString())));
+  }
+
+  @Test
+  public void compressLargeContent() throws Exception {
+    final byte[] content = createContent(5000);
+    ByteArrayOutputStream sent = new ByteArrayOutputStream();
+    HttpServletResponse servletResponse = mockResponse(sent);
+    write(new HttpCompression(1000, 9).wrap(servletResponse, "gzip"), content);
+    verify(servletResponse).setHeader(HttpHeader.CONTENT_ENCODING, "gzip");
+    assertArrayEquals(content, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(sent.toByteArray()))));
+
+    sent = new ByteArrayOutputStream();
+    servletResponse = mockResponse(sent);
+    write(new HttpCompression(0, 1).wrap(servletResponse, "deflate"), content);
+    verify(servletResponse).setHeader(HttpHeader.CONTENT_ENCODING, "deflate");
+    assertArrayEquals(content,
+        IOUtils.toByteArray(new InflaterInputStream(new ByteArrayInputStream(sent.toByteArray()))));
+  }
+
+  @Test
+  public void sendSmallContentUncompressed() throws Exception {
+    final byte[] content = createContent(1000);
+    final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+    final HttpServletResponse servletResponse = mockResponse(sent);
+    write(new HttpCompression(1000, 9).wrap(servletResponse, "gzip"), content);
+    verify(servletResponse, never()).setHeader(HttpHeader.CONTENT_ENCODING, "gzip");
+    verify(servletResponse).setContentLength(1000);
+    assertArrayEquals(content, sent.toByteArray());
+  }
+
+  @Test
+  public void decode() throws Exception {
+    final HttpCompression compression = new HttpCompression();
+    final byte[] content = createContent(100);
+
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+    OutputStream stream = new GZIPOutputStream(compressed);
+    stream.write(content);
+    stream.close();
+    assertArrayEquals(content, IOUtils.toByteArray(compression.decode(
+        new ByteArrayInputStream(compressed.toByteArray()), Collections.singletonList("gzip"))));
+
+    ByteArrayOutputStream twice = new ByteArrayOutputStream();
+    stream = new DeflaterOutputStream(twice);
+    stream.write(compressed.toByteArray());
+    stream.close();
+    assertArrayEquals(content, IOUtils.toByteArray(compression.decode(
+        new ByteArrayInputStream(twice.toByteArray()), Collections.singletonList("gzip, deflate"))));
+
+    final InputStream body = new ByteArrayInputStream(content);
+    assertEquals(body, compression.decode(body, null));
+    assertEquals(body, compression.decode(body, Collections.singletonList("identity")));
+    assertNull(compression.decode(body, Collections.singletonList("br")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void invalidLevel() {
+    new HttpCompression(0, 10);
+  }
+
+  private static ODataResponse createResponse(final String contentType) {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, contentType);
+    response.setContent(new ByteArrayInputStream(new byte[0]));
+    return response;
+  }
+
+  private static byte[] createContent(final int size) {
+    byte[] content = new byte[size];
+    for (int i = 0; i < size; i++) {
+      content[i] = (byte) ('a' + i % 7);
+    }
+    return content;
+  }
+
+  private static void write(final OutputStream output, final byte[] content) throws IOException {
+    for (int offset = 0; offset < content.length; offset += 300) {
+      output.write(content, offset, Math.min(300, content.length - offset));
+    }
+    output.close();
+  }
+
+  private static HttpServletResponse mockResponse(final ByteArrayOutputStream sent) throws IOException {
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(final int b) {
+        sent.write(b);
+      }
+    });
+    return response;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.api.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class HistogramTest {
+
+  @Test
+  public void empty() {
+    final Histogram histogram = new Histogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getMax());
+    assertEquals(0.0, histogram.getMean(), 0.0);
+    assertEquals(0, histogram.getValueAtPercentile(50));
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    final Histogram histogram = new Histogram();
+    for (int value = 1; value <= 10; value++) {
+      histogram.record(value);
+    }
+    histogram.record(-5);
+    assertEquals(11, histogram.getCount());
+    assertEquals(55, histogram.getSum());
+    assertEquals(10, histogram.getMax());
+    assertEquals(0, histogram.getValueAtPercentile(0));
+    assertEquals(5, histogram.getValueAtPercentile(50));
+    assertEquals(10, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void largeValuesHaveBoundedError() {
+    final Histogram histogram = new Histogram();
+    for (long value = 1000; value <= 1000000; value += 1000) {
+      histogram.record(value);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000000, histogram.getMax());
+    assertEquals(500500.0, histogram.getMean(), 0.0);
+    assertWithinError(500000, histogram.getValueAtPercentile(50));
+    assertWithinError(990000, histogram.getValueAtPercentile(99));
+    assertEquals(1000000, histogram.getValueAtPercentile(100));
+
+    histogram.record(Long.MAX_VALUE);
+    assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void reset() {
+    final Histogram histogram = new Histogram();
+    histogram.record(42);
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0, histogram.getSum());
+    assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void metrics() {
+    final HistogramMetrics metrics = new HistogramMetrics();
+    metrics.recordTime(ODataMetrics.Stage.TOTAL, 1500);
+    metrics.recordSize(ODataMetrics.Payload.RESPONSE_BODY, 20);
+    assertEquals(1, metrics.getHistogram(ODataMetrics.Stage.TOTAL).getCount());
+    assertEquals(0, metrics.getHistogram(ODataMetrics.Stage.PROCESSOR).getCount());
+    assertEquals(20, metrics.getHistogram(ODataMetrics.Payload.RESPONSE_BODY).getMax());
+    metrics.reset();
+    assertEquals(0, metrics.getHistogram(ODataMetrics.Stage.TOTAL).getCount());
+  }
+
+  private void assertWithinError(final long expected, final long actual) {
+    assertTrue("expected about " + expected + " but was " + actual,
+        Math.abs(actual - expected) <= expected * 0.035);
+  }
+}
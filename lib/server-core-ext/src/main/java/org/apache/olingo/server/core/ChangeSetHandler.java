@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.util.List;
+
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
+
+/**
+ * A {@link ServiceHandler} can implement this interface to receive the entity writes of a batch
+ * change set together, so that they can be sent to the backend in one round trip, for example as
+ * one JDBC batch.
+ * <p>
+ * The creates, updates, upserts and deletes of entities in a change set are collected and handed to
+ * {@link #executeChangeSet(String, List)} in request order. Other requests in the change set are
+ * handled by the usual ServiceHandler methods; the operations collected before such a request, or
+ * before a request which refers to the Content-ID of a collected operation in its URI or body, are
+ * executed first, so Content-ID references always resolve to executed operations. If
+ * {@link #executeChangeSet(String, List)} fails, the error is reported for the operations whose responses
+ * were not written.
+ */
+public interface ChangeSetHandler {
+
+  /**
+   * Execute the given entity writes. For every operation the outcome must be written to its response,
+   * just as the corresponding ServiceHandler method would do; an operation whose response is not written
+   * fails the change set. All operations belong to the transaction started for the change set.
+   * @param txnId transaction id returned by {@link ServiceHandler#startTransaction()}
+   * @param operations the operations in request order
+   * @throws ODataLibraryException
+   * @throws ODataApplicationException if thrown the whole change set fails and is rolled back
+   */
+  void executeChangeSet(String txnId, List<ChangeSetOperation> operations)
+      throws ODataLibraryException, ODataApplicationException;
+}
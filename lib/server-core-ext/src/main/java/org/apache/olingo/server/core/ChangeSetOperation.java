@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.core.requests.DataRequest;
+import org.apache.olingo.server.core.responses.EntityResponse;
+
+/**
+ * An entity write of a batch change set, see {@link ChangeSetHandler}.
+ * The parameters are those the corresponding {@link ServiceHandler} method would have been called with.
+ */
+public class ChangeSetOperation {
+
+  public enum Kind {
+    /** {@link ServiceHandler#createEntity(DataRequest, Entity, EntityResponse)} */
+    CREATE,
+    /** {@link ServiceHandler#updateEntity(DataRequest, Entity, boolean, String, EntityResponse)} */
+    UPDATE,
+    /** {@link ServiceHandler#upsertEntity(DataRequest, Entity, boolean, String, EntityResponse)} */
+    UPSERT,
+    /** {@link ServiceHandler#deleteEntity(DataRequest, String, EntityResponse)} */
+    DELETE
+  }
+
+  private final Kind kind;
+  private final DataRequest request;
+  private final Entity entity;
+  private final boolean merge;
+  private final String entityETag;
+  private final EntityResponse response;
+
+  public ChangeSetOperation(Kind kind, DataRequest request, Entity entity, boolean merge, String entityETag,
+      EntityResponse response) {
+    this.kind = kind;
+    this.request = request;
+    this.entity = entity;
+    this.merge = merge;
+    this.entityETag = entityETag;
+    this.response = response;
+  }
+
+  public Kind getKind() {
+    return this.kind;
+  }
+
+  public DataRequest getRequest() {
+    return this.request;
+  }
+
+  /**
+   * @return the entity sent by the client; null for deletes
+   */
+  public Entity getEntity() {
+    return this.entity;
+  }
+
+  /**
+   * @return for updates and upserts, true if merge operation, false if the entity needs to be replaced
+   */
+  public boolean isMerge() {
+    return this.merge;
+  }
+
+  /**
+   * @return entity tag to match, if provided by the user. "*" means allow
+   */
+  public String getEntityETag() {
+    return this.entityETag;
+  }
+
+  public EntityResponse getResponse() {
+    return this.response;
+  }
+}
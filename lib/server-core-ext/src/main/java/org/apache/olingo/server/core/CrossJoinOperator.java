@@ -0,0 +1,417 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+
+/**
+ * Evaluates a $crossjoin over the entities of its entity sets.
+ * <p>
+ * Equality comparisons between properties of two different entity sets in the top-level conjunction of
+ * $filter, e.g. <code>People/UserName eq Airlines/AirlineCode</code>, are executed as hash joins: the
+ * entities of the first entity set are streamed, the entities of the other entity sets are put into hash
+ * tables on their join properties. All other conditions are residual conditions and are evaluated by a
+ * {@link RowFilter} on every joined row.
+ * <p>
+ * Rows are produced while the result is iterated, so the result can be written to the response without
+ * building the whole Cartesian product in memory.
+ */
+public class CrossJoinOperator {
+
+  /**
+   * Evaluates the residual conditions of a $crossjoin.
+   */
+  public interface RowFilter {
+    /**
+     * @param condition a condition of the top-level conjunction of $filter
+     * @param row the joined entities, by entity set name
+     * @return true when the row satisfies the condition
+     */
+    boolean accept(Expression condition, Map<String, Entity> row);
+  }
+
+  private final List<String> entitySetNames;
+  private final List<JoinCondition> joinConditions = new ArrayList<JoinCondition>();
+  private final List<Expression> residualConditions = new ArrayList<Expression>();
+
+  public CrossJoinOperator(List<String> entitySetNames, FilterOption filter) {
+    this.entitySetNames = new ArrayList<String>(entitySetNames);
+    if (filter != null && filter.getExpression() != null) {
+      collectConditions(filter.getExpression());
+    }
+  }
+
+  public List<String> getEntitySetNames() {
+    return Collections.unmodifiableList(this.entitySetNames);
+  }
+
+  /**
+   * @return the conditions of $filter that are not executed as hash joins
+   */
+  public List<Expression> getResidualConditions() {
+    return Collections.unmodifiableList(this.residualConditions);
+  }
+
+  /**
+   * Joins the given entities.
+   * @param sources the entities of every entity set in the $crossjoin, by entity set name; the first
+   * entity set is iterated once and never held in memory
+   * @param rowFilter evaluates the residual conditions; may be null when there are none
+   * @return the joined rows, by entity set name in the order of the $crossjoin
+   * @throws ODataApplicationException when a source is missing or residual conditions cannot be evaluated
+   */
+  public Iterator<Map<String, Entity>> execute(Map<String, ? extends Iterator<Entity>> sources,
+      RowFilter rowFilter) throws ODataApplicationException {
+    for (String name : this.entitySetNames) {
+      if (sources.get(name) == null) {
+        throw new ODataApplicationException("No entities provided for entity set " + name,
+            HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+      }
+    }
+    if (!this.residualConditions.isEmpty() && rowFilter == null) {
+      throw new ODataApplicationException("$filter on $crossjoin is only supported for equality "
+          + "comparisons between entity sets", HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+    }
+
+    List<Stage> stages = plan();
+    Iterator<Entity> probe = sources.get(stages.get(0).entitySetName);
+    for (int i = 1; i < stages.size(); i++) {
+      stages.get(i).build(sources.get(stages.get(i).entitySetName));
+    }
+    return new JoinIterator(stages, probe, rowFilter);
+  }
+
+  private void collectConditions(Expression expression) {
+    if (expression instanceof Binary) {
+      Binary binary = (Binary) expression;
+      if (binary.getOperator() == BinaryOperatorKind.AND) {
+        collectConditions(binary.getLeftOperand());
+        collectConditions(binary.getRightOperand());
+        return;
+      }
+      if (binary.getOperator() == BinaryOperatorKind.EQ) {
+        PropertyPath left = PropertyPath.of(binary.getLeftOperand(), this.entitySetNames);
+        PropertyPath right = PropertyPath.of(binary.getRightOperand(), this.entitySetNames);
+        if (left != null && right != null && !left.entitySetName.equals(right.entitySetName)) {
+          this.joinConditions.add(new JoinCondition(left, right));
+          return;
+        }
+      }
+    }
+    this.residualConditions.add(expression);
+  }
+
+  /*
+   * The first entity set is the probe side. The other entity sets are joined one after the other,
+   * preferring entity sets connected by a join condition to the ones already joined; the remaining
+   * ones are Cartesian products.
+   */
+  private List<Stage> plan() {
+    List<Stage> stages = new ArrayList<Stage>();
+    Map<String, Integer> joined = new HashMap<String, Integer>();
+    List<String> remaining = new ArrayList<String>(this.entitySetNames);
+
+    stages.add(new Stage(remaining.remove(0)));
+    joined.put(stages.get(0).entitySetName, 0);
+    while (!remaining.isEmpty()) {
+      String next = remaining.get(0);
+      for (String candidate : remaining) {
+        if (!conditionsTo(candidate, joined).isEmpty()) {
+          next = candidate;
+          break;
+        }
+      }
+      remaining.remove(next);
+
+      Stage stage = new Stage(next);
+      for (JoinCondition condition : conditionsTo(next, joined)) {
+        boolean leftIsNew = condition.left.entitySetName.equals(next);
+        PropertyPath own = leftIsNew ? condition.left : condition.right;
+        PropertyPath other = leftIsNew ? condition.right : condition.left;
+        stage.buildKeys.add(own);
+        stage.probeKeys.add(other);
+        stage.probeLevels.add(joined.get(other.entitySetName));
+      }
+      joined.put(next, stages.size());
+      stages.add(stage);
+    }
+    return stages;
+  }
+
+  private List<JoinCondition> conditionsTo(String entitySetName, Map<String, Integer> joined) {
+    List<JoinCondition> conditions = new ArrayList<JoinCondition>();
+    for (JoinCondition condition : this.joinConditions) {
+      if ((condition.left.entitySetName.equals(entitySetName)
+          && joined.containsKey(condition.right.entitySetName))
+          || (condition.right.entitySetName.equals(entitySetName)
+          && joined.containsKey(condition.left.entitySetName))) {
+        conditions.add(condition);
+      }
+    }
+    return conditions;
+  }
+
+  /*
+   * Property values are compared by value, independent of the Java type used for the EDM type.
+   */
+  static Object normalize(Object value) {
+    if (value instanceof Double || value instanceof Float) {
+      double d = ((Number) value).doubleValue();
+      if (Double.isNaN(d) || Double.isInfinite(d)) {
+        return value;
+      }
+      return normalize(BigDecimal.valueOf(d));
+    } else if (value instanceof Number) {
+      BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+      return decimal.signum() == 0 ? BigDecimal.ZERO : decimal.stripTrailingZeros();
+    } else if (value instanceof Calendar) {
+      return ((Calendar) value).getTimeInMillis();
+    } else if (value instanceof byte[]) {
+      return ByteBuffer.wrap((byte[]) value);
+    }
+    return value;
+  }
+
+  private static class PropertyPath {
+    private final String entitySetName;
+    private final List<String> propertyNames;
+
+    PropertyPath(String entitySetName, List<String> propertyNames) {
+      this.entitySetName = entitySetName;
+      this.propertyNames = propertyNames;
+    }
+
+    static PropertyPath of(Expression expression, List<String> entitySetNames) {
+      if (!(expression instanceof Member)) {
+        return null;
+      }
+      Member member = (Member) expression;
+      if (member.isCollection() || member.getStartTypeFilter() != null) {
+        return null;
+      }
+      List<UriResource> parts = member.getResourcePath().getUriResourceParts();
+      if (parts.size() < 2 || !(parts.get(0) instanceof UriResourceEntitySet)) {
+        return null;
+      }
+      String entitySetName = ((UriResourceEntitySet) parts.get(0)).getEntitySet().getName();
+      if (!entitySetNames.contains(entitySetName)) {
+        return null;
+      }
+      List<String> propertyNames = new ArrayList<String>();
+      for (UriResource part : parts.subList(1, parts.size())) {
+        if (!(part instanceof UriResourceProperty) || ((UriResourceProperty) part).isCollection()) {
+          return null;
+        }
+        propertyNames.add(((UriResourceProperty) part).getProperty().getName());
+      }
+      return new PropertyPath(entitySetName, propertyNames);
+    }
+
+    Object valueOf(Entity entity) {
+      Property property = entity.getProperty(this.propertyNames.get(0));
+      for (int i = 1; i < this.propertyNames.size() && property != null; i++) {
+        if (property.isNull() || !property.isComplex()) {
+          return null;
+        }
+        Property child = null;
+        for (Property candidate : property.asComplex().getValue()) {
+          if (candidate.getName().equals(this.propertyNames.get(i))) {
+            child = candidate;
+            break;
+          }
+        }
+        property = child;
+      }
+      return property == null ? null : normalize(property.getValue());
+    }
+  }
+
+  private static class JoinCondition {
+    private final PropertyPath left;
+    private final PropertyPath right;
+
+    JoinCondition(PropertyPath left, PropertyPath right) {
+      this.left = left;
+      this.right = right;
+    }
+  }
+
+  private static class Stage {
+    private final String entitySetName;
+    private final List<PropertyPath> buildKeys = new ArrayList<PropertyPath>();
+    private final List<PropertyPath> probeKeys = new ArrayList<PropertyPath>();
+    private final List<Integer> probeLevels = new ArrayList<Integer>();
+    private final Map<List<Object>, List<Entity>> table = new HashMap<List<Object>, List<Entity>>();
+
+    Stage(String entitySetName) {
+      this.entitySetName = entitySetName;
+    }
+
+    void build(Iterator<Entity> entities) {
+      while (entities.hasNext()) {
+        Entity entity = entities.next();
+        List<Object> key = new ArrayList<Object>(this.buildKeys.size());
+        for (PropertyPath path : this.buildKeys) {
+          key.add(path.valueOf(entity));
+        }
+        List<Entity> bucket = this.table.get(key);
+        if (bucket == null) {
+          bucket = new ArrayList<Entity>();
+          this.table.put(key, bucket);
+        }
+        bucket.add(entity);
+      }
+    }
+
+    List<Entity> lookup(Entity[] row) {
+      List<Object> key = new ArrayList<Object>(this.probeKeys.size());
+      for (int i = 0; i < this.probeKeys.size(); i++) {
+        key.add(this.probeKeys.get(i).valueOf(row[this.probeLevels.get(i)]));
+      }
+      List<Entity> bucket = this.table.get(key);
+      return bucket == null ? Collections.<Entity> emptyList() : bucket;
+    }
+  }
+
+  private class JoinIterator implements Iterator<Map<String, Entity>> {
+    private final List<Stage> stages;
+    private final Iterator<Entity> probe;
+    private final RowFilter rowFilter;
+    private final Entity[] row;
+    private final List<List<Entity>> candidates;
+    private final int[] positions;
+    private boolean started;
+    private boolean done;
+    private Map<String, Entity> next;
+
+    JoinIterator(List<Stage> stages, Iterator<Entity> probe, RowFilter rowFilter) {
+      this.stages = stages;
+      this.probe = probe;
+      this.rowFilter = rowFilter;
+      this.row = new Entity[stages.size()];
+      this.candidates = new ArrayList<List<Entity>>(Collections.<List<Entity>> nCopies(stages.size(), null));
+      this.positions = new int[stages.size()];
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (this.next == null && !this.done) {
+        this.next = advance();
+        this.done = this.next == null;
+      }
+      return this.next != null;
+    }
+
+    @Override
+    public Map<String, Entity> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      Map<String, Entity> result = this.next;
+      this.next = null;
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    private Map<String, Entity> advance() {
+      int last = this.stages.size() - 1;
+      int level = this.started ? last : 0;
+      this.started = true;
+      while (level >= 0) {
+        if (!moveNext(level)) {
+          level--;
+        } else if (level < last) {
+          level++;
+          this.candidates.set(level, this.stages.get(level).lookup(this.row));
+          this.positions[level] = 0;
+        } else {
+          Map<String, Entity> result = toRow();
+          if (accept(result)) {
+            return result;
+          }
+        }
+      }
+      return null;
+    }
+
+    private boolean moveNext(int level) {
+      if (level == 0) {
+        if (!this.probe.hasNext()) {
+          return false;
+        }
+        this.row[0] = this.probe.next();
+        return true;
+      }
+      List<Entity> entities = this.candidates.get(level);
+      if (this.positions[level] >= entities.size()) {
+        return false;
+      }
+      this.row[level] = entities.get(this.positions[level]++);
+      return true;
+    }
+
+    private Map<String, Entity> toRow() {
+      Map<String, Entity> result = new LinkedHashMap<String, Entity>();
+      for (String name : entitySetNames) {
+        result.put(name, null);
+      }
+      for (int i = 0; i < this.stages.size(); i++) {
+        result.put(this.stages.get(i).entitySetName, this.row[i]);
+      }
+      return result;
+    }
+
+    private boolean accept(Map<String, Entity> result) {
+      for (Expression condition : residualConditions) {
+        if (!this.rowFilter.accept(condition, result)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -18,6 +18,8 @@
  */
 package org.apache.olingo.server.core;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
@@ -27,6 +29,10 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventReader;
@@ -97,6 +103,19 @@ import org.apache.olingo.server.api.ServiceMetadata;
 public class MetadataParser {
   private boolean parseAnnotations = false;
   private static final String XML_LINK_NS = "http://www.w3.org/1999/xlink";
+  // looking up the StAX implementation is costly, but factories are not guaranteed to be thread safe
+  private static final ThreadLocal<XMLInputFactory> XML_INPUT_FACTORY = new ThreadLocal<XMLInputFactory>() {
+    @Override
+    protected XMLInputFactory initialValue() {
+      return XMLInputFactory.newInstance();
+    }
+  };
+  // snapshots of the parsed local vocabularies, by resource and annotation mode; each parse restores its own copy
+  private static final Map<String, byte[]> VOCABULARY_CACHE = new ConcurrentHashMap<String, byte[]>();
+  // snapshots of parsed referenced documents, by resolver and then by URI and parser settings
+  private static final Map<ReferenceResolver, Map<String, byte[]>> REFERENCE_CACHE =
+      Collections.synchronizedMap(new WeakHashMap<ReferenceResolver, Map<String, byte[]>>());
+  private boolean cacheReferences = false;
   private ReferenceResolver referenceResolver = new DefaultReferenceResolver();
   private boolean useLocalCoreVocabularies = true;
   private boolean implicitlyLoadCoreVocabularies = false;
@@ -131,6 +150,26 @@ public class MetadataParser {
     return this;
   }
   
+  /**
+   * Keep snapshots of referenced documents, once parsed, in a cache shared by all parsers with the same
+   * reference resolver and look them up by URI. Every service gets its own copy of a cached document.
+   * Only use this if the same URI always resolves to the same document.
+   * @param cache true for yes; false otherwise
+   * @return
+   */
+  public MetadataParser cacheReferences(boolean cache) {
+    this.cacheReferences = cache;
+    return this;
+  }
+
+  /**
+   * Removes all cached vocabularies and referenced documents.
+   */
+  public static void clearCache() {
+    VOCABULARY_CACHE.clear();
+    REFERENCE_CACHE.clear();
+  }
+
   /**
    * Load the core vocabularies, irrespective of if they are defined in the $metadata
    * @param load
@@ -148,8 +187,7 @@ public class MetadataParser {
   }
 
   public SchemaBasedEdmProvider buildEdmProvider(Reader csdl) throws XMLStreamException {
-    XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-    XMLEventReader reader = xmlInputFactory.createXMLEventReader(csdl);    
+    XMLEventReader reader = XML_INPUT_FACTORY.get().createXMLEventReader(csdl);    
     return buildEdmProvider(reader, this.referenceResolver,
         this.implicitlyLoadCoreVocabularies, this.useLocalCoreVocabularies);
   }
@@ -157,16 +195,14 @@ public class MetadataParser {
   protected SchemaBasedEdmProvider buildEdmProvider(Reader csdl,
       ReferenceResolver resolver, boolean loadCore, boolean useLocal)
       throws XMLStreamException {
-    XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-    XMLEventReader reader = xmlInputFactory.createXMLEventReader(csdl);    
+    XMLEventReader reader = XML_INPUT_FACTORY.get().createXMLEventReader(csdl);    
     return buildEdmProvider(reader, resolver, loadCore, useLocal);
   }
     
   protected SchemaBasedEdmProvider buildEdmProvider(InputStream csdl,
       ReferenceResolver resolver, boolean loadCore, boolean useLocal)
       throws XMLStreamException {
-    XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
-    XMLEventReader reader = xmlInputFactory.createXMLEventReader(csdl);
+    XMLEventReader reader = XML_INPUT_FACTORY.get().createXMLEventReader(csdl);
     return buildEdmProvider(reader, resolver, loadCore, useLocal);
   } 
   
@@ -238,6 +274,13 @@ public class MetadataParser {
             continue;
           }
                     
+          String cacheKey = null;
+          if (refProvider == null && this.cacheReferences) {
+            cacheKey = cacheKey(xmlBase == null ? reference.getUri().toString() : xmlBase + reference.getUri())
+                + (useLocal ? "#local" : "");
+            byte[] snapshot = getReferenceCache().get(cacheKey);
+            refProvider = snapshot == null ? null : fromSnapshot(snapshot);
+          }
           if (refProvider == null) {
             InputStream is = this.referenceResolver.resolveReference(reference.getUri(), xmlBase);
             if (is == null) {
@@ -246,6 +289,9 @@ public class MetadataParser {
               // do not implicitly load core vocabularies any more. But if the
               // references loading the core vocabularies try to use local if we can 
               refProvider = buildEdmProvider(is, resolver, false, useLocal);
+              if (cacheKey != null) {
+                getReferenceCache().put(cacheKey, toSnapshot(refProvider));
+              }
             }
           }
           
@@ -282,6 +328,40 @@ public class MetadataParser {
     return false;
   }
 
+  private Map<String, byte[]> getReferenceCache() {
+    synchronized (REFERENCE_CACHE) {
+      Map<String, byte[]> cache = REFERENCE_CACHE.get(this.referenceResolver);
+      if (cache == null) {
+        cache = new ConcurrentHashMap<String, byte[]>();
+        REFERENCE_CACHE.put(this.referenceResolver, cache);
+      }
+      return cache;
+    }
+  }
+
+  private static byte[] toSnapshot(SchemaBasedEdmProvider provider) throws XMLStreamException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try {
+      provider.writeSnapshot(out);
+    } catch (IOException e) {
+      throw new XMLStreamException(e);
+    }
+    return out.toByteArray();
+  }
+
+  private static SchemaBasedEdmProvider fromSnapshot(byte[] snapshot) throws XMLStreamException {
+    try {
+      return SchemaBasedEdmProvider.readSnapshot(new ByteArrayInputStream(snapshot));
+    } catch (IOException e) {
+      throw new XMLStreamException(e);
+    }
+  }
+
+  private String cacheKey(String uri) {
+    // the parsed result depends on whether annotations are read
+    return this.parseAnnotations ? uri + "#annotations" : uri;
+  }
+
   private String fixXmlBase(String base) {
     if (base.endsWith("/")) {
       return base;
@@ -293,13 +373,22 @@ public class MetadataParser {
       String resource) throws XMLStreamException {
     CsdlSchema schema = provider.getVocabularySchema(namespace);
     if (schema == null) {
-      InputStream is = this.getClass().getClassLoader().getResourceAsStream(resource);
-      if (is != null) {
-        SchemaBasedEdmProvider childProvider = buildEdmProvider(is, null, false, false);
-        provider.addVocabularySchema(namespace, childProvider);
+      // the local vocabularies never change, so they are parsed once per class loader
+      String cacheKey = cacheKey("classpath:" + resource);
+      byte[] snapshot = VOCABULARY_CACHE.get(cacheKey);
+      SchemaBasedEdmProvider childProvider;
+      if (snapshot == null) {
+        InputStream is = this.getClass().getClassLoader().getResourceAsStream(resource);
+        if (is != null) {
+          childProvider = buildEdmProvider(is, null, false, false);
+          VOCABULARY_CACHE.put(cacheKey, toSnapshot(childProvider));
+        } else {
+          throw new XMLStreamException("failed to load "+resource+" core vocabulary");
+        }
       } else {
-        throw new XMLStreamException("failed to load "+resource+" core vocabulary");
+        childProvider = fromSnapshot(snapshot);
       }
+      provider.addVocabularySchema(namespace, childProvider);
     }
   }  
   
@@ -71,7 +71,11 @@ public class OData4HttpHandler extends ODataHttpHandlerImpl {
           this.handler, ContentType.JSON);
       handler.handleException(e, request, response);
     }    
-    convertToHttp(httpResponse, response);
+    if (response.getMediaContent() == null) {
+      convertToHttp(httpResponse, response);
+    } else {
+      writeMediaContent(httpRequest, httpResponse, request, response);
+    }
   }
 
 
@@ -18,10 +18,27 @@
  */
 package org.apache.olingo.server.core;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.provider.CsdlAction;
@@ -46,15 +63,36 @@ import org.apache.olingo.commons.api.edmx.EdmxReferenceInclude;
 import org.apache.olingo.commons.api.ex.ODataException;
 
 public class SchemaBasedEdmProvider implements CsdlEdmProvider {
-  private final List<CsdlSchema> edmSchemas = new ArrayList<CsdlSchema>();
+  private static final int SNAPSHOT_VERSION = 1;
+
+  private final List<CsdlSchema> edmSchemas = new CopyOnWriteArrayList<CsdlSchema>();
+  // lookup tables of the schemas, by namespace and by alias
+  private final Map<String, SchemaIndex> schemaIndexes = new ConcurrentHashMap<String, SchemaIndex>();
   private final Map<String, EdmxReference> references = new ConcurrentHashMap<String, EdmxReference>();
   private final Map<String, SchemaBasedEdmProvider> referenceSchemas = 
       new ConcurrentHashMap<String, SchemaBasedEdmProvider>();
   private final Map<String, SchemaBasedEdmProvider> coreVocabularySchemas = 
       new ConcurrentHashMap<String, SchemaBasedEdmProvider>();
-  
-  protected void addSchema(CsdlSchema schema) {
+
+  /**
+   * Adds a schema and indexes its contents by name. The schema must be complete when it is added;
+   * a schema with the namespace of an already added one replaces that one.
+   * @param schema the schema
+   */
+  public synchronized void addSchema(CsdlSchema schema) {
+    SchemaIndex index = new SchemaIndex(schema);
+    SchemaIndex replaced = this.schemaIndexes.get(schema.getNamespace());
+    if (replaced != null) {
+      this.edmSchemas.remove(replaced.schema);
+      if (replaced.schema.getAlias() != null && this.schemaIndexes.get(replaced.schema.getAlias()) == replaced) {
+        this.schemaIndexes.remove(replaced.schema.getAlias());
+      }
+    }
     this.edmSchemas.add(schema);
+    this.schemaIndexes.put(schema.getNamespace(), index);
+    if (schema.getAlias() != null && !this.schemaIndexes.containsKey(schema.getAlias())) {
+      this.schemaIndexes.put(schema.getAlias(), index);
+    }
   }
   
   public List<EdmxReference> getReferences(){
@@ -76,9 +114,14 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
   }  
   
   CsdlSchema getVocabularySchema(String ns) {
+    SchemaIndex index = getVocabularySchemaIndex(ns);
+    return index == null ? null : index.schema;
+  }
+
+  private SchemaIndex getVocabularySchemaIndex(String ns) {
     SchemaBasedEdmProvider provider = this.coreVocabularySchemas.get(ns);
     if (provider != null) {
-      return provider.getSchema(ns, false);
+      return provider.getSchemaIndex(ns, false);
     }
     return null;
   }
@@ -88,35 +131,43 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
   }  
   
   CsdlSchema getSchema(String ns, boolean checkReferences) {
-    for (CsdlSchema s : this.edmSchemas) {
-      if (s.getNamespace().equals(ns)) {
-        return s;
-      }
+    SchemaIndex index = getSchemaIndex(ns, checkReferences);
+    return index == null ? null : index.schema;
+  }
+
+  private SchemaIndex getSchemaIndex(String ns, boolean checkReferences) {
+    if (ns == null) {
+      return null;
     }
-    CsdlSchema s = null; 
-    if (checkReferences) {
-      s = getReferenceSchema(ns);
-      if (s == null) {
-        s = getVocabularySchema(ns);
+    SchemaIndex index = this.schemaIndexes.get(ns);
+    if (index == null && checkReferences) {
+      index = getReferenceSchemaIndex(ns);
+      if (index == null) {
+        index = getVocabularySchemaIndex(ns);
       }
     }
-    return s;
+    return index;
   }
 
   CsdlSchema getReferenceSchema(String ns) {
+    SchemaIndex index = getReferenceSchemaIndex(ns);
+    return index == null ? null : index.schema;
+  }
+
+  private SchemaIndex getReferenceSchemaIndex(String ns) {
     if (ns == null) {
       return null;
     }
     
     if (this.referenceSchemas.get(ns) != null) {
-      return this.referenceSchemas.get(ns).getSchema(ns);  
+      return this.referenceSchemas.get(ns).getSchemaIndex(ns, true);
     }
     
     // it is possible that we may be looking for Reference schema of Reference
     for (SchemaBasedEdmProvider provider:this.referenceSchemas.values()) {
-      CsdlSchema schema = provider.getSchema(ns);
-      if (schema != null) {
-        return schema;
+      SchemaIndex index = provider.getSchemaIndex(ns, true);
+      if (index != null) {
+        return index;
       }
     }
     return null;
@@ -124,133 +175,53 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
   
   @Override
   public CsdlEnumType getEnumType(FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlEnumType> types = schema.getEnumTypes();
-      if (types != null) {
-        for (CsdlEnumType type : types) {
-          if (type.getName().equals(fqn.getName())) {
-            return type;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null : index.enumTypes.get(fqn.getName());
   }
 
   @Override
   public CsdlTypeDefinition getTypeDefinition(FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlTypeDefinition> types = schema.getTypeDefinitions();
-      if (types != null) {
-        for (CsdlTypeDefinition type : types) {
-          if (type.getName().equals(fqn.getName())) {
-            return type;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null : index.typeDefinitions.get(fqn.getName());
   }
 
   @Override
   public List<CsdlFunction> getFunctions(FullQualifiedName fqn) throws ODataException {
-    ArrayList<CsdlFunction> foundFuncs = new ArrayList<CsdlFunction>();
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlFunction> functions = schema.getFunctions();
-      if (functions != null) {
-        for (CsdlFunction func : functions) {
-          if (func.getName().equals(fqn.getName())) {
-            foundFuncs.add(func);
-          }
-        }
-      }
-    }
-    return foundFuncs;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    List<CsdlFunction> functions = index == null ? null : index.functions.get(fqn.getName());
+    return functions == null ? new ArrayList<CsdlFunction>() : new ArrayList<CsdlFunction>(functions);
   }
 
   @Override
   public CsdlTerm getTerm(FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlTerm> terms = schema.getTerms();
-      if (terms != null) {
-        for (CsdlTerm term : terms) {
-          if (term.getName().equals(fqn.getName())) {
-            return term;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null : index.terms.get(fqn.getName());
   }
 
   @Override
   public CsdlEntitySet getEntitySet(FullQualifiedName fqn, String entitySetName) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      CsdlEntityContainer ec = schema.getEntityContainer();
-      if (ec != null && ec.getEntitySets() != null) {
-        for (CsdlEntitySet es : ec.getEntitySets()) {
-          if (es.getName().equals(entitySetName)) {
-            return es;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null : index.entitySets.get(entitySetName);
   }
 
   @Override
   public CsdlSingleton getSingleton(FullQualifiedName fqn, String singletonName) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      CsdlEntityContainer ec = schema.getEntityContainer();
-      if (ec != null && ec.getSingletons() != null) {
-        for (CsdlSingleton es : ec.getSingletons()) {
-          if (es.getName().equals(singletonName)) {
-            return es;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null : index.singletons.get(singletonName);
   }
 
   @Override
   public CsdlActionImport getActionImport(FullQualifiedName fqn, String actionImportName)
       throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      CsdlEntityContainer ec = schema.getEntityContainer();
-      if (ec != null && ec.getActionImports() != null) {
-        for (CsdlActionImport es : ec.getActionImports()) {
-          if (es.getName().equals(actionImportName)) {
-            return es;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null : index.actionImports.get(actionImportName);
   }
 
   @Override
   public CsdlFunctionImport getFunctionImport(FullQualifiedName fqn, String functionImportName)
       throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      CsdlEntityContainer ec = schema.getEntityContainer();
-      if (ec != null && ec.getFunctionImports() != null) {
-        for (CsdlFunctionImport es : ec.getFunctionImports()) {
-          if (es.getName().equals(functionImportName)) {
-            return es;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null : index.functionImports.get(functionImportName);
   }
 
   @Override
@@ -335,57 +306,265 @@ public class SchemaBasedEdmProvider implements CsdlEdmProvider {
 
   @Override
   public CsdlEntityType getEntityType(final FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      if (schema.getEntityTypes() != null) {
-        for (CsdlEntityType type : schema.getEntityTypes()) {
-          if (type.getName().equals(fqn.getName())) {
-            return type;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null : index.entityTypes.get(fqn.getName());
   }
 
   @Override
   public CsdlComplexType getComplexType(final FullQualifiedName fqn) throws ODataException {
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      if (schema.getComplexTypes() != null) {
-        for (CsdlComplexType type : schema.getComplexTypes()) {
-          if (type.getName().equals(fqn.getName())) {
-            return type;
-          }
-        }
-      }
-    }
-    return null;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    return index == null ? null : index.complexTypes.get(fqn.getName());
   }
 
   @Override
   public List<CsdlAction> getActions(final FullQualifiedName fqn) throws ODataException {
-    ArrayList<CsdlAction> actions = new ArrayList<CsdlAction>();
-    CsdlSchema schema = getSchema(fqn.getNamespace());
-    if (schema != null) {
-      List<CsdlAction> types = schema.getActions();
-      if (types != null) {
-        for (CsdlAction type : types) {
-          if (type.getName().equals(fqn.getName())) {
-            actions.add(type);
-          }
-        }
-      }
-    }
-    return actions;
+    SchemaIndex index = getSchemaIndex(fqn.getNamespace(), true);
+    List<CsdlAction> actions = index == null ? null : index.actions.get(fqn.getName());
+    return actions == null ? new ArrayList<CsdlAction>() : new ArrayList<CsdlAction>(actions);
   }
 
   @Override
   public CsdlAnnotations getAnnotationsGroup(FullQualifiedName targetName, String qualifier) throws ODataException {
-    CsdlSchema schema = getSchema(targetName.getNamespace());
-    if (schema != null) {
-      return schema.getAnnotationGroup(targetName.getFullQualifiedNameAsString(), qualifier);
+    SchemaIndex index = getSchemaIndex(targetName.getNamespace(), true);
+    if (index != null) {
+      Map<String, CsdlAnnotations> groups = index.annotationGroups.get(targetName.getFullQualifiedNameAsString());
+      return groups == null ? null : groups.get(qualifier);
     }
     return null;
   } 
+
+  /**
+   * Writes the schemas of this provider, including referenced and vocabulary schemas, as compressed binary
+   * snapshot. {@link #readSnapshot(InputStream)} restores the provider without parsing any XML.
+   * A snapshot can only be read by the same library version which wrote it.
+   * @param out the stream to write to; it is not closed
+   * @throws IOException if writing fails
+   */
+  public void writeSnapshot(OutputStream out) throws IOException {
+    GZIPOutputStream zip = new GZIPOutputStream(out);
+    ObjectOutputStream objects = new ObjectOutputStream(zip);
+    objects.writeInt(SNAPSHOT_VERSION);
+    objects.writeObject(new Snapshot(this, new IdentityHashMap<SchemaBasedEdmProvider, Snapshot>()));
+    objects.flush();
+    zip.finish();
+  }
+
+  /**
+   * Reads a provider from a snapshot written by {@link #writeSnapshot(OutputStream)}.
+   * Only the classes a snapshot consists of are accepted; other classes are rejected before they are loaded.
+   * @param in the stream to read from; it is not closed
+   * @return the provider
+   * @throws IOException if the snapshot cannot be read or has been written by an incompatible version
+   */
+  public static SchemaBasedEdmProvider readSnapshot(InputStream in) throws IOException {
+    ObjectInputStream objects = new SnapshotInputStream(new GZIPInputStream(in));
+    if (objects.readInt() != SNAPSHOT_VERSION) {
+      throw new IOException("Unsupported metadata snapshot version.");
+    }
+    try {
+      return ((Snapshot) objects.readObject()).restore(new IdentityHashMap<Snapshot, SchemaBasedEdmProvider>());
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Metadata snapshot contains unknown classes.", e);
+    } catch (ClassCastException e) {
+      throw new IOException("Not a metadata snapshot.", e);
+    }
+  }
+
+  /**
+   * Object input stream which resolves only the classes of a snapshot: the CSDL items, the Edmx references,
+   * and the Java types they are built of. Mapped Java classes of
+   * {@link org.apache.olingo.commons.api.edm.provider.CsdlMapping} must be such Java types.
+   */
+  private static final class SnapshotInputStream extends ObjectInputStream {
+    private static final String[] ALLOWED_PACKAGES = {
+        "org.apache.olingo.commons.api.edm.provider.",
+        "org.apache.olingo.commons.api.edmx." };
+    private static final Set<String> ALLOWED_CLASSES = new HashSet<String>(Arrays.asList(
+        Snapshot.class.getName(),
+        FullQualifiedName.class.getName(),
+        "org.apache.olingo.commons.api.edm.geo.SRID",
+        "org.apache.olingo.commons.api.edm.geo.Geospatial$Dimension",
+        "java.lang.Object", "java.lang.Enum", "java.lang.Number", "java.lang.String", "java.lang.Boolean",
+        "java.lang.Character", "java.lang.Byte", "java.lang.Short", "java.lang.Integer", "java.lang.Long",
+        "java.lang.Float", "java.lang.Double", "java.math.BigDecimal", "java.math.BigInteger", "java.net.URI",
+        "java.util.ArrayList", "java.util.LinkedList", "java.util.HashMap", "java.util.LinkedHashMap",
+        "java.util.Arrays$ArrayList", "java.util.Collections$EmptyList", "java.util.Collections$SingletonList",
+        "java.util.Collections$UnmodifiableCollection", "java.util.Collections$UnmodifiableList",
+        "java.util.Collections$UnmodifiableRandomAccessList",
+        "java.util.Calendar", "java.util.Date", "java.util.UUID", "java.sql.Date", "java.sql.Time",
+        "java.sql.Timestamp",
+        "boolean", "byte", "char", "short", "int", "long", "float", "double"));
+
+    SnapshotInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass description) throws IOException, ClassNotFoundException {
+      String name = description.getName();
+      if (!isAllowed(name)) {
+        throw new InvalidClassException(name, "Class is not allowed in a metadata snapshot.");
+      }
+      return super.resolveClass(description);
+    }
+
+    private static boolean isAllowed(String name) {
+      if (name.startsWith("[")) {
+        // arrays, e.g. behind lists created with Arrays.asList: allowed if their component type is allowed
+        String component = name.substring(name.lastIndexOf('[') + 1);
+        return component.length() == 1
+            || (component.startsWith("L") && component.endsWith(";")
+                && isAllowed(component.substring(1, component.length() - 1)));
+      }
+      if (ALLOWED_CLASSES.contains(name)) {
+        return true;
+      }
+      for (String prefix : ALLOWED_PACKAGES) {
+        if (name.startsWith(prefix)) {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
+  /**
+   * Serializable state of a provider; providers registered under several names are written once.
+   */
+  private static final class Snapshot implements Serializable {
+    private static final long serialVersionUID = 1L;
+    private final List<CsdlSchema> schemas;
+    private final List<EdmxReference> references;
+    private final Map<String, Snapshot> referenceSchemas = new HashMap<String, Snapshot>();
+    private final Map<String, Snapshot> vocabularySchemas = new HashMap<String, Snapshot>();
+
+    Snapshot(SchemaBasedEdmProvider provider, Map<SchemaBasedEdmProvider, Snapshot> written) {
+      written.put(provider, this);
+      this.schemas = new ArrayList<CsdlSchema>(provider.edmSchemas);
+      this.references = new ArrayList<EdmxReference>(provider.references.values());
+      for (Map.Entry<String, SchemaBasedEdmProvider> entry : provider.referenceSchemas.entrySet()) {
+        this.referenceSchemas.put(entry.getKey(), of(entry.getValue(), written));
+      }
+      for (Map.Entry<String, SchemaBasedEdmProvider> entry : provider.coreVocabularySchemas.entrySet()) {
+        this.vocabularySchemas.put(entry.getKey(), of(entry.getValue(), written));
+      }
+    }
+
+    private static Snapshot of(SchemaBasedEdmProvider provider, Map<SchemaBasedEdmProvider, Snapshot> written) {
+      Snapshot snapshot = written.get(provider);
+      return snapshot == null ? new Snapshot(provider, written) : snapshot;
+    }
+
+    SchemaBasedEdmProvider restore(Map<Snapshot, SchemaBasedEdmProvider> restored) {
+      SchemaBasedEdmProvider provider = restored.get(this);
+      if (provider != null) {
+        return provider;
+      }
+      provider = new SchemaBasedEdmProvider();
+      restored.put(this, provider);
+      for (CsdlSchema schema : this.schemas) {
+        provider.addSchema(schema);
+      }
+      for (EdmxReference reference : this.references) {
+        provider.addReference(reference);
+      }
+      for (Map.Entry<String, Snapshot> entry : this.referenceSchemas.entrySet()) {
+        provider.addReferenceSchema(entry.getKey(), entry.getValue().restore(restored));
+      }
+      for (Map.Entry<String, Snapshot> entry : this.vocabularySchemas.entrySet()) {
+        provider.addVocabularySchema(entry.getKey(), entry.getValue().restore(restored));
+      }
+      return provider;
+    }
+  }
+
+  /**
+   * Lookup tables for the contents of one schema, built once when the schema is added.
+   * Where names are not unique the first element wins, as with the scans this index replaces; only for
+   * annotation groups the last one wins, as in {@link CsdlSchema#getAnnotationGroup(String, String)}.
+   */
+  private static final class SchemaIndex {
+    private final CsdlSchema schema;
+    private final Map<String, CsdlEntityType> entityTypes = new HashMap<String, CsdlEntityType>();
+    private final Map<String, CsdlComplexType> complexTypes = new HashMap<String, CsdlComplexType>();
+    private final Map<String, CsdlEnumType> enumTypes = new HashMap<String, CsdlEnumType>();
+    private final Map<String, CsdlTypeDefinition> typeDefinitions = new HashMap<String, CsdlTypeDefinition>();
+    private final Map<String, CsdlTerm> terms = new HashMap<String, CsdlTerm>();
+    private final Map<String, List<CsdlAction>> actions = new HashMap<String, List<CsdlAction>>();
+    private final Map<String, List<CsdlFunction>> functions = new HashMap<String, List<CsdlFunction>>();
+    private final Map<String, CsdlEntitySet> entitySets = new HashMap<String, CsdlEntitySet>();
+    private final Map<String, CsdlSingleton> singletons = new HashMap<String, CsdlSingleton>();
+    private final Map<String, CsdlActionImport> actionImports = new HashMap<String, CsdlActionImport>();
+    private final Map<String, CsdlFunctionImport> functionImports = new HashMap<String, CsdlFunctionImport>();
+    private final Map<String, Map<String, CsdlAnnotations>> annotationGroups =
+        new HashMap<String, Map<String, CsdlAnnotations>>();
+
+    SchemaIndex(CsdlSchema schema) {
+      this.schema = schema;
+      for (CsdlEntityType type : nonNull(schema.getEntityTypes())) {
+        putFirst(this.entityTypes, type.getName(), type);
+      }
+      for (CsdlComplexType type : nonNull(schema.getComplexTypes())) {
+        putFirst(this.complexTypes, type.getName(), type);
+      }
+      for (CsdlEnumType type : nonNull(schema.getEnumTypes())) {
+        putFirst(this.enumTypes, type.getName(), type);
+      }
+      for (CsdlTypeDefinition type : nonNull(schema.getTypeDefinitions())) {
+        putFirst(this.typeDefinitions, type.getName(), type);
+      }
+      for (CsdlTerm term : nonNull(schema.getTerms())) {
+        putFirst(this.terms, term.getName(), term);
+      }
+      for (CsdlAction action : nonNull(schema.getActions())) {
+        List<CsdlAction> overloads = this.actions.get(action.getName());
+        if (overloads == null) {
+          overloads = new ArrayList<CsdlAction>();
+          this.actions.put(action.getName(), overloads);
+        }
+        overloads.add(action);
+      }
+      for (CsdlFunction function : nonNull(schema.getFunctions())) {
+        List<CsdlFunction> overloads = this.functions.get(function.getName());
+        if (overloads == null) {
+          overloads = new ArrayList<CsdlFunction>();
+          this.functions.put(function.getName(), overloads);
+        }
+        overloads.add(function);
+      }
+      CsdlEntityContainer ec = schema.getEntityContainer();
+      if (ec != null) {
+        for (CsdlEntitySet es : nonNull(ec.getEntitySets())) {
+          putFirst(this.entitySets, es.getName(), es);
+        }
+        for (CsdlSingleton singleton : nonNull(ec.getSingletons())) {
+          putFirst(this.singletons, singleton.getName(), singleton);
+        }
+        for (CsdlActionImport ai : nonNull(ec.getActionImports())) {
+          putFirst(this.actionImports, ai.getName(), ai);
+        }
+        for (CsdlFunctionImport fi : nonNull(ec.getFunctionImports())) {
+          putFirst(this.functionImports, fi.getName(), fi);
+        }
+      }
+      for (CsdlAnnotations annotations : nonNull(schema.getAnnotationGroups())) {
+        Map<String, CsdlAnnotations> groups = this.annotationGroups.get(annotations.getTarget());
+        if (groups == null) {
+          groups = new HashMap<String, CsdlAnnotations>();
+          this.annotationGroups.put(annotations.getTarget(), groups);
+        }
+        groups.put(annotations.getQualifier(), annotations);
+      }
+    }
+
+    private static <T> void putFirst(Map<String, T> map, String name, T element) {
+      if (!map.containsKey(name)) {
+        map.put(name, element);
+      }
+    }
+
+    private static <T> List<T> nonNull(List<T> list) {
+      return list == null ? Collections.<T> emptyList() : list;
+    }
+  }
 }
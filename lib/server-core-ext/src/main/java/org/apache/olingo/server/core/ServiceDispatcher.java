@@ -79,6 +79,16 @@ public class ServiceDispatcher extends RequestURLHierarchyVisitor {
   }
 
   public void execute(ODataRequest odRequest, ODataResponse odResponse) {
+    execute(odRequest, null, odResponse);
+  }
+
+  /**
+   * Executes a request whose URI may have been parsed already.
+   * @param odRequest the request
+   * @param uriInfo the parsed URI of the request, or <code>null</code> to parse it here
+   * @param odResponse the response
+   */
+  public void execute(ODataRequest odRequest, UriInfo uriInfo, ODataResponse odResponse) {
     ContentType contentType = ContentType.JSON;
     try {
       contentType = ContentNegotiator.doContentNegotiation(null,
@@ -89,8 +99,10 @@ public class ServiceDispatcher extends RequestURLHierarchyVisitor {
       if(path.indexOf("$entity") != -1) {
         executeIdOption(query, odRequest, odResponse);
       } else {
-        UriInfo uriInfo = new Parser(this.metadata.getEdm(), odata)
-          .parseUri(path, query, null);
+        if (uriInfo == null) {
+          uriInfo = new Parser(this.metadata.getEdm(), odata)
+            .parseUri(path, query, null);
+        }
         
         contentType = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
             odRequest, this.customContentSupport, RepresentationType.ERROR);      
@@ -279,7 +279,9 @@ public interface ServiceHandler extends Processor {
   void rollback(String txnId) throws ODataLibraryException, ODataApplicationException;;
 
   /**
-   * This is not complete, more URL parsing changes required. Cross join between two entities.
+   * Cross join between entity sets. {@link CrossJoinOperator} evaluates the join conditions in $filter as
+   * hash joins over the entities of the entity sets, and
+   * {@link org.apache.olingo.server.core.responses.CrossJoinResponse} streams the joined rows.
    * @param dataRequest
    * @param entitySetNames
    * @param response
@@ -18,10 +18,16 @@
  */
 package org.apache.olingo.server.core.requests;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Set;
 import java.util.UUID;
 
 import org.apache.olingo.commons.api.format.ContentType;
@@ -38,15 +44,22 @@ import org.apache.olingo.server.api.deserializer.batch.BatchDeserializerExceptio
 import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
 import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
 import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoKind;
+import org.apache.olingo.server.api.uri.UriResourceKind;
+import org.apache.olingo.server.core.ChangeSetHandler;
 import org.apache.olingo.server.core.ContentNegotiatorException;
+import org.apache.olingo.server.core.ErrorHandler;
 import org.apache.olingo.server.core.ServiceDispatcher;
 import org.apache.olingo.server.core.ServiceHandler;
 import org.apache.olingo.server.core.ServiceRequest;
 import org.apache.olingo.server.core.batchhandler.referenceRewriting.BatchReferenceRewriter;
 import org.apache.olingo.server.core.deserializer.batch.BatchParserCommon;
+import org.apache.olingo.server.core.uri.parser.Parser;
 
 public class BatchRequest extends ServiceRequest {
   private static final String PREFERENCE_CONTINUE_ON_ERROR = "odata.continue-on-error";
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
   private final BatchReferenceRewriter rewriter;
 
   public BatchRequest(OData odata, ServiceMetadata serviceMetadata) {
@@ -79,7 +92,7 @@ public class BatchRequest extends ServiceRequest {
         String txnId = null;
         try {
           txnId = handler.startTransaction();
-          partResponse = processChangeSet(part, handler);
+          partResponse = processChangeSet(part, handler, txnId);
           if (partResponse.getResponses().get(0).getStatusCode() > 400) {
             handler.rollback(txnId);
           }
@@ -149,11 +162,191 @@ public class BatchRequest extends ServiceRequest {
     return new ODataResponsePart(changeSetResponses, true);
   }
 
+  /**
+   * Processes a change set; if the service handler is a {@link ChangeSetHandler} its entity writes
+   * are executed in bulk. The collected writes are executed before any other request of the change set,
+   * and before any request which refers to the Content-ID of a collected write in its URI or body.
+   */
+  ODataResponsePart processChangeSet(BatchRequestPart partRequest, ServiceHandler serviceHandler, String txnId)
+      throws BatchDeserializerException {
+    if (!(serviceHandler instanceof ChangeSetHandler)) {
+      return processChangeSet(partRequest, serviceHandler);
+    }
+    ChangeSetCollector collector = new ChangeSetCollector(serviceHandler, txnId);
+    List<ODataRequest> pendingRequests = new ArrayList<ODataRequest>();
+    List<ODataResponse> pendingResponses = new ArrayList<ODataResponse>();
+    Set<String> pendingContentIds = new HashSet<String>();
+    List<ODataResponse> changeSetResponses = new ArrayList<ODataResponse>();
+    ODataResponse failed = null;
+
+    for (ODataRequest changeSetPartRequest : partRequest.getRequests()) {
+      // a reference to a Content-ID in the URI is resolved only after the earlier writes have been executed
+      boolean referenceInURI = this.rewriter.getReferenceInURI(changeSetPartRequest) != null;
+      UriInfo uriInfo = referenceInURI ? null : parseUri(changeSetPartRequest);
+      if (!pendingRequests.isEmpty() && (referenceInURI || !isEntityWrite(changeSetPartRequest, uriInfo)
+          || refersTo(changeSetPartRequest, pendingContentIds))) {
+        failed = flush(collector, serviceHandler, pendingRequests, pendingResponses, changeSetResponses);
+        pendingContentIds.clear();
+        if (failed != null) {
+          return new ODataResponsePart(failed, false);
+        }
+      }
+
+      this.rewriter.replaceReference(changeSetPartRequest);
+
+      int pendingCount = collector.getPendingCount();
+      ODataResponse partResponse = executeSingleRequest(changeSetPartRequest, uriInfo, collector);
+      if (collector.getPendingCount() > pendingCount) {
+        pendingRequests.add(changeSetPartRequest);
+        pendingResponses.add(partResponse);
+        String contentId = changeSetPartRequest.getHeader(HttpHeader.CONTENT_ID);
+        if (contentId != null) {
+          pendingContentIds.add(contentId);
+        }
+        continue;
+      }
+      // an entity write rejected before it reached the service handler; the earlier writes come first
+      failed = flush(collector, serviceHandler, pendingRequests, pendingResponses, changeSetResponses);
+      pendingContentIds.clear();
+      if (failed == null) {
+        pendingRequests.add(changeSetPartRequest);
+        pendingResponses.add(partResponse);
+        failed = finishChangeSetParts(pendingRequests, pendingResponses, changeSetResponses);
+      }
+      if (failed != null) {
+        return new ODataResponsePart(failed, false);
+      }
+    }
+
+    failed = flush(collector, serviceHandler, pendingRequests, pendingResponses, changeSetResponses);
+    if (failed != null) {
+      return new ODataResponsePart(failed, false);
+    }
+    return new ODataResponsePart(changeSetResponses, true);
+  }
+
+  private ODataResponse flush(ChangeSetCollector collector, ServiceHandler serviceHandler,
+      List<ODataRequest> pendingRequests, List<ODataResponse> pendingResponses,
+      List<ODataResponse> changeSetResponses) throws BatchDeserializerException {
+    try {
+      collector.flush();
+    } catch (ODataLibraryException e) {
+      failChangeSetParts(e, serviceHandler, pendingRequests, pendingResponses);
+    } catch (ODataApplicationException e) {
+      failChangeSetParts(e, serviceHandler, pendingRequests, pendingResponses);
+    }
+    return finishChangeSetParts(pendingRequests, pendingResponses, changeSetResponses);
+  }
+
+  // the error is reported for every collected write whose response was not written successfully,
+  // or for the last one if all were
+  private void failChangeSetParts(Exception e, ServiceHandler serviceHandler, List<ODataRequest> requests,
+      List<ODataResponse> responses) {
+    ErrorHandler errorHandler = new ErrorHandler(this.odata, this.serviceMetadata, serviceHandler,
+        ContentType.JSON);
+    boolean reported = false;
+    for (int i = 0; i < requests.size(); i++) {
+      if (responses.get(i).getStatusCode() >= 400) {
+        ODataResponse errorResponse = new ODataResponse();
+        errorHandler.handleException(e, requests.get(i), errorResponse);
+        responses.set(i, errorResponse);
+        reported = true;
+      }
+    }
+    if (!reported) {
+      int last = requests.size() - 1;
+      ODataResponse errorResponse = new ODataResponse();
+      errorHandler.handleException(e, requests.get(last), errorResponse);
+      responses.set(last, errorResponse);
+    }
+  }
+
+  // 11.7.4 Responding to a Batch Request: the first failed request is the response of the change set
+  private ODataResponse finishChangeSetParts(List<ODataRequest> requests, List<ODataResponse> responses,
+      List<ODataResponse> changeSetResponses) throws BatchDeserializerException {
+    try {
+      for (int i = 0; i < requests.size(); i++) {
+        ODataResponse partResponse = responses.get(i);
+        this.rewriter.addMapping(requests.get(i), partResponse);
+        addContentID(requests.get(i), partResponse);
+        if (partResponse.getStatusCode() >= 400) {
+          return partResponse;
+        }
+        changeSetResponses.add(partResponse);
+      }
+      return null;
+    } finally {
+      requests.clear();
+      responses.clear();
+    }
+  }
+
+  // the parsed URI, which is reused to execute the request, or null if it cannot be parsed
+  private UriInfo parseUri(ODataRequest request) {
+    if (request.getRawODataPath().indexOf("$entity") != -1) {
+      return null;
+    }
+    try {
+      return new Parser(this.serviceMetadata.getEdm(), this.odata)
+          .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null);
+    } catch (ODataLibraryException e) {
+      // the request fails anyway when it is executed
+      return null;
+    }
+  }
+
+  // the requests a ChangeSetCollector collects: creates, updates, upserts and deletes of entity set members
+  private boolean isEntityWrite(ODataRequest request, UriInfo uriInfo) {
+    return request.getMethod() != HttpMethod.GET && uriInfo != null
+        && uriInfo.getKind() == UriInfoKind.resource && uriInfo.getUriResourceParts().size() == 1
+        && uriInfo.getUriResourceParts().get(0).getKind() == UriResourceKind.entitySet;
+  }
+
+  // true if the body refers to one of the given Content-IDs, e.g. "$1" in an entity binding
+  private boolean refersTo(ODataRequest request, Set<String> contentIds) {
+    InputStream body = request.getBody();
+    if (body == null || contentIds.isEmpty()) {
+      return false;
+    }
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try {
+      byte[] bytes = new byte[8192];
+      int read;
+      while ((read = body.read(bytes)) != -1) {
+        buffer.write(bytes, 0, read);
+      }
+    } catch (IOException e) {
+      // the body is unusable anyway; keep the request order
+      return true;
+    } finally {
+      request.setBody(new ByteArrayInputStream(buffer.toByteArray()));
+    }
+    String content = new String(buffer.toByteArray(), UTF_8);
+    // a reference is a string starting with "$" followed by the Content-ID up to the closing quote or a slash
+    int index = content.indexOf("\"$");
+    while (index != -1) {
+      int start = index + 2;
+      int end = start;
+      while (end < content.length() && content.charAt(end) != '"' && content.charAt(end) != '/') {
+        end++;
+      }
+      if (end < content.length() && contentIds.contains(content.substring(start, end))) {
+        return true;
+      }
+      index = content.indexOf("\"$", start);
+    }
+    return false;
+  }
+
   ODataResponse executeSingleRequest(ODataRequest singleRequest, ServiceHandler handler) {
+    return executeSingleRequest(singleRequest, null, handler);
+  }
+
+  private ODataResponse executeSingleRequest(ODataRequest singleRequest, UriInfo uriInfo, ServiceHandler handler) {
     ServiceDispatcher dispatcher = new ServiceDispatcher(this.odata, this.serviceMetadata, handler,
         this.customContentType);
     ODataResponse res = new ODataResponse();
-    dispatcher.execute(singleRequest, res);
+    dispatcher.execute(singleRequest, uriInfo, res);
     return res;
   }
 
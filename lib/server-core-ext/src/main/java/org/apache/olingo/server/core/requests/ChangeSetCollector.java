@@ -0,0 +1,228 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.requests;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ODataServerError;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.core.ChangeSetHandler;
+import org.apache.olingo.server.core.ChangeSetOperation;
+import org.apache.olingo.server.core.ChangeSetOperation.Kind;
+import org.apache.olingo.server.core.ServiceHandler;
+import org.apache.olingo.server.core.responses.EntityResponse;
+import org.apache.olingo.server.core.responses.ErrorResponse;
+import org.apache.olingo.server.core.responses.MetadataResponse;
+import org.apache.olingo.server.core.responses.NoContentResponse;
+import org.apache.olingo.server.core.responses.PropertyResponse;
+import org.apache.olingo.server.core.responses.ServiceDocumentResponse;
+import org.apache.olingo.server.core.responses.ServiceResponse;
+import org.apache.olingo.server.core.responses.StreamResponse;
+
+/**
+ * Service handler used for the requests of a change set. Entity writes are collected instead of
+ * executed; they are handed to the {@link ChangeSetHandler} when {@link #flush()} is called.
+ * {@link BatchRequest} flushes before it executes any other request; the other methods flush again
+ * before they delegate, so the request order is kept even if a request is not recognized as such.
+ */
+class ChangeSetCollector implements ServiceHandler {
+  private final ServiceHandler handler;
+  private final ChangeSetHandler changeSetHandler;
+  private final String txnId;
+  private final List<ChangeSetOperation> operations = new ArrayList<ChangeSetOperation>();
+
+  ChangeSetCollector(ServiceHandler handler, String txnId) {
+    this.handler = handler;
+    this.changeSetHandler = (ChangeSetHandler) handler;
+    this.txnId = txnId;
+  }
+
+  int getPendingCount() {
+    return this.operations.size();
+  }
+
+  void flush() throws ODataLibraryException, ODataApplicationException {
+    if (!this.operations.isEmpty()) {
+      List<ChangeSetOperation> pending = new ArrayList<ChangeSetOperation>(this.operations);
+      this.operations.clear();
+      this.changeSetHandler.executeChangeSet(this.txnId, pending);
+    }
+  }
+
+  @Override
+  public void createEntity(DataRequest request, Entity entity, EntityResponse response) {
+    this.operations.add(new ChangeSetOperation(Kind.CREATE, request, entity, false, null, response));
+  }
+
+  @Override
+  public void updateEntity(DataRequest request, Entity entity, boolean merge, String entityETag,
+      EntityResponse response) {
+    this.operations.add(new ChangeSetOperation(Kind.UPDATE, request, entity, merge, entityETag, response));
+  }
+
+  @Override
+  public void upsertEntity(DataRequest request, Entity entity, boolean merge, String entityETag,
+      EntityResponse response) {
+    this.operations.add(new ChangeSetOperation(Kind.UPSERT, request, entity, merge, entityETag, response));
+  }
+
+  @Override
+  public void deleteEntity(DataRequest request, String entityETag, EntityResponse response) {
+    this.operations.add(new ChangeSetOperation(Kind.DELETE, request, null, false, entityETag, response));
+  }
+
+  @Override
+  public void init(OData odata, ServiceMetadata serviceMetadata) {
+    this.handler.init(odata, serviceMetadata);
+  }
+
+  @Override
+  public void readMetadata(MetadataRequest request, MetadataResponse response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.readMetadata(request, response);
+  }
+
+  @Override
+  public void readServiceDocument(ServiceDocumentRequest request, ServiceDocumentResponse response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.readServiceDocument(request, response);
+  }
+
+  @Override
+  public <T extends ServiceResponse> void read(DataRequest request, T response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.read(request, response);
+  }
+
+  @Override
+  public void updateProperty(DataRequest request, Property property, boolean rawValue, boolean merge,
+      String entityETag, PropertyResponse response) throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.updateProperty(request, property, rawValue, merge, entityETag, response);
+  }
+
+  @Override
+  public void upsertStreamProperty(DataRequest request, String entityETag, InputStream streamContent,
+      NoContentResponse response) throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.upsertStreamProperty(request, entityETag, streamContent, response);
+  }
+
+  @Override
+  public <T extends ServiceResponse> void invoke(FunctionRequest request, HttpMethod method, T response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.invoke(request, method, response);
+  }
+
+  @Override
+  public <T extends ServiceResponse> void invoke(ActionRequest request, String eTag, T response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.invoke(request, eTag, response);
+  }
+
+  @Override
+  public void readMediaStream(MediaRequest request, StreamResponse response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.readMediaStream(request, response);
+  }
+
+  @Override
+  public void upsertMediaStream(MediaRequest request, String entityETag, InputStream mediaContent,
+      NoContentResponse response) throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.upsertMediaStream(request, entityETag, mediaContent, response);
+  }
+
+  @Override
+  public void anyUnsupported(ODataRequest request, ODataResponse response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.anyUnsupported(request, response);
+  }
+
+  @Override
+  public void addReference(DataRequest request, String entityETag, URI referenceId, NoContentResponse response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.addReference(request, entityETag, referenceId, response);
+  }
+
+  @Override
+  public void updateReference(DataRequest request, String entityETag, URI referenceId,
+      NoContentResponse response) throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.updateReference(request, entityETag, referenceId, response);
+  }
+
+  @Override
+  public void deleteReference(DataRequest request, URI deleteId, String entityETag, NoContentResponse response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.deleteReference(request, deleteId, entityETag, response);
+  }
+
+  @Override
+  public String startTransaction() throws ODataLibraryException, ODataApplicationException {
+    return this.handler.startTransaction();
+  }
+
+  @Override
+  public void commit(String id) throws ODataLibraryException, ODataApplicationException {
+    this.handler.commit(id);
+  }
+
+  @Override
+  public void rollback(String id) throws ODataLibraryException, ODataApplicationException {
+    this.handler.rollback(id);
+  }
+
+  @Override
+  public void crossJoin(DataRequest dataRequest, List<String> entitySetNames, ODataResponse response)
+      throws ODataLibraryException, ODataApplicationException {
+    flush();
+    this.handler.crossJoin(dataRequest, entitySetNames, response);
+  }
+
+  @Override
+  public boolean supportsDataIsolation() {
+    return this.handler.supportsDataIsolation();
+  }
+
+  @Override
+  public void processError(ODataServerError error, ErrorResponse response) {
+    this.handler.processError(error, response);
+  }
+}
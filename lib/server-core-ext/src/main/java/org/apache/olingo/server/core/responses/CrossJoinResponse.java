@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.responses;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.EdmEntityContainer;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataLibraryException;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.api.uri.UriHelper;
+import org.apache.olingo.server.core.ContentNegotiatorException;
+import org.apache.olingo.server.core.ServiceRequest;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+public class CrossJoinResponse extends ServiceResponse {
+  private final UriHelper uriHelper;
+  private final ContentType responseContentType;
+
+  private CrossJoinResponse(ServiceMetadata metadata, ODataResponse response, UriHelper uriHelper,
+      ContentType responseContentType, Map<String, String> preferences) {
+    super(metadata, response, preferences);
+    this.uriHelper = uriHelper;
+    this.responseContentType = responseContentType;
+  }
+
+  public static CrossJoinResponse getInstance(ServiceRequest request, ODataResponse response)
+      throws ContentNegotiatorException {
+    return new CrossJoinResponse(request.getServiceMetaData(), response, request.getOdata().createUriHelper(),
+        request.getResponseContentType(), request.getPreferences());
+  }
+
+  // write the rows of a $crossjoin while they are iterated; every row is written as the navigation
+  // links to its entities. See OData V4 Part 2, 5.1.1.15 and the JSON format, 4.5.8
+  public void writeCrossJoin(Iterator<Map<String, Entity>> rows) throws SerializerException {
+    assert (!isClosed());
+
+    if (!this.responseContentType.isCompatible(ContentType.APPLICATION_JSON)) {
+      throw new SerializerException("Unsupported format for $crossjoin: " + this.responseContentType,
+          SerializerException.MessageKeys.UNSUPPORTED_FORMAT, this.responseContentType.toContentTypeString());
+    }
+    boolean metadataNone = ContentType.VALUE_ODATA_METADATA_NONE.equalsIgnoreCase(
+        this.responseContentType.getParameter(ContentType.PARAMETER_ODATA_METADATA));
+
+    this.response.setODataContent(new CrossJoinContent(rows, metadataNone));
+    writeOK(this.responseContentType);
+    close();
+  }
+
+  @Override
+  public void accepts(ServiceResponseVisior visitor) throws ODataLibraryException,
+      ODataApplicationException {
+    visitor.visit(this);
+  }
+
+  private class CrossJoinContent implements ODataContent {
+    private final Iterator<Map<String, Entity>> rows;
+    private final boolean metadataNone;
+
+    CrossJoinContent(Iterator<Map<String, Entity>> rows, boolean metadataNone) {
+      this.rows = rows;
+      this.metadataNone = metadataNone;
+    }
+
+    @Override
+    public void write(WritableByteChannel channel) {
+      write(Channels.newOutputStream(channel));
+    }
+
+    @Override
+    public void write(OutputStream stream) {
+      EdmEntityContainer container = metadata.getEdm().getEntityContainer();
+      try {
+        JsonGenerator json = new JsonFactory().createGenerator(stream);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.writeStartObject();
+        if (!this.metadataNone) {
+          json.writeStringField(Constants.JSON_CONTEXT, Constants.METADATA + "#Collection(Edm.ComplexType)");
+        }
+        json.writeArrayFieldStart(Constants.VALUE);
+        while (this.rows.hasNext()) {
+          json.writeStartObject();
+          for (Map.Entry<String, Entity> entry : this.rows.next().entrySet()) {
+            json.writeStringField(entry.getKey() + Constants.JSON_NAVIGATION_LINK,
+                uriHelper.buildCanonicalURL(container.getEntitySet(entry.getKey()), entry.getValue()));
+          }
+          json.writeEndObject();
+        }
+        json.writeEndArray();
+        json.writeEndObject();
+        json.close();
+      } catch (IOException e) {
+        throw new ODataRuntimeException(e);
+      } catch (SerializerException e) {
+        throw new ODataRuntimeException(e);
+      }
+    }
+  }
+}
@@ -22,6 +22,7 @@ import java.util.Map;
 
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
@@ -77,6 +78,24 @@ public class EntitySetResponse extends ServiceResponse {
     close();
   }
 
+  // write collection of entities while they are iterated, without building the whole collection
+  public void writeReadEntitySetStreaming(EdmEntityType entityType, EntityIterator entitySet)
+      throws SerializerException {
+
+    assert (!isClosed());
+
+    if (entitySet == null) {
+      writeNotFound(true);
+      return;
+    }
+
+    // entities are serialized when the response content is written
+    this.response.setODataContent(this.serializer.entityCollectionStreamed(metadata, entityType, entitySet,
+        this.options).getODataContent());
+    writeOK(responseContentType);
+    close();
+  }
+
   @Override
   public void accepts(ServiceResponseVisior visitor) throws ODataLibraryException,
       ODataApplicationException {
@@ -68,6 +68,11 @@ public class ServiceResponseVisior {
     response.writeServerError(true);
   }
 
+  public void visit(CrossJoinResponse response) throws ODataLibraryException,
+      ODataApplicationException {
+    response.writeServerError(true);
+  }
+
   public void visit(ErrorResponse response) {
     response.writeServerError(true);
   }
@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.util.Collections;
 
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.MediaContent;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataLibraryException;
@@ -40,6 +41,16 @@ public class StreamResponse extends ServiceResponse {
     close();
   }
 
+  /**
+   * Writes media content, which is sent without copying it through the heap
+   * and supports requests for byte ranges.
+   */
+  public void writeMediaContent(MediaContent mediaContent, ContentType contentType) {
+    this.response.setMediaContent(mediaContent);
+    writeOK(contentType);
+    close();
+  }
+
   public void writeBinaryResponse(byte[] streamContent, ContentType contentType) {
     this.response.setContent(new ByteArrayInputStream(streamContent));
     writeOK(contentType);
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class CrossJoinOperatorTest {
+  private static ServiceMetadata metadata;
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    metadata = new MetadataParser().buildServiceMetadata(new FileReader("src/test/resources/trippin.xml"));
+  }
+
+  @Test
+  public void hashJoin() throws Exception {
+    CrossJoinOperator operator = operator("People,Airlines,Airports",
+        "People/FirstName eq Airlines/Name and Airports/Location/City/Name eq People/LastName");
+    assertEquals(0, operator.getResidualConditions().size());
+
+    List<String> rows = execute(operator, null);
+    assertEquals(Arrays.asList("russellwhyte/AA/LIRF", "russellwhyte/BB/LIRF"), rows);
+  }
+
+  @Test
+  public void residualCondition() throws Exception {
+    CrossJoinOperator operator = operator("People,Airlines",
+        "People/FirstName eq Airlines/Name and Airlines/AirlineCode ne 'BB'");
+    assertEquals(1, operator.getResidualConditions().size());
+
+    List<String> rows = execute(operator, new CrossJoinOperator.RowFilter() {
+      @Override
+      public boolean accept(Expression condition, Map<String, Entity> row) {
+        return !"BB".equals(row.get("Airlines").getProperty("AirlineCode").getValue());
+      }
+    });
+    assertEquals(Arrays.asList("russellwhyte/AA", "scottketchum/AA"), rows);
+
+    try {
+      execute(operator, null);
+      fail("residual conditions need a row filter");
+    } catch (ODataApplicationException e) {
+      assertEquals(501, e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void cartesianProduct() throws Exception {
+    CrossJoinOperator operator = operator("Airlines,Airports", null);
+    assertEquals(6, execute(operator, null).size());
+
+    Iterator<Map<String, Entity>> rows = operator.execute(sources(), null);
+    Map<String, Entity> row = rows.next();
+    assertEquals(Arrays.asList("Airlines", "Airports"), new ArrayList<String>(row.keySet()));
+  }
+
+  @Test
+  public void emptyProbeSide() throws Exception {
+    CrossJoinOperator operator = operator("People,Airlines", "People/FirstName eq Airlines/Name");
+    Map<String, Iterator<Entity>> sources = sources();
+    sources.put("People", new ArrayList<Entity>().iterator());
+    assertFalse(operator.execute(sources, null).hasNext());
+  }
+
+  @Test
+  public void normalize() {
+    assertEquals(CrossJoinOperator.normalize(5), CrossJoinOperator.normalize(5L));
+    assertEquals(CrossJoinOperator.normalize(5), CrossJoinOperator.normalize(new java.math.BigDecimal("5.00")));
+    assertEquals(CrossJoinOperator.normalize(0.0d), CrossJoinOperator.normalize((short) 0));
+  }
+
+  private CrossJoinOperator operator(String entitySetNames, String filter) throws Exception {
+    UriInfo uriInfo = new Parser(metadata.getEdm(), OData4Impl.newInstance()).parseUri(
+        "$crossjoin(" + entitySetNames + ")", filter == null ? null : "$filter=" + filter, null);
+    return new CrossJoinOperator(uriInfo.getEntitySetNames(), uriInfo.getFilterOption());
+  }
+
+  private List<String> execute(CrossJoinOperator operator, CrossJoinOperator.RowFilter rowFilter)
+      throws ODataApplicationException {
+    List<String> result = new ArrayList<String>();
+    Iterator<Map<String, Entity>> rows = operator.execute(sources(), rowFilter);
+    while (rows.hasNext()) {
+      StringBuilder sb = new StringBuilder();
+      for (Entity entity : rows.next().values()) {
+        sb.append(sb.length() == 0 ? "" : "/").append(entity.getProperties().get(0).getValue());
+      }
+      result.add(sb.toString());
+    }
+    return result;
+  }
+
+  private Map<String, Iterator<Entity>> sources() {
+    Map<String, Iterator<Entity>> sources = new HashMap<String, Iterator<Entity>>();
+    sources.put("People", Arrays.asList(
+        entity("UserName", "russellwhyte", "FirstName", "Russell", "LastName", "Rome"),
+        entity("UserName", "scottketchum", "FirstName", "Russell", "LastName", "Paris"),
+        entity("UserName", "ronaldmundy", "FirstName", "Ronald", "LastName", "Rome")).iterator());
+    sources.put("Airlines", Arrays.asList(
+        entity("AirlineCode", "AA", "Name", "Russell"),
+        entity("AirlineCode", "BB", "Name", "Russell"),
+        entity("AirlineCode", "CC", "Name", "Scott")).iterator());
+    sources.put("Airports", Arrays.asList(
+        airport("LIRF", "Rome"),
+        airport("YSSY", "Sydney")).iterator());
+    return sources;
+  }
+
+  private Entity entity(String... nameValues) {
+    Entity entity = new Entity();
+    for (int i = 0; i < nameValues.length; i += 2) {
+      entity.addProperty(new Property(null, nameValues[i], ValueType.PRIMITIVE, nameValues[i + 1]));
+    }
+    return entity;
+  }
+
+  private Entity airport(String icaoCode, String city) {
+    ComplexValue cityValue = new ComplexValue();
+    cityValue.getValue().add(new Property(null, "Name", ValueType.PRIMITIVE, city));
+    ComplexValue location = new ComplexValue();
+    location.getValue().add(new Property(null, "City", ValueType.COMPLEX, cityValue));
+    return entity("IcaoCode", icaoCode).addProperty(new Property(null, "Location", ValueType.COMPLEX, location));
+  }
+}
@@ -21,11 +21,24 @@ package org.apache.olingo.server.core;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileReader;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectOutputStream;
+import java.io.StringReader;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
 
 import org.apache.olingo.commons.api.ex.ODataException;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
@@ -41,6 +54,7 @@ import org.apache.olingo.commons.api.edm.provider.CsdlFunctionImport;
 import org.apache.olingo.commons.api.edm.provider.CsdlNavigationPropertyBinding;
 import org.apache.olingo.commons.api.edm.provider.CsdlParameter;
 import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
 import org.apache.olingo.commons.api.edm.provider.CsdlSingleton;
 import org.junit.Before;
 import org.junit.Test;
@@ -188,4 +202,134 @@ public class MetadataParserTest {
     MetadataParser parser = new MetadataParser();
     provider = (CsdlEdmProvider) parser.buildEdmProvider(new FileReader("src/test/resources/skip-annotation.xml"));
   }  
+
+  @Test
+  public void testAddSchema() throws ODataException {
+    SchemaBasedEdmProvider schemaProvider = new SchemaBasedEdmProvider();
+    CsdlSchema schema = new CsdlSchema();
+    schema.setNamespace("Test.NS");
+    schema.setAlias("T");
+    schema.setEntityTypes(Collections.singletonList(new CsdlEntityType().setName("Product")));
+    schemaProvider.addSchema(schema);
+
+    assertNotNull(schemaProvider.getEntityType(new FullQualifiedName("Test.NS", "Product")));
+    assertNotNull(schemaProvider.getEntityType(new FullQualifiedName("T", "Product")));
+    assertNull(schemaProvider.getEntityType(new FullQualifiedName("Test.NS", "Category")));
+    assertTrue(schemaProvider.getFunctions(new FullQualifiedName("Test.NS", "Product")).isEmpty());
+
+    // a schema with the same namespace replaces the previous one
+    CsdlSchema replacement = new CsdlSchema();
+    replacement.setNamespace("Test.NS");
+    replacement.setEntityTypes(Collections.singletonList(new CsdlEntityType().setName("Category")));
+    schemaProvider.addSchema(replacement);
+
+    assertNull(schemaProvider.getEntityType(new FullQualifiedName("Test.NS", "Product")));
+    assertNull(schemaProvider.getEntityType(new FullQualifiedName("T", "Product")));
+    assertNotNull(schemaProvider.getEntityType(new FullQualifiedName("Test.NS", "Category")));
+    assertEquals(1, schemaProvider.getSchemas().size());
+  }
+
+  @Test
+  public void testDuplicateNames() throws ODataException {
+    SchemaBasedEdmProvider schemaProvider = new SchemaBasedEdmProvider();
+    CsdlSchema schema = new CsdlSchema();
+    schema.setNamespace("Test.NS");
+    CsdlEntityType first = new CsdlEntityType().setName("Product");
+    schema.setEntityTypes(Arrays.asList(first, new CsdlEntityType().setName("Product")));
+    schemaProvider.addSchema(schema);
+
+    assertSame(first, schemaProvider.getEntityType(new FullQualifiedName("Test.NS", "Product")));
+  }
+
+  @Test
+  public void testSnapshot() throws Exception {
+    MetadataParser parser = new MetadataParser();
+    parser.parseAnnotations(true);
+    parser.implicitlyLoadCoreVocabularies(true);
+    SchemaBasedEdmProvider parsed = parser.buildEdmProvider(new FileReader("src/test/resources/trippin.xml"));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    parsed.writeSnapshot(out);
+    SchemaBasedEdmProvider restored = SchemaBasedEdmProvider.readSnapshot(new ByteArrayInputStream(out.toByteArray()));
+
+    assertEquals(parsed.getSchemas().size(), restored.getSchemas().size());
+    CsdlEntityType et = restored.getEntityType(new FullQualifiedName(NS, "Photo"));
+    assertNotNull(et);
+    assertEquals("Id", et.getKey().get(0).getName());
+    assertEquals(1, restored.getFunctions(new FullQualifiedName(NS, "GetFavoriteAirline")).size());
+    assertNotNull(restored.getEntitySet(EC, "People"));
+    assertNotNull(restored.getVocabularySchema("Org.OData.Core.V1"));
+    assertEquals(parsed.getAliasInfos().size(), restored.getAliasInfos().size());
+  }
+
+  @Test
+  public void testVocabulariesParsedOnce() throws Exception {
+    MetadataParser parser = new MetadataParser();
+    parser.implicitlyLoadCoreVocabularies(true);
+    SchemaBasedEdmProvider first = parser.buildEdmProvider(new FileReader("src/test/resources/trippin.xml"));
+    SchemaBasedEdmProvider second = parser.buildEdmProvider(new FileReader("src/test/resources/trippin.xml"));
+    CsdlSchema core = first.getVocabularySchema("Org.OData.Core.V1");
+    assertNotNull(core);
+    // every provider gets its own copy of the cached vocabulary
+    assertNotSame(core, second.getVocabularySchema("Org.OData.Core.V1"));
+    assertEquals(core.getTerms().size(), second.getVocabularySchema("Org.OData.Core.V1").getTerms().size());
+    core.setAlias("Changed");
+    assertEquals("Core", second.getVocabularySchema("Org.OData.Core.V1").getAlias());
+  }
+
+  @Test
+  public void testReferenceCacheKeyedByResolver() throws Exception {
+    final String service = "<edmx:Edmx xmlns:edmx=\"http://docs.oasis-open.org/odata/ns/edmx\" Version=\"4.0\">"
+        + "<edmx:Reference Uri=\"http://localhost/ref.xml\"><edmx:Include Namespace=\"Ref.NS\"/></edmx:Reference>"
+        + "<edmx:DataServices><Schema xmlns=\"http://docs.oasis-open.org/odata/ns/edm\" Namespace=\"Test.NS\"/>"
+        + "</edmx:DataServices></edmx:Edmx>";
+    SchemaBasedEdmProvider first = new MetadataParser().cacheReferences(true)
+        .referenceResolver(new TypeResolver("First")).buildEdmProvider(new StringReader(service));
+    SchemaBasedEdmProvider second = new MetadataParser().cacheReferences(true)
+        .referenceResolver(new TypeResolver("Second")).buildEdmProvider(new StringReader(service));
+    assertNotNull(first.getEntityType(new FullQualifiedName("Ref.NS", "First")));
+    assertNotNull(second.getEntityType(new FullQualifiedName("Ref.NS", "Second")));
+    assertNull(second.getEntityType(new FullQualifiedName("Ref.NS", "First")));
+
+    // the same resolver shares the cached document, but every provider gets its own copy
+    TypeResolver resolver = new TypeResolver("Shared");
+    MetadataParser parser = new MetadataParser().cacheReferences(true).referenceResolver(resolver);
+    CsdlEntityType type = parser.buildEdmProvider(new StringReader(service))
+        .getEntityType(new FullQualifiedName("Ref.NS", "Shared"));
+    CsdlEntityType cached = parser.buildEdmProvider(new StringReader(service))
+        .getEntityType(new FullQualifiedName("Ref.NS", "Shared"));
+    assertEquals(1, resolver.calls);
+    assertNotSame(type, cached);
+    MetadataParser.clearCache();
+  }
+
+  private static class TypeResolver implements ReferenceResolver {
+    private final String typeName;
+    private int calls;
+
+    TypeResolver(String typeName) {
+      this.typeName = typeName;
+    }
+
+    @Override
+    public InputStream resolveReference(URI referenceUri, String xmlBase) {
+      calls++;
+      return new ByteArrayInputStream(("<edmx:Edmx xmlns:edmx=\"http://docs.oasis-open.org/odata/ns/edmx\""
+          + " Version=\"4.0\"><edmx:DataServices>"
+          + "<Schema xmlns=\"http://docs.oasis-open.org/odata/ns/edm\" Namespace=\"Ref.NS\">"
+          + "<EntityType Name=\"" + typeName + "\"/></Schema></edmx:DataServices></edmx:Edmx>").getBytes());
+    }
+  }
+
+  @Test(expected = InvalidClassException.class)
+  public void testSnapshotRejectsForeignClasses() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    GZIPOutputStream zip = new GZIPOutputStream(out);
+    ObjectOutputStream objects = new ObjectOutputStream(zip);
+    objects.writeInt(1);
+    objects.writeObject(new TreeMap<String, String>());
+    objects.flush();
+    zip.finish();
+    SchemaBasedEdmProvider.readSnapshot(new ByteArrayInputStream(out.toByteArray()));
+  }
 }
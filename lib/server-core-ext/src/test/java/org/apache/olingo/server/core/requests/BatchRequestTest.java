@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.requests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyListOf;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.ByteArrayInputStream;
+import java.io.FileReader;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ODataServerError;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.deserializer.batch.BatchOptions;
+import org.apache.olingo.server.api.deserializer.batch.BatchRequestPart;
+import org.apache.olingo.server.api.deserializer.batch.ODataResponsePart;
+import org.apache.olingo.server.core.ChangeSetHandler;
+import org.apache.olingo.server.core.ChangeSetOperation;
+import org.apache.olingo.server.core.MetadataParser;
+import org.apache.olingo.server.core.OData4Impl;
+import org.apache.olingo.server.core.ServiceDispatcher;
+import org.apache.olingo.server.core.ServiceHandler;
+import org.apache.olingo.server.core.responses.EntityResponse;
+import org.apache.olingo.server.core.responses.ErrorResponse;
+import org.apache.olingo.server.core.responses.PropertyResponse;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class BatchRequestTest {
+  private static final String CRLF = "\r\n";
+  private static final String BASE_URI = "http://localhost/trippin";
+
+  @Test
+  public void changeSetExecutedInBulk() throws Exception {
+    ServiceHandler handler = changeSetHandler();
+    final List<Integer> bulkSizes = recordBulkSizes(handler);
+
+    String content = executeChangeSet(handler,
+        changeSetPart("1", "POST Airlines", "{\"AirlineCode\":\"XX\",\"Name\":\"X Air\"}")
+        + changeSetPart("2", "POST Airlines", "{\"AirlineCode\":\"YY\",\"Name\":\"Y Air\"}")
+        + changeSetPart("3", "PATCH $1", "{\"Name\":\"X Airways\"}"));
+
+    // the creates are executed together; the update referring to the first create follows
+    assertEquals(2, bulkSizes.size());
+    assertEquals(2, bulkSizes.get(0).intValue());
+    assertEquals(1, bulkSizes.get(1).intValue());
+    verify(handler, never()).createEntity(any(DataRequest.class), any(Entity.class), any(EntityResponse.class));
+    assertEquals(3, count(content, "HTTP/1.1 204 No Content"));
+    assertEquals(1, count(content, "Location: " + BASE_URI + "/Airlines('XX')"));
+    assertEquals(1, count(content, "Location: " + BASE_URI + "/Airlines('YY')"));
+  }
+
+  @Test
+  public void bodyReferenceFlushes() throws Exception {
+    ServiceHandler handler = changeSetHandler();
+    final List<Integer> bulkSizes = recordBulkSizes(handler);
+
+    String content = executeChangeSet(handler,
+        changeSetPart("1", "POST People", "{\"UserName\":\"russellwhyte\",\"FirstName\":\"Russell\"}")
+        + changeSetPart("2", "POST People", "{\"UserName\":\"scottketchum\",\"FirstName\":\"Scott\","
+            + "\"Friends@odata.bind\":[\"$1\"]}"));
+
+    assertEquals(2, bulkSizes.size());
+    assertEquals(1, bulkSizes.get(0).intValue());
+    assertEquals(1, bulkSizes.get(1).intValue());
+    assertEquals(1, count(content, "Location: " + BASE_URI + "/People('scottketchum')"));
+  }
+
+  @Test
+  public void otherDollarStringKeepsBulk() throws Exception {
+    ServiceHandler handler = changeSetHandler();
+    final List<Integer> bulkSizes = recordBulkSizes(handler);
+
+    executeChangeSet(handler,
+        changeSetPart("1", "POST People", "{\"UserName\":\"russellwhyte\",\"FirstName\":\"Russell\"}")
+        + changeSetPart("2", "POST People", "{\"UserName\":\"scottketchum\",\"FirstName\":\"$12\","
+            + "\"LastName\":\"$\"}"));
+
+    // "$12" is not the Content-ID of a collected write
+    assertEquals(1, bulkSizes.size());
+    assertEquals(2, bulkSizes.get(0).intValue());
+  }
+
+  @Test
+  public void flushBeforeOtherRequest() throws Exception {
+    ServiceHandler handler = changeSetHandler();
+    recordBulkSizes(handler);
+
+    ODataResponsePart result = processChangeSet(handler,
+        changeSetPart("1", "POST Airlines", "{\"AirlineCode\":\"XX\",\"Name\":\"X Air\"}")
+        + changeSetPart("2", "PUT Airlines('YY')/Name", "{\"value\":\"Y Air\"}"));
+
+    InOrder inOrder = inOrder(handler);
+    inOrder.verify((ChangeSetHandler) handler).executeChangeSet(anyString(), anyListOf(ChangeSetOperation.class));
+    inOrder.verify(handler).updateProperty(any(DataRequest.class), any(Property.class), anyBoolean(),
+        anyBoolean(), anyString(), any(PropertyResponse.class));
+    // the property update is not written by the mock, so it fails the change set
+    assertFalse(result.isChangeSet());
+    assertEquals("2", result.getResponses().get(0).getHeader(HttpHeader.CONTENT_ID));
+  }
+
+  @Test
+  public void rejectedRequestKeepsContentId() throws Exception {
+    ServiceHandler handler = changeSetHandler();
+    final List<Integer> bulkSizes = recordBulkSizes(handler);
+
+    ODataResponsePart result = processChangeSet(handler,
+        changeSetPart("1", "POST Airlines", "{\"AirlineCode\":\"XX\",\"Name\":\"X Air\"}")
+        + changeSetPart("2", "PATCH Airlines", "{\"Name\":\"X Airways\"}"));
+
+    assertEquals(1, bulkSizes.size());
+    assertEquals(405, result.getResponses().get(0).getStatusCode());
+    assertEquals("2", result.getResponses().get(0).getHeader(HttpHeader.CONTENT_ID));
+  }
+
+  @Test
+  public void flushFailureReportedForCollectedRequest() throws Exception {
+    ServiceHandler handler = changeSetHandler();
+    doAnswer(new Answer<Void>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        List<ChangeSetOperation> operations = (List<ChangeSetOperation>) invocation.getArguments()[1];
+        write(operations.get(0));
+        throw new ODataApplicationException("Duplicate key", 409, Locale.ROOT);
+      }
+    }).when((ChangeSetHandler) handler).executeChangeSet(anyString(), anyListOf(ChangeSetOperation.class));
+
+    ODataResponsePart result = processChangeSet(handler,
+        changeSetPart("1", "POST Airlines", "{\"AirlineCode\":\"XX\",\"Name\":\"X Air\"}")
+        + changeSetPart("2", "POST Airlines", "{\"AirlineCode\":\"XX\",\"Name\":\"X Air\"}"));
+
+    // the first create was written, so the failure belongs to the second
+    assertEquals(409, result.getResponses().get(0).getStatusCode());
+    assertEquals("2", result.getResponses().get(0).getHeader(HttpHeader.CONTENT_ID));
+  }
+
+  private ServiceHandler changeSetHandler() {
+    ServiceHandler handler = mock(ServiceHandler.class, withSettings().extraInterfaces(ChangeSetHandler.class));
+    doAnswer(new Answer<Void>() {
+      @Override
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        ((ErrorResponse) invocation.getArguments()[1]).writeError((ODataServerError) invocation.getArguments()[0]);
+        return null;
+      }
+    }).when(handler).processError(any(ODataServerError.class), any(ErrorResponse.class));
+    return handler;
+  }
+
+  private List<Integer> recordBulkSizes(ServiceHandler handler) throws Exception {
+    final List<Integer> bulkSizes = new ArrayList<Integer>();
+    doAnswer(new Answer<Void>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public Void answer(InvocationOnMock invocation) throws Throwable {
+        List<ChangeSetOperation> operations = (List<ChangeSetOperation>) invocation.getArguments()[1];
+        bulkSizes.add(operations.size());
+        for (ChangeSetOperation operation : operations) {
+          write(operation);
+        }
+        return null;
+      }
+    }).when((ChangeSetHandler) handler).executeChangeSet(anyString(), anyListOf(ChangeSetOperation.class));
+    return bulkSizes;
+  }
+
+  private static void write(ChangeSetOperation operation) throws Exception {
+    if (operation.getKind() == ChangeSetOperation.Kind.CREATE) {
+      EdmEntitySet entitySet = operation.getRequest().getEntitySet();
+      Entity entity = operation.getEntity();
+      String key = entitySet.getEntityType().getKeyPredicateNames().get(0);
+      entity.setId(URI.create(entitySet.getName() + "('" + entity.getProperty(key).getValue() + "')"));
+      operation.getResponse().writeCreatedEntity(entitySet, entity);
+    } else {
+      operation.getResponse().writeUpdatedEntity();
+    }
+  }
+
+  private ODataResponsePart processChangeSet(ServiceHandler handler, String changeSetParts) throws Exception {
+    ServiceMetadata metadata = new MetadataParser()
+        .buildServiceMetadata(new FileReader("src/test/resources/trippin.xml"));
+    OData odata = OData4Impl.newInstance();
+    List<BatchRequestPart> parts = odata.createFixedFormatDeserializer().parseBatchRequest(
+        new ByteArrayInputStream(batch(changeSetParts).getBytes("UTF-8")), "batch_1",
+        BatchOptions.with().rawBaseUri(BASE_URI).build());
+    return new BatchRequest(odata, metadata).processChangeSet(parts.get(0), handler, "txn");
+  }
+
+  private String executeChangeSet(ServiceHandler handler, String changeSetParts) throws Exception {
+    ServiceMetadata metadata = new MetadataParser()
+        .buildServiceMetadata(new FileReader("src/test/resources/trippin.xml"));
+    OData odata = OData4Impl.newInstance();
+    String body = batch(changeSetParts);
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.POST);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath("$batch");
+    request.setRawRequestUri(BASE_URI + "/$batch");
+    request.addHeader(HttpHeader.CONTENT_TYPE, "multipart/mixed; boundary=batch_1");
+    request.setBody(new ByteArrayInputStream(body.getBytes("UTF-8")));
+    ODataResponse response = new ODataResponse();
+
+    new ServiceDispatcher(odata, metadata, handler, null).execute(request, response);
+
+    assertEquals(202, response.getStatusCode());
+    return IOUtils.toString(response.getContent());
+  }
+
+  private String batch(String changeSetParts) {
+    return "--batch_1" + CRLF
+        + "Content-Type: multipart/mixed; boundary=changeset_1" + CRLF
+        + CRLF
+        + changeSetParts
+        + "--changeset_1--" + CRLF
+        + CRLF
+        + "--batch_1--";
+  }
+
+  private String changeSetPart(String contentId, String requestLine, String payload) {
+    return "--changeset_1" + CRLF
+        + "Content-Type: application/http" + CRLF
+        + "Content-Transfer-Encoding: binary" + CRLF
+        + "Content-ID: " + contentId + CRLF
+        + CRLF
+        + requestLine + " HTTP/1.1" + CRLF
+        + "Content-Type: application/json;odata.metadata=minimal" + CRLF
+        + CRLF
+        + payload + CRLF;
+  }
+
+  private int count(String text, String part) {
+    int count = 0;
+    for (int index = text.indexOf(part); index != -1; index = text.indexOf(part, index + 1)) {
+      count++;
+    }
+    return count;
+  }
+}
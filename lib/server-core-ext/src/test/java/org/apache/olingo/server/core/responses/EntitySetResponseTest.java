@@ -0,0 +1,138 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.responses;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.eq;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileReader;
+import java.util.Collections;
+import java.util.Iterator;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.data.ContextURL;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
+import org.apache.olingo.server.core.MetadataParser;
+import org.apache.olingo.server.core.ServiceRequest;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class EntitySetResponseTest {
+  private ServiceMetadata metadata;
+  private EdmEntityType airline;
+  private ServiceRequest request;
+
+  @Before
+  public void setUp() throws Exception {
+    MetadataParser parser = new MetadataParser();
+    parser.useLocalCoreVocabularies(true);
+    parser.implicitlyLoadCoreVocabularies(true);
+    metadata = parser.buildServiceMetadata(new FileReader("src/test/resources/trippin.xml"));
+    airline = metadata.getEdm().getEntityType(
+        new FullQualifiedName("Microsoft.OData.SampleService.Models.TripPin", "Airline"));
+
+    request = Mockito.mock(ServiceRequest.class);
+    Mockito.when(request.getServiceMetaData()).thenReturn(metadata);
+    Mockito.when(request.getSerializer()).thenReturn(OData.newInstance().createSerializer(ContentType.JSON));
+    Mockito.when(request.getResponseContentType()).thenReturn(ContentType.JSON);
+    Mockito.when(request.getPreferences()).thenReturn(Collections.<String, String> emptyMap());
+    Mockito.when(request.getSerializerOptions(eq(EntityCollectionSerializerOptions.class),
+        any(ContextURL.class), anyBoolean())).thenReturn(EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(metadata.getEdm().getEntityContainer().getEntitySet("Airlines"))
+            .build())
+        .build());
+  }
+
+  @Test
+  public void writeReadEntitySet() throws Exception {
+    ODataResponse response = new ODataResponse();
+    EntitySetResponse.getInstance(request, null, false, response)
+        .writeReadEntitySet(airline, createAirlines());
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertTrue(IOUtils.toString(response.getContent(), "UTF-8").contains("\"AirlineCode\":\"AA\""));
+  }
+
+  @Test
+  public void writeReadEntitySetStreaming() throws Exception {
+    ODataResponse response = new ODataResponse();
+    EntitySetResponse.getInstance(request, null, false, response)
+        .writeReadEntitySetStreaming(airline, new CollectionIterator(createAirlines()));
+    assertEquals(HttpStatusCode.OK.getStatusCode(), response.getStatusCode());
+    assertNull(response.getContent());
+    ByteArrayOutputStream content = new ByteArrayOutputStream();
+    response.getODataContent().write(content);
+    assertTrue(content.toString("UTF-8").contains("\"AirlineCode\":\"AA\""));
+  }
+
+  @Test
+  public void writeReadEntitySetNotFound() throws Exception {
+    ODataResponse response = new ODataResponse();
+    EntitySetResponse.getInstance(request, null, false, response).writeReadEntitySet(airline, null);
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), response.getStatusCode());
+
+    response = new ODataResponse();
+    EntitySetResponse.getInstance(request, null, false, response).writeReadEntitySetStreaming(airline, null);
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(), response.getStatusCode());
+    assertNull(response.getODataContent());
+  }
+
+  private static EntityCollection createAirlines() {
+    EntityCollection airlines = new EntityCollection();
+    airlines.getEntities().add(new Entity()
+        .addProperty(new Property(null, "AirlineCode", ValueType.PRIMITIVE, "AA"))
+        .addProperty(new Property(null, "Name", ValueType.PRIMITIVE, "American Airlines")));
+    return airlines;
+  }
+
+  private static class CollectionIterator extends EntityIterator {
+    private final Iterator<Entity> entities;
+
+    public CollectionIterator(EntityCollection entitySet) {
+      this.entities = entitySet.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.entities.hasNext();
+    }
+
+    @Override
+    public Entity next() {
+      return this.entities.next();
+    }
+  }
+}
@@ -854,13 +854,13 @@ public class TripPinDataModel {
   }
 
   //  note these are not tied to entities for simplicity sake
-  public InputStream readMedia(Entity entity) throws ODataApplicationException {
+  public File readMedia(Entity entity) throws ODataApplicationException {
     checkForMedia(entity);
-    try {
-      return new FileInputStream(new File("src/test/resources/OlingoOrangeTM.png"));
-    } catch (FileNotFoundException e) {
+    File file = new File("src/test/resources/OlingoOrangeTM.png");
+    if (!file.isFile()) {
       throw new ODataApplicationException("image not found", 500, Locale.getDefault());
     }
+    return file;
   }
 
   //  note these are not tied to entities for simplicity sake
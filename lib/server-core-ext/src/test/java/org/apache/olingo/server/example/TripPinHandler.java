@@ -22,12 +22,16 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Random;
 
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.data.ValueType;
@@ -48,6 +52,7 @@ import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.uri.UriParameter;
 import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.core.CrossJoinOperator;
 import org.apache.olingo.server.core.ServiceHandler;
 import org.apache.olingo.server.core.requests.ActionRequest;
 import org.apache.olingo.server.core.requests.DataRequest;
@@ -56,6 +61,7 @@ import org.apache.olingo.server.core.requests.MediaRequest;
 import org.apache.olingo.server.core.requests.MetadataRequest;
 import org.apache.olingo.server.core.requests.ServiceDocumentRequest;
 import org.apache.olingo.server.core.responses.CountResponse;
+import org.apache.olingo.server.core.responses.CrossJoinResponse;
 import org.apache.olingo.server.core.responses.EntityResponse;
 import org.apache.olingo.server.core.responses.EntitySetResponse;
 import org.apache.olingo.server.core.responses.ErrorResponse;
@@ -210,7 +216,9 @@ public class TripPinHandler implements ServiceHandler {
         if (details.entity == null && !request.getNavigations().isEmpty()) {
           response.writeReadEntitySet(details.entityType, new EntityCollection());
         } else {
-          response.writeReadEntitySet(details.entityType, details.entitySet);
+          // stream the entities instead of serializing the whole collection at once
+          response.writeReadEntitySetStreaming(details.entityType,
+              details.entitySet == null ? null : new EntityCollectionIterator(details.entitySet));
         }
       }
 
@@ -404,8 +412,8 @@ public class TripPinHandler implements ServiceHandler {
     List<UriParameter> keys = request.getKeyPredicates();
     Entity entity = this.dataModel.getEntity(edmEntitySet.getName(), keys);
 
-    InputStream contents = this.dataModel.readMedia(entity);
-    response.writeStreamResponse(contents, request.getResponseContentType());
+    response.writeMediaContent(this.odata.createMediaContent(this.dataModel.readMedia(entity)),
+        request.getResponseContentType());
   }
 
   @Override
@@ -538,8 +546,15 @@ public class TripPinHandler implements ServiceHandler {
   }
 
   @Override
-  public void crossJoin(DataRequest dataRequest, List<String> entitySetNames, ODataResponse response) {
-    response.setStatusCode(200);
+  public void crossJoin(DataRequest dataRequest, List<String> entitySetNames, ODataResponse response)
+      throws ODataLibraryException, ODataApplicationException {
+    CrossJoinOperator operator = new CrossJoinOperator(entitySetNames,
+        dataRequest.getUriInfo().getFilterOption());
+    Map<String, Iterator<Entity>> sources = new HashMap<String, Iterator<Entity>>();
+    for (String entitySetName : entitySetNames) {
+      sources.put(entitySetName, this.dataModel.getEntitySet(entitySetName).iterator());
+    }
+    CrossJoinResponse.getInstance(dataRequest, response).writeCrossJoin(operator.execute(sources, null));
   }
 
   @Override
@@ -564,4 +579,39 @@ public class TripPinHandler implements ServiceHandler {
     error.getException().printStackTrace();
     response.writeError(error);
   }
+
+  private static class EntityCollectionIterator extends EntityIterator {
+    private final EntityCollection entitySet;
+    private final Iterator<Entity> entities;
+
+    public EntityCollectionIterator(EntityCollection entitySet) {
+      this.entitySet = entitySet;
+      this.entities = entitySet.iterator();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return this.entities.hasNext();
+    }
+
+    @Override
+    public Entity next() {
+      return this.entities.next();
+    }
+
+    @Override
+    public Integer getCount() {
+      return this.entitySet.getCount();
+    }
+
+    @Override
+    public boolean hasNextLink() {
+      return true;
+    }
+
+    @Override
+    public URI getNext() {
+      return this.entitySet.getNext();
+    }
+  }
 }
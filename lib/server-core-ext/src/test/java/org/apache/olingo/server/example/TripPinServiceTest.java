@@ -18,15 +18,18 @@
  */
 package org.apache.olingo.server.example;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.catalina.Context;
 import org.apache.catalina.startup.Tomcat;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.http.Header;
 import org.apache.http.HttpHost;
@@ -237,6 +240,30 @@ public class TripPinServiceTest {
   @Test
   public void testReadMedia() throws Exception {
     HttpResponse response = httpGET(baseURL + "/Photos(1)/$value", 200);
+    assertEquals("bytes", getHeader(response, "Accept-Ranges"));
+    assertArrayEquals(FileUtils.readFileToByteArray(new File("src/test/resources/OlingoOrangeTM.png")),
+        EntityUtils.toByteArray(response.getEntity()));
+  }
+
+  @Test
+  public void testReadMediaRange() throws Exception {
+    final byte[] media = FileUtils.readFileToByteArray(new File("src/test/resources/OlingoOrangeTM.png"));
+    HttpGet request = new HttpGet(baseURL + "/Photos(1)/$value");
+    request.setHeader("Range", "bytes=10-19");
+    HttpResponse response = httpSend(request, 206);
+    assertEquals("bytes 10-19/" + media.length, getHeader(response, "Content-Range"));
+    assertArrayEquals(Arrays.copyOfRange(media, 10, 20), EntityUtils.toByteArray(response.getEntity()));
+
+    request = new HttpGet(baseURL + "/Photos(1)/$value");
+    request.setHeader("Range", "bytes=-5");
+    response = httpSend(request, 206);
+    assertArrayEquals(Arrays.copyOfRange(media, media.length - 5, media.length),
+        EntityUtils.toByteArray(response.getEntity()));
+
+    request = new HttpGet(baseURL + "/Photos(1)/$value");
+    request.setHeader("Range", "bytes=" + media.length + "-");
+    response = httpSend(request, 416);
+    assertEquals("bytes */" + media.length, getHeader(response, "Content-Range"));
     EntityUtils.consumeQuietly(response.getEntity());
   }
 
@@ -764,7 +791,19 @@ public class TripPinServiceTest {
     String editUrl = baseURL + "/$crossjoin(People,Airlines)?$filter="
         + "People/UserName%20eq%20Airlines/AirlineCode";
     HttpResponse response = httpGET(editUrl, 200);
-    EntityUtils.consumeQuietly(response.getEntity());
+    JsonNode node = getJSONNode(response);
+    assertEquals("$metadata#Collection(Edm.ComplexType)", node.get("@odata.context").asText());
+    assertEquals(0, node.get("value").size());
+  }
+
+  @Test
+  public void crossJoinWithoutFilter() throws Exception {
+    HttpResponse response = httpGET(baseURL + "/$crossjoin(Airlines,People)", 200);
+    JsonNode node = getJSONNode(response);
+    assertEquals(15 * 20, node.get("value").size());
+    JsonNode row = node.get("value").get(0);
+    assertEquals("Airlines('AA')", row.get("Airlines@odata.navigationLink").asText());
+    assertEquals("People('russellwhyte')", row.get("People@odata.navigationLink").asText());
   }
   
   @Test
@@ -18,18 +18,29 @@
  */
 package org.apache.olingo.server.core;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.olingo.commons.api.format.AcceptType;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.metrics.ODataMetrics.Stage;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 import org.apache.olingo.server.api.serializer.RepresentationType;
 import org.apache.olingo.server.api.uri.queryoption.FormatOption;
+import org.apache.olingo.server.core.metrics.MetricsRecorder;
 
+/**
+ * <p>Negotiates the content type of requests and responses.</p>
+ * <p>Clients typically send only a handful of distinct Accept headers and $format values,
+ * so negotiated content types and parsed Content-Type header values are kept in
+ * bounded least-recently-used caches.</p>
+ */
 public final class ContentNegotiator {
 
   private static final String ATOM = "atom";
@@ -44,6 +55,10 @@ public final class ContentNegotiator {
           ContentType.APPLICATION_ATOM_XML,
           ContentType.APPLICATION_XML));
 
+  private static final int CACHE_SIZE = 256;
+  private static final Map<NegotiationKey, ContentType> NEGOTIATED = new Cache<NegotiationKey, ContentType>();
+  private static final Map<String, ContentType> PARSED = new Cache<String, ContentType>();
+
   private ContentNegotiator() {}
 
   private static List<ContentType> getDefaultSupportedContentTypes(final RepresentationType type) {
@@ -80,19 +95,43 @@ public final class ContentNegotiator {
   public static ContentType doContentNegotiation(final FormatOption formatOption, final ODataRequest request,
       final CustomContentTypeSupport customContentTypeSupport, final RepresentationType representationType)
           throws ContentNegotiatorException {
-    final List<ContentType> supportedContentTypes =
-        getSupportedContentTypes(customContentTypeSupport, representationType);
-    final String acceptHeaderValue = request.getHeader(HttpHeader.ACCEPT);
+    final long start = MetricsRecorder.start();
+    try {
+      final List<ContentType> supportedContentTypes =
+          getSupportedContentTypes(customContentTypeSupport, representationType);
+      final String format = formatOption == null ? null : formatOption.getFormat();
+      final String acceptHeaderValue = format == null ? request.getHeader(HttpHeader.ACCEPT) : null;
+      final NegotiationKey key = new NegotiationKey(representationType, supportedContentTypes,
+          format, acceptHeaderValue);
+      ContentType result;
+      synchronized (NEGOTIATED) {
+        result = NEGOTIATED.get(key);
+      }
+      if (result == null) {
+        result = doContentNegotiation(format, acceptHeaderValue, supportedContentTypes, representationType);
+        synchronized (NEGOTIATED) {
+          NEGOTIATED.put(key.copy(), result);
+        }
+      }
+      return result;
+    } finally {
+      MetricsRecorder.stop(Stage.CONTENT_NEGOTIATION, start);
+    }
+  }
+
+  private static ContentType doContentNegotiation(final String format, final String acceptHeaderValue,
+      final List<ContentType> supportedContentTypes, final RepresentationType representationType)
+          throws ContentNegotiatorException {
     ContentType result = null;
 
-    if (formatOption != null && formatOption.getFormat() != null) {
-      final String formatString = formatOption.getFormat().trim();
+    if (format != null) {
+      final String formatString = format.trim();
       final ContentType contentType = mapContentType(formatString);
 
       try {
         result = getAcceptedType(
             AcceptType.fromContentType(contentType == null ?
-                ContentType.create(formatOption.getFormat()) : contentType),
+                ContentType.create(format) : contentType),
                 supportedContentTypes);
       } catch (final IllegalArgumentException e) {
         // Exception results in result = null for next check.
@@ -125,6 +164,31 @@ public final class ContentNegotiator {
     return result;
   }
 
+  /**
+   * Parses a content type, e.g., the value of a Content-Type header.
+   * Parsed values are cached because content types are immutable.
+   * @param format the content type as string; may be <code>null</code>
+   * @return the content type or <code>null</code> if the string cannot be parsed
+   */
+  public static ContentType parseContentType(final String format) {
+    if (format == null) {
+      return null;
+    }
+    ContentType result;
+    synchronized (PARSED) {
+      result = PARSED.get(format);
+    }
+    if (result == null) {
+      result = ContentType.parse(format);
+      if (result != null) {
+        synchronized (PARSED) {
+          PARSED.put(format, result);
+        }
+      }
+    }
+    return result;
+  }
+
   private static ContentType mapContentType(final String formatString) {
     return JSON.equalsIgnoreCase(formatString) ? ContentType.JSON :
         XML.equalsIgnoreCase(formatString) ? ContentType.APPLICATION_XML :
@@ -185,4 +249,64 @@ public final class ContentNegotiator {
     }
     return false;
   }
+
+  /** Least-recently-used map of bounded size; all accesses must be synchronized on the map. */
+  private static class Cache<K, V> extends LinkedHashMap<K, V> {
+    private static final long serialVersionUID = 1L;
+
+    public Cache() {
+      super(16, 0.75F, true);
+    }
+
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<K, V> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  }
+
+  /** Everything the outcome of content negotiation depends on. */
+  private static class NegotiationKey {
+    private final RepresentationType representationType;
+    private final List<ContentType> supportedContentTypes;
+    private final String format;
+    private final String acceptHeaderValue;
+
+    public NegotiationKey(final RepresentationType representationType, final List<ContentType> supportedContentTypes,
+        final String format, final String acceptHeaderValue) {
+      this.representationType = representationType;
+      this.supportedContentTypes = supportedContentTypes;
+      this.format = format;
+      this.acceptHeaderValue = acceptHeaderValue;
+    }
+
+    /** Creates a key that does not depend on the list of supported content types supplied by the application. */
+    public NegotiationKey copy() {
+      return new NegotiationKey(representationType, new ArrayList<ContentType>(supportedContentTypes),
+          format, acceptHeaderValue);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof NegotiationKey)) {
+        return false;
+      }
+      final NegotiationKey other = (NegotiationKey) obj;
+      return representationType == other.representationType
+          && supportedContentTypes.equals(other.supportedContentTypes)
+          && (format == null ? other.format == null : format.equals(other.format))
+          && (acceptHeaderValue == null ? other.acceptHeaderValue == null :
+              acceptHeaderValue.equals(other.acceptHeaderValue));
+    }
+
+    @Override
+    public int hashCode() {
+      int result = representationType.hashCode();
+      result = 31 * result + supportedContentTypes.hashCode();
+      result = 31 * result + (format == null ? 0 : format.hashCode());
+      return 31 * result + (acceptHeaderValue == null ? 0 : acceptHeaderValue.hashCode());
+    }
+  }
 }
@@ -19,6 +19,7 @@
 package org.apache.olingo.server.core;
 
 import org.apache.olingo.commons.api.edm.EdmAction;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
 import org.apache.olingo.commons.api.edm.EdmFunction;
 import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
@@ -28,11 +29,13 @@ import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
 import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.etag.ConditionalReadSupport;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
 import org.apache.olingo.server.api.etag.PreconditionException;
 import org.apache.olingo.server.api.processor.ActionComplexCollectionProcessor;
@@ -64,11 +67,13 @@ import org.apache.olingo.server.api.uri.UriResource;
 import org.apache.olingo.server.api.uri.UriResourceAction;
 import org.apache.olingo.server.api.uri.UriResourceEntitySet;
 import org.apache.olingo.server.api.uri.UriResourceFunction;
+import org.apache.olingo.server.api.uri.UriResourceKind;
 import org.apache.olingo.server.api.uri.UriResourceNavigation;
 import org.apache.olingo.server.api.uri.UriResourcePartTyped;
 import org.apache.olingo.server.api.uri.UriResourcePrimitiveProperty;
 import org.apache.olingo.server.api.uri.UriResourceProperty;
 import org.apache.olingo.server.core.batchhandler.BatchHandler;
+import org.apache.olingo.server.core.etag.ETagHelperImpl;
 import org.apache.olingo.server.core.etag.PreconditionsValidator;
 
 public class ODataDispatcher {
@@ -128,6 +133,13 @@ public class ODataDispatcher {
     final int lastPathSegmentIndex = uriInfo.getUriResourceParts().size() - 1;
     final UriResource lastPathSegment = uriInfo.getUriResourceParts().get(lastPathSegmentIndex);
 
+    if (request.getMethod() == HttpMethod.GET
+        && isNotModified(request, response, lastPathSegment.getKind() == UriResourceKind.value
+            && lastPathSegmentIndex > 0
+            && isEntityOrNavigationMedia(uriInfo.getUriResourceParts().get(lastPathSegmentIndex - 1)))) {
+      return;
+    }
+
     switch (lastPathSegment.getKind()) {
     case action:
       checkMethod(request.getMethod(), HttpMethod.POST);
@@ -345,7 +357,8 @@ public class ODataDispatcher {
         //PUT and DELETE can only be called on EntitySets or Navigation properties which are media resources
       } else if (method == HttpMethod.PUT && isEntityOrNavigationMedia(resource)) {
         validatePreconditions(request, true);
-        final ContentType requestFormat = ContentType.parse(request.getHeader(HttpHeader.CONTENT_TYPE));
+        final ContentType requestFormat =
+            ContentNegotiator.parseContentType(request.getHeader(HttpHeader.CONTENT_TYPE));
         final ContentType responseFormat = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
             request, handler.getCustomContentTypeSupport(), RepresentationType.ENTITY);
         handler.selectProcessor(MediaEntityProcessor.class)
@@ -477,7 +490,8 @@ public class ODataDispatcher {
         final ContentType responseFormat = ContentNegotiator.doContentNegotiation(uriInfo.getFormatOption(),
             request, handler.getCustomContentTypeSupport(), RepresentationType.ENTITY);
         if (isMedia) {
-          final ContentType requestFormat = ContentType.parse(request.getHeader(HttpHeader.CONTENT_TYPE));
+          final ContentType requestFormat =
+            ContentNegotiator.parseContentType(request.getHeader(HttpHeader.CONTENT_TYPE));
           handler.selectProcessor(MediaEntityProcessor.class)
               .createMediaEntity(request, response, uriInfo, requestFormat, responseFormat);
         } else {
@@ -526,6 +540,34 @@ public class ODataDispatcher {
     }
   }
 
+  /**
+   * Evaluates the conditional headers of a read request against the ETag provided by the registered
+   * {@link ConditionalReadSupport}, before any processor is called.
+   * @return true if the request has been answered with "304 Not Modified"
+   * @throws PreconditionException if the if-match header does not match
+   */
+  private boolean isNotModified(final ODataRequest request, final ODataResponse response,
+      final boolean isMediaValue) throws PreconditionException {
+    final ConditionalReadSupport readSupport = handler.getConditionalReadSupport();
+    if (readSupport == null
+        || request.getHeader(HttpHeader.IF_MATCH) == null && request.getHeader(HttpHeader.IF_NONE_MATCH) == null) {
+      return false;
+    }
+    final EdmBindingTarget entitySetOrSingleton =
+        new PreconditionsValidator(uriInfo).getAffectedEntitySetOrSingleton();
+    if (entitySetOrSingleton == null) {
+      return false;
+    }
+    final String eTag = readSupport.getETag(uriInfo, entitySetOrSingleton, isMediaValue);
+    if (new ETagHelperImpl().checkReadPreconditions(eTag,
+        request.getHeaders(HttpHeader.IF_MATCH), request.getHeaders(HttpHeader.IF_NONE_MATCH))) {
+      response.setStatusCode(HttpStatusCode.NOT_MODIFIED.getStatusCode());
+      response.setHeader(HttpHeader.ETAG, eTag);
+      return true;
+    }
+    return false;
+  }
+
   private void checkMethod(final HttpMethod requestMethod, final HttpMethod allowedMethod)
       throws ODataHandlerException {
     if (requestMethod != allowedMethod) {
@@ -548,11 +590,9 @@ public class ODataDispatcher {
       }
       return null;
     }
-    ContentType contentType;
-    try {
-      contentType = ContentType.create(contentTypeHeader);
-    } catch (final IllegalArgumentException e) {
-      throw new ODataHandlerException("Illegal content type.", e,
+    final ContentType contentType = ContentNegotiator.parseContentType(contentTypeHeader);
+    if (contentType == null) {
+      throw new ODataHandlerException("Illegal content type.",
           ODataHandlerException.MessageKeys.INVALID_CONTENT_TYPE, contentTypeHeader);
     }
     ContentNegotiator.checkSupport(contentType, handler.getCustomContentTypeSupport(), representationType);
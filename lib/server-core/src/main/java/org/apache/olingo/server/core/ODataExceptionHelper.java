@@ -27,6 +27,7 @@ import org.apache.olingo.server.api.ODataLibraryException.ODataErrorMessage;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.PreconditionException;
+import org.apache.olingo.server.api.paging.SkipTokenException;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.core.uri.parser.UriParserException;
 import org.apache.olingo.server.core.uri.parser.UriParserSemanticException;
@@ -96,6 +97,8 @@ public class ODataExceptionHelper {
       serverError.setStatusCode(HttpStatusCode.BAD_REQUEST.getStatusCode());
     } else if (ODataHandlerException.MessageKeys.HTTP_METHOD_NOT_ALLOWED.equals(e.getMessageKey())) {
       serverError.setStatusCode(HttpStatusCode.METHOD_NOT_ALLOWED.getStatusCode());
+    } else if (ODataHandlerException.MessageKeys.UNSUPPORTED_CONTENT_ENCODING.equals(e.getMessageKey())) {
+      serverError.setStatusCode(HttpStatusCode.UNSUPPORTED_MEDIA_TYPE.getStatusCode());
     }
 
     return serverError;
@@ -123,6 +126,17 @@ public class ODataExceptionHelper {
     return serverError;
   }
 
+  public static ODataServerError createServerErrorObject(final SkipTokenException e,
+      final Locale requestedLocale) {
+    ODataServerError serverError = basicTranslatedError(e, requestedLocale);
+    if (SkipTokenException.MessageKeys.INVALID_SKIPTOKEN == e.getMessageKey()) {
+      serverError.setStatusCode(HttpStatusCode.BAD_REQUEST.getStatusCode());
+    } else if (SkipTokenException.MessageKeys.UNSUPPORTED_ORDERBY == e.getMessageKey()) {
+      serverError.setStatusCode(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode());
+    }
+    return serverError;
+  }
+
   public static ODataServerError createServerErrorObject(final ODataLibraryException e, final Locale requestedLocale) {
     return basicTranslatedError(e, requestedLocale);
   }
@@ -41,6 +41,8 @@ public class ODataHandlerException extends ODataLibraryException {
     UNSUPPORTED_CONTENT_TYPE,
     /** parameter: content type */
     INVALID_CONTENT_TYPE,
+    /** parameter: content coding */
+    UNSUPPORTED_CONTENT_ENCODING,
     /** parameter: version */
     ODATA_VERSION_NOT_SUPPORTED;
 
@@ -18,14 +18,18 @@
  */
 package org.apache.olingo.server.core;
 
-import java.util.LinkedList;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataApplicationException;
 import org.apache.olingo.server.api.ODataHandler;
@@ -35,9 +39,14 @@ import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.OlingoExtension;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.cache.ResponseCache;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
+import org.apache.olingo.server.api.etag.ConditionalReadSupport;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
 import org.apache.olingo.server.api.etag.PreconditionException;
+import org.apache.olingo.server.api.metrics.ODataMetrics;
+import org.apache.olingo.server.api.metrics.ODataMetrics.Stage;
+import org.apache.olingo.server.api.paging.SkipTokenException;
 import org.apache.olingo.server.api.processor.DefaultProcessor;
 import org.apache.olingo.server.api.processor.ErrorProcessor;
 import org.apache.olingo.server.api.processor.Processor;
@@ -48,6 +57,9 @@ import org.apache.olingo.server.api.uri.UriInfo;
 import org.apache.olingo.server.api.uri.queryoption.FormatOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.etag.ContentETag;
+import org.apache.olingo.server.core.etag.ETagHelperImpl;
+import org.apache.olingo.server.core.metrics.MetricsRecorder;
 import org.apache.olingo.server.core.uri.parser.Parser;
 import org.apache.olingo.server.core.uri.parser.UriParserException;
 import org.apache.olingo.server.core.uri.parser.UriParserSemanticException;
@@ -60,14 +72,20 @@ public class ODataHandlerImpl implements ODataHandler {
 
   private final OData odata;
   private final ServiceMetadata serviceMetadata;
-  private final List<Processor> processors = new LinkedList<Processor>();
+  /** Registered processors, the most recently registered first. */
+  private final List<Processor> processors = new CopyOnWriteArrayList<Processor>();
+  /** Selected processor for each requested processor interface, filled on demand and reset on registration. */
+  private volatile ConcurrentMap<Class<?>, Processor> dispatchTable =
+      new ConcurrentHashMap<Class<?>, Processor>();
   private final ServerCoreDebugger debugger;
+  /** Context of the request processed by the current thread, inherited by the parts of a $batch request. */
+  private static final ThreadLocal<ODataRequestContext> CURRENT_CONTEXT = new ThreadLocal<ODataRequestContext>();
 
-  private CustomContentTypeSupport customContentTypeSupport;
-  private CustomETagSupport customETagSupport;
-
-  private UriInfo uriInfo;
-  private Exception lastThrownException;
+  private volatile CustomContentTypeSupport customContentTypeSupport;
+  private volatile CustomETagSupport customETagSupport;
+  private volatile ConditionalReadSupport conditionalReadSupport;
+  private volatile ODataMetrics metrics;
+  private volatile ResponseCache responseCache;
 
   public ODataHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata, final ServerCoreDebugger debugger) {
     this.odata = odata;
@@ -79,50 +97,82 @@ public class ODataHandlerImpl implements ODataHandler {
   }
 
   public ODataResponse process(final ODataRequest request) {
+    final ODataRequestContext context = new ODataRequestContext(debugger);
+    final ODataRequestContext enclosingContext = CURRENT_CONTEXT.get();
+    if (enclosingContext != null && !enclosingContext.isCacheable()) {
+      // A $batch part must not be cached if its $batch request must not be, e.g., because it is authenticated.
+      context.setCacheable(false);
+    }
+    return process(request, context);
+  }
+
+  /**
+   * Processes a request; the state of the request is kept in the given context
+   * so that one handler can serve several threads at the same time.
+   * @param request the request
+   * @param context the state of this request
+   * @return the response
+   */
+  public ODataResponse process(final ODataRequest request, final ODataRequestContext context) {
+    final ServerCoreDebugger debugger = context.getDebugger();
     ODataResponse response = new ODataResponse();
     final int responseHandle = debugger.startRuntimeMeasurement("ODataHandler", "process");
+    final ODataMetrics previousMetrics = MetricsRecorder.enter(metrics);
+    final ODataRequestContext previousContext = CURRENT_CONTEXT.get();
+    CURRENT_CONTEXT.set(context);
     try {
-      processInternal(request, response);
+      processInternal(request, response, context);
     } catch (final UriValidationException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (final UriParserSemanticException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (final UriParserSyntaxException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (final UriParserException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (ContentNegotiatorException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (SerializerException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (DeserializerException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (PreconditionException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
+    } catch (SkipTokenException e) {
+      ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
+      handleException(request, response, serverError, e, context);
     } catch (ODataHandlerException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e, null);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (ODataApplicationException e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
     } catch (Exception e) {
       ODataServerError serverError = ODataExceptionHelper.createServerErrorObject(e);
-      handleException(request, response, serverError, e);
+      handleException(request, response, serverError, e, context);
+    } finally {
+      MetricsRecorder.leave(previousMetrics);
+      if (previousContext == null) {
+        CURRENT_CONTEXT.remove();
+      } else {
+        CURRENT_CONTEXT.set(previousContext);
+      }
     }
     debugger.stopRuntimeMeasurement(responseHandle);
     return response;
   }
 
-  private void processInternal(final ODataRequest request, final ODataResponse response)
-      throws ODataApplicationException, ODataLibraryException {
+  private void processInternal(final ODataRequest request, final ODataResponse response,
+      final ODataRequestContext context) throws ODataApplicationException, ODataLibraryException {
+    final ServerCoreDebugger debugger = context.getDebugger();
     final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "processInternal");
 
     response.setHeader(HttpHeader.ODATA_VERSION, ODataServiceVersion.V40.toString());
@@ -133,41 +183,114 @@ public class ODataHandlerImpl implements ODataHandler {
       throw e;
     }
 
+    final ResponseCache cache = responseCache;
+    if (cache != null && !cache.isCacheable(request)) {
+      context.setCacheable(false);
+    }
+    final String cacheKey = cache == null || debugger.isDebugMode() || !context.isCacheable() ? null
+        : cache.getKey(request);
+    if (cacheKey != null && cache.serve(cacheKey, response)) {
+      debugger.stopRuntimeMeasurement(measurementHandle);
+      return;
+    }
+    final long cacheToken = cacheKey == null ? 0 : cache.startRead();
+
     final int measurementUriParser = debugger.startRuntimeMeasurement("Parser", "parseUri");
+    long start = MetricsRecorder.start();
     try {
-      uriInfo = new Parser(serviceMetadata.getEdm(), odata)
-          .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null);
+      context.setUriInfo(new Parser(serviceMetadata.getEdm(), odata)
+          .parseUri(request.getRawODataPath(), request.getRawQueryPath(), null));
     } catch (final ODataLibraryException e) {
       debugger.stopRuntimeMeasurement(measurementUriParser);
       debugger.stopRuntimeMeasurement(measurementHandle);
       throw e;
+    } finally {
+      MetricsRecorder.stop(Stage.URI_PARSING, start);
     }
     debugger.stopRuntimeMeasurement(measurementUriParser);
 
     final int measurementUriValidator = debugger.startRuntimeMeasurement("UriValidator", "validate");
+    final UriInfo uriInfo = context.getUriInfo();
     final HttpMethod method = request.getMethod();
+    start = MetricsRecorder.start();
     try {
       new UriValidator().validate(uriInfo, method);
     } catch (final UriValidationException e) {
       debugger.stopRuntimeMeasurement(measurementUriValidator);
       debugger.stopRuntimeMeasurement(measurementHandle);
       throw e;
+    } finally {
+      MetricsRecorder.stop(Stage.URI_VALIDATION, start);
     }
     debugger.stopRuntimeMeasurement(measurementUriValidator);
 
     final int measurementDispatcher = debugger.startRuntimeMeasurement("ODataDispatcher", "dispatch");
+    start = MetricsRecorder.start();
     try {
       new ODataDispatcher(uriInfo, this).dispatch(request, response);
     } finally {
+      MetricsRecorder.stop(Stage.PROCESSOR, start);
       debugger.stopRuntimeMeasurement(measurementDispatcher);
+      if (cache != null && isModifying(method)) {
+        cache.invalidate(uriInfo, method);
+      }
+    }
+
+    try {
+      applyContentETag(request, response, uriInfo);
+      if (cacheKey != null) {
+        cache.store(cacheKey, cacheToken, uriInfo, response);
+      }
+    } catch (final IOException e) {
+      throw new SerializerException("Error while buffering the response content.", e,
+          SerializerException.MessageKeys.IO_EXCEPTION);
+    } finally {
       debugger.stopRuntimeMeasurement(measurementHandle);
     }
   }
 
+  private static boolean isModifying(final HttpMethod method) {
+    return method == HttpMethod.POST || method == HttpMethod.PUT || method == HttpMethod.PATCH
+        || method == HttpMethod.MERGE || method == HttpMethod.DELETE;
+  }
+
+  /**
+   * Sets a weak ETag computed from the response body on successful GET responses without ETag
+   * if the registered {@link ConditionalReadSupport} asks for it, and answers matching
+   * conditional requests with "304 Not Modified".
+   */
+  private void applyContentETag(final ODataRequest request, final ODataResponse response, final UriInfo uriInfo)
+      throws ODataLibraryException, IOException {
+    final ConditionalReadSupport readSupport = conditionalReadSupport;
+    if (readSupport == null
+        || request.getMethod() != HttpMethod.GET
+        || response.getStatusCode() != HttpStatusCode.OK.getStatusCode()
+        || response.getHeader(HttpHeader.ETAG) != null
+        || !readSupport.hasContentETag(uriInfo)) {
+      return;
+    }
+    final String eTag = ContentETag.compute(response);
+    if (eTag == null) {
+      return;
+    }
+    response.setHeader(HttpHeader.ETAG, eTag);
+    if (new ETagHelperImpl().checkReadPreconditions(eTag,
+        request.getHeaders(HttpHeader.IF_MATCH), request.getHeaders(HttpHeader.IF_NONE_MATCH))) {
+      response.setStatusCode(HttpStatusCode.NOT_MODIFIED.getStatusCode());
+      response.setContent(null);
+    }
+  }
+
   public void handleException(final ODataRequest request, final ODataResponse response,
       final ODataServerError serverError, final Exception exception) {
+    handleException(request, response, serverError, exception, new ODataRequestContext(debugger));
+  }
+
+  public void handleException(final ODataRequest request, final ODataResponse response,
+      final ODataServerError serverError, final Exception exception, final ODataRequestContext context) {
+    final ServerCoreDebugger debugger = context.getDebugger();
     final int measurementHandle = debugger.startRuntimeMeasurement("ODataHandler", "handleException");
-    lastThrownException = exception;
+    context.setException(exception);
     ErrorProcessor exceptionProcessor;
     try {
       exceptionProcessor = selectProcessor(ErrorProcessor.class);
@@ -177,7 +300,7 @@ public class ODataHandlerImpl implements ODataHandler {
     }
     ContentType requestedContentType;
     try {
-      final FormatOption formatOption = getFormatOption(request, uriInfo);
+      final FormatOption formatOption = getFormatOption(request, context.getUriInfo());
       requestedContentType = ContentNegotiator.doContentNegotiation(formatOption, request,
           getCustomContentTypeSupport(), RepresentationType.ERROR);
     } catch (final ContentNegotiatorException e) {
@@ -225,10 +348,19 @@ public class ODataHandlerImpl implements ODataHandler {
     }
   }
 
+  /**
+   * Selects the most recently registered processor implementing the given interface.
+   * The result of the scan over the processors in registration order is kept in the dispatch table.
+   */
   <T extends Processor> T selectProcessor(final Class<T> cls) throws ODataHandlerException {
+    final ConcurrentMap<Class<?>, Processor> table = dispatchTable;
+    final Processor selected = table.get(cls);
+    if (selected != null) {
+      return cls.cast(selected);
+    }
     for (final Processor processor : processors) {
-      if (cls.isAssignableFrom(processor.getClass())) {
-        processor.init(odata, serviceMetadata);
+      if (cls.isInstance(processor)) {
+        table.putIfAbsent(cls, processor);
         return cls.cast(processor);
       }
     }
@@ -236,12 +368,27 @@ public class ODataHandlerImpl implements ODataHandler {
         ODataHandlerException.MessageKeys.PROCESSOR_NOT_IMPLEMENTED, cls.getSimpleName());
   }
 
+  /**
+   * Registers a processor; it is initialized once here and then shared between all requests.
+   * @param processor the processor
+   */
   public void register(final Processor processor) {
+    processor.init(odata, serviceMetadata);
     processors.add(0, processor);
+    dispatchTable = new ConcurrentHashMap<Class<?>, Processor>();
+    if (processor instanceof ConditionalReadSupport) {
+      conditionalReadSupport = (ConditionalReadSupport) processor;
+    }
   }
 
   @Override
   public void register(OlingoExtension extension) {
+    if (extension instanceof ConditionalReadSupport) {
+      this.conditionalReadSupport = (ConditionalReadSupport) extension;
+      if (!(extension instanceof CustomContentTypeSupport || extension instanceof CustomETagSupport)) {
+        return;
+      }
+    }
     if(extension instanceof CustomContentTypeSupport) {
       this.customContentTypeSupport = (CustomContentTypeSupport) extension;
     } else if(extension instanceof CustomETagSupport) {
@@ -252,6 +399,30 @@ public class ODataHandlerImpl implements ODataHandler {
     }
   }
 
+  /**
+   * Registers a receiver for timings and payload sizes of the requests processed by this handler.
+   * @param metrics the receiver, or <code>null</code> to stop recording
+   */
+  public void register(final ODataMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Registers a cache for the responses of read requests processed by this handler.
+   * @param responseCache the cache, or <code>null</code> to stop caching
+   */
+  public void register(final ResponseCache responseCache) {
+    this.responseCache = responseCache;
+  }
+
+  public ResponseCache getResponseCache() {
+    return responseCache;
+  }
+
+  public ODataMetrics getMetrics() {
+    return metrics;
+  }
+
   public CustomContentTypeSupport getCustomContentTypeSupport() {
     return customContentTypeSupport;
   }
@@ -260,11 +431,7 @@ public class ODataHandlerImpl implements ODataHandler {
     return customETagSupport;
   }
 
-  public Exception getLastThrownException() {
-    return lastThrownException;
-  }
-
-  public UriInfo getUriInfo() {
-    return uriInfo;
+  public ConditionalReadSupport getConditionalReadSupport() {
+    return conditionalReadSupport;
   }
 }
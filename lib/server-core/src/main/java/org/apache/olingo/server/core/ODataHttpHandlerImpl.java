@@ -18,8 +18,10 @@
  */
 package org.apache.olingo.server.core;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.nio.channels.Channel;
 import java.nio.channels.Channels;
@@ -38,6 +40,8 @@ import javax.servlet.http.HttpServletResponse;
 import org.apache.olingo.commons.api.ex.ODataRuntimeException;
 import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.MediaContent;
 import org.apache.olingo.server.api.OData;
 import org.apache.olingo.server.api.ODataContent;
 import org.apache.olingo.server.api.ODataHttpHandler;
@@ -47,23 +51,42 @@ import org.apache.olingo.server.api.ODataResponse;
 import org.apache.olingo.server.api.ODataServerError;
 import org.apache.olingo.server.api.OlingoExtension;
 import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.api.cache.ResponseCache;
+import org.apache.olingo.server.api.compression.HttpCompression;
 import org.apache.olingo.server.api.debug.DebugSupport;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.etag.CustomETagSupport;
+import org.apache.olingo.server.api.metrics.ODataMetrics;
+import org.apache.olingo.server.api.metrics.ODataMetrics.Payload;
+import org.apache.olingo.server.api.metrics.ODataMetrics.Stage;
 import org.apache.olingo.server.api.processor.Processor;
 import org.apache.olingo.server.api.serializer.CustomContentTypeSupport;
 import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+import org.apache.olingo.server.core.metrics.MetricsRecorder;
 
 public class ODataHttpHandlerImpl implements ODataHttpHandler {
 
   public static final int COPY_BUFFER_SIZE = 8192;
 
+  /** Request attributes of servlet containers like Apache Tomcat that send files with zero-copy operations. */
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  private final OData odata;
   private final ODataHandlerImpl handler;
+  /** Debugger for requests without debug output; it never enters debug mode and so holds no state. */
   private final ServerCoreDebugger debugger;
 
-  private int split = 0;
+  private volatile DebugSupport debugSupport;
+  private volatile AsyncSupport asyncSupport;
+  private volatile HttpCompression compression;
+  private volatile int split = 0;
 
   public ODataHttpHandlerImpl(final OData odata, final ServiceMetadata serviceMetadata) {
+    this.odata = odata;
     debugger = new ServerCoreDebugger(odata);
     handler = new ODataHandlerImpl(odata, serviceMetadata, debugger);
   }
@@ -76,19 +99,50 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   @Override
   public void process(final HttpServletRequest request, final HttpServletResponse response) {
     ODataRequest odRequest = new ODataRequest();
+    final ODataRequestContext context = new ODataRequestContext(resolveDebugger(request));
+    context.setCacheable(request.getUserPrincipal() == null);
+    final ODataMetrics previousMetrics = MetricsRecorder.enter(handler.getMetrics());
+    final long start = MetricsRecorder.start();
+    try {
+      process(odRequest, request, response, context);
+    } finally {
+      // Failed requests are recorded as well.
+      MetricsRecorder.stop(Stage.TOTAL, start);
+      MetricsRecorder.leave(previousMetrics);
+    }
+  }
+
+  /**
+   * Returns the debugger for a request. Debug information is collected per request,
+   * so a request asking for debug output gets a debugger of its own.
+   */
+  private ServerCoreDebugger resolveDebugger(final HttpServletRequest request) {
+    final DebugSupport currentDebugSupport = debugSupport;
+    if (currentDebugSupport == null) {
+      return debugger;
+    }
+    final ServerCoreDebugger requestDebugger = new ServerCoreDebugger(odata);
+    requestDebugger.setDebugSupportProcessor(currentDebugSupport);
+    requestDebugger.resolveDebugMode(request);
+    return requestDebugger.isDebugMode() ? requestDebugger : debugger;
+  }
+
+  private void process(final ODataRequest odRequest, final HttpServletRequest request,
+      final HttpServletResponse response, final ODataRequestContext context) {
+    final ServerCoreDebugger debugger = context.getDebugger();
     Exception exception = null;
     ODataResponse odResponse;
-    debugger.resolveDebugMode(request);
-
     final int processMethodHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "process");
     try {
-      fillODataRequest(odRequest, request, split);
+      final long start = MetricsRecorder.start();
+      fillODataRequest(odRequest, request, split, debugger);
+      MetricsRecorder.stop(Stage.REQUEST_FILL, start);
 
-      odResponse = process(odRequest);
+      odResponse = dispatch(odRequest, context);
       // ALL future methods after process must not throw exceptions!
     } catch (Exception e) {
       exception = e;
-      odResponse = handleException(odRequest, e);
+      odResponse = handleException(odRequest, e, context);
     }
     debugger.stopRuntimeMeasurement(processMethodHandle);
 
@@ -96,14 +150,64 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
       Map<String, String> serverEnvironmentVariables = createEnvironmentVariablesMap(request);
       if (exception == null) {
         // This is to ensure that we have access to the thrown OData Exception
-        exception = handler.getLastThrownException();
+        exception = context.getException();
       }
       odResponse =
-          debugger.createDebugResponse(odRequest, odResponse, exception, handler.getUriInfo(),
+          debugger.createDebugResponse(odRequest, odResponse, exception, context.getUriInfo(),
               serverEnvironmentVariables);
     }
 
-    convertToHttp(response, odResponse);
+    final long start = MetricsRecorder.start();
+    if (odResponse.getMediaContent() == null) {
+      final HttpCompression currentCompression = compression;
+      convertToHttp(response, odResponse, currentCompression,
+          currentCompression == null ? null : currentCompression.prepare(odRequest, odResponse));
+    } else {
+      writeMediaContent(request, response, odRequest, odResponse);
+    }
+    MetricsRecorder.stop(Stage.RESPONSE_WRITE, start);
+    if (odRequest.getBody() instanceof MetricsRecorder.CountingInputStream) {
+      MetricsRecorder.size(Payload.REQUEST_BODY,
+          ((MetricsRecorder.CountingInputStream) odRequest.getBody()).getCount());
+    }
+  }
+
+  private ODataResponse dispatch(final ODataRequest odRequest, final ODataRequestContext context)
+      throws IOException {
+    final AsyncSupport currentAsyncSupport = asyncSupport;
+    if (currentAsyncSupport != null) {
+      if (currentAsyncSupport.isStatusMonitor(odRequest)) {
+        return currentAsyncSupport.handleStatusMonitor(odRequest);
+      }
+      if (currentAsyncSupport.isAsyncRequested(odRequest) && !context.getDebugger().isDebugMode()) {
+        final InputStream body = odRequest.getBody();
+        // The task runs in another thread, so it gets a context of its own that keeps the cache decision.
+        final ODataRequestContext asyncContext = new ODataRequestContext(context.getDebugger());
+        asyncContext.setCacheable(context.isCacheable());
+        final ODataResponse accepted = currentAsyncSupport.submit(odRequest, new AsyncSupport.Task() {
+          @Override
+          public ODataResponse process() {
+            return handler.process(odRequest, asyncContext);
+          }
+
+          @Override
+          public ODataResponse handleException(final Exception exception) {
+            ODataResponse errorResponse = new ODataResponse();
+            handler.handleException(odRequest, errorResponse,
+                ODataExceptionHelper.createServerErrorObject(exception), exception);
+            return errorResponse;
+          }
+        });
+        if (body instanceof MetricsRecorder.CountingInputStream && odRequest.getBody() != body) {
+          // The body has been read completely and replaced by its buffered copy.
+          MetricsRecorder.size(Payload.REQUEST_BODY, ((MetricsRecorder.CountingInputStream) body).getCount());
+        }
+        if (accepted != null) {
+          return accepted;
+        }
+      }
+    }
+    return handler.process(odRequest, context);
   }
 
   private Map<String, String> createEnvironmentVariablesMap(final HttpServletRequest request) {
@@ -134,7 +238,8 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     this.split = split;
   }
 
-  private ODataResponse handleException(final ODataRequest odRequest, final Exception e) {
+  private ODataResponse handleException(final ODataRequest odRequest, final Exception e,
+      final ODataRequestContext context) {
     ODataResponse resp = new ODataResponse();
     ODataServerError serverError;
     if (e instanceof ODataHandlerException) {
@@ -144,49 +249,223 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     } else {
       serverError = ODataExceptionHelper.createServerErrorObject(e);
     }
-    handler.handleException(odRequest, resp, serverError, e);
+    handler.handleException(odRequest, resp, serverError, e, context);
     return resp;
   }
 
   static void convertToHttp(final HttpServletResponse response, final ODataResponse odResponse) {
+    convertToHttp(response, odResponse, null, null);
+  }
+
+  /**
+   * Copies status, headers, and content of the response to the servlet response.
+   * @param compression   the compression support, needed only if a content coding is given
+   * @param contentCoding the content coding to apply to the content, or <code>null</code>
+   */
+  static void convertToHttp(final HttpServletResponse response, final ODataResponse odResponse,
+      final HttpCompression compression, final String contentCoding) {
+    if (odResponse.getMediaContent() != null) {
+      writeMediaContent(null, response, null, odResponse);
+      return;
+    }
     response.setStatus(odResponse.getStatusCode());
 
     for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
+      if (contentCoding != null && HttpHeader.CONTENT_LENGTH.equalsIgnoreCase(entry.getKey())) {
+        // The length is known only after compression.
+        continue;
+      }
       for (String headerValue : entry.getValue()) {
         response.addHeader(entry.getKey(), headerValue);
       }
     }
 
     if (odResponse.getContent() != null ) {
-      copyContent(odResponse.getContent(), response);
+      copyContent(Channels.newChannel(odResponse.getContent()), response, compression, contentCoding);
     } else if(odResponse.getODataContent() != null) {
-      writeContent(odResponse, response);
+      writeContent(odResponse, response, compression, contentCoding);
     }
   }
 
   static void writeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse) {
+    writeContent(odataResponse, servletResponse, null, null);
+  }
+
+  /**
+   * Sends a response with media content. A single byte range requested by a GET request
+   * is answered with a partial response. Content stored in a file is left to the servlet container
+   * if it can send files with zero-copy operations; otherwise it is transferred through channels.
+   * @param request   the servlet request, or <code>null</code> if unknown
+   * @param odRequest the OData request, or <code>null</code> if unknown; byte ranges need it
+   */
+  static void writeMediaContent(final HttpServletRequest request, final HttpServletResponse response,
+      final ODataRequest odRequest, final ODataResponse odResponse) {
+    final MediaContent content = odResponse.getMediaContent();
+    final long length = content.getLength();
+    long first = 0;
+    long count = length;
+    if (odRequest != null && odRequest.getMethod() == HttpMethod.GET
+        && odResponse.getStatusCode() == HttpStatusCode.OK.getStatusCode()) {
+      odResponse.setHeader(HttpHeader.ACCEPT_RANGES, "bytes");
+      final long[] range = isRangeApplicable(odRequest, odResponse) ?
+          parseRange(odRequest.getHeader(HttpHeader.RANGE), length) :
+          null;
+      if (range != null && range.length == 0) {
+        odResponse.setStatusCode(HttpStatusCode.RANGE_NOT_SATISFIABLE.getStatusCode());
+        odResponse.setHeader(HttpHeader.CONTENT_RANGE, "bytes */" + length);
+        count = 0;
+      } else if (range != null) {
+        odResponse.setStatusCode(HttpStatusCode.PARTIAL_CONTENT.getStatusCode());
+        odResponse.setHeader(HttpHeader.CONTENT_RANGE, "bytes " + range[0] + '-' + range[1] + '/' + length);
+        first = range[0];
+        count = range[1] - range[0] + 1;
+      }
+    }
+    odResponse.setHeader(HttpHeader.CONTENT_LENGTH, Long.toString(count));
+
+    response.setStatus(odResponse.getStatusCode());
+    for (Entry<String, List<String>> entry : odResponse.getAllHeaders().entrySet()) {
+      for (String headerValue : entry.getValue()) {
+        response.addHeader(entry.getKey(), headerValue);
+      }
+    }
+    if (count == 0) {
+      return;
+    }
+
+    try {
+      final File file = content.getFile();
+      if (file != null && request != null && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+        request.setAttribute(SENDFILE_FILENAME, file.getCanonicalPath());
+        request.setAttribute(SENDFILE_START, Long.valueOf(first));
+        request.setAttribute(SENDFILE_END, Long.valueOf(first + count));
+        MetricsRecorder.size(Payload.RESPONSE_BODY, count);
+        return;
+      }
+      final WritableByteChannel output = Channels.newChannel(response.getOutputStream());
+      try {
+        MetricsRecorder.size(Payload.RESPONSE_BODY, content.transferTo(first, count, output));
+      } finally {
+        closeStream(output);
+      }
+    } catch (IOException e) {
+      throw new ODataRuntimeException("Error on reading media content", e);
+    }
+  }
+
+  /**
+   * Checks whether the byte range requested with the <code>Range</code> header is to be served,
+   * i.e., the representation still matches the validator in the <code>If-Range</code> header, if any.
+   */
+  private static boolean isRangeApplicable(final ODataRequest odRequest, final ODataResponse odResponse) {
+    if (odRequest.getHeader(HttpHeader.RANGE) == null) {
+      return false;
+    }
+    final String ifRange = odRequest.getHeader(HttpHeader.IF_RANGE);
+    if (ifRange == null) {
+      return true;
+    }
+    final String validator = ifRange.trim();
+    if (validator.startsWith("W/")) {
+      // Weak entity tags never match in If-Range.
+      return false;
+    } else if (validator.startsWith("\"")) {
+      return validator.equals(odResponse.getHeader(HttpHeader.ETAG));
+    } else {
+      return validator.equals(odResponse.getHeader(HttpHeader.LAST_MODIFIED));
+    }
+  }
+
+  /**
+   * Parses the value of a <code>Range</code> header asking for a single byte range.
+   * @param header the value of the header
+   * @param length the length of the content
+   * @return the positions of the first and the last byte of the range, an empty array if the range
+   *         cannot be satisfied, or <code>null</code> if the header has to be ignored,
+   *         e.g., because it is invalid or asks for more than one range
+   */
+  static long[] parseRange(final String header, final long length) {
+    final String value = header.trim();
+    if (!value.regionMatches(true, 0, "bytes=", 0, 6) || value.indexOf(',') >= 0) {
+      return null;
+    }
+    final String specification = value.substring(6);
+    final int dash = specification.indexOf('-');
+    if (dash < 0) {
+      return null;
+    }
+    final String start = specification.substring(0, dash).trim();
+    final String end = specification.substring(dash + 1).trim();
+    try {
+      if (start.isEmpty()) {
+        // A suffix range asks for the last bytes.
+        final long suffix = Long.parseLong(end);
+        if (suffix < 0) {
+          return null;
+        }
+        return suffix == 0 || length == 0 ? new long[0] : new long[] { Math.max(0, length - suffix), length - 1 };
+      }
+      final long first = Long.parseLong(start);
+      final long last = end.isEmpty() ? Long.MAX_VALUE : Long.parseLong(end);
+      if (first < 0 || last < first) {
+        return null;
+      }
+      return first >= length ? new long[0] : new long[] { first, Math.min(last, length - 1) };
+    } catch (final NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static void writeContent(final ODataResponse odataResponse, final HttpServletResponse servletResponse,
+      final HttpCompression compression, final String contentCoding) {
     try {
       ODataContent res = odataResponse.getODataContent();
-      res.write(Channels.newChannel(servletResponse.getOutputStream()));
+      final OutputStream outputStream = getOutputStream(servletResponse, compression, contentCoding);
+      if (MetricsRecorder.isActive()) {
+        final MetricsRecorder.CountingChannel channel =
+            new MetricsRecorder.CountingChannel(Channels.newChannel(outputStream));
+        res.write(channel);
+        MetricsRecorder.size(Payload.RESPONSE_BODY, channel.getCount());
+      } else {
+        res.write(Channels.newChannel(outputStream));
+      }
+      if (contentCoding != null) {
+        // Completes the compressed content.
+        outputStream.close();
+      }
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     }
   }
 
+  private static OutputStream getOutputStream(final HttpServletResponse servletResponse,
+      final HttpCompression compression, final String contentCoding) throws IOException {
+    return contentCoding == null ?
+        servletResponse.getOutputStream() :
+        compression.wrap(servletResponse, contentCoding);
+  }
+
   static void copyContent(final InputStream inputStream, final HttpServletResponse servletResponse) {
     copyContent(Channels.newChannel(inputStream), servletResponse);
   }
 
   static void copyContent(final ReadableByteChannel input, final HttpServletResponse servletResponse) {
+    copyContent(input, servletResponse, null, null);
+  }
+
+  private static void copyContent(final ReadableByteChannel input, final HttpServletResponse servletResponse,
+      final HttpCompression compression, final String contentCoding) {
     WritableByteChannel output = null;
+    long written = 0;
     try {
       ByteBuffer inBuffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
-      output = Channels.newChannel(servletResponse.getOutputStream());
+      output = Channels.newChannel(getOutputStream(servletResponse, compression, contentCoding));
       while (input.read(inBuffer) > 0) {
         inBuffer.flip();
-        output.write(inBuffer);
+        written += output.write(inBuffer);
         inBuffer.clear();
       }
+      MetricsRecorder.size(Payload.RESPONSE_BODY, written);
     } catch (IOException e) {
       throw new ODataRuntimeException("Error on reading request content", e);
     } finally {
@@ -206,15 +485,28 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
   }
 
   private ODataRequest fillODataRequest(final ODataRequest odRequest, final HttpServletRequest httpRequest,
-      final int split) throws ODataLibraryException {
+      final int split, final ServerCoreDebugger debugger) throws ODataLibraryException {
     final int requestHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillODataRequest");
     try {
-      odRequest.setBody(httpRequest.getInputStream());
+      odRequest.setBody(MetricsRecorder.isActive() ?
+          new MetricsRecorder.CountingInputStream(httpRequest.getInputStream()) :
+          httpRequest.getInputStream());
       odRequest.setProtocol(httpRequest.getProtocol());
       odRequest.setMethod(extractMethod(httpRequest));
       int innerHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "copyHeaders");
       copyHeaders(odRequest, httpRequest);
       debugger.stopRuntimeMeasurement(innerHandle);
+      final HttpCompression currentCompression = compression;
+      if (currentCompression != null) {
+        final InputStream body = currentCompression.decode(odRequest.getBody(),
+            odRequest.getHeaders(HttpHeader.CONTENT_ENCODING));
+        if (body == null) {
+          throw new ODataHandlerException("Unsupported content encoding",
+              ODataHandlerException.MessageKeys.UNSUPPORTED_CONTENT_ENCODING,
+              odRequest.getHeader(HttpHeader.CONTENT_ENCODING));
+        }
+        odRequest.setBody(body);
+      }
       innerHandle = debugger.startRuntimeMeasurement("ODataHttpHandlerImpl", "fillUriInformation");
       fillUriInformation(odRequest, httpRequest, split);
       debugger.stopRuntimeMeasurement(innerHandle);
@@ -328,8 +620,28 @@ public class ODataHttpHandlerImpl implements ODataHttpHandler {
     handler.register(customConcurrencyControlSupport);
   }
 
+  @Override
+  public void register(final AsyncSupport asyncSupport) {
+    this.asyncSupport = asyncSupport;
+  }
+
+  @Override
+  public void register(final ODataMetrics metrics) {
+    handler.register(metrics);
+  }
+
+  @Override
+  public void register(final ResponseCache responseCache) {
+    handler.register(responseCache);
+  }
+
+  @Override
+  public void register(final HttpCompression compression) {
+    this.compression = compression;
+  }
+
   @Override
   public void register(final DebugSupport debugSupport) {
-    debugger.setDebugSupportProcessor(debugSupport);
+    this.debugSupport = debugSupport;
   }
 }
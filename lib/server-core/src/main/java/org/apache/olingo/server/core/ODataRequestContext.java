@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.core.debug.ServerCoreDebugger;
+
+/**
+ * State of a single request.
+ * Keeping it apart from the handler allows one handler instance to process requests of many threads.
+ */
+public final class ODataRequestContext {
+
+  private final ServerCoreDebugger debugger;
+  private UriInfo uriInfo;
+  private Exception exception;
+  private boolean cacheable = true;
+
+  public ODataRequestContext(final ServerCoreDebugger debugger) {
+    this.debugger = debugger;
+  }
+
+  public ServerCoreDebugger getDebugger() {
+    return debugger;
+  }
+
+  /**
+   * Gets the parsed URI of the request.
+   * @return the URI info or <code>null</code> if the URI has not been parsed successfully
+   */
+  public UriInfo getUriInfo() {
+    return uriInfo;
+  }
+
+  void setUriInfo(final UriInfo uriInfo) {
+    this.uriInfo = uriInfo;
+  }
+
+  /**
+   * Gets the exception that has been handled while processing the request.
+   * @return the exception or <code>null</code>
+   */
+  public Exception getException() {
+    return exception;
+  }
+
+  void setException(final Exception exception) {
+    this.exception = exception;
+  }
+
+  /**
+   * Tells whether the response cache may answer or store this request and the requests it encloses,
+   * i.e., the parts of a $batch request. It may not if the request has been made by an authenticated user.
+   */
+  public boolean isCacheable() {
+    return cacheable;
+  }
+
+  /**
+   * Sets whether the response cache may answer or store this request and the requests it encloses.
+   * @param cacheable <code>false</code>, e.g., if the request has been made by an authenticated user
+   */
+  public void setCacheable(final boolean cacheable) {
+    this.cacheable = cacheable;
+  }
+}
@@ -31,10 +31,12 @@ import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.ODataContentWriteErrorCallback;
 import org.apache.olingo.server.api.ODataContentWriteErrorContext;
+import org.apache.olingo.server.api.metrics.ODataMetrics.Stage;
 import org.apache.olingo.server.api.serializer.EntityCollectionSerializerOptions;
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
 import org.apache.olingo.server.api.serializer.SerializerStreamResult;
+import org.apache.olingo.server.core.metrics.MetricsRecorder;
 import org.apache.olingo.server.core.serializer.SerializerStreamResultImpl;
 import org.apache.olingo.server.core.serializer.json.ODataJsonSerializer;
 import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
@@ -66,7 +68,9 @@ public class ODataWritableContent implements ODataContent {
 
     protected abstract void writeEntity(EntityIterator entity, OutputStream outputStream) throws SerializerException;
 
+    // the entities are serialized while the response is written, so the time is part of both stages
     public void write(OutputStream out) {
+      final long start = MetricsRecorder.start();
       try {
         writeEntity(iterator, out);
       } catch (SerializerException e) {
@@ -75,6 +79,8 @@ public class ODataWritableContent implements ODataContent {
           final WriteErrorContext errorContext = new WriteErrorContext(e);
           errorCallback.handleError(errorContext, Channels.newChannel(out));
         }
+      } finally {
+        MetricsRecorder.stop(Stage.SERIALIZATION, start);
       }
     }
   }
@@ -21,22 +21,40 @@ package org.apache.olingo.server.core;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.olingo.commons.api.edm.Edm;
 import org.apache.olingo.commons.api.edm.constants.ODataServiceVersion;
 import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
 import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.format.ContentType;
 import org.apache.olingo.commons.core.edm.EdmProviderImpl;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.api.serializer.RenderedDocument;
+import org.apache.olingo.server.api.serializer.RenderedDocumentSupport;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.serializer.RenderedDocumentImpl;
 
 /**
+ * <p>Metadata of an OData service.</p>
+ * <p>The metadata document and the service document depend only on the metadata,
+ * so they are serialized once per format (and service root) and kept in memory,
+ * together with compressed variants and ETags derived from their content.</p>
  */
-public class ServiceMetadataImpl implements ServiceMetadata {
+public class ServiceMetadataImpl implements ServiceMetadata, RenderedDocumentSupport {
+
+  /** Maximum number of rendered documents per kind; further variants are serialized on each request. */
+  private static final int MAX_RENDERED_DOCUMENTS = 16;
 
   private final Edm edm;
   private final List<EdmxReference> references;
   private final ServiceMetadataETagSupport serviceMetadataETagSupport;
+  private final ConcurrentMap<String, RenderedDocument> metadataDocuments =
+      new ConcurrentHashMap<String, RenderedDocument>();
+  private final ConcurrentMap<String, RenderedDocument> serviceDocuments =
+      new ConcurrentHashMap<String, RenderedDocument>();
 
   public ServiceMetadataImpl(final CsdlEdmProvider edmProvider, final List<EdmxReference> references,
       final ServiceMetadataETagSupport serviceMetadataETagSupport) {
@@ -65,4 +83,39 @@ public class ServiceMetadataImpl implements ServiceMetadata {
   public ServiceMetadataETagSupport getServiceMetadataETagSupport() {
     return serviceMetadataETagSupport;
   }
+
+  @Override
+  public RenderedDocument getMetadataDocument(final ContentType contentType) throws SerializerException {
+    final String key = contentType.toContentTypeString();
+    RenderedDocument document = metadataDocuments.get(key);
+    if (document == null) {
+      document = new RenderedDocumentImpl(contentType,
+          new ODataImpl().createSerializer(contentType).metadataDocument(this).getContent());
+      document = cache(metadataDocuments, key, document);
+    }
+    return document;
+  }
+
+  @Override
+  public RenderedDocument getServiceDocument(final ContentType contentType, final String serviceRoot)
+      throws SerializerException {
+    final String key = serviceRoot == null ? contentType.toContentTypeString() :
+        contentType.toContentTypeString() + ' ' + serviceRoot;
+    RenderedDocument document = serviceDocuments.get(key);
+    if (document == null) {
+      document = new RenderedDocumentImpl(contentType,
+          new ODataImpl().createSerializer(contentType).serviceDocument(this, serviceRoot).getContent());
+      document = cache(serviceDocuments, key, document);
+    }
+    return document;
+  }
+
+  private RenderedDocument cache(final ConcurrentMap<String, RenderedDocument> documents, final String key,
+      final RenderedDocument document) {
+    if (documents.size() < MAX_RENDERED_DOCUMENTS) {
+      final RenderedDocument existing = documents.putIfAbsent(key, document);
+      return existing == null ? document : existing;
+    }
+    return document;
+  }
 }
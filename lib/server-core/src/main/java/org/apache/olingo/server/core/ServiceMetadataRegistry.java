@@ -0,0 +1,380 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmProvider;
+import org.apache.olingo.commons.api.edm.provider.CsdlAction;
+import org.apache.olingo.commons.api.edm.provider.CsdlActionImport;
+import org.apache.olingo.commons.api.edm.provider.CsdlAliasInfo;
+import org.apache.olingo.commons.api.edm.provider.CsdlAnnotations;
+import org.apache.olingo.commons.api.edm.provider.CsdlComplexType;
+import org.apache.olingo.commons.api.edm.provider.CsdlEdmProvider;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainer;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainerInfo;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
+import org.apache.olingo.commons.api.edm.provider.CsdlEnumType;
+import org.apache.olingo.commons.api.edm.provider.CsdlFunction;
+import org.apache.olingo.commons.api.edm.provider.CsdlFunctionImport;
+import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
+import org.apache.olingo.commons.api.edm.provider.CsdlSingleton;
+import org.apache.olingo.commons.api.edm.provider.CsdlTerm;
+import org.apache.olingo.commons.api.edm.provider.CsdlTypeDefinition;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.ex.ODataException;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.apache.olingo.server.api.etag.ServiceMetadataETagSupport;
+import org.apache.olingo.server.core.etag.ContentHash;
+import org.apache.olingo.server.core.serializer.xml.ODataXmlSerializer;
+
+/**
+ * <p>Metadata of many tenants of an OData service.</p>
+ * <p>Tenants are registered with their EDM provider. When a tenant is first requested, the registry renders
+ * its metadata document and shares one {@link ServiceMetadata} instance, with its EDM and rendered documents,
+ * between all tenants having the same metadata document and ETag support. If the estimated size of all built
+ * metadata exceeds the memory budget, the metadata used least recently is dropped and built again on its
+ * next use.</p>
+ * <p>Shared metadata is built from copies of the schemas the tenant's provider returns, so it does not
+ * depend on the provider of the tenant which happened to request it first. The providers must therefore
+ * return all their schemas, as they do for the metadata document; only elements of referenced schemas are
+ * looked up in the provider. The size of metadata is estimated by the size of its serialized schemas.</p>
+ */
+public class ServiceMetadataRegistry {
+
+  private final long memoryBudget;
+  private final Map<String, Tenant> tenants = new ConcurrentHashMap<String, Tenant>();
+  /** Built metadata in access order, guarded by this registry. */
+  private final LinkedHashMap<Key, ServiceMetadata> built = new LinkedHashMap<Key, ServiceMetadata>(16, 0.75f, true);
+  private final Map<Key, Long> weights = new HashMap<Key, Long>();
+  private long usedMemory;
+
+  /**
+   * Creates a registry.
+   * @param memoryBudget estimated size in bytes up to which built metadata is kept
+   */
+  public ServiceMetadataRegistry(final long memoryBudget) {
+    this.memoryBudget = memoryBudget;
+  }
+
+  /**
+   * Registers a tenant or replaces its registration.
+   * Nothing is read from the provider before the tenant is requested.
+   * @param tenant name of the tenant
+   * @param edmProvider provider of the tenant's EDM
+   * @param references references of the tenant's metadata document
+   * @param serviceMetadataETagSupport ETag support for the metadata and service documents, or <code>null</code>
+   */
+  public void register(final String tenant, final CsdlEdmProvider edmProvider, final List<EdmxReference> references,
+      final ServiceMetadataETagSupport serviceMetadataETagSupport) {
+    tenants.put(tenant, new Tenant(tenant, edmProvider, references == null ?
+        new ArrayList<EdmxReference>() : new ArrayList<EdmxReference>(references), serviceMetadataETagSupport));
+  }
+
+  /**
+   * Removes the registration of a tenant.
+   * The metadata shared with other tenants is kept until it is evicted.
+   * @param tenant name of the tenant
+   */
+  public void unregister(final String tenant) {
+    tenants.remove(tenant);
+  }
+
+  /**
+   * Gets the metadata of a tenant, building it if necessary.
+   * @param tenant name of the tenant
+   * @return the metadata, or <code>null</code> if the tenant is not registered
+   * @throws ODataException if the schemas cannot be read from the provider or the metadata document
+   *                        cannot be rendered
+   */
+  public ServiceMetadata getServiceMetadata(final String tenant) throws ODataException {
+    final Tenant registration = tenants.get(tenant);
+    if (registration == null) {
+      return null;
+    }
+    Key key = registration.key;
+    ServiceMetadata candidate = null;
+    if (key == null) {
+      // The fingerprint is computed once, outside the lock, from the rendered metadata document.
+      candidate = build(registration);
+      try {
+        key = new Key(ContentHash.compute(new ODataXmlSerializer().metadataDocument(candidate).getContent()),
+            registration.eTagSupport);
+      } catch (final IOException e) {
+        throw new ODataException("Cannot compute the fingerprint of the metadata of tenant " + tenant + ".", e);
+      }
+      registration.key = key;
+    }
+    synchronized (this) {
+      ServiceMetadata metadata = built.get(key);
+      if (metadata == null) {
+        metadata = candidate == null ? build(registration) : candidate;
+        built.put(key, metadata);
+        weights.put(key, registration.weight);
+        usedMemory += registration.weight;
+        evict(key);
+      }
+      return metadata;
+    }
+  }
+
+  /** Gets the number of distinct metadata instances currently built. */
+  public synchronized int getBuiltCount() {
+    return built.size();
+  }
+
+  /** Gets the estimated size in bytes of all metadata currently built. */
+  public synchronized long getUsedMemory() {
+    return usedMemory;
+  }
+
+  private void evict(final Key keep) {
+    final Iterator<Key> iterator = built.keySet().iterator();
+    while (usedMemory > memoryBudget && iterator.hasNext()) {
+      final Key key = iterator.next();
+      if (!key.equals(keep)) {
+        iterator.remove();
+        usedMemory -= weights.remove(key);
+      }
+    }
+  }
+
+  /** Builds metadata from copies of the tenant's schemas and records their estimated size. */
+  @SuppressWarnings("unchecked")
+  private static ServiceMetadata build(final Tenant registration) throws ODataException {
+    final List<CsdlSchema> schemas = registration.edmProvider.getSchemas();
+    final List<CsdlSchema> copies;
+    try {
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      final ObjectOutputStream output = new ObjectOutputStream(buffer);
+      output.writeObject(schemas == null ? new ArrayList<CsdlSchema>() : new ArrayList<CsdlSchema>(schemas));
+      output.close();
+      registration.weight = buffer.size();
+      copies = (List<CsdlSchema>) new ObjectInputStream(new ByteArrayInputStream(buffer.toByteArray())).readObject();
+    } catch (final IOException e) {
+      throw new ODataException("Cannot copy the schemas of tenant " + registration.name + ".", e);
+    } catch (final ClassNotFoundException e) {
+      throw new ODataException("Cannot copy the schemas of tenant " + registration.name + ".", e);
+    }
+    return new ServiceMetadataImpl(new CopiedSchemasProvider(copies, registration.edmProvider),
+        registration.references, registration.eTagSupport);
+  }
+
+  private static final class Tenant {
+    private final String name;
+    private final CsdlEdmProvider edmProvider;
+    private final List<EdmxReference> references;
+    private final ServiceMetadataETagSupport eTagSupport;
+    private volatile Key key;
+    private volatile long weight;
+
+    private Tenant(final String name, final CsdlEdmProvider edmProvider, final List<EdmxReference> references,
+        final ServiceMetadataETagSupport eTagSupport) {
+      this.name = name;
+      this.edmProvider = edmProvider;
+      this.references = references;
+      this.eTagSupport = eTagSupport;
+    }
+  }
+
+  /** Identifies shareable metadata: the same metadata document, and the same ETag support. */
+  private static final class Key {
+    private final String fingerprint;
+    private final ServiceMetadataETagSupport eTagSupport;
+
+    private Key(final String fingerprint, final ServiceMetadataETagSupport eTagSupport) {
+      this.fingerprint = fingerprint;
+      this.eTagSupport = eTagSupport;
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+      return obj instanceof Key
+          && fingerprint.equals(((Key) obj).fingerprint)
+          && eTagSupport == ((Key) obj).eTagSupport;
+    }
+
+    @Override
+    public int hashCode() {
+      return fingerprint.hashCode();
+    }
+  }
+
+  /**
+   * Provider answering from copied schemas. Elements of other namespaces, i.e., of referenced schemas,
+   * are looked up in the original provider.
+   */
+  private static final class CopiedSchemasProvider extends CsdlAbstractEdmProvider {
+    private final List<CsdlSchema> schemas;
+    private final Map<String, CsdlSchema> schemasByName = new HashMap<String, CsdlSchema>();
+    private final CsdlEdmProvider original;
+
+    private CopiedSchemasProvider(final List<CsdlSchema> schemas, final CsdlEdmProvider original) {
+      this.schemas = schemas;
+      this.original = original;
+      for (final CsdlSchema schema : schemas) {
+        if (!schemasByName.containsKey(schema.getNamespace())) {
+          schemasByName.put(schema.getNamespace(), schema);
+        }
+        if (schema.getAlias() != null && !schemasByName.containsKey(schema.getAlias())) {
+          schemasByName.put(schema.getAlias(), schema);
+        }
+      }
+    }
+
+    @Override
+    public CsdlEnumType getEnumType(final FullQualifiedName name) throws ODataException {
+      final CsdlSchema schema = schemasByName.get(name.getNamespace());
+      return schema == null ? original.getEnumType(name) : schema.getEnumType(name.getName());
+    }
+
+    @Override
+    public CsdlTypeDefinition getTypeDefinition(final FullQualifiedName name) throws ODataException {
+      final CsdlSchema schema = schemasByName.get(name.getNamespace());
+      return schema == null ? original.getTypeDefinition(name) : schema.getTypeDefinition(name.getName());
+    }
+
+    @Override
+    public CsdlEntityType getEntityType(final FullQualifiedName name) throws ODataException {
+      final CsdlSchema schema = schemasByName.get(name.getNamespace());
+      return schema == null ? original.getEntityType(name) : schema.getEntityType(name.getName());
+    }
+
+    @Override
+    public CsdlComplexType getComplexType(final FullQualifiedName name) throws ODataException {
+      final CsdlSchema schema = schemasByName.get(name.getNamespace());
+      return schema == null ? original.getComplexType(name) : schema.getComplexType(name.getName());
+    }
+
+    @Override
+    public List<CsdlAction> getActions(final FullQualifiedName name) throws ODataException {
+      final CsdlSchema schema = schemasByName.get(name.getNamespace());
+      return schema == null ? original.getActions(name) : schema.getActions(name.getName());
+    }
+
+    @Override
+    public List<CsdlFunction> getFunctions(final FullQualifiedName name) throws ODataException {
+      final CsdlSchema schema = schemasByName.get(name.getNamespace());
+      return schema == null ? original.getFunctions(name) : schema.getFunctions(name.getName());
+    }
+
+    @Override
+    public CsdlTerm getTerm(final FullQualifiedName name) throws ODataException {
+      final CsdlSchema schema = schemasByName.get(name.getNamespace());
+      return schema == null ? original.getTerm(name) : schema.getTerm(name.getName());
+    }
+
+    @Override
+    public CsdlEntitySet getEntitySet(final FullQualifiedName entityContainer, final String name)
+        throws ODataException {
+      final CsdlEntityContainer container = getContainer(entityContainer);
+      return container == null ? original.getEntitySet(entityContainer, name) : container.getEntitySet(name);
+    }
+
+    @Override
+    public CsdlSingleton getSingleton(final FullQualifiedName entityContainer, final String name)
+        throws ODataException {
+      final CsdlEntityContainer container = getContainer(entityContainer);
+      return container == null ? original.getSingleton(entityContainer, name) : container.getSingleton(name);
+    }
+
+    @Override
+    public CsdlActionImport getActionImport(final FullQualifiedName entityContainer, final String name)
+        throws ODataException {
+      final CsdlEntityContainer container = getContainer(entityContainer);
+      return container == null ? original.getActionImport(entityContainer, name) : container.getActionImport(name);
+    }
+
+    @Override
+    public CsdlFunctionImport getFunctionImport(final FullQualifiedName entityContainer, final String name)
+        throws ODataException {
+      final CsdlEntityContainer container = getContainer(entityContainer);
+      return container == null ?
+          original.getFunctionImport(entityContainer, name) :
+          container.getFunctionImport(name);
+    }
+
+    @Override
+    public CsdlEntityContainerInfo getEntityContainerInfo(final FullQualifiedName entityContainerName)
+        throws ODataException {
+      for (final CsdlSchema schema : schemas) {
+        final CsdlEntityContainer container = schema.getEntityContainer();
+        if (container != null && (entityContainerName == null
+            || entityContainerName.equals(new FullQualifiedName(schema.getNamespace(), container.getName()))
+            || (schema.getAlias() != null
+                && entityContainerName.equals(new FullQualifiedName(schema.getAlias(), container.getName()))))) {
+          return new CsdlEntityContainerInfo()
+              .setContainerName(new FullQualifiedName(schema.getNamespace(), container.getName()))
+              .setExtendsContainer(container.getExtendsContainer() == null ?
+                  null : new FullQualifiedName(container.getExtendsContainer()));
+        }
+      }
+      return entityContainerName == null ? null : original.getEntityContainerInfo(entityContainerName);
+    }
+
+    @Override
+    public List<CsdlAliasInfo> getAliasInfos() throws ODataException {
+      return original.getAliasInfos();
+    }
+
+    @Override
+    public List<CsdlSchema> getSchemas() {
+      return schemas;
+    }
+
+    @Override
+    public CsdlEntityContainer getEntityContainer() {
+      for (final CsdlSchema schema : schemas) {
+        if (schema.getEntityContainer() != null) {
+          return schema.getEntityContainer();
+        }
+      }
+      return null;
+    }
+
+    @Override
+    public CsdlAnnotations getAnnotationsGroup(final FullQualifiedName targetName, final String qualifier)
+        throws ODataException {
+      final CsdlSchema schema = schemasByName.get(targetName.getNamespace());
+      return schema == null ?
+          original.getAnnotationsGroup(targetName, qualifier) :
+          schema.getAnnotationGroup(targetName.getFullQualifiedNameAsString(), qualifier);
+    }
+
+    /** Gets the container with the given name from the copied schemas. */
+    private CsdlEntityContainer getContainer(final FullQualifiedName name) {
+      final CsdlSchema schema = name == null ? null : schemasByName.get(name.getNamespace());
+      final CsdlEntityContainer container = schema == null ? null : schema.getEntityContainer();
+      return container != null && container.getName().equals(name.getName()) ? container : null;
+    }
+  }
+}
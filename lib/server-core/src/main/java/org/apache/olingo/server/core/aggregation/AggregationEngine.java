@@ -0,0 +1,486 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.aggregation;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Linked;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
+import org.apache.olingo.server.api.uri.queryoption.apply.Aggregate;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.ApplyItem;
+import org.apache.olingo.server.api.uri.queryoption.apply.Filter;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupBy;
+import org.apache.olingo.server.api.uri.queryoption.apply.GroupByItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+
+/**
+ * <p>Applies the transformations of the system query option $apply to a stream of entities.</p>
+ * <p>The input is read only once and never held completely in memory, and nothing is read before
+ * the result is iterated: filter is evaluated entity by entity, and aggregate and groupby use hash
+ * aggregation with one set of running aggregates per group, so that the memory needed is proportional
+ * to the number of groups (and distinct values for countdistinct).</p>
+ * <p>The results are entities with the grouping properties (complex properties and
+ * navigation properties in grouping paths are represented as nested structures) and
+ * one primitive property per aggregate expression, named by its alias.
+ * sum and average result in {@link BigDecimal} values, or {@link Double} values for floating-point input;
+ * countdistinct and $count result in {@link BigDecimal} values with scale 0.</p>
+ * <p>Expressions are evaluated by {@link #evaluate(Entity, Expression)} which supports property paths,
+ * literals, operators, and string methods; services override it to support further expressions.
+ * An {@link AggregationPushdown} can take over leading transformations.</p>
+ */
+public class AggregationEngine {
+
+  private final AggregationPushdown pushdown;
+
+  public AggregationEngine() {
+    this(null);
+  }
+
+  public AggregationEngine(final AggregationPushdown pushdown) {
+    this.pushdown = pushdown;
+  }
+
+  /**
+   * Applies the transformations to the entities.
+   * The transformations are executed while the result is iterated, so an expression that cannot be
+   * evaluated fails the iteration with an {@link ODataRuntimeException} whose cause is the
+   * {@link ODataApplicationException}.
+   * @param applyOption the $apply system query option
+   * @param entities the input entities; only read if not all transformations are pushed down
+   * @return the transformed entities
+   * @throws ODataApplicationException if a transformation is not supported
+   */
+  public EntityIterator apply(final ApplyOption applyOption, final Iterator<Entity> entities)
+      throws ODataApplicationException {
+    final List<ApplyItem> transformations = applyOption.getApplyItems();
+    Iterator<Entity> current = entities;
+    int start = 0;
+    if (pushdown != null) {
+      start = pushdown.getSupportedCount(transformations);
+      if (start > 0) {
+        current = pushdown.execute(transformations.subList(0, start));
+      }
+    }
+    for (final ApplyItem transformation : transformations.subList(start, transformations.size())) {
+      switch (transformation.getKind()) {
+      case FILTER:
+        current = new FilteringIterator(current, ((Filter) transformation).getFilterOption().getExpression());
+        break;
+      case AGGREGATE:
+        current = aggregate(current, Collections.<GroupByItem> emptyList(), Collections.<Expression> emptyList(),
+            (Aggregate) transformation);
+        break;
+      case GROUP_BY:
+        current = groupBy(current, (GroupBy) transformation);
+        break;
+      default:
+        throw notImplemented(transformation.getKind().name());
+      }
+    }
+
+    final Iterator<Entity> result = current;
+    return new EntityIterator() {
+      @Override
+      public boolean hasNext() {
+        return result.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        return result.next();
+      }
+    };
+  }
+
+  /**
+   * Evaluates an expression on an entity.
+   * The default implementation supports paths of single-valued properties and navigation properties,
+   * primitive literals, the logical, comparison, and arithmetic operators, and the string methods.
+   * @param entity the entity
+   * @param expression the expression
+   * @return the value in its Java representation
+   * @throws ODataApplicationException if the expression is not supported
+   */
+  protected Object evaluate(final Entity entity, final Expression expression) throws ODataApplicationException {
+    try {
+      return expression.accept(new EntityExpressionVisitor(entity));
+    } catch (final ExpressionVisitException e) {
+      throw notImplemented(e.getMessage());
+    }
+  }
+
+  private Iterator<Entity> groupBy(final Iterator<Entity> entities, final GroupBy groupBy)
+      throws ODataApplicationException {
+    // Within each group, filters followed by one aggregate can be applied in a streaming way.
+    List<Expression> filters = new ArrayList<Expression>();
+    Aggregate aggregate = null;
+    if (groupBy.getApplyOption() != null) {
+      for (final ApplyItem transformation : groupBy.getApplyOption().getApplyItems()) {
+        if (aggregate == null && transformation instanceof Filter) {
+          filters.add(((Filter) transformation).getFilterOption().getExpression());
+        } else if (aggregate == null && transformation instanceof Aggregate) {
+          aggregate = (Aggregate) transformation;
+        } else {
+          throw notImplemented("groupby with nested " + transformation.getKind());
+        }
+      }
+    }
+    return aggregate(entities, groupBy.getGroupByItems(), filters, aggregate);
+  }
+
+  private Iterator<Entity> aggregate(final Iterator<Entity> entities, final List<GroupByItem> groupByItems,
+      final List<Expression> filters, final Aggregate aggregate) {
+    final List<AggregateExpression> expressions = aggregate == null ?
+        Collections.<AggregateExpression> emptyList() :
+        aggregate.getExpressions();
+    // The input is aggregated when the first result is requested;
+    // the result entities are created one by one while the caller iterates.
+    return new Iterator<Entity>() {
+      private Iterator<Group> groupIterator;
+
+      @Override
+      public boolean hasNext() {
+        if (groupIterator == null) {
+          try {
+            groupIterator = accumulate(entities, groupByItems, filters, expressions).values().iterator();
+          } catch (final ODataApplicationException e) {
+            throw new ODataRuntimeException(e.getMessage(), e);
+          }
+        }
+        return groupIterator.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        final Group group = groupIterator.next();
+        Entity entity = new Entity();
+        for (int i = 0; i < groupByItems.size(); i++) {
+          addValue(entity, groupByItems.get(i).getPath(), group.values.get(i));
+        }
+        for (int i = 0; i < expressions.size(); i++) {
+          entity.addProperty(new Property(null, expressions.get(i).getAlias(), ValueType.PRIMITIVE,
+              group.accumulators[i].getResult()));
+        }
+        return entity;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  private Map<List<Object>, Group> accumulate(final Iterator<Entity> entities, final List<GroupByItem> groupByItems,
+      final List<Expression> filters, final List<AggregateExpression> expressions)
+      throws ODataApplicationException {
+    Map<List<Object>, Group> groups = new LinkedHashMap<List<Object>, Group>();
+    if (groupByItems.isEmpty()) {
+      // Aggregating an empty set results in one entity.
+      groups.put(Collections.emptyList(), new Group(Collections.emptyList(), expressions));
+    }
+    while (entities.hasNext()) {
+      final Entity entity = entities.next();
+      List<Object> values = new ArrayList<Object>(groupByItems.size());
+      List<Object> key = new ArrayList<Object>(groupByItems.size());
+      for (final GroupByItem item : groupByItems) {
+        final Object value = EntityExpressionVisitor.getValue(entity, item.getPath());
+        values.add(value);
+        key.add(value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value);
+      }
+      Group group = groups.get(key);
+      if (group == null) {
+        group = new Group(values, expressions);
+        groups.put(key, group);
+      }
+      if (matches(entity, filters)) {
+        for (int i = 0; i < expressions.size(); i++) {
+          final Expression expression = expressions.get(i).getExpression();
+          group.accumulators[i].add(expression == null ? null : evaluate(entity, expression));
+        }
+      }
+    }
+    return groups;
+  }
+
+  private boolean matches(final Entity entity, final List<Expression> filters) throws ODataApplicationException {
+    for (final Expression filter : filters) {
+      if (!Boolean.TRUE.equals(evaluate(entity, filter))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Adds the value at the given path, creating the complex values and inline entities on the way. */
+  private void addValue(final Entity entity, final List<UriResource> path, final Object value) {
+    Linked current = entity;
+    for (final UriResource part : path.subList(0, path.size() - 1)) {
+      final String name = part.getSegmentValue();
+      if (part instanceof UriResourceNavigation) {
+        Link link = current.getNavigationLink(name);
+        if (link == null) {
+          link = new Link();
+          link.setTitle(name);
+          link.setInlineEntity(new Entity());
+          current.getNavigationLinks().add(link);
+        }
+        current = link.getInlineEntity();
+      } else {
+        final List<Property> properties = current instanceof Entity ?
+            ((Entity) current).getProperties() :
+            ((ComplexValue) current).getValue();
+        Property property = EntityExpressionVisitor.getProperty(properties, name);
+        if (property == null) {
+          property = new Property(null, name, ValueType.COMPLEX, new ComplexValue());
+          properties.add(property);
+        }
+        current = property.asComplex();
+      }
+    }
+    final Property property = new Property(null, path.get(path.size() - 1).getSegmentValue(),
+        ValueType.PRIMITIVE, value);
+    if (current instanceof Entity) {
+      ((Entity) current).addProperty(property);
+    } else {
+      ((ComplexValue) current).getValue().add(property);
+    }
+  }
+
+  static ODataApplicationException notImplemented(final String what) {
+    return new ODataApplicationException("Not implemented in $apply: " + what,
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+
+  /** The grouping values of a group and its running aggregates. */
+  private static class Group {
+    private final List<Object> values;
+    private final Accumulator[] accumulators;
+
+    public Group(final List<Object> values, final List<AggregateExpression> expressions) {
+      this.values = values;
+      accumulators = new Accumulator[expressions.size()];
+      for (int i = 0; i < accumulators.length; i++) {
+        accumulators[i] = createAccumulator(expressions.get(i));
+      }
+    }
+
+    private static Accumulator createAccumulator(final AggregateExpression expression) {
+      if (expression.getExpression() == null) {
+        return new CountAccumulator();
+      }
+      switch (expression.getStandardMethod()) {
+      case SUM:
+        return new SumAccumulator(false);
+      case AVERAGE:
+        return new SumAccumulator(true);
+      case MIN:
+        return new MinMaxAccumulator(false);
+      case MAX:
+        return new MinMaxAccumulator(true);
+      case COUNT_DISTINCT:
+        return new CountDistinctAccumulator();
+      default:
+        throw new IllegalArgumentException(String.valueOf(expression.getStandardMethod()));
+      }
+    }
+  }
+
+  private interface Accumulator {
+    /** Adds a value; <code>null</code> values are ignored, except for $count. */
+    void add(Object value);
+
+    Object getResult();
+  }
+
+  private static class CountAccumulator implements Accumulator {
+    private long count = 0;
+
+    @Override
+    public void add(final Object value) {
+      count++;
+    }
+
+    @Override
+    public Object getResult() {
+      return BigDecimal.valueOf(count);
+    }
+  }
+
+  private static class CountDistinctAccumulator implements Accumulator {
+    private final Set<Object> values = new HashSet<Object>();
+
+    @Override
+    public void add(final Object value) {
+      if (value != null) {
+        values.add(value instanceof byte[] ? ByteBuffer.wrap((byte[]) value) : value);
+      }
+    }
+
+    @Override
+    public Object getResult() {
+      return BigDecimal.valueOf(values.size());
+    }
+  }
+
+  private static class SumAccumulator implements Accumulator {
+    private final boolean average;
+    private BigDecimal sum = BigDecimal.ZERO;
+    private double doubleSum = 0;
+    private boolean isDouble = false;
+    private long count = 0;
+
+    public SumAccumulator(final boolean average) {
+      this.average = average;
+    }
+
+    @Override
+    public void add(final Object value) {
+      if (value == null) {
+        return;
+      }
+      if (value instanceof Double || value instanceof Float) {
+        isDouble = true;
+        doubleSum += ((Number) value).doubleValue();
+      } else if (value instanceof BigDecimal) {
+        sum = sum.add((BigDecimal) value);
+      } else if (value instanceof Number) {
+        sum = sum.add(BigDecimal.valueOf(((Number) value).longValue()));
+      } else {
+        throw new IllegalArgumentException("Value " + value + " is not numeric.");
+      }
+      count++;
+    }
+
+    @Override
+    public Object getResult() {
+      if (count == 0) {
+        return null;
+      } else if (isDouble) {
+        final double total = doubleSum + sum.doubleValue();
+        return average ? total / count : total;
+      } else {
+        return average ? sum.divide(BigDecimal.valueOf(count), MathContext.DECIMAL128) : sum;
+      }
+    }
+  }
+
+  private static class MinMaxAccumulator implements Accumulator {
+    private final boolean max;
+    private Object result;
+
+    public MinMaxAccumulator(final boolean max) {
+      this.max = max;
+    }
+
+    @Override
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void add(final Object value) {
+      if (value == null) {
+        return;
+      }
+      if (result == null) {
+        result = value;
+      } else {
+        final int comparison = value instanceof Number && result instanceof Number
+            && !value.getClass().equals(result.getClass()) ?
+            new BigDecimal(value.toString()).compareTo(new BigDecimal(result.toString())) :
+            ((Comparable) value).compareTo(result);
+        if (max ? comparison > 0 : comparison < 0) {
+          result = value;
+        }
+      }
+    }
+
+    @Override
+    public Object getResult() {
+      return result;
+    }
+  }
+
+  /** Evaluates a filter entity by entity; an expression that cannot be evaluated fails the iteration. */
+  private class FilteringIterator implements Iterator<Entity> {
+    private final Iterator<Entity> source;
+    private final List<Expression> filter;
+    private Entity next;
+
+    public FilteringIterator(final Iterator<Entity> source, final Expression filter) {
+      this.source = source;
+      this.filter = Collections.singletonList(filter);
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && source.hasNext()) {
+        final Entity candidate = source.next();
+        try {
+          if (matches(candidate, filter)) {
+            next = candidate;
+          }
+        } catch (final ODataApplicationException e) {
+          throw new ODataRuntimeException(e.getMessage(), e);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public Entity next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Entity result = next;
+      next = null;
+      return result;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
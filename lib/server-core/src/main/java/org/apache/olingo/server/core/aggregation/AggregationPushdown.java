@@ -0,0 +1,49 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.aggregation;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.apply.ApplyItem;
+
+/**
+ * Hook for backends that can execute $apply transformations themselves, e.g., as SQL GROUP BY.
+ * The {@link AggregationEngine} hands the longest supported leading sequence of transformations
+ * to the backend and applies the remaining transformations to its result.
+ */
+public interface AggregationPushdown {
+
+  /**
+   * Determines how many of the leading transformations the backend can execute.
+   * @param transformations all transformations of $apply, in the order they are applied
+   * @return the number of leading transformations the backend executes; <code>0</code> if none
+   */
+  int getSupportedCount(List<ApplyItem> transformations);
+
+  /**
+   * Executes the given transformations in the backend.
+   * @param transformations the leading transformations, as many as reported by {@link #getSupportedCount(List)}
+   * @return the resulting entities, in the same structure as created by the {@link AggregationEngine}
+   * @throws ODataApplicationException if the backend fails
+   */
+  Iterator<Entity> execute(List<ApplyItem> transformations) throws ODataApplicationException;
+}
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.aggregation;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Linked;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * <p>Evaluates an expression on one entity; the results are the Java representations of the values,
+ * with <code>null</code> for the null value.</p>
+ * <p>Supported are property paths (including single-valued navigation), primitive literals,
+ * the logical, comparison, and arithmetic operators, and the string methods.
+ * Comparisons with the null value follow the rules for $filter, and, or, and not use
+ * three-valued logic.</p>
+ */
+class EntityExpressionVisitor implements ExpressionVisitor<Object> {
+
+  private final Entity entity;
+
+  public EntityExpressionVisitor(final Entity entity) {
+    this.entity = entity;
+  }
+
+  @Override
+  public Object visitBinaryOperator(final BinaryOperatorKind operator, final Object left, final Object right)
+      throws ODataApplicationException {
+    switch (operator) {
+    case AND:
+      return Boolean.FALSE.equals(left) || Boolean.FALSE.equals(right) ? Boolean.FALSE :
+          left == null || right == null ? null : Boolean.TRUE;
+    case OR:
+      return Boolean.TRUE.equals(left) || Boolean.TRUE.equals(right) ? Boolean.TRUE :
+          left == null || right == null ? null : Boolean.FALSE;
+    case EQ:
+      return left == null || right == null ? left == right : compare(left, right) == 0;
+    case NE:
+      return left == null || right == null ? left != right : compare(left, right) != 0;
+    case GT:
+      return left != null && right != null && compare(left, right) > 0;
+    case GE:
+      return left != null && right != null && compare(left, right) >= 0;
+    case LT:
+      return left != null && right != null && compare(left, right) < 0;
+    case LE:
+      return left != null && right != null && compare(left, right) <= 0;
+    case ADD:
+    case SUB:
+    case MUL:
+    case DIV:
+    case MOD:
+      return left == null || right == null ? null : calculate(operator, left, right);
+    default:
+      throw AggregationEngine.notImplemented(operator.toString());
+    }
+  }
+
+  @Override
+  public Object visitUnaryOperator(final UnaryOperatorKind operator, final Object operand)
+      throws ODataApplicationException {
+    if (operand == null) {
+      return null;
+    } else if (operator == UnaryOperatorKind.NOT && operand instanceof Boolean) {
+      return !((Boolean) operand);
+    } else if (operator == UnaryOperatorKind.MINUS && operand instanceof Number) {
+      return isFloatingPoint(operand) ? -((Number) operand).doubleValue() : toBigDecimal(operand).negate();
+    }
+    throw AggregationEngine.notImplemented(operator + " " + operand);
+  }
+
+  @Override
+  public Object visitMethodCall(final MethodKind methodCall, final List<Object> parameters)
+      throws ODataApplicationException {
+    for (final Object parameter : parameters) {
+      if (parameter == null) {
+        return null;
+      } else if (!(parameter instanceof String || parameter instanceof Number)) {
+        throw AggregationEngine.notImplemented(methodCall.toString());
+      }
+    }
+    switch (methodCall) {
+    case CONTAINS:
+      return getString(parameters, 0).contains(getString(parameters, 1));
+    case STARTSWITH:
+      return getString(parameters, 0).startsWith(getString(parameters, 1));
+    case ENDSWITH:
+      return getString(parameters, 0).endsWith(getString(parameters, 1));
+    case LENGTH:
+      return getString(parameters, 0).length();
+    case INDEXOF:
+      return getString(parameters, 0).indexOf(getString(parameters, 1));
+    case SUBSTRING:
+      final String value = getString(parameters, 0);
+      final int start = Math.min(Math.max(getInt(parameters, 1), 0), value.length());
+      return parameters.size() > 2 ?
+          value.substring(start, Math.min(start + Math.max(getInt(parameters, 2), 0), value.length())) :
+          value.substring(start);
+    case TOLOWER:
+      return getString(parameters, 0).toLowerCase(Locale.ROOT);
+    case TOUPPER:
+      return getString(parameters, 0).toUpperCase(Locale.ROOT);
+    case TRIM:
+      return getString(parameters, 0).trim();
+    case CONCAT:
+      return getString(parameters, 0) + getString(parameters, 1);
+    default:
+      throw AggregationEngine.notImplemented(methodCall.toString());
+    }
+  }
+
+  @Override
+  public Object visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+      final Expression expression) throws ODataApplicationException {
+    throw AggregationEngine.notImplemented(lambdaFunction);
+  }
+
+  @Override
+  public Object visitLiteral(final Literal literal) throws ODataApplicationException {
+    final EdmType type = literal.getType();
+    if (type == null && "null".equals(literal.getText())) {
+      return null;
+    } else if (type instanceof EdmPrimitiveType) {
+      final EdmPrimitiveType primitiveType = (EdmPrimitiveType) type;
+      try {
+        return primitiveType.valueOfString(primitiveType.fromUriLiteral(literal.getText()),
+            null, null, Constants.DEFAULT_PRECISION, Constants.DEFAULT_SCALE, null, primitiveType.getDefaultType());
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new ODataApplicationException("Illegal literal '" + literal.getText() + "'.",
+            HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+      }
+    }
+    throw AggregationEngine.notImplemented(literal.getText());
+  }
+
+  @Override
+  public Object visitMember(final Member member) throws ODataApplicationException {
+    if (member.getStartTypeFilter() != null) {
+      throw AggregationEngine.notImplemented(member.toString());
+    }
+    return getValue(entity, member.getResourcePath().getUriResourceParts());
+  }
+
+  @Override
+  public Object visitAlias(final String aliasName) throws ODataApplicationException {
+    throw AggregationEngine.notImplemented(aliasName);
+  }
+
+  @Override
+  public Object visitTypeLiteral(final EdmType type) throws ODataApplicationException {
+    throw AggregationEngine.notImplemented(type.getName());
+  }
+
+  @Override
+  public Object visitLambdaReference(final String variableName) throws ODataApplicationException {
+    throw AggregationEngine.notImplemented(variableName);
+  }
+
+  @Override
+  public Object visitEnum(final EdmEnumType type, final List<String> enumValues) throws ODataApplicationException {
+    throw AggregationEngine.notImplemented(type.getName());
+  }
+
+  /**
+   * Gets the value at the end of a path of single-valued properties and navigation properties.
+   * @return the value in its Java representation, or <code>null</code> if a part of the path is not present
+   */
+  static Object getValue(final Entity entity, final List<UriResource> path) throws ODataApplicationException {
+    Linked current = entity;
+    for (final UriResource part : path) {
+      if (current == null) {
+        return null;
+      }
+      if (part instanceof UriResourceNavigation && !((UriResourceNavigation) part).isCollection()) {
+        final Link link = current.getNavigationLink(part.getSegmentValue());
+        current = link == null ? null : link.getInlineEntity();
+      } else if (part instanceof UriResourceProperty && !((UriResourceProperty) part).isCollection()) {
+        final Property property = current instanceof Entity ?
+            ((Entity) current).getProperty(part.getSegmentValue()) :
+            getProperty(((ComplexValue) current).getValue(), part.getSegmentValue());
+        if (property == null || property.isNull()) {
+          return null;
+        } else if (property.isComplex()) {
+          current = property.asComplex();
+        } else {
+          return property.getValue();
+        }
+      } else {
+        throw AggregationEngine.notImplemented(part.toString());
+      }
+    }
+    return null;
+  }
+
+  static Property getProperty(final List<Property> properties, final String name) {
+    for (final Property property : properties) {
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    return null;
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private static int compare(final Object left, final Object right) throws ODataApplicationException {
+    if (left instanceof Number && right instanceof Number) {
+      return isFloatingPoint(left) || isFloatingPoint(right) ?
+          Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue()) :
+          toBigDecimal(left).compareTo(toBigDecimal(right));
+    } else if ((left instanceof Calendar || left instanceof Date)
+        && (right instanceof Calendar || right instanceof Date)) {
+      final long leftMillis = left instanceof Calendar ? ((Calendar) left).getTimeInMillis() : ((Date) left).getTime();
+      final long rightMillis = right instanceof Calendar ?
+          ((Calendar) right).getTimeInMillis() :
+          ((Date) right).getTime();
+      return leftMillis < rightMillis ? -1 : leftMillis == rightMillis ? 0 : 1;
+    } else if (left instanceof Comparable && left.getClass().equals(right.getClass())) {
+      return ((Comparable) left).compareTo(right);
+    } else if (left instanceof byte[] || right instanceof byte[]) {
+      throw AggregationEngine.notImplemented("comparison of binary values");
+    }
+    throw AggregationEngine.notImplemented("comparison of " + left + " and " + right);
+  }
+
+  private static Object calculate(final BinaryOperatorKind operator, final Object left, final Object right)
+      throws ODataApplicationException {
+    if (!(left instanceof Number && right instanceof Number)) {
+      throw AggregationEngine.notImplemented(left + " " + operator + " " + right);
+    }
+    if (isFloatingPoint(left) || isFloatingPoint(right)) {
+      final double leftValue = ((Number) left).doubleValue();
+      final double rightValue = ((Number) right).doubleValue();
+      switch (operator) {
+      case ADD:
+        return leftValue + rightValue;
+      case SUB:
+        return leftValue - rightValue;
+      case MUL:
+        return leftValue * rightValue;
+      case DIV:
+        return leftValue / rightValue;
+      default:
+        return leftValue % rightValue;
+      }
+    }
+    final BigDecimal leftValue = toBigDecimal(left);
+    final BigDecimal rightValue = toBigDecimal(right);
+    if ((operator == BinaryOperatorKind.DIV || operator == BinaryOperatorKind.MOD)
+        && rightValue.signum() == 0) {
+      throw new ODataApplicationException("Division by zero.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+    switch (operator) {
+    case ADD:
+      return leftValue.add(rightValue);
+    case SUB:
+      return leftValue.subtract(rightValue);
+    case MUL:
+      return leftValue.multiply(rightValue);
+    case DIV:
+      return left instanceof BigDecimal || right instanceof BigDecimal ?
+          leftValue.divide(rightValue, MathContext.DECIMAL128) :
+          leftValue.divideToIntegralValue(rightValue);
+    default:
+      return leftValue.remainder(rightValue);
+    }
+  }
+
+  private static boolean isFloatingPoint(final Object value) {
+    return value instanceof Double || value instanceof Float;
+  }
+
+  private static BigDecimal toBigDecimal(final Object value) {
+    return value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+  }
+
+  private static String getString(final List<Object> parameters, final int index) throws ODataApplicationException {
+    final Object value = parameters.get(index);
+    if (value instanceof String) {
+      return (String) value;
+    }
+    throw AggregationEngine.notImplemented(String.valueOf(value));
+  }
+
+  private static int getInt(final List<Object> parameters, final int index) throws ODataApplicationException {
+    final Object value = parameters.get(index);
+    if (value instanceof Number) {
+      return ((Number) value).intValue();
+    }
+    throw AggregationEngine.notImplemented(String.valueOf(value));
+  }
+}
@@ -0,0 +1,366 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.format.PreferenceName;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.async.AsyncOptions;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.apache.olingo.server.core.prefer.PreferencesImpl;
+
+/**
+ * Asynchronous processing of requests with a bounded pool of worker threads.
+ * Request bodies and results are kept in memory or, if large, in temporary files; results are kept
+ * until they are retrieved through the status monitor, the request is cancelled, or they expire.
+ */
+public class AsyncSupportImpl implements AsyncSupport {
+
+  private static final String STATUS_MONITOR_PATH = "/" + STATUS_MONITOR_SEGMENT + "/";
+  private static final String CONTENT_TRANSFER_ENCODING = "Content-Transfer-Encoding";
+  private static final String HEADER_CHARSET_NAME = "ISO-8859-1";
+  private static final String CRLF = "\r\n";
+  private static final long SWEEP_INTERVAL_MILLIS = 1000;
+  private static final AtomicInteger POOL_COUNTER = new AtomicInteger();
+
+  private final AsyncOptions options;
+  private final ThreadPoolExecutor executor;
+  private final ConcurrentMap<String, AsyncRequest> requests = new ConcurrentHashMap<String, AsyncRequest>();
+  private final AtomicLong nextSweep = new AtomicLong();
+  /** Bounds the requests running or waiting, so that no request body is read without a place in the queue. */
+  private final Semaphore permits;
+
+  public AsyncSupportImpl(final AsyncOptions options) {
+    this.options = options;
+    permits = new Semaphore(options.getThreads() + options.getQueueCapacity());
+    final int pool = POOL_COUNTER.incrementAndGet();
+    executor = new ThreadPoolExecutor(options.getThreads(), options.getThreads(), 60, TimeUnit.SECONDS,
+        new ArrayBlockingQueue<Runnable>(options.getQueueCapacity()),
+        new ThreadFactory() {
+          private final AtomicInteger counter = new AtomicInteger();
+
+          @Override
+          public Thread newThread(final Runnable runnable) {
+            final Thread thread = new Thread(runnable, "olingo-async-" + pool + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+          }
+        });
+    executor.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  public boolean isAsyncRequested(final ODataRequest request) {
+    final List<String> preferHeaders = request.getHeaders(HttpHeader.PREFER);
+    return preferHeaders != null && new PreferencesImpl(preferHeaders).hasRespondAsync();
+  }
+
+  @Override
+  public boolean isStatusMonitor(final ODataRequest request) {
+    final String path = request.getRawODataPath();
+    return path != null && path.startsWith(STATUS_MONITOR_PATH);
+  }
+
+  @Override
+  public ODataResponse submit(final ODataRequest request, final Task task) throws IOException {
+    sweep();
+    if (!permits.tryAcquire()) {
+      return null;
+    }
+    ResultBuffer requestBody = null;
+    if (request.getBody() != null) {
+      requestBody = new ResultBuffer(options.getMemoryThreshold(), options.getSpillDirectory());
+      try {
+        copy(request.getBody(), requestBody);
+        requestBody.close();
+        request.setBody(requestBody.openStream());
+      } catch (final IOException e) {
+        requestBody.delete();
+        permits.release();
+        throw e;
+      }
+    }
+    final String id = UUID.randomUUID().toString();
+    final String location = request.getRawBaseUri() + STATUS_MONITOR_PATH + id;
+    final AsyncRequest asyncRequest = new AsyncRequest(location, task, request, requestBody);
+    requests.put(id, asyncRequest);
+    try {
+      asyncRequest.future = executor.submit(asyncRequest);
+    } catch (final RejectedExecutionException e) {
+      // Only after shutdown; the body already read stays with the request for synchronous processing.
+      requests.remove(id);
+      permits.release();
+      return null;
+    }
+
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.ACCEPTED.getStatusCode());
+    response.setHeader(HttpHeader.LOCATION, location);
+    response.setHeader(HttpHeader.PREFERENCE_APPLIED, PreferenceName.RESPOND_ASYNC.getName());
+    return response;
+  }
+
+  @Override
+  public ODataResponse handleStatusMonitor(final ODataRequest request) {
+    sweep();
+    final String id = request.getRawODataPath().substring(STATUS_MONITOR_PATH.length());
+    final AsyncRequest asyncRequest = requests.get(id);
+    ODataResponse response = new ODataResponse();
+    if (asyncRequest == null) {
+      response.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
+    } else if (request.getMethod() == HttpMethod.DELETE) {
+      if (requests.remove(id, asyncRequest)) {
+        asyncRequest.cancel();
+      }
+      response.setStatusCode(HttpStatusCode.NO_CONTENT.getStatusCode());
+    } else if (request.getMethod() != HttpMethod.GET) {
+      response.setStatusCode(HttpStatusCode.METHOD_NOT_ALLOWED.getStatusCode());
+    } else if (!asyncRequest.isCompleted()) {
+      response.setStatusCode(HttpStatusCode.ACCEPTED.getStatusCode());
+      response.setHeader(HttpHeader.LOCATION, asyncRequest.location);
+      response.setHeader(HttpHeader.RETRY_AFTER, "1");
+    } else if (requests.remove(id, asyncRequest)) {
+      // A result can be retrieved only once; its storage is released when the content has been read.
+      try {
+        response.setContent(asyncRequest.openResult());
+        response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+        response.setHeader(HttpHeader.CONTENT_TYPE, ContentType.APPLICATION_HTTP.toContentTypeString());
+        response.setHeader(CONTENT_TRANSFER_ENCODING, "binary");
+      } catch (final IOException e) {
+        asyncRequest.release();
+        response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+      }
+    } else {
+      response.setStatusCode(HttpStatusCode.NOT_FOUND.getStatusCode());
+    }
+    return response;
+  }
+
+  @Override
+  public int getRequestCount() {
+    return requests.size();
+  }
+
+  @Override
+  public void shutdown() {
+    executor.shutdownNow();
+    for (final String id : new ArrayList<String>(requests.keySet())) {
+      final AsyncRequest asyncRequest = requests.remove(id);
+      if (asyncRequest != null) {
+        asyncRequest.cancel();
+      }
+    }
+  }
+
+  /** Removes expired results; runs at most once per sweep interval. */
+  private void sweep() {
+    final long now = System.currentTimeMillis();
+    final long next = nextSweep.get();
+    if (now < next || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL_MILLIS)) {
+      return;
+    }
+    for (final Map.Entry<String, AsyncRequest> entry : requests.entrySet()) {
+      final AsyncRequest asyncRequest = entry.getValue();
+      if (asyncRequest.isCompleted()
+          && now - asyncRequest.completedMillis > options.getResultExpiryMillis()
+          && requests.remove(entry.getKey(), asyncRequest)) {
+        asyncRequest.release();
+      }
+    }
+  }
+
+  /** A request processed asynchronously and its result. */
+  private class AsyncRequest implements Runnable {
+    private final String location;
+    private final Task task;
+    private final ResultBuffer requestBody;
+    private final InputStream requestStream;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private volatile Future<?> future;
+    private volatile boolean completed;
+    private volatile boolean cancelled;
+    private volatile long completedMillis;
+    private byte[] head;
+    private ResultBuffer body;
+
+    AsyncRequest(final String location, final Task task, final ODataRequest request,
+        final ResultBuffer requestBody) {
+      this.location = location;
+      this.task = task;
+      this.requestBody = requestBody;
+      requestStream = request.getBody();
+    }
+
+    @Override
+    public void run() {
+      if (!started.compareAndSet(false, true)) {
+        return;
+      }
+      ResultBuffer buffer = new ResultBuffer(options.getMemoryThreshold(), options.getSpillDirectory());
+      byte[] statusAndHeaders;
+      try {
+        statusAndHeaders = write(task.process(), buffer);
+      } catch (final Exception e) {
+        buffer.delete();
+        buffer = new ResultBuffer(options.getMemoryThreshold(), options.getSpillDirectory());
+        try {
+          statusAndHeaders = write(task.handleException(e), buffer);
+        } catch (final Exception errorException) {
+          buffer.delete();
+          buffer = new ResultBuffer(0, null);
+          statusAndHeaders = serializeHead(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(),
+              new LinkedHashMap<String, List<String>>());
+        }
+      } finally {
+        finish();
+      }
+      synchronized (this) {
+        if (cancelled) {
+          buffer.delete();
+          return;
+        }
+        head = statusAndHeaders;
+        body = buffer;
+      }
+      completedMillis = System.currentTimeMillis();
+      completed = true;
+    }
+
+    boolean isCompleted() {
+      return completed;
+    }
+
+    synchronized InputStream openResult() throws IOException {
+      final ResultBuffer result = body;
+      return new SequenceInputStream(new ByteArrayInputStream(head), result.openStream()) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            result.delete();
+          }
+        }
+      };
+    }
+
+    synchronized void cancel() {
+      cancelled = true;
+      if (started.compareAndSet(false, true)) {
+        // The task will not run, so it will not finish itself.
+        finish();
+      }
+      if (future != null) {
+        future.cancel(true);
+      }
+      release();
+    }
+
+    /** Releases the request body and the place in the queue. */
+    private void finish() {
+      if (requestBody != null) {
+        try {
+          requestStream.close();
+        } catch (final IOException e) {
+          // The buffer is deleted anyway.
+        }
+        requestBody.delete();
+      }
+      permits.release();
+    }
+
+    synchronized void release() {
+      if (body != null) {
+        body.delete();
+        body = null;
+      }
+    }
+  }
+
+  /** Writes the content of the response into the buffer and returns the serialized status line and headers. */
+  private static byte[] write(final ODataResponse response, final ResultBuffer buffer) throws Exception {
+    if (response.getContent() != null) {
+      copy(response.getContent(), buffer);
+    } else if (response.getODataContent() != null) {
+      response.getODataContent().write(Channels.newChannel(buffer));
+    } else if (response.getMediaContent() != null) {
+      response.getMediaContent().transferTo(0, response.getMediaContent().getLength(),
+          Channels.newChannel(buffer));
+    }
+    buffer.close();
+    return serializeHead(response.getStatusCode(), response.getAllHeaders());
+  }
+
+  private static void copy(final InputStream input, final ResultBuffer output) throws IOException {
+    try {
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = input.read(buffer)) > -1) {
+        output.write(buffer, 0, read);
+      }
+    } finally {
+      input.close();
+    }
+  }
+
+  private static byte[] serializeHead(final int statusCode, final Map<String, List<String>> headers) {
+    final HttpStatusCode status = HttpStatusCode.fromStatusCode(statusCode);
+    StringBuilder result = new StringBuilder("HTTP/1.1 ").append(statusCode).append(' ')
+        .append(status == null ? "" : status.getInfo()).append(CRLF);
+    for (final Map.Entry<String, List<String>> entry : headers.entrySet()) {
+      for (final String value : entry.getValue()) {
+        result.append(entry.getKey()).append(": ").append(value).append(CRLF);
+      }
+    }
+    result.append(CRLF);
+    try {
+      return result.toString().getBytes(HEADER_CHARSET_NAME);
+    } catch (final UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
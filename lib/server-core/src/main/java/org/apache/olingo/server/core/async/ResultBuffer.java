@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Output stream keeping its content in memory up to a threshold and in a temporary file beyond it.
+ */
+class ResultBuffer extends OutputStream {
+
+  private final int threshold;
+  private final File directory;
+  private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+  private File file;
+  private OutputStream fileOutput;
+  private long size;
+
+  ResultBuffer(final int threshold, final File directory) {
+    this.threshold = threshold;
+    this.directory = directory;
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    prepare(1).write(b);
+    size++;
+  }
+
+  @Override
+  public void write(final byte[] bytes, final int offset, final int length) throws IOException {
+    prepare(length).write(bytes, offset, length);
+    size += length;
+  }
+
+  private OutputStream prepare(final int length) throws IOException {
+    if (fileOutput != null) {
+      return fileOutput;
+    }
+    if (size + length <= threshold) {
+      return memory;
+    }
+    file = File.createTempFile("olingo-async-", ".tmp", directory);
+    fileOutput = new FileOutputStream(file);
+    memory.writeTo(fileOutput);
+    memory = null;
+    return fileOutput;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (fileOutput != null) {
+      fileOutput.close();
+    }
+  }
+
+  /** Gets the number of bytes written. */
+  long size() {
+    return size;
+  }
+
+  /** Whether the content has been written to a file. */
+  boolean isSpilled() {
+    return file != null;
+  }
+
+  /** Opens a stream to read the content; the buffer must have been closed before. */
+  InputStream openStream() throws IOException {
+    return file == null ?
+        new ByteArrayInputStream(memory.toByteArray()) :
+        new FileInputStream(file);
+  }
+
+  /** Releases the content. */
+  void delete() {
+    try {
+      close();
+    } catch (final IOException e) {
+      // The file is deleted anyway.
+    }
+    if (file != null && !file.delete()) {
+      file.deleteOnExit();
+    }
+    memory = null;
+  }
+}
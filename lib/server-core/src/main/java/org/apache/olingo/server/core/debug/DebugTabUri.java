@@ -92,6 +92,10 @@ public class DebugTabUri implements DebugTab {
       gen.writeStringField("skiptoken", uriInfo.getSkipTokenOption().getValue());
     }
 
+    if (uriInfo.getApplyOption() != null) {
+      gen.writeStringField("apply", uriInfo.getApplyOption().getText());
+    }
+
     appendCommonJsonObjects(gen, uriInfo.getCountOption(), uriInfo.getSkipOption(), uriInfo.getTopOption(),
         uriInfo.getFilterOption(), uriInfo.getOrderByOption(), uriInfo.getSelectOption(), uriInfo.getExpandOption(),
         uriInfo.getSearchOption());
@@ -382,7 +386,8 @@ public class DebugTabUri implements DebugTab {
         || uriInfo.getSkipTokenOption() != null
         || uriInfo.getTopOption() != null
         || uriInfo.getFormatOption() != null
-        || uriInfo.getIdOption() != null) {
+        || uriInfo.getIdOption() != null
+        || uriInfo.getApplyOption() != null) {
       writer.append("<h2>Unstructured System Query Options</h2>\n");
       DebugResponseHelperImpl.appendHtmlTable(writer, getQueryOptionsMap(Arrays.asList(
           uriInfo.getCountOption(),
@@ -390,7 +395,8 @@ public class DebugTabUri implements DebugTab {
           uriInfo.getSkipTokenOption(),
           uriInfo.getTopOption(),
           uriInfo.getFormatOption(),
-          uriInfo.getIdOption())));
+          uriInfo.getIdOption(),
+          uriInfo.getApplyOption())));
     }
 
     if (!uriInfo.getAliases().isEmpty()) {
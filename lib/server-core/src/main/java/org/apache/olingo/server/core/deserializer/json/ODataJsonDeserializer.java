@@ -35,6 +35,7 @@ import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Parameter;
+import org.apache.olingo.commons.api.data.PrimitiveArrayList;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.EdmAction;
@@ -54,6 +55,7 @@ import org.apache.olingo.commons.api.edm.EdmTypeDefinition;
 import org.apache.olingo.commons.api.edm.FullQualifiedName;
 import org.apache.olingo.commons.api.edm.constants.EdmTypeKind;
 import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.core.edm.primitivetype.EdmPrimitiveTypeFactory;
 import org.apache.olingo.server.api.ServiceMetadata;
 import org.apache.olingo.server.api.deserializer.DeserializerException;
 import org.apache.olingo.server.api.deserializer.DeserializerException.MessageKeys;
@@ -485,6 +487,11 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     case PRIMITIVE:
     case DEFINITION:
     case ENUM:
+      final Class<?> unboxedType = getUnboxedType(type, mapping);
+      if (unboxedType != null && canReadUnboxed(unboxedType, jsonNode)) {
+        readUnboxedValue(unboxedType, jsonNode, property);
+        break;
+      }
       Object value = readPrimitiveValue(name, (EdmPrimitiveType) type,
           isNullable, maxLength, precision, scale, isUnicode, mapping, jsonNode);
       property.setValue(type.getKind() == EdmTypeKind.ENUM ? ValueType.ENUM : ValueType.PRIMITIVE,
@@ -528,6 +535,23 @@ public class ODataJsonDeserializer implements ODataDeserializer {
       throw new DeserializerException("Value for property: " + name + " must be an array but is not.",
           DeserializerException.MessageKeys.INVALID_JSON_TYPE_FOR_PROPERTY, name);
     }
+    final Class<?> unboxedType = getUnboxedType(type, mapping);
+    if (unboxedType != null && canReadUnboxed(unboxedType, jsonNode)) {
+      PrimitiveArrayList values = new PrimitiveArrayList(unboxedType, jsonNode.size());
+      for (final JsonNode element : jsonNode) {
+        if (unboxedType == int.class) {
+          values.addInt(element.intValue());
+        } else if (unboxedType == long.class) {
+          values.addLong(element.longValue());
+        } else if (unboxedType == double.class) {
+          values.addDouble(element.doubleValue());
+        } else {
+          values.addBoolean(element.booleanValue());
+        }
+      }
+      property.setValue(ValueType.COLLECTION_PRIMITIVE, values);
+      return;
+    }
     List<Object> valueArray = new ArrayList<Object>();
     Iterator<JsonNode> iterator = jsonNode.iterator();
     switch (type.getKind()) {
@@ -613,6 +637,54 @@ public class ODataJsonDeserializer implements ODataDeserializer {
     }
   }
 
+  /**
+   * Returns the Java primitive type to hold values of the given type unboxed,
+   * or <code>null</code> if they have to be converted through their string representation.
+   */
+  private Class<?> getUnboxedType(final EdmType type, final EdmMapping mapping) {
+    if (mapping != null && mapping.getMappedJavaClass() != null) {
+      return null;
+    }
+    return type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32) ? int.class
+        : type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int64) ? long.class
+        : type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Double) ? double.class
+        : type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean) ? boolean.class
+        : null;
+  }
+
+  /**
+   * Checks whether the node (or, for an array, each of its elements) holds a value that is valid
+   * for the given unboxed type without further checks.
+   * All other values, including <code>null</code>, go the conversion route which also reports errors.
+   */
+  private boolean canReadUnboxed(final Class<?> unboxedType, final JsonNode jsonNode) {
+    if (jsonNode.isArray()) {
+      for (final JsonNode element : jsonNode) {
+        if (!canReadUnboxed(unboxedType, element)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return unboxedType == int.class ? jsonNode.isIntegralNumber() && jsonNode.canConvertToInt()
+        : unboxedType == long.class ? !isIEEE754Compatible && jsonNode.isIntegralNumber()
+            && jsonNode.canConvertToLong()
+        : unboxedType == double.class ? jsonNode.isDouble() || jsonNode.isInt()
+        : jsonNode.isBoolean();
+  }
+
+  private void readUnboxedValue(final Class<?> unboxedType, final JsonNode jsonNode, final Property property) {
+    if (unboxedType == int.class) {
+      property.setIntValue(jsonNode.intValue());
+    } else if (unboxedType == long.class) {
+      property.setLongValue(jsonNode.longValue());
+    } else if (unboxedType == double.class) {
+      property.setDoubleValue(jsonNode.doubleValue());
+    } else {
+      property.setBooleanValue(jsonNode.booleanValue());
+    }
+  }
+
   private boolean isValidNull(final String name, final boolean isNullable, final JsonNode jsonNode)
       throws DeserializerException {
     if (jsonNode.isNull()) {
@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.etag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+
+import org.apache.olingo.server.api.ODataResponse;
+
+/**
+ * Computes a weak ETag from the serialized body of a response.
+ * The ETag header has to be sent before the body, so the body is buffered while it is hashed
+ * and the buffered copy replaces the original content. Only bodies up to a maximum size are buffered;
+ * streamed content (see {@link ODataResponse#getODataContent()}) is never buffered.
+ */
+public final class ContentETag {
+
+  /** Default maximum size in bytes of bodies for which an ETag is computed. */
+  public static final int DEFAULT_MAX_SIZE = 1 << 20;
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private ContentETag() {}
+
+  /**
+   * Computes the weak ETag of the response body if it does not exceed {@link #DEFAULT_MAX_SIZE}.
+   * @param response the response; its content is replaced by an equivalent stream
+   * @return the weak ETag, or <code>null</code> if the response has no body, is streamed, or is too large
+   * @throws IOException if the body cannot be read
+   * @see #compute(ODataResponse, int)
+   */
+  public static String compute(final ODataResponse response) throws IOException {
+    return compute(response, DEFAULT_MAX_SIZE);
+  }
+
+  /**
+   * Computes the weak ETag of the response body if it does not exceed the given size.
+   * At most <code>maxSize</code> + 1 bytes are read; if the body is larger, the bytes read are
+   * put in front of the rest of the original content.
+   * @param response the response; its content is replaced by an equivalent stream
+   * @param maxSize maximum size in bytes of bodies for which an ETag is computed
+   * @return the weak ETag, or <code>null</code> if the response has no body, is streamed, or is too large
+   * @throws IOException if the body cannot be read
+   */
+  public static String compute(final ODataResponse response, final int maxSize) throws IOException {
+    final InputStream content = response.getContent();
+    if (content == null) {
+      return null;
+    }
+    final ByteArrayOutputStream buffer = new ByteArrayOutputStream(Math.min(BUFFER_SIZE, maxSize + 1));
+    final byte[] bytes = new byte[BUFFER_SIZE];
+    int count;
+    while (buffer.size() <= maxSize
+        && (count = content.read(bytes, 0, Math.min(bytes.length, maxSize + 1 - buffer.size()))) != -1) {
+      buffer.write(bytes, 0, count);
+    }
+    if (buffer.size() > maxSize) {
+      response.setContent(new SequenceInputStream(new ByteArrayInputStream(buffer.toByteArray()), content));
+      return null;
+    }
+    content.close();
+    final byte[] body = buffer.toByteArray();
+    response.setContent(new ByteArrayInputStream(body));
+    return "W/\"" + ContentHash.compute(body) + "\"";
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.etag;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.codec.binary.Hex;
+
+/**
+ * SHA-256 hashes of content, as used for ETags and fingerprints.
+ */
+public final class ContentHash {
+
+  private static final String ALGORITHM = "SHA-256";
+  private static final int BUFFER_SIZE = 8192;
+
+  private ContentHash() {}
+
+  /**
+   * Computes the hash of content.
+   * @param content the content
+   * @return the hash as hexadecimal string
+   */
+  public static String compute(final byte[] content) {
+    return Hex.encodeHexString(createDigest().digest(content));
+  }
+
+  /**
+   * Computes the hash of the content of a stream.
+   * @param content the content; the stream is read completely and closed
+   * @return the hash as hexadecimal string
+   * @throws IOException if the stream cannot be read
+   */
+  public static String compute(final InputStream content) throws IOException {
+    final MessageDigest digest = createDigest();
+    try {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      int count;
+      while ((count = content.read(buffer)) != -1) {
+        digest.update(buffer, 0, count);
+      }
+    } finally {
+      content.close();
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(ALGORITHM);
+    } catch (final NoSuchAlgorithmException e) {
+      // Every Java platform supports SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -45,6 +45,14 @@ public class PreconditionsValidator {
               customETagSupport.hasETag(affectedEntitySetOrSingleton));
   }
 
+  /**
+   * Gets the entity set or singleton of the single entity addressed by the URI.
+   * @return the entity set or singleton, or <code>null</code> if the URI does not address a single entity
+   */
+  public EdmBindingTarget getAffectedEntitySetOrSingleton() {
+    return affectedEntitySetOrSingleton;
+  }
+
   private EdmBindingTarget extractInformation(final UriInfo uriInfo) throws PreconditionException {
     EdmBindingTarget lastFoundEntitySetOrSingleton = null;
     int counter = 0;
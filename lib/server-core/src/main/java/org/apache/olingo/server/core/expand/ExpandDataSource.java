@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.expand;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+
+/**
+ * Backend access for the {@link ExpandPlanner}. Related entities are always requested for all parents
+ * of one level at once, so a backend can load them with a single query, e.g., with
+ * <code>WHERE parent_key IN (...)</code>.
+ */
+public interface ExpandDataSource {
+
+  /**
+   * Loads the entities related to the given parents through a navigation property.
+   * <p>
+   * The nested system query options of the expand item ($filter, $search, $orderby, $skip, $top and $count)
+   * have to be applied to the related entities of every parent separately. If $count is requested,
+   * the count has to be set at the returned entity collections.
+   * @param parentTarget the entity set or singleton of the parents, or <code>null</code> if the navigation
+   * that led to the parents has no navigation property binding
+   * @param navigationProperty the navigation property to be expanded
+   * @param parents all parents on this level, each key exactly once
+   * @param expandItem the expand item with the nested system query options
+   * @return the related entities by parent; parents without related entities may be omitted.
+   * Entities are looked up as map keys, so an {@link java.util.IdentityHashMap} is the natural choice.
+   * @throws ODataApplicationException if the backend fails
+   */
+  Map<Entity, EntityCollection> loadRelated(EdmBindingTarget parentTarget, EdmNavigationProperty navigationProperty,
+      List<Entity> parents, ExpandItem expandItem) throws ODataApplicationException;
+}
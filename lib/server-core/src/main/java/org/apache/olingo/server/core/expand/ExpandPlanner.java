@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.expand;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.LevelsExpandOption;
+
+/**
+ * Resolves $expand for a whole result instead of entity by entity.
+ * <p>
+ * The planner walks the expand tree level by level. For every expanded navigation property on a level,
+ * the related entities of all parents on that level are loaded with one call to the {@link ExpandDataSource}
+ * and stitched into the parents as inline navigation links. The number of backend calls depends on the
+ * shape of $expand, not on the number of entities.
+ * <p>
+ * $levels is resolved by repeating the expand item on the related entities; <code>$levels=max</code> is
+ * limited to the maximum number of levels of the planner.
+ */
+public class ExpandPlanner {
+
+  public static final int DEFAULT_MAX_LEVELS = 10;
+
+  private final ExpandDataSource dataSource;
+  private final int maxLevels;
+
+  public ExpandPlanner(final ExpandDataSource dataSource) {
+    this(dataSource, DEFAULT_MAX_LEVELS);
+  }
+
+  public ExpandPlanner(final ExpandDataSource dataSource, final int maxLevels) {
+    this.dataSource = dataSource;
+    this.maxLevels = maxLevels;
+  }
+
+  public void expand(final EdmBindingTarget bindingTarget, final Entity entity, final ExpandOption expandOption)
+      throws ODataApplicationException {
+    expand(bindingTarget, Collections.singletonList(entity), expandOption);
+  }
+
+  public void expand(final EdmBindingTarget bindingTarget, final EntityCollection entityCollection,
+      final ExpandOption expandOption) throws ODataApplicationException {
+    expand(bindingTarget, entityCollection.getEntities(), expandOption);
+  }
+
+  /**
+   * Expands the navigation properties of the given entities as requested.
+   * @param bindingTarget the entity set or singleton of the entities
+   * @param entities the entities of the result
+   * @param expandOption the $expand system query option; nothing is done if it is <code>null</code>
+   * @throws ODataApplicationException if the data source fails or the expand item is not supported
+   */
+  public void expand(final EdmBindingTarget bindingTarget, final List<Entity> entities,
+      final ExpandOption expandOption) throws ODataApplicationException {
+    if (expandOption == null || entities.isEmpty()) {
+      return;
+    }
+    List<Fetch> fetches = new ArrayList<Fetch>();
+    plan(fetches, bindingTarget, bindingTarget.getEntityType(), entities, steps(expandOption, null));
+    while (!fetches.isEmpty()) {
+      final List<Fetch> next = new ArrayList<Fetch>();
+      for (final Fetch fetch : fetches) {
+        execute(fetch, next);
+      }
+      fetches = next;
+    }
+  }
+
+  private void execute(final Fetch fetch, final List<Fetch> next) throws ODataApplicationException {
+    final Map<Entity, EntityCollection> related = dataSource.loadRelated(fetch.target, fetch.navigationProperty,
+        fetch.level.parents, fetch.step.item);
+    final List<Entity> children = new ArrayList<Entity>();
+    for (final Entity parent : fetch.level.entities) {
+      EntityCollection entities = related == null ? null : related.get(fetch.level.parentOf.get(parent));
+      if (entities == null) {
+        entities = new EntityCollection();
+      }
+      stitch(parent, fetch.navigationProperty, entities);
+      children.addAll(entities.getEntities());
+    }
+    if (!children.isEmpty()) {
+      final EdmBindingTarget childTarget = fetch.target == null ? null
+          : fetch.target.getRelatedBindingTarget(fetch.navigationProperty.getName());
+      plan(next, childTarget, fetch.navigationProperty.getType(), children,
+          steps(fetch.step.item.getExpandOption(), fetch.step.levels > 1 ? fetch.step : null));
+    }
+  }
+
+  private void plan(final List<Fetch> fetches, final EdmBindingTarget target, final EdmEntityType entityType,
+      final List<Entity> entities, final List<Step> steps) throws ODataApplicationException {
+    if (steps.isEmpty()) {
+      return;
+    }
+    final Level level = new Level(entityType, entities);
+    for (final Step step : steps) {
+      for (final EdmNavigationProperty navigationProperty : getNavigationProperties(entityType, step.item)) {
+        fetches.add(new Fetch(target, navigationProperty, level, step));
+      }
+    }
+  }
+
+  private List<Step> steps(final ExpandOption expandOption, final Step repeated) {
+    final List<Step> steps = new ArrayList<Step>();
+    if (expandOption != null) {
+      for (final ExpandItem item : expandOption.getExpandItems()) {
+        steps.add(new Step(item, getLevels(item)));
+      }
+    }
+    if (repeated != null) {
+      steps.add(new Step(repeated.item, repeated.levels - 1));
+    }
+    return steps;
+  }
+
+  private int getLevels(final ExpandItem item) {
+    final LevelsExpandOption levels = item.getLevelsOption();
+    if (levels == null) {
+      return 1;
+    }
+    return levels.isMax() ? maxLevels : levels.getValue();
+  }
+
+  private List<EdmNavigationProperty> getNavigationProperties(final EdmEntityType entityType,
+      final ExpandItem item) throws ODataApplicationException {
+    final List<EdmNavigationProperty> navigationProperties = new ArrayList<EdmNavigationProperty>();
+    if (item.isStar()) {
+      for (final String name : entityType.getNavigationPropertyNames()) {
+        navigationProperties.add(entityType.getNavigationProperty(name));
+      }
+    } else {
+      final List<UriResource> parts = item.getResourcePath() == null ? null
+          : item.getResourcePath().getUriResourceParts();
+      if (parts == null || parts.size() != 1 || !(parts.get(0) instanceof UriResourceNavigation)) {
+        throw new ODataApplicationException("Only navigation properties of the entity itself can be expanded.",
+            HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+      }
+      navigationProperties.add(((UriResourceNavigation) parts.get(0)).getProperty());
+    }
+    return navigationProperties;
+  }
+
+  private void stitch(final Entity parent, final EdmNavigationProperty navigationProperty,
+      final EntityCollection related) {
+    final String name = navigationProperty.getName();
+    Link link = parent.getNavigationLink(name);
+    if (link == null) {
+      link = new Link();
+      link.setRel(Constants.NS_NAVIGATION_LINK_REL + name);
+      link.setType(navigationProperty.isCollection() ?
+          Constants.ENTITY_SET_NAVIGATION_LINK_TYPE : Constants.ENTITY_NAVIGATION_LINK_TYPE);
+      link.setTitle(name);
+      if (parent.getId() != null) {
+        link.setHref(parent.getId().toASCIIString() + "/" + name);
+      }
+      parent.getNavigationLinks().add(link);
+    }
+    if (navigationProperty.isCollection()) {
+      link.setInlineEntitySet(related);
+    } else {
+      link.setInlineEntity(related.getEntities().isEmpty() ? null : related.getEntities().get(0));
+    }
+  }
+
+  /** An expand item together with the number of levels it still has to be applied. */
+  private static class Step {
+    private final ExpandItem item;
+    private final int levels;
+
+    private Step(final ExpandItem item, final int levels) {
+      this.item = item;
+      this.levels = levels;
+    }
+  }
+
+  /**
+   * The entities of one level. Entities with the same key are loaded only once, with the first of them
+   * as parent for the data source.
+   */
+  private static class Level {
+    private final List<Entity> entities = new ArrayList<Entity>();
+    private final List<Entity> parents = new ArrayList<Entity>();
+    private final Map<Entity, Entity> parentOf = new IdentityHashMap<Entity, Entity>();
+
+    private Level(final EdmEntityType entityType, final List<Entity> all) {
+      final Map<List<Object>, Entity> byKey = new HashMap<List<Object>, Entity>();
+      for (final Entity entity : all) {
+        if (parentOf.containsKey(entity)) {
+          continue;
+        }
+        final List<Object> key = getKey(entityType, entity);
+        Entity parent = key == null ? null : byKey.get(key);
+        if (parent == null) {
+          parent = entity;
+          parents.add(entity);
+          if (key != null) {
+            byKey.put(key, entity);
+          }
+        }
+        entities.add(entity);
+        parentOf.put(entity, parent);
+      }
+    }
+
+    private static List<Object> getKey(final EdmEntityType entityType, final Entity entity) {
+      final List<Object> key = new ArrayList<Object>();
+      for (final EdmKeyPropertyRef keyPropertyRef : entityType.getKeyPropertyRefs()) {
+        final Property property = entity.getProperty(keyPropertyRef.getName());
+        if (property == null || property.getValue() == null) {
+          return null;
+        }
+        key.add(property.getValue());
+      }
+      return key;
+    }
+  }
+
+  /** One call to the data source: a navigation property for all parents of a level. */
+  private static class Fetch {
+    private final EdmBindingTarget target;
+    private final EdmNavigationProperty navigationProperty;
+    private final Level level;
+    private final Step step;
+
+    private Fetch(final EdmBindingTarget target, final EdmNavigationProperty navigationProperty,
+        final Level level, final Step step) {
+      this.target = target;
+      this.navigationProperty = navigationProperty;
+      this.level = level;
+      this.step = step;
+    }
+  }
+}
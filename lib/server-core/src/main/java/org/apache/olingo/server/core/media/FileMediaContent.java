@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.media;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.olingo.server.api.MediaContent;
+
+/**
+ * Media content stored in a file, transferred with {@link FileChannel#transferTo(long, long, WritableByteChannel)}
+ * so that the platform can copy the bytes without passing them through the Java heap.
+ */
+public class FileMediaContent implements MediaContent {
+
+  private final File file;
+
+  public FileMediaContent(final File file) {
+    if (file == null) {
+      throw new IllegalArgumentException("The file must not be null.");
+    }
+    this.file = file;
+  }
+
+  @Override
+  public long getLength() {
+    return file.length();
+  }
+
+  @Override
+  public long transferTo(final long position, final long count, final WritableByteChannel target)
+      throws IOException {
+    final FileInputStream input = new FileInputStream(file);
+    try {
+      final FileChannel channel = input.getChannel();
+      long transferred = 0;
+      while (transferred < count) {
+        // transferTo may transfer fewer bytes than requested; zero bytes means the end of the file.
+        final long bytes = channel.transferTo(position + transferred, count - transferred, target);
+        if (bytes <= 0) {
+          break;
+        }
+        transferred += bytes;
+      }
+      return transferred;
+    } finally {
+      input.close();
+    }
+  }
+
+  @Override
+  public InputStream getContent() throws IOException {
+    return new FileInputStream(file);
+  }
+
+  @Override
+  public File getFile() {
+    return file;
+  }
+}
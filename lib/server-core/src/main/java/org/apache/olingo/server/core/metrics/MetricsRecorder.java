@@ -0,0 +1,185 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+import org.apache.olingo.server.api.metrics.ODataMetrics;
+import org.apache.olingo.server.api.metrics.ODataMetrics.Payload;
+import org.apache.olingo.server.api.metrics.ODataMetrics.Stage;
+
+/**
+ * Records timings and payload sizes for the request processed by the current thread.
+ * The handler makes its registered {@link ODataMetrics} current for the duration of a request
+ * so that code without access to the handler, like content negotiation or serializers, can report to it.
+ * Without a current receiver all methods return immediately.
+ */
+public final class MetricsRecorder {
+
+  private static final ThreadLocal<ODataMetrics> CURRENT = new ThreadLocal<ODataMetrics>();
+
+  private MetricsRecorder() {}
+
+  /**
+   * Makes the given receiver current for this thread.
+   * @param metrics the receiver (may be <code>null</code>)
+   * @return the previously current receiver, to be passed to {@link #leave(ODataMetrics)}
+   */
+  public static ODataMetrics enter(final ODataMetrics metrics) {
+    final ODataMetrics previous = CURRENT.get();
+    if (metrics != null) {
+      CURRENT.set(metrics);
+    }
+    return previous;
+  }
+
+  /**
+   * Restores the receiver that was current before {@link #enter(ODataMetrics)}.
+   * @param previous the value returned by {@link #enter(ODataMetrics)}
+   */
+  public static void leave(final ODataMetrics previous) {
+    if (previous == null) {
+      CURRENT.remove();
+    } else {
+      CURRENT.set(previous);
+    }
+  }
+
+  /** Returns whether a receiver is current for this thread. */
+  public static boolean isActive() {
+    return CURRENT.get() != null;
+  }
+
+  /**
+   * Starts measuring a stage.
+   * @return the start time to be passed to {@link #stop(Stage, long)}, or 0 if no receiver is current
+   */
+  public static long start() {
+    return CURRENT.get() == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Records the time since <code>start</code> for the given stage.
+   * @param stage the stage
+   * @param start the value returned by {@link #start()}
+   */
+  public static void stop(final Stage stage, final long start) {
+    final ODataMetrics metrics = CURRENT.get();
+    if (metrics != null && start != 0) {
+      metrics.recordTime(stage, System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Records the size of a payload.
+   * @param payload the payload
+   * @param bytes the size in bytes
+   */
+  public static void size(final Payload payload, final long bytes) {
+    final ODataMetrics metrics = CURRENT.get();
+    if (metrics != null) {
+      metrics.recordSize(payload, bytes);
+    }
+  }
+
+  /** Input stream counting the bytes read through it. */
+  public static class CountingInputStream extends InputStream {
+    private final InputStream in;
+    private long count;
+
+    public CountingInputStream(final InputStream in) {
+      this.in = in;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public int read() throws IOException {
+      final int b = in.read();
+      if (b >= 0) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+      final int read = in.read(buffer, offset, length);
+      if (read > 0) {
+        count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(final long n) throws IOException {
+      final long skipped = in.skip(n);
+      if (skipped > 0) {
+        count += skipped;
+      }
+      return skipped;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return in.available();
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /** Channel counting the bytes written through it. */
+  public static class CountingChannel implements WritableByteChannel {
+    private final WritableByteChannel out;
+    private long count;
+
+    public CountingChannel(final WritableByteChannel out) {
+      this.out = out;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    @Override
+    public int write(final ByteBuffer source) throws IOException {
+      final int written = out.write(source);
+      count += written;
+      return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return out.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+      out.close();
+    }
+  }
+}
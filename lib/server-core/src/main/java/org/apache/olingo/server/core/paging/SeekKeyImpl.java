@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.server.api.paging.SeekKey;
+
+final class SeekKeyImpl implements SeekKey {
+
+  private final List<EdmProperty> propertyPath;
+  private final boolean descending;
+  private final Object value;
+
+  SeekKeyImpl(final List<EdmProperty> propertyPath, final boolean descending, final Object value) {
+    this.propertyPath = Collections.unmodifiableList(propertyPath);
+    this.descending = descending;
+    this.value = value;
+  }
+
+  @Override
+  public List<EdmProperty> getPropertyPath() {
+    return propertyPath;
+  }
+
+  @Override
+  public boolean isDescending() {
+    return descending;
+  }
+
+  @Override
+  public Object getValue() {
+    return value;
+  }
+
+  SeekKeyImpl withValue(final Object value) {
+    return new SeekKeyImpl(propertyPath, descending, value);
+  }
+
+  /** Gets the path of the property, with names separated by slashes. */
+  String getPath() {
+    StringBuilder result = new StringBuilder();
+    for (final EdmProperty property : propertyPath) {
+      result.append(result.length() == 0 ? "" : "/").append(property.getName());
+    }
+    return result.toString();
+  }
+
+  @Override
+  public String toString() {
+    return getPath() + (descending ? " desc" : " asc") + '=' + value;
+  }
+}
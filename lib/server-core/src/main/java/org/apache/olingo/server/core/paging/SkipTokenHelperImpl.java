@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.olingo.commons.api.Constants;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.core.Decoder;
+import org.apache.olingo.commons.core.Encoder;
+import org.apache.olingo.server.api.paging.SeekKey;
+import org.apache.olingo.server.api.paging.SkipTokenException;
+import org.apache.olingo.server.api.paging.SkipTokenHelper;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+
+/**
+ * <p>Skip tokens consist of the percent-encoded URI literals of the position values,
+ * separated by commas and encoded in URL-safe Base64, followed by a dot and the URL-safe Base64 encoding
+ * of an HMAC-SHA256 signature of the entity-type name, the order, and these values.</p>
+ * <p>Instances are immutable and can be shared between threads.</p>
+ */
+public class SkipTokenHelperImpl implements SkipTokenHelper {
+
+  private static final String MAC_ALGORITHM = "HmacSHA256";
+  private static final Charset UTF_8 = Charset.forName("UTF-8");
+  private static final char SIGNATURE_SEPARATOR = '.';
+  private static final String VALUE_SEPARATOR = ",";
+  private static final String NULL = "null";
+
+  private final SecretKeySpec key;
+
+  public SkipTokenHelperImpl(final byte[] secret) {
+    if (secret == null || secret.length == 0) {
+      throw new IllegalArgumentException("A secret is needed to sign skip tokens.");
+    }
+    key = new SecretKeySpec(secret, MAC_ALGORITHM);
+  }
+
+  @Override
+  public String createSkipToken(final EdmEntityType entityType, final OrderByOption orderBy,
+      final Entity lastEntity) throws SkipTokenException {
+    final List<SeekKeyImpl> seekKeys = getSeekKeys(entityType, orderBy);
+    StringBuilder values = new StringBuilder();
+    for (final SeekKeyImpl seekKey : seekKeys) {
+      final EdmProperty property = seekKey.getPropertyPath().get(seekKey.getPropertyPath().size() - 1);
+      final EdmPrimitiveType type = (EdmPrimitiveType) property.getType();
+      final Object value = getValue(lastEntity, seekKey.getPropertyPath());
+      String literal;
+      try {
+        literal = value == null ? NULL :
+            type.toUriLiteral(type.valueToString(value, true, null,
+                Constants.DEFAULT_PRECISION, Constants.DEFAULT_SCALE, true));
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new SkipTokenException("Cannot convert value of property " + seekKey.getPath(), e,
+            SkipTokenException.MessageKeys.INVALID_VALUE, seekKey.getPath());
+      }
+      values.append(values.length() == 0 ? "" : VALUE_SEPARATOR).append(Encoder.encode(literal));
+    }
+    final byte[] payload = values.toString().getBytes(UTF_8);
+    return Base64.encodeBase64URLSafeString(payload)
+        + SIGNATURE_SEPARATOR
+        + Base64.encodeBase64URLSafeString(sign(entityType, seekKeys, payload));
+  }
+
+  @Override
+  public List<SeekKey> parseSkipToken(final EdmEntityType entityType, final OrderByOption orderBy,
+      final String skipToken) throws SkipTokenException {
+    final List<SeekKeyImpl> seekKeys = getSeekKeys(entityType, orderBy);
+    final int separatorIndex = skipToken == null ? -1 : skipToken.indexOf(SIGNATURE_SEPARATOR);
+    if (separatorIndex < 0) {
+      throw new SkipTokenException("Skip token without signature.",
+          SkipTokenException.MessageKeys.INVALID_SKIPTOKEN);
+    }
+    final byte[] payload = Base64.decodeBase64(skipToken.substring(0, separatorIndex));
+    final byte[] signature = Base64.decodeBase64(skipToken.substring(separatorIndex + 1));
+    if (!MessageDigest.isEqual(signature, sign(entityType, seekKeys, payload))) {
+      throw new SkipTokenException("Skip token with wrong signature.",
+          SkipTokenException.MessageKeys.INVALID_SKIPTOKEN);
+    }
+
+    final String[] values = new String(payload, UTF_8).split(VALUE_SEPARATOR, -1);
+    if (values.length != seekKeys.size()) {
+      throw new SkipTokenException("Skip token with wrong number of values.",
+          SkipTokenException.MessageKeys.INVALID_SKIPTOKEN);
+    }
+    List<SeekKey> position = new ArrayList<SeekKey>(seekKeys.size());
+    for (int i = 0; i < values.length; i++) {
+      final SeekKeyImpl seekKey = seekKeys.get(i);
+      final EdmPrimitiveType type = (EdmPrimitiveType)
+          seekKey.getPropertyPath().get(seekKey.getPropertyPath().size() - 1).getType();
+      try {
+        final String literal = Decoder.decode(values[i]);
+        position.add(seekKey.withValue(NULL.equals(literal) ? null :
+            type.valueOfString(type.fromUriLiteral(literal), true, null,
+                Constants.DEFAULT_PRECISION, Constants.DEFAULT_SCALE, true, type.getDefaultType())));
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new SkipTokenException("Skip token with invalid value.", e,
+            SkipTokenException.MessageKeys.INVALID_SKIPTOKEN);
+      } catch (final IllegalArgumentException e) {
+        throw new SkipTokenException("Skip token with invalid value.", e,
+            SkipTokenException.MessageKeys.INVALID_SKIPTOKEN);
+      }
+    }
+    return position;
+  }
+
+  @Override
+  public boolean isAfter(final Entity entity, final List<SeekKey> position) {
+    for (final SeekKey seekKey : position) {
+      final int comparison = compare(getValue(entity, seekKey.getPropertyPath()), seekKey.getValue());
+      if (comparison != 0) {
+        return seekKey.isDescending() ? comparison < 0 : comparison > 0;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public URI createNextLink(final String requestUri, final String skipToken) {
+    final int queryStart = requestUri.indexOf('?');
+    StringBuilder result = new StringBuilder(queryStart < 0 ? requestUri : requestUri.substring(0, queryStart));
+    char separator = '?';
+    if (queryStart >= 0) {
+      for (final String option : requestUri.substring(queryStart + 1).split("&")) {
+        final String name = option.split("=", 2)[0].replace("%24", "$");
+        if (option.length() > 0
+            && !SystemQueryOptionKind.SKIPTOKEN.toString().equals(name)
+            && !SystemQueryOptionKind.SKIP.toString().equals(name)) {
+          result.append(separator).append(option);
+          separator = '&';
+        }
+      }
+    }
+    return URI.create(result.append(separator)
+        .append(SystemQueryOptionKind.SKIPTOKEN.toString()).append('=').append(skipToken)
+        .toString());
+  }
+
+  /**
+   * Gets the order used for keyset pagination:
+   * the properties in $orderby, followed by the key properties not contained in $orderby.
+   * The values of the returned seek keys are <code>null</code>.
+   * @param entityType the type of the entities in the collection
+   * @param orderBy the $orderby system query option of the request or <code>null</code>
+   * @return the seek keys, in sort order
+   * @throws SkipTokenException if $orderby contains expressions other than primitive properties
+   */
+  public static List<SeekKey> getOrder(final EdmEntityType entityType, final OrderByOption orderBy)
+      throws SkipTokenException {
+    return new ArrayList<SeekKey>(getSeekKeys(entityType, orderBy));
+  }
+
+  private static List<SeekKeyImpl> getSeekKeys(final EdmEntityType entityType, final OrderByOption orderBy)
+      throws SkipTokenException {
+    List<SeekKeyImpl> seekKeys = new ArrayList<SeekKeyImpl>();
+    Set<String> paths = new HashSet<String>();
+    if (orderBy != null) {
+      for (final OrderByItem item : orderBy.getOrders()) {
+        final List<EdmProperty> propertyPath = getPropertyPath(item.getExpression());
+        if (propertyPath == null) {
+          throw new SkipTokenException("Keyset pagination supports only ordering by primitive properties.",
+              SkipTokenException.MessageKeys.UNSUPPORTED_ORDERBY, String.valueOf(item.getExpression()));
+        }
+        final SeekKeyImpl seekKey = new SeekKeyImpl(propertyPath, item.isDescending(), null);
+        if (paths.add(seekKey.getPath())) {
+          seekKeys.add(seekKey);
+        }
+      }
+    }
+    for (final EdmKeyPropertyRef keyPropertyRef : entityType.getKeyPropertyRefs()) {
+      List<EdmProperty> propertyPath = new ArrayList<EdmProperty>();
+      EdmStructuredType type = entityType;
+      for (final String name : Arrays.asList(keyPropertyRef.getName().split("/"))) {
+        final EdmProperty property = type.getStructuralProperty(name);
+        propertyPath.add(property);
+        if (property.getType() instanceof EdmStructuredType) {
+          type = (EdmStructuredType) property.getType();
+        }
+      }
+      final SeekKeyImpl seekKey = new SeekKeyImpl(propertyPath, false, null);
+      if (paths.add(seekKey.getPath())) {
+        seekKeys.add(seekKey);
+      }
+    }
+    return seekKeys;
+  }
+
+  /** Gets the path to a single-valued primitive property or <code>null</code> for other expressions. */
+  private static List<EdmProperty> getPropertyPath(final Expression expression) {
+    if (!(expression instanceof Member) || ((Member) expression).getStartTypeFilter() != null) {
+      return null;
+    }
+    List<EdmProperty> propertyPath = new ArrayList<EdmProperty>();
+    for (final UriResource part : ((Member) expression).getResourcePath().getUriResourceParts()) {
+      if (!(part instanceof UriResourceProperty) || ((UriResourceProperty) part).isCollection()) {
+        return null;
+      }
+      propertyPath.add(((UriResourceProperty) part).getProperty());
+    }
+    return propertyPath.isEmpty() || !propertyPath.get(propertyPath.size() - 1).isPrimitive() ?
+        null :
+        propertyPath;
+  }
+
+  private byte[] sign(final EdmEntityType entityType, final List<SeekKeyImpl> seekKeys, final byte[] payload) {
+    StringBuilder order = new StringBuilder(entityType.getFullQualifiedName().getFullQualifiedNameAsString());
+    for (final SeekKeyImpl seekKey : seekKeys) {
+      order.append(VALUE_SEPARATOR).append(seekKey.getPath()).append(seekKey.isDescending() ? " desc" : "");
+    }
+    order.append('\n');
+    try {
+      // Mac instances are not thread-safe.
+      Mac mac = Mac.getInstance(MAC_ALGORITHM);
+      mac.init(key);
+      mac.update(order.toString().getBytes(UTF_8));
+      return mac.doFinal(payload);
+    } catch (final GeneralSecurityException e) {
+      throw new ODataRuntimeException("Cannot sign skip token.", e);
+    }
+  }
+
+  private Object getValue(final Entity entity, final List<EdmProperty> propertyPath) {
+    Property property = entity.getProperty(propertyPath.get(0).getName());
+    for (final EdmProperty pathElement : propertyPath.subList(1, propertyPath.size())) {
+      if (property == null || property.isNull() || !property.isComplex()) {
+        return null;
+      }
+      Property next = null;
+      for (final Property member : property.asComplex().getValue()) {
+        if (pathElement.getName().equals(member.getName())) {
+          next = member;
+          break;
+        }
+      }
+      property = next;
+    }
+    return property == null ? null : property.getValue();
+  }
+
+  /** Compares two primitive values; <code>null</code> is sorted before all other values. */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private int compare(final Object value1, final Object value2) {
+    if (value1 == null || value2 == null) {
+      return value1 == null ? value2 == null ? 0 : -1 : 1;
+    } else if (value1 instanceof Number && value2 instanceof Number) {
+      if (value1 instanceof Double || value1 instanceof Float || value2 instanceof Double || value2 instanceof Float) {
+        return Double.compare(((Number) value1).doubleValue(), ((Number) value2).doubleValue());
+      }
+      return new BigDecimal(value1.toString()).compareTo(new BigDecimal(value2.toString()));
+    } else if ((value1 instanceof Calendar || value1 instanceof Date)
+        && (value2 instanceof Calendar || value2 instanceof Date)) {
+      final long time1 = value1 instanceof Calendar ? ((Calendar) value1).getTimeInMillis() : ((Date) value1).getTime();
+      final long time2 = value2 instanceof Calendar ? ((Calendar) value2).getTimeInMillis() : ((Date) value2).getTime();
+      return time1 < time2 ? -1 : time1 == time2 ? 0 : 1;
+    } else if (value1 instanceof Comparable && value1.getClass().isInstance(value2)) {
+      return ((Comparable) value1).compareTo(value2);
+    } else {
+      return value1.toString().compareTo(value2.toString());
+    }
+  }
+}
@@ -23,6 +23,7 @@ import java.io.OutputStream;
 
 import org.apache.olingo.server.api.serializer.ODataSerializer;
 import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 
 public abstract class AbstractODataSerializer implements ODataSerializer {
 
@@ -31,6 +32,8 @@ public abstract class AbstractODataSerializer implements ODataSerializer {
   protected void closeCircleStreamBufferOutput(final OutputStream outputStream,
       final SerializerException cachedException)
       throws SerializerException {
+    // Every serializer method writing into a buffer ends here, so this is where its time is recorded.
+    CircleStreamBuffer.recordSerialization(outputStream);
     if (outputStream != null) {
       try {
         outputStream.close();
@@ -243,15 +243,19 @@ public class BatchResponseSerializer {
     }
 
     private byte[] getBody(final ODataResponse response) {
-      if (response == null || response.getContent() == null) {
+      if (response == null || (response.getContent() == null && response.getMediaContent() == null)) {
         return new byte[0];
       }
 
       try {
         ByteArrayOutputStream output = new ByteArrayOutputStream();
         ByteBuffer inBuffer = ByteBuffer.allocate(BUFFER_SIZE);
-        ReadableByteChannel ic = Channels.newChannel(response.getContent());
         WritableByteChannel oc = Channels.newChannel(output);
+        if (response.getContent() == null) {
+          response.getMediaContent().transferTo(0, response.getMediaContent().getLength(), oc);
+          return output.toByteArray();
+        }
+        ReadableByteChannel ic = Channels.newChannel(response.getContent());
         while (ic.read(inBuffer) > 0) {
           inBuffer.flip();
           oc.write(inBuffer);
@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.serializer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.server.api.serializer.RenderedDocument;
+import org.apache.olingo.server.api.serializer.SerializerException;
+import org.apache.olingo.server.core.etag.ContentHash;
+
+/**
+ * Serialized document kept in memory, uncompressed and compressed with gzip and deflate.
+ */
+public class RenderedDocumentImpl implements RenderedDocument {
+
+  public static final String GZIP = "gzip";
+  public static final String DEFLATE = "deflate";
+  public static final String IDENTITY = "identity";
+
+  private final ContentType contentType;
+  private final byte[] content;
+  private final byte[] gzipContent;
+  private final byte[] deflateContent;
+  private final String eTag;
+
+  public RenderedDocumentImpl(final ContentType contentType, final InputStream content) throws SerializerException {
+    this.contentType = contentType;
+    try {
+      this.content = read(content);
+      gzipContent = compress(new ByteArrayOutputStream(), true);
+      deflateContent = compress(new ByteArrayOutputStream(), false);
+    } catch (final IOException e) {
+      throw new SerializerException("An I/O exception occurred.", e, SerializerException.MessageKeys.IO_EXCEPTION);
+    }
+    eTag = '"' + ContentHash.compute(this.content) + '"';
+  }
+
+  @Override
+  public ContentType getContentType() {
+    return contentType;
+  }
+
+  @Override
+  public String getETag() {
+    return eTag;
+  }
+
+  @Override
+  public InputStream getContent() {
+    return new ByteArrayInputStream(content);
+  }
+
+  @Override
+  public InputStream getContent(final String contentCoding) {
+    if (GZIP.equalsIgnoreCase(contentCoding)) {
+      return new ByteArrayInputStream(gzipContent);
+    } else if (DEFLATE.equalsIgnoreCase(contentCoding)) {
+      return new ByteArrayInputStream(deflateContent);
+    } else if (IDENTITY.equalsIgnoreCase(contentCoding)) {
+      return getContent();
+    } else {
+      return null;
+    }
+  }
+
+  private static byte[] read(final InputStream input) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int count;
+    try {
+      while ((count = input.read(buffer)) >= 0) {
+        output.write(buffer, 0, count);
+      }
+    } finally {
+      input.close();
+    }
+    return output.toByteArray();
+  }
+
+  private byte[] compress(final ByteArrayOutputStream output, final boolean gzip) throws IOException {
+    final OutputStream stream = gzip ? new GZIPOutputStream(output) : new DeflaterOutputStream(output);
+    stream.write(content);
+    stream.close();
+    return output.toByteArray();
+  }
+}
@@ -21,18 +21,18 @@ package org.apache.olingo.server.core.serializer.json;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.AbstractEntityCollection;
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityIterator;
 import org.apache.olingo.commons.api.data.Link;
 import org.apache.olingo.commons.api.data.Linked;
+import org.apache.olingo.commons.api.data.PrimitiveArrayList;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
 import org.apache.olingo.commons.api.edm.EdmEntitySet;
@@ -72,6 +72,7 @@ import org.apache.olingo.server.core.serializer.utils.ContentTypeHelper;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
 import org.apache.olingo.server.core.uri.UriHelperImpl;
+import org.apache.olingo.server.core.uri.queryoption.SelectionTree;
 
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
@@ -211,8 +212,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         writeEntitySet(metadata, entityType, entitySet,
             options.getExpand(), options.getSelect(), options.getWriteOnlyReferences(), json);
       }
-      // next link not supported by default for streaming results
-//      writeNextLink(entitySet, json);
+      writeNextLink(entitySet, json);
 
       json.close();
     } catch (final IOException e) {
@@ -277,12 +277,12 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   }
 
   private boolean areKeyPredicateNamesSelected(SelectOption select, EdmEntityType type) {
-    if (select == null || ExpandSelectHelper.isAll(select)) {
+    final SelectionTree selection = SelectionTree.of(select);
+    if (selection == null) {
       return true;
     }
-    final Set<String> selected = ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
     for (String key : type.getKeyPredicateNames()) {
-      if (!selected.contains(key)) {
+      if (!selection.isSelected(key)) {
         return false;
       }
     }
@@ -328,7 +328,11 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       if (!isODataMetadataNone && !areKeyPredicateNamesSelected(select, resolvedType)) {
         json.writeStringField(Constants.JSON_ID, entity.getId().toASCIIString());
       }
-      writeProperties(metadata, resolvedType, entity.getProperties(), select, json);
+      if (entity instanceof ColumnarEntityCollection.Row) {
+        writeColumnarProperties(metadata, resolvedType, (ColumnarEntityCollection.Row) entity, select, json);
+      } else {
+        writeProperties(metadata, resolvedType, entity.getProperties(), select, json);
+      }
       writeNavigationProperties(metadata, resolvedType, entity, expand, json);
       json.writeEndObject();
     }
@@ -386,16 +390,59 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final List<Property> properties,
       final SelectOption select, final JsonGenerator json)
       throws IOException, SerializerException {
-    final boolean all = ExpandSelectHelper.isAll(select);
-    final Set<String> selected = all ? new HashSet<String>() :
-        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
+    final SelectionTree selection = SelectionTree.of(select);
     for (final String propertyName : type.getPropertyNames()) {
-      if (all || selected.contains(propertyName)) {
+      if (selection == null || selection.isSelected(propertyName)) {
         final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
         final Property property = findProperty(propertyName, properties);
-        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
-            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
-        writeProperty(metadata, edmProperty, property, selectedPaths, json);
+        writeProperty(metadata, edmProperty, property, selection == null ? null : selection.getChild(propertyName),
+            json);
+      }
+    }
+  }
+
+  /**
+   * Writes the properties of a row of a columnar entity collection directly from the columns,
+   * without creating property objects. Properties without a column are taken from the row's property objects.
+   */
+  private void writeColumnarProperties(final ServiceMetadata metadata, final EdmStructuredType type,
+      final ColumnarEntityCollection.Row entity, final SelectOption select, final JsonGenerator json)
+      throws IOException, SerializerException {
+    final SelectionTree selection = SelectionTree.of(select);
+    final int row = entity.getRowIndex();
+    for (final String propertyName : type.getPropertyNames()) {
+      if (selection == null || selection.isSelected(propertyName)) {
+        final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
+        final ColumnarEntityCollection.Column column = entity.getCollection().getColumn(propertyName);
+        if (column == null) {
+          writeProperty(metadata, edmProperty, entity.getProperty(propertyName),
+              selection == null ? null : selection.getChild(propertyName), json);
+          continue;
+        } else if (column.isNull(row)) {
+          writeProperty(metadata, edmProperty, null, null, json);
+          continue;
+        }
+        json.writeFieldName(propertyName);
+        final EdmPrimitiveType primitiveType = (EdmPrimitiveType) edmProperty.getType();
+        if (column.getUnboxedType() != null && isUnboxedType(primitiveType, column.getUnboxedType())) {
+          if (column.getUnboxedType() == boolean.class) {
+            json.writeBoolean(column.getBoolean(row));
+          } else if (column.getUnboxedType() == double.class) {
+            writeDouble(primitiveType, column.getDouble(row), json);
+          } else {
+            json.writeNumber(column.getLong(row));
+          }
+        } else {
+          try {
+            writePrimitiveValue(primitiveType, column.getValue(row),
+                edmProperty.isNullable(), edmProperty.getMaxLength(),
+                edmProperty.getPrecision(), edmProperty.getScale(), edmProperty.isUnicode(), json);
+          } catch (final EdmPrimitiveTypeException e) {
+            throw new SerializerException("Wrong value for property!", e,
+                SerializerException.MessageKeys.WRONG_PROPERTY_VALUE,
+                propertyName, String.valueOf(column.getValue(row)));
+          }
+        }
       }
     }
   }
@@ -405,14 +452,11 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final JsonGenerator json) throws SerializerException, IOException {
     if (ExpandSelectHelper.hasExpand(expand)) {
       final boolean expandAll = ExpandSelectHelper.isExpandAll(expand);
-      final Set<String> expanded = expandAll ? new HashSet<String>() :
-          ExpandSelectHelper.getExpandedPropertyNames(expand.getExpandItems());
       for (final String propertyName : type.getNavigationPropertyNames()) {
-        if (expandAll || expanded.contains(propertyName)) {
+        final ExpandItem innerOptions = expandAll ? null : ExpandSelectHelper.getExpandItem(expand, propertyName);
+        if (expandAll || innerOptions != null) {
           final EdmNavigationProperty property = type.getNavigationProperty(propertyName);
           final Link navigationLink = linked.getNavigationLink(property.getName());
-          final ExpandItem innerOptions = expandAll ? null :
-              ExpandSelectHelper.getExpandItem(expand.getExpandItems(), propertyName);
           if (innerOptions != null && innerOptions.getLevelsOption() != null) {
             throw new SerializerException("Expand option $levels is not supported.",
                 SerializerException.MessageKeys.NOT_IMPLEMENTED);
@@ -472,7 +516,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
   }
 
   protected void writeProperty(final ServiceMetadata metadata, final EdmProperty edmProperty, final Property property,
-      final Set<List<String>> selectedPaths, final JsonGenerator json)
+      final SelectionTree selection, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeFieldName(edmProperty.getName());
     if (property == null || property.isNull()) {
@@ -488,12 +532,12 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         }
       }
     } else {
-      writePropertyValue(metadata, edmProperty, property, selectedPaths, json);
+      writePropertyValue(metadata, edmProperty, property, selection, json);
     }
   }
 
   private void writePropertyValue(final ServiceMetadata metadata, final EdmProperty edmProperty,
-      final Property property, final Set<List<String>> selectedPaths, final JsonGenerator json)
+      final Property property, final SelectionTree selection, final JsonGenerator json)
       throws IOException, SerializerException {
     final EdmType type = edmProperty.getType();
     try {
@@ -510,9 +554,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
         }
       } else if (property.isComplex()) {
         if (edmProperty.isCollection()) {
-          writeComplexCollection(metadata, (EdmComplexType) type, property, selectedPaths, json);
+          writeComplexCollection(metadata, (EdmComplexType) type, property, selection, json);
         } else {
-          writeComplexValue(metadata, property, (EdmComplexType) type, property.asComplex().getValue(), selectedPaths,
+          writeComplexValue(metadata, property, (EdmComplexType) type, property.asComplex().getValue(), selection,
               json);
         }
       } else {
@@ -531,6 +575,21 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final Boolean isUnicode, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartArray();
+    if (property.asCollection() instanceof PrimitiveArrayList
+        && isUnboxedType(type, ((PrimitiveArrayList) property.asCollection()).getElementType())) {
+      final PrimitiveArrayList values = (PrimitiveArrayList) property.asCollection();
+      for (int index = 0; index < values.size(); index++) {
+        if (values.getElementType() == boolean.class) {
+          json.writeBoolean(values.getBoolean(index));
+        } else if (values.getElementType() == double.class) {
+          writeDouble(type, values.getDouble(index), json);
+        } else {
+          json.writeNumber(values.getLong(index));
+        }
+      }
+      json.writeEndArray();
+      return;
+    }
     for (Object value : property.asCollection()) {
       switch (property.getValueType()) {
       case COLLECTION_PRIMITIVE:
@@ -556,13 +615,13 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
   private void writeComplexCollection(final ServiceMetadata metadata, final EdmComplexType type,
       final Property property,
-      final Set<List<String>> selectedPaths, final JsonGenerator json)
+      final SelectionTree selection, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartArray();
     for (Object value : property.asCollection()) {
       switch (property.getValueType()) {
       case COLLECTION_COMPLEX:
-        writeComplexValue(metadata, property, type, ((ComplexValue) value).getValue(), selectedPaths, json);
+        writeComplexValue(metadata, property, type, ((ComplexValue) value).getValue(), selection, json);
         break;
       default:
         throw new SerializerException("Property type not yet supported!",
@@ -576,7 +635,15 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
       final Boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final Boolean isUnicode, final JsonGenerator json)
       throws EdmPrimitiveTypeException, IOException, SerializerException {
-    if (property.isPrimitive()) {
+    if (property.getUnboxedType() != null && isUnboxedType(type, property.getUnboxedType())) {
+      if (property.getUnboxedType() == boolean.class) {
+        json.writeBoolean(property.getBooleanValue());
+      } else if (property.getUnboxedType() == double.class) {
+        writeDouble(type, property.getDoubleValue(), json);
+      } else {
+        json.writeNumber(property.getLongValue());
+      }
+    } else if (property.isPrimitive()) {
       writePrimitiveValue(type, property.asPrimitive(),
           isNullable, maxLength, precision, scale, isUnicode, json);
     } else if (property.isGeospatial()) {
@@ -591,6 +658,32 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     }
   }
 
+  /**
+   * Checks whether values held unboxed as the given Java primitive type can be written directly,
+   * without conversion to a string, for the given EDM type.
+   */
+  private boolean isUnboxedType(final EdmPrimitiveType type, final Class<?> unboxedType) {
+    return unboxedType == int.class && type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int32)
+        || unboxedType == long.class && type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Int64)
+        && !isIEEE754Compatible
+        || unboxedType == double.class && type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Double)
+        || unboxedType == boolean.class && type == EdmPrimitiveTypeFactory.getInstance(EdmPrimitiveTypeKind.Boolean);
+  }
+
+  private void writeDouble(final EdmPrimitiveType type, final double value, final JsonGenerator json)
+      throws IOException, SerializerException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      try {
+        writePrimitiveValue(type, value, null, null, null, null, null, json);
+      } catch (final EdmPrimitiveTypeException e) {
+        throw new SerializerException("Wrong value for property!", e,
+            SerializerException.MessageKeys.WRONG_PROPERTY_VALUE, type.getName(), String.valueOf(value));
+      }
+    } else {
+      json.writeNumber(value);
+    }
+  }
+
   protected void writePrimitiveValue(final EdmPrimitiveType type, final Object primitiveValue,
       final Boolean isNullable, final Integer maxLength, final Integer precision, final Integer scale,
       final Boolean isUnicode, final JsonGenerator json) throws EdmPrimitiveTypeException, IOException {
@@ -617,7 +710,7 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
   protected void writeComplexValue(final ServiceMetadata metadata, final Property complexProperty,
       final EdmComplexType type, final List<Property> properties,
-      final Set<List<String>> selectedPaths, final JsonGenerator json)
+      final SelectionTree selection, final JsonGenerator json)
       throws IOException, SerializerException {
     json.writeStartObject();
 
@@ -630,9 +723,9 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
 
     for (final String propertyName : resolvedType.getPropertyNames()) {
       final Property property = findProperty(propertyName, properties);
-      if (selectedPaths == null || ExpandSelectHelper.isSelected(selectedPaths, propertyName)) {
+      if (selection == null || selection.isSelected(propertyName)) {
         writeProperty(metadata, (EdmProperty) resolvedType.getProperty(propertyName), property,
-            selectedPaths == null ? null : ExpandSelectHelper.getReducedSelectedPaths(selectedPaths, propertyName),
+            selection == null ? null : selection.getChild(propertyName),
             json);
       }
     }
@@ -911,6 +1004,13 @@ public class ODataJsonSerializer extends AbstractODataSerializer {
     }
   }
 
+  /** Writes the next link of a streamed collection; it is known only after all entities have been written. */
+  void writeNextLink(final EntityIterator entitySet, final JsonGenerator json) throws IOException {
+    if (entitySet.hasNextLink()) {
+      writeNextLink((AbstractEntityCollection) entitySet, json);
+    }
+  }
+
   private boolean isODataIEEE754Compatible(final ContentType contentType) {
     return contentType.getParameters().containsKey(ContentType.PARAMETER_IEEE754_COMPATIBLE)
         && Boolean.TRUE.toString().equalsIgnoreCase(
@@ -25,6 +25,9 @@ import java.nio.ByteBuffer;
 import java.util.Queue;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import org.apache.olingo.server.api.metrics.ODataMetrics.Stage;
+import org.apache.olingo.server.core.metrics.MetricsRecorder;
+
 /**
  * Circular stream buffer to write/read into/from one single buffer.
  * With support of {@link InputStream} and {@link OutputStream} access to buffered data.
@@ -49,6 +52,7 @@ public class CircleStreamBuffer {
 
   private final InternalInputStream inStream;
   private final InternalOutputStream outStream;
+  private final long start = MetricsRecorder.start();
 
   /**
    * Creates a {@link CircleStreamBuffer} with default buffer size.
@@ -123,6 +127,17 @@ public class CircleStreamBuffer {
     closeRead();
   }
 
+  /**
+   * Records the time since the creation of the buffer the given stream writes into
+   * as serialization time of the current request; see {@link MetricsRecorder}.
+   * @param outputStream the output stream of a {@link CircleStreamBuffer}; other streams are ignored
+   */
+  public static void recordSerialization(final OutputStream outputStream) {
+    if (outputStream instanceof InternalOutputStream) {
+      MetricsRecorder.stop(Stage.SERIALIZATION, ((InternalOutputStream) outputStream).outBuffer.start);
+    }
+  }
+
   private int remaining() throws IOException {
     if (writeMode) {
       return currentWriteBuffer.remaining();
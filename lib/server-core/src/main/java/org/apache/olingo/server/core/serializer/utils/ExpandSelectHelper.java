@@ -31,6 +31,7 @@ import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectItem;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
 
 public abstract class ExpandSelectHelper {
 
@@ -135,6 +136,12 @@ public abstract class ExpandSelectHelper {
     return expanded;
   }
 
+  public static ExpandItem getExpandItem(final ExpandOption expand, final String propertyName) {
+    return expand instanceof ExpandOptionImpl ?
+        ((ExpandOptionImpl) expand).getExpandItem(propertyName) :
+        getExpandItem(expand.getExpandItems(), propertyName);
+  }
+
   public static ExpandItem getExpandItem(final List<ExpandItem> expandItems, final String propertyName) {
     for (final ExpandItem item : expandItems) {
       final UriResource resource = item.getResourcePath().getUriResourceParts().get(0);
@@ -22,9 +22,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Set;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
@@ -76,6 +74,7 @@ import org.apache.olingo.server.core.serializer.SerializerResultImpl;
 import org.apache.olingo.server.core.serializer.utils.CircleStreamBuffer;
 import org.apache.olingo.server.core.serializer.utils.ContextURLBuilder;
 import org.apache.olingo.server.core.serializer.utils.ExpandSelectHelper;
+import org.apache.olingo.server.core.uri.queryoption.SelectionTree;
 
 public class ODataXmlSerializer extends AbstractODataSerializer {
 
@@ -319,6 +318,10 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
         writeEntitySet(metadata, entityType, entitySet,
             options.getExpand(), options.getSelect(), options.xml10InvalidCharReplacement(), writer, writeOnlyRef);
       }
+      // The next link of a streamed collection is known only after all entities have been written.
+      if (entitySet.hasNextLink() && entitySet.getNext() != null) {
+        writeNextLink(entitySet, writer);
+      }
 
       writer.writeEndElement();
       writer.writeEndDocument();
@@ -561,16 +564,13 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
   protected void writeProperties(final ServiceMetadata metadata, final EdmStructuredType type,
       final List<Property> properties, final SelectOption select, final String xml10InvalidCharReplacement, 
       final XMLStreamWriter writer) throws XMLStreamException, SerializerException {
-    final boolean all = ExpandSelectHelper.isAll(select);
-    final Set<String> selected = all ? new HashSet<String>() :
-        ExpandSelectHelper.getSelectedPropertyNames(select.getSelectItems());
+    final SelectionTree selection = SelectionTree.of(select);
     for (final String propertyName : type.getPropertyNames()) {
-      if (all || selected.contains(propertyName)) {
+      if (selection == null || selection.isSelected(propertyName)) {
         final EdmProperty edmProperty = type.getStructuralProperty(propertyName);
         final Property property = findProperty(propertyName, properties);
-        final Set<List<String>> selectedPaths = all || edmProperty.isPrimitive() ? null :
-            ExpandSelectHelper.getSelectedPaths(select.getSelectItems(), propertyName);
-        writeProperty(metadata, edmProperty, property, selectedPaths, xml10InvalidCharReplacement, writer);
+        writeProperty(metadata, edmProperty, property, selection == null ? null : selection.getChild(propertyName),
+            xml10InvalidCharReplacement, writer);
       }
     }
   }
@@ -581,14 +581,11 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
           throws SerializerException, XMLStreamException {
     if (ExpandSelectHelper.hasExpand(expand)) {
       final boolean expandAll = ExpandSelectHelper.isExpandAll(expand);
-      final Set<String> expanded = expandAll ? new HashSet<String>() :
-          ExpandSelectHelper.getExpandedPropertyNames(expand.getExpandItems());
       for (final String propertyName : type.getNavigationPropertyNames()) {
         final EdmNavigationProperty property = type.getNavigationProperty(propertyName);
         final Link navigationLink = getOrCreateLink(linked, propertyName);
-        if (expandAll || expanded.contains(propertyName)) {
-          final ExpandItem innerOptions = expandAll ? null :
-              ExpandSelectHelper.getExpandItem(expand.getExpandItems(), propertyName);
+        final ExpandItem innerOptions = expandAll ? null : ExpandSelectHelper.getExpandItem(expand, propertyName);
+        if (expandAll || innerOptions != null) {
           if (innerOptions != null && innerOptions.getLevelsOption() != null) {
             throw new SerializerException("Expand option $levels is not supported.",
                 SerializerException.MessageKeys.NOT_IMPLEMENTED);
@@ -688,7 +685,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
 
   protected void writeProperty(final ServiceMetadata metadata,
       final EdmProperty edmProperty, final Property property,
-      final Set<List<String>> selectedPaths,
+      final SelectionTree selection,
       final String xml10InvalidCharReplacement, final XMLStreamWriter writer)
       throws XMLStreamException, SerializerException {
     writer.writeStartElement(DATA, edmProperty.getName(), NS_DATA);
@@ -700,7 +697,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
             SerializerException.MessageKeys.MISSING_PROPERTY, edmProperty.getName());
       }
     } else {
-      writePropertyValue(metadata, edmProperty, property, selectedPaths, xml10InvalidCharReplacement, writer);
+      writePropertyValue(metadata, edmProperty, property, selection, xml10InvalidCharReplacement, writer);
     }
     writer.writeEndElement();
   }
@@ -726,7 +723,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
 
   private void writePropertyValue(final ServiceMetadata metadata,
       final EdmProperty edmProperty, final Property property,
-      final Set<List<String>> selectedPaths,
+      final SelectionTree selection,
       final String xml10InvalidCharReplacement, final XMLStreamWriter writer)
       throws XMLStreamException, SerializerException {
     try {
@@ -751,13 +748,13 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       } else if (property.isComplex()) {
         if (edmProperty.isCollection()) {
           writer.writeAttribute(METADATA, NS_METADATA, Constants.ATTR_TYPE, collectionType(edmProperty.getType()));
-          writeComplexCollection(metadata, (EdmComplexType) edmProperty.getType(), property, selectedPaths, 
+          writeComplexCollection(metadata, (EdmComplexType) edmProperty.getType(), property, selection, 
               xml10InvalidCharReplacement, writer);
         } else {
           writer.writeAttribute(METADATA, NS_METADATA, Constants.ATTR_TYPE,
               "#" + complexType(metadata, (EdmComplexType) edmProperty.getType(), property.getType()));
           writeComplexValue(metadata, property, (EdmComplexType) edmProperty.getType(), property.asComplex().getValue(),
-              selectedPaths, xml10InvalidCharReplacement, writer);
+              selection, xml10InvalidCharReplacement, writer);
         }
       } else {
         throw new SerializerException("Property type not yet supported!",
@@ -794,7 +791,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
   }
 
   private void writeComplexCollection(final ServiceMetadata metadata,
-      final EdmComplexType type, final Property property, final Set<List<String>> selectedPaths,
+      final EdmComplexType type, final Property property, final SelectionTree selection,
       final String xml10InvalidCharReplacement, final XMLStreamWriter writer)
       throws XMLStreamException, SerializerException {
     for (Object value : property.asCollection()) {
@@ -805,7 +802,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
       switch (property.getValueType()) {
       case COLLECTION_COMPLEX:
         writeComplexValue(metadata, property, type,
-            ((ComplexValue) value).getValue(), selectedPaths,
+            ((ComplexValue) value).getValue(), selection,
             xml10InvalidCharReplacement, writer);
         break;
       default:
@@ -860,7 +857,7 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
 
   protected void writeComplexValue(final ServiceMetadata metadata,
       Property complexProperty, final EdmComplexType type,
-      final List<Property> properties, final Set<List<String>> selectedPaths,
+      final List<Property> properties, final SelectionTree selection,
       final String xml10InvalidCharReplacement, final XMLStreamWriter writer)
       throws XMLStreamException, SerializerException {
 
@@ -869,9 +866,9 @@ public class ODataXmlSerializer extends AbstractODataSerializer {
     
     for (final String propertyName : resolvedType.getPropertyNames()) {
       final Property property = findProperty(propertyName, properties);
-      if (selectedPaths == null || ExpandSelectHelper.isSelected(selectedPaths, propertyName)) {
+      if (selection == null || selection.isSelected(propertyName)) {
         writeProperty(metadata, (EdmProperty) resolvedType.getProperty(propertyName), property,
-            selectedPaths == null ? null : ExpandSelectHelper.getReducedSelectedPaths(selectedPaths, propertyName),
+            selection == null ? null : selection.getChild(propertyName),
             xml10InvalidCharReplacement, writer);
       }
     }
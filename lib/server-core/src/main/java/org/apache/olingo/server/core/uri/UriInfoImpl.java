@@ -38,6 +38,7 @@ import org.apache.olingo.server.api.uri.UriInfoResource;
 import org.apache.olingo.server.api.uri.UriInfoService;
 import org.apache.olingo.server.api.uri.UriResource;
 import org.apache.olingo.server.api.uri.queryoption.AliasQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
 import org.apache.olingo.server.api.uri.queryoption.CountOption;
 import org.apache.olingo.server.api.uri.queryoption.CustomQueryOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
@@ -195,6 +196,7 @@ public class UriInfoImpl implements UriInfo {
     case SKIPTOKEN:
     case TOP:
     case LEVELS:
+    case APPLY:
       systemQueryOptions.put(systemQueryOptionKind, systemOption);
       break;
     default:
@@ -258,6 +260,11 @@ public class UriInfoImpl implements UriInfo {
     return (TopOption) systemQueryOptions.get(SystemQueryOptionKind.TOP);
   }
 
+  @Override
+  public ApplyOption getApplyOption() {
+    return (ApplyOption) systemQueryOptions.get(SystemQueryOptionKind.APPLY);
+  }
+
   @Override
   public List<SystemQueryOption> getSystemQueryOptions() {
     return Collections.unmodifiableList(new ArrayList<SystemQueryOption>(systemQueryOptions.values()));
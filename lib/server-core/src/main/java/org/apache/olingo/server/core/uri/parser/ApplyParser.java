@@ -0,0 +1,212 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.parser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmElement;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.queryoption.AliasQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression;
+import org.apache.olingo.server.api.uri.queryoption.apply.AggregateExpression.StandardMethod;
+import org.apache.olingo.server.api.uri.queryoption.apply.ApplyItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.core.uri.UriResourceComplexPropertyImpl;
+import org.apache.olingo.server.core.uri.UriResourceNavigationPropertyImpl;
+import org.apache.olingo.server.core.uri.UriResourcePrimitivePropertyImpl;
+import org.apache.olingo.server.core.uri.parser.UriTokenizer.TokenKind;
+import org.apache.olingo.server.core.uri.queryoption.ApplyOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.apply.AggregateExpressionImpl;
+import org.apache.olingo.server.core.uri.queryoption.apply.AggregateImpl;
+import org.apache.olingo.server.core.uri.queryoption.apply.FilterImpl;
+import org.apache.olingo.server.core.uri.queryoption.apply.GroupByImpl;
+import org.apache.olingo.server.core.uri.queryoption.apply.GroupByItemImpl;
+import org.apache.olingo.server.core.uri.validator.UriValidationException;
+
+/**
+ * Parses the system query option $apply of the OData Data Aggregation extension.
+ * Supported are the transformations aggregate (with the standard aggregation methods
+ * and the virtual property $count), groupby, and filter.
+ */
+public class ApplyParser {
+
+  private static final Set<EdmPrimitiveTypeKind> NUMERIC_KINDS = EnumSet.of(
+      EdmPrimitiveTypeKind.Byte, EdmPrimitiveTypeKind.SByte,
+      EdmPrimitiveTypeKind.Int16, EdmPrimitiveTypeKind.Int32, EdmPrimitiveTypeKind.Int64,
+      EdmPrimitiveTypeKind.Decimal, EdmPrimitiveTypeKind.Single, EdmPrimitiveTypeKind.Double);
+
+  private final Edm edm;
+  private final OData odata;
+
+  public ApplyParser(final Edm edm, final OData odata) {
+    this.edm = edm;
+    this.odata = odata;
+  }
+
+  public ApplyOption parse(UriTokenizer tokenizer, final EdmStructuredType referencedType,
+      final Collection<String> crossjoinEntitySetNames, final Map<String, AliasQueryOption> aliases)
+      throws UriParserException, UriValidationException {
+    ApplyOptionImpl option = new ApplyOptionImpl();
+    do {
+      option.add(parseTransformation(tokenizer, referencedType, crossjoinEntitySetNames, aliases));
+    } while (tokenizer.next(TokenKind.SLASH));
+    return option;
+  }
+
+  private ApplyItem parseTransformation(UriTokenizer tokenizer, final EdmStructuredType referencedType,
+      final Collection<String> crossjoinEntitySetNames, final Map<String, AliasQueryOption> aliases)
+      throws UriParserException, UriValidationException {
+    if (tokenizer.next(TokenKind.AggregateTrafo)) {
+      AggregateImpl aggregate = new AggregateImpl();
+      do {
+        aggregate.addExpression(
+            parseAggregateExpression(tokenizer, referencedType, crossjoinEntitySetNames, aliases));
+      } while (tokenizer.next(TokenKind.COMMA));
+      ParserHelper.requireNext(tokenizer, TokenKind.CLOSE);
+      return aggregate;
+
+    } else if (tokenizer.next(TokenKind.GroupByTrafo)) {
+      GroupByImpl groupBy = new GroupByImpl();
+      ParserHelper.requireNext(tokenizer, TokenKind.OPEN);
+      do {
+        groupBy.addGroupByItem(new GroupByItemImpl().setPath(parseGroupingPath(tokenizer, referencedType)));
+      } while (tokenizer.next(TokenKind.COMMA));
+      ParserHelper.requireNext(tokenizer, TokenKind.CLOSE);
+      if (tokenizer.next(TokenKind.COMMA)) {
+        groupBy.setApplyOption(parse(tokenizer, referencedType, crossjoinEntitySetNames, aliases));
+      }
+      ParserHelper.requireNext(tokenizer, TokenKind.CLOSE);
+      return groupBy;
+
+    } else if (tokenizer.next(TokenKind.FilterTrafo)) {
+      final FilterImpl filter = new FilterImpl().setFilterOption(
+          new FilterParser(edm, odata).parse(tokenizer, referencedType, crossjoinEntitySetNames, aliases));
+      ParserHelper.requireNext(tokenizer, TokenKind.CLOSE);
+      return filter;
+
+    } else {
+      throw new UriParserSyntaxException("Invalid $apply transformation.",
+          UriParserSyntaxException.MessageKeys.SYNTAX);
+    }
+  }
+
+  private AggregateExpression parseAggregateExpression(UriTokenizer tokenizer,
+      final EdmStructuredType referencedType, final Collection<String> crossjoinEntitySetNames,
+      final Map<String, AliasQueryOption> aliases) throws UriParserException, UriValidationException {
+    AggregateExpressionImpl aggregateExpression = new AggregateExpressionImpl();
+    if (tokenizer.next(TokenKind.COUNT)) {
+      ParserHelper.requireNext(tokenizer, TokenKind.AsOperator);
+      ParserHelper.requireNext(tokenizer, TokenKind.ODataIdentifier);
+      return aggregateExpression.setAlias(tokenizer.getText());
+    }
+
+    final Expression expression = new ExpressionParser(edm, odata)
+        .parse(tokenizer, referencedType, crossjoinEntitySetNames, aliases);
+    ParserHelper.requireNext(tokenizer, TokenKind.WithOperator);
+    final StandardMethod method = parseStandardMethod(tokenizer);
+    if (method == StandardMethod.SUM || method == StandardMethod.AVERAGE) {
+      final EdmType type = ExpressionParser.getType(expression);
+      if (type != null && !isNumeric(type)) {
+        throw new UriParserSemanticException("Aggregation method " + method + " needs a numeric expression.",
+            UriParserSemanticException.MessageKeys.TYPES_NOT_COMPATIBLE,
+            "Edm.Decimal", type.getFullQualifiedName().getFullQualifiedNameAsString());
+      }
+    }
+    ParserHelper.requireNext(tokenizer, TokenKind.AsOperator);
+    ParserHelper.requireNext(tokenizer, TokenKind.ODataIdentifier);
+    return aggregateExpression.setExpression(expression).setStandardMethod(method).setAlias(tokenizer.getText());
+  }
+
+  private boolean isNumeric(final EdmType type) {
+    for (final EdmPrimitiveTypeKind kind : NUMERIC_KINDS) {
+      if (type.equals(odata.createPrimitiveTypeInstance(kind))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private StandardMethod parseStandardMethod(UriTokenizer tokenizer) throws UriParserException {
+    if (tokenizer.next(TokenKind.QualifiedName)) {
+      throw new UriParserSemanticException("Custom aggregation methods are not supported.",
+          UriParserSemanticException.MessageKeys.NOT_IMPLEMENTED, tokenizer.getText());
+    }
+    ParserHelper.requireNext(tokenizer, TokenKind.ODataIdentifier);
+    final String name = tokenizer.getText();
+    if ("sum".equals(name)) {
+      return StandardMethod.SUM;
+    } else if ("min".equals(name)) {
+      return StandardMethod.MIN;
+    } else if ("max".equals(name)) {
+      return StandardMethod.MAX;
+    } else if ("average".equals(name)) {
+      return StandardMethod.AVERAGE;
+    } else if ("countdistinct".equals(name)) {
+      return StandardMethod.COUNT_DISTINCT;
+    } else {
+      throw new UriParserSyntaxException("Unknown aggregation method '" + name + "'.",
+          UriParserSyntaxException.MessageKeys.SYNTAX);
+    }
+  }
+
+  /** Parses a path of single-valued properties and navigation properties ending with a primitive property. */
+  private List<UriResource> parseGroupingPath(UriTokenizer tokenizer, final EdmStructuredType referencedType)
+      throws UriParserException {
+    List<UriResource> path = new ArrayList<UriResource>();
+    EdmStructuredType type = referencedType;
+    while (true) {
+      ParserHelper.requireNext(tokenizer, TokenKind.ODataIdentifier);
+      final String name = tokenizer.getText();
+      final EdmElement element = type == null ? null : type.getProperty(name);
+      if (element == null) {
+        throw new UriParserSemanticException("Property '" + name + "' not found.",
+            UriParserSemanticException.MessageKeys.EXPRESSION_PROPERTY_NOT_IN_TYPE,
+            type == null ? "" : type.getFullQualifiedName().getFullQualifiedNameAsString(), name);
+      }
+      if (element.isCollection()) {
+        throw new UriParserSemanticException("Grouping by collections is not supported.",
+            UriParserSemanticException.MessageKeys.NOT_IMPLEMENTED, name);
+      }
+      if (element instanceof EdmNavigationProperty) {
+        path.add(new UriResourceNavigationPropertyImpl((EdmNavigationProperty) element));
+        type = ((EdmNavigationProperty) element).getType();
+      } else if (((EdmProperty) element).isPrimitive()) {
+        path.add(new UriResourcePrimitivePropertyImpl((EdmProperty) element));
+        return path;
+      } else {
+        path.add(new UriResourceComplexPropertyImpl((EdmProperty) element));
+        type = (EdmStructuredType) element.getType();
+      }
+      ParserHelper.requireNext(tokenizer, TokenKind.SLASH);
+    }
+  }
+}
@@ -38,6 +38,7 @@ import org.apache.olingo.server.api.uri.UriResourcePartTyped;
 import org.apache.olingo.server.api.uri.UriResourceRef;
 import org.apache.olingo.server.api.uri.UriResourceValue;
 import org.apache.olingo.server.api.uri.queryoption.AliasQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
 import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.FilterOption;
@@ -48,11 +49,13 @@ import org.apache.olingo.server.api.uri.queryoption.SearchOption;
 import org.apache.olingo.server.api.uri.queryoption.SelectOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
+import org.apache.olingo.server.api.uri.queryoption.apply.ApplyItem;
 import org.apache.olingo.server.core.uri.UriInfoImpl;
 import org.apache.olingo.server.core.uri.UriResourceStartingTypeFilterImpl;
 import org.apache.olingo.server.core.uri.parser.UriTokenizer.TokenKind;
 import org.apache.olingo.server.core.uri.parser.search.SearchParser;
 import org.apache.olingo.server.core.uri.queryoption.AliasQueryOptionImpl;
+import org.apache.olingo.server.core.uri.queryoption.ApplyOptionImpl;
 import org.apache.olingo.server.core.uri.queryoption.CountOptionImpl;
 import org.apache.olingo.server.core.uri.queryoption.ExpandOptionImpl;
 import org.apache.olingo.server.core.uri.queryoption.FilterOptionImpl;
@@ -214,6 +217,8 @@ public class Parser {
         contextUriInfo.getKind() == UriInfoKind.all, contextUriInfo.getEntitySetNames(),
         contextUriInfo.getAliasMap());
     parseSelectOption(contextUriInfo.getSelectOption(), contextType, contextIsCollection);
+    parseApplyOption(contextUriInfo.getApplyOption(), contextType,
+        contextUriInfo.getEntitySetNames(), contextUriInfo.getAliasMap());
 
     return contextUriInfo;
   }
@@ -290,6 +295,9 @@ public class Parser {
         }
         systemOption = new IdOptionImpl().setValue(optionValue);
         break;
+      case APPLY:
+        systemOption = new ApplyOptionImpl();
+        break;
       case LEVELS:
         throw new UriParserSyntaxException("System query option '$levels' is allowed only inside '$expand'!",
             UriParserSyntaxException.MessageKeys.SYSTEM_QUERY_OPTION_LEVELS_NOT_ALLOWED_HERE);
@@ -377,6 +385,23 @@ public class Parser {
     }
   }
 
+  private void parseApplyOption(ApplyOption applyOption, final EdmType contextType,
+      final List<String> entitySetNames, final Map<String, AliasQueryOption> aliases)
+      throws UriParserException, UriValidationException {
+    if (applyOption != null) {
+      final String optionValue = applyOption.getText();
+      UriTokenizer applyTokenizer = new UriTokenizer(optionValue);
+      final ApplyOption option = new ApplyParser(edm, odata).parse(applyTokenizer,
+          contextType instanceof EdmStructuredType ? (EdmStructuredType) contextType : null,
+          entitySetNames,
+          aliases);
+      checkOptionEOF(applyTokenizer, applyOption.getName(), optionValue);
+      for (final ApplyItem item : option.getApplyItems()) {
+        ((ApplyOptionImpl) applyOption).add(item);
+      }
+    }
+  }
+
   private void ensureLastSegment(final String segment, final int pos, final int size)
       throws UriParserSyntaxException {
     if (pos < size) {
@@ -159,7 +159,13 @@ public class UriTokenizer {
     YearMethod,
 
     AscSuffix,
-    DescSuffix
+    DescSuffix,
+
+    AggregateTrafo,
+    FilterTrafo,
+    GroupByTrafo,
+    WithOperator,
+    AsOperator
   }
 
   private final String parseString;
@@ -561,6 +567,23 @@ public class UriTokenizer {
     case DescSuffix:
       found = nextSuffix("desc");
       break;
+
+    // Transformations and keywords in $apply
+    case AggregateTrafo:
+      found = nextMethod("aggregate");
+      break;
+    case FilterTrafo:
+      found = nextMethod("filter");
+      break;
+    case GroupByTrafo:
+      found = nextMethod("groupby");
+      break;
+    case WithOperator:
+      found = nextBinaryOperator("with");
+      break;
+    case AsOperator:
+      found = nextBinaryOperator("as");
+      break;
     }
 
     if (found) {
@@ -20,8 +20,12 @@ package org.apache.olingo.server.core.uri.queryoption;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
 import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
 import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
 import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
@@ -29,6 +33,7 @@ import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 public class ExpandOptionImpl extends SystemQueryOptionImpl implements ExpandOption {
 
   private final List<ExpandItem> expandItems = new ArrayList<ExpandItem>();
+  private volatile Map<String, ExpandItem> expandItemsByName;
 
   public ExpandOptionImpl() {
     setKind(SystemQueryOptionKind.EXPAND);
@@ -36,10 +41,37 @@ public class ExpandOptionImpl extends SystemQueryOptionImpl implements ExpandOpt
 
   public void addExpandItem(final ExpandItem expandItem) {
     expandItems.add(expandItem);
+    expandItemsByName = null;
   }
 
   @Override
   public List<ExpandItem> getExpandItems() {
     return Collections.unmodifiableList(expandItems);
   }
+
+  /**
+   * Gets the expand item for a navigation property.
+   * The expand items are indexed by navigation-property name on first access.
+   * @param navigationPropertyName the name of the navigation property
+   * @return the first expand item for the navigation property or <code>null</code>
+   */
+  public ExpandItem getExpandItem(final String navigationPropertyName) {
+    Map<String, ExpandItem> index = expandItemsByName;
+    if (index == null) {
+      index = new HashMap<String, ExpandItem>();
+      for (final ExpandItem item : expandItems) {
+        if (item.getResourcePath() != null && !item.getResourcePath().getUriResourceParts().isEmpty()) {
+          final UriResource resource = item.getResourcePath().getUriResourceParts().get(0);
+          if (resource instanceof UriResourceNavigation) {
+            final String name = ((UriResourceNavigation) resource).getProperty().getName();
+            if (!index.containsKey(name)) {
+              index.put(name, item);
+            }
+          }
+        }
+      }
+      expandItemsByName = index;
+    }
+    return index.get(navigationPropertyName);
+  }
 }
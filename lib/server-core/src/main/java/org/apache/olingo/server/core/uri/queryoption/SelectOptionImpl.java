@@ -28,6 +28,8 @@ import org.apache.olingo.server.api.uri.queryoption.SystemQueryOptionKind;
 public class SelectOptionImpl extends SystemQueryOptionImpl implements SelectOption {
 
   private List<SelectItem> selectItems;
+  private volatile SelectionTree selectionTree;
+  private volatile boolean compiled = false;
 
   public SelectOptionImpl() {
     setKind(SystemQueryOptionKind.SELECT);
@@ -35,6 +37,7 @@ public class SelectOptionImpl extends SystemQueryOptionImpl implements SelectOpt
 
   public SelectOptionImpl setSelectItems(final List<SelectItem> selectItems) {
     this.selectItems = selectItems;
+    compiled = false;
     return this;
   }
 
@@ -43,4 +46,17 @@ public class SelectOptionImpl extends SystemQueryOptionImpl implements SelectOpt
     return selectItems == null ? Collections.<SelectItem> emptyList() : Collections.unmodifiableList(selectItems);
   }
 
+  /**
+   * Gets the selection tree; it is created on first access.
+   * @return the selection tree or <code>null</code> if all properties are selected
+   * @see SelectionTree#of(SelectOption)
+   */
+  public SelectionTree getSelectionTree() {
+    if (!compiled) {
+      selectionTree = SelectionTree.create(selectItems);
+      compiled = true;
+    }
+    return selectionTree;
+  }
+
 }
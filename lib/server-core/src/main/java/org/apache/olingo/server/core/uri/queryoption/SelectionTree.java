@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+
+/**
+ * <p>Compiled form of the selected properties of a $select system query option.</p>
+ * <p>Each node describes the selection within one structured value: it maps the names of the selected
+ * properties to the selection within their values, or to <code>null</code> if a property is selected
+ * completely. Lookups are therefore hash lookups, without scanning the select items for each entity
+ * and for each complex value.</p>
+ */
+public final class SelectionTree {
+
+  private final Map<String, SelectionTree> children = new HashMap<String, SelectionTree>();
+
+  private SelectionTree() {}
+
+  /**
+   * Gets the selection tree of a $select system query option.
+   * Trees of options created by the URI parser are created only once.
+   * @param select the $select system query option; may be <code>null</code>
+   * @return the selection tree or <code>null</code> if all properties are selected
+   */
+  public static SelectionTree of(final SelectOption select) {
+    return select instanceof SelectOptionImpl ?
+        ((SelectOptionImpl) select).getSelectionTree() :
+        select == null ? null : create(select.getSelectItems());
+  }
+
+  /**
+   * Creates the selection tree for the given select items.
+   * @param selectItems the select items
+   * @return the selection tree or <code>null</code> if all properties are selected
+   */
+  public static SelectionTree create(final List<SelectItem> selectItems) {
+    if (selectItems == null || selectItems.isEmpty()) {
+      return null;
+    }
+    SelectionTree root = new SelectionTree();
+    for (final SelectItem item : selectItems) {
+      if (item.isStar()) {
+        return null;
+      }
+      if (item.getResourcePath() == null) {
+        continue;
+      }
+      final List<UriResource> parts = item.getResourcePath().getUriResourceParts();
+      if (!parts.isEmpty() && parts.get(0) instanceof UriResourceProperty) {
+        root.add(parts);
+      }
+    }
+    return root;
+  }
+
+  private void add(final List<UriResource> parts) {
+    SelectionTree node = this;
+    for (int i = 0; i < parts.size(); i++) {
+      if (!(parts.get(i) instanceof UriResourceProperty)) {
+        continue;
+      }
+      final String name = ((UriResourceProperty) parts.get(i)).getProperty().getName();
+      final boolean known = node.children.containsKey(name);
+      SelectionTree child = node.children.get(name);
+      if (known && child == null) {
+        // The property has already been selected completely.
+        return;
+      }
+      if (!hasPropertyAfter(parts, i)) {
+        node.children.put(name, null);
+        return;
+      }
+      if (child == null) {
+        child = new SelectionTree();
+        node.children.put(name, child);
+      }
+      node = child;
+    }
+  }
+
+  private static boolean hasPropertyAfter(final List<UriResource> parts, final int index) {
+    for (final UriResource part : parts.subList(index + 1, parts.size())) {
+      if (part instanceof UriResourceProperty) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Determines whether a property is selected, completely or partially.
+   * @param propertyName the name of the property
+   */
+  public boolean isSelected(final String propertyName) {
+    return children.containsKey(propertyName);
+  }
+
+  /**
+   * Gets the selection within the value of a property.
+   * @param propertyName the name of the property
+   * @return the selection tree or <code>null</code> if the property is selected completely
+   */
+  public SelectionTree getChild(final String propertyName) {
+    return children.get(propertyName);
+  }
+
+  /** Gets the names of the selected properties. */
+  public Set<String> getSelectedPropertyNames() {
+    return Collections.unmodifiableSet(children.keySet());
+  }
+}
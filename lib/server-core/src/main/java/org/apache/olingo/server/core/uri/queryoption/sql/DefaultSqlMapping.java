@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmReferentialConstraint;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * Name-based {@link SqlMapping}: tables are named like entity types, columns like properties
+ * (nested properties joined by an underscore), and joins follow the referential constraints
+ * of the navigation property or of its partner.
+ */
+public class DefaultSqlMapping implements SqlMapping {
+
+  @Override
+  public String getTableName(final EdmEntityType entityType) {
+    return entityType.getName();
+  }
+
+  @Override
+  public String getColumnName(final EdmEntityType entityType, final List<EdmProperty> propertyPath) {
+    StringBuilder result = new StringBuilder();
+    for (final EdmProperty property : propertyPath) {
+      if (result.length() > 0) {
+        result.append('_');
+      }
+      result.append(property.getName());
+    }
+    return result.toString();
+  }
+
+  @Override
+  public Map<String, String> getJoinColumns(final EdmEntityType sourceType,
+      final EdmNavigationProperty navigationProperty) throws ODataApplicationException {
+    final EdmEntityType targetType = navigationProperty.getType();
+    Map<String, String> result = new LinkedHashMap<String, String>();
+    if (!navigationProperty.getReferentialConstraints().isEmpty()) {
+      for (final EdmReferentialConstraint constraint : navigationProperty.getReferentialConstraints()) {
+        result.put(getColumnName(sourceType, constraint.getPropertyName()),
+            getColumnName(targetType, constraint.getReferencedPropertyName()));
+      }
+    } else if (navigationProperty.getPartner() != null
+        && !navigationProperty.getPartner().getReferentialConstraints().isEmpty()) {
+      for (final EdmReferentialConstraint constraint : navigationProperty.getPartner().getReferentialConstraints()) {
+        result.put(getColumnName(sourceType, constraint.getReferencedPropertyName()),
+            getColumnName(targetType, constraint.getPropertyName()));
+      }
+    } else {
+      throw new ODataApplicationException("No referential constraint found for navigation property '"
+          + navigationProperty.getName() + "'.",
+          HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+    }
+    return result;
+  }
+
+  private String getColumnName(final EdmEntityType entityType, final String path) throws ODataApplicationException {
+    List<EdmProperty> propertyPath = new ArrayList<EdmProperty>();
+    EdmStructuredType type = entityType;
+    for (final String name : path.split("/")) {
+      final EdmProperty property = type == null ? null : type.getStructuralProperty(name);
+      if (property == null) {
+        throw new ODataApplicationException("Property '" + path + "' not found in type '"
+            + entityType.getFullQualifiedName().getFullQualifiedNameAsString() + "'.",
+            HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode(), Locale.ROOT);
+      }
+      propertyPath.add(property);
+      type = property.getType() instanceof EdmStructuredType ? (EdmStructuredType) property.getType() : null;
+    }
+    return getColumnName(entityType, propertyPath);
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assembles a {@link SqlFragment} while keeping SQL text and bind variables in sync.
+ */
+public class SqlBuilder {
+
+  private final StringBuilder sql = new StringBuilder();
+  private final List<Object> parameters = new ArrayList<Object>();
+
+  public SqlBuilder append(final String text) {
+    sql.append(text);
+    return this;
+  }
+
+  public SqlBuilder append(final SqlFragment fragment) {
+    sql.append(fragment.getSql());
+    parameters.addAll(fragment.getParameters());
+    return this;
+  }
+
+  public SqlBuilder appendParameter(final Object value) {
+    sql.append('?');
+    parameters.add(value);
+    return this;
+  }
+
+  public boolean isEmpty() {
+    return sql.length() == 0;
+  }
+
+  public SqlFragment build() {
+    return new SqlFragment(sql.toString(), parameters);
+  }
+
+  @Override
+  public String toString() {
+    return sql.toString();
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.Constants;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.AliasQueryOption;
+
+/**
+ * State shared by all parts of one translation: dialect, mapping, parameter aliases,
+ * and the generator for unique table aliases.
+ */
+class SqlContext {
+
+  /** A table occurrence in a statement. */
+  static class Table {
+    private final EdmEntityType entityType;
+    private final String alias;
+
+    Table(final EdmEntityType entityType, final String alias) {
+      this.entityType = entityType;
+      this.alias = alias;
+    }
+
+    EdmEntityType getEntityType() {
+      return entityType;
+    }
+
+    String getAlias() {
+      return alias;
+    }
+  }
+
+  private final SqlDialect dialect;
+  private final SqlMapping mapping;
+  private final Map<String, AliasQueryOption> aliases;
+  private final String aliasPrefix;
+  private int aliasCounter = 0;
+
+  SqlContext(final SqlDialect dialect, final SqlMapping mapping, final Iterable<AliasQueryOption> aliases,
+      final String aliasPrefix) {
+    this.dialect = dialect;
+    this.mapping = mapping;
+    if (aliases == null) {
+      this.aliases = Collections.emptyMap();
+    } else {
+      this.aliases = new HashMap<String, AliasQueryOption>();
+      for (final AliasQueryOption alias : aliases) {
+        this.aliases.put(alias.getName(), alias);
+      }
+    }
+    this.aliasPrefix = aliasPrefix;
+  }
+
+  SqlDialect getDialect() {
+    return dialect;
+  }
+
+  SqlMapping getMapping() {
+    return mapping;
+  }
+
+  AliasQueryOption getAlias(final String name) {
+    return aliases.get(name);
+  }
+
+  Table newTable(final EdmEntityType entityType) {
+    return new Table(entityType, aliasPrefix + aliasCounter++);
+  }
+
+  String getTableSql(final Table table) {
+    return dialect.quoteIdentifier(mapping.getTableName(table.getEntityType())) + ' ' + table.getAlias();
+  }
+
+  String getColumnSql(final Table table, final String column) {
+    return table.getAlias() + '.' + dialect.quoteIdentifier(column);
+  }
+
+  /**
+   * Converts a literal in URI syntax into a bind-variable value.
+   */
+  Object getParameterValue(final EdmPrimitiveType type, final String literal) throws ODataApplicationException {
+    final EdmPrimitiveTypeKind kind = EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName());
+    final Class<?> parameterType = kind == null ? null : dialect.getParameterType(kind);
+    try {
+      return type.valueOfString(type.fromUriLiteral(literal),
+          null, null, Constants.DEFAULT_PRECISION, Constants.DEFAULT_SCALE, null,
+          parameterType == null ? type.getDefaultType() : parameterType);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Illegal literal '" + literal + "'.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  /**
+   * Converts a value in the default Java type of the primitive type into a bind-variable value.
+   */
+  Object getParameterValue(final EdmPrimitiveType type, final Object value) throws ODataApplicationException {
+    final EdmPrimitiveTypeKind kind = EdmPrimitiveTypeKind.valueOfFQN(type.getFullQualifiedName());
+    final Class<?> parameterType = kind == null ? null : dialect.getParameterType(kind);
+    if (parameterType == null || parameterType.isInstance(value)) {
+      return value;
+    }
+    try {
+      return type.valueOfString(
+          type.valueToString(value, null, null, Constants.DEFAULT_PRECISION, Constants.DEFAULT_SCALE, null),
+          null, null, Constants.DEFAULT_PRECISION, Constants.DEFAULT_SCALE, null, parameterType);
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Illegal value '" + value + "'.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+  }
+
+  String getJoinSql(final Table source, final EdmNavigationProperty navigationProperty, final Table target)
+      throws ODataApplicationException {
+    StringBuilder result = new StringBuilder();
+    for (final Map.Entry<String, String> columns
+        : mapping.getJoinColumns(source.getEntityType(), navigationProperty).entrySet()) {
+      if (result.length() > 0) {
+        result.append(" AND ");
+      }
+      result.append(getColumnSql(source, columns.getKey()))
+          .append(" = ")
+          .append(getColumnSql(target, columns.getValue()));
+    }
+    return result.toString();
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * <p>Renders the database-specific parts of SQL statements created by the {@link SqlTranslator}.</p>
+ * <p>This default implementation produces ANSI SQL:2008;
+ * subclasses override single methods to adapt the output to other databases.</p>
+ */
+public class SqlDialect {
+
+  /**
+   * Quotes an identifier, e.g., a table or column name.
+   * @param identifier the unquoted identifier
+   * @return the identifier in quoted form
+   */
+  public String quoteIdentifier(final String identifier) {
+    return '"' + identifier.replace("\"", "\"\"") + '"';
+  }
+
+  /**
+   * Determines the Java type used to bind literals of the given primitive type.
+   * @param kind the primitive-type kind
+   * @return a Java class supported by the primitive type and the JDBC driver,
+   *         or <code>null</code> to use the primitive type's default
+   */
+  public Class<?> getParameterType(final EdmPrimitiveTypeKind kind) {
+    switch (kind) {
+    case Date:
+      return Date.class;
+    case TimeOfDay:
+      return Time.class;
+    case DateTimeOffset:
+      return Timestamp.class;
+    default:
+      return null;
+    }
+  }
+
+  /**
+   * @return the character used to escape wildcards in LIKE patterns
+   */
+  public char getLikeEscapeCharacter() {
+    return '\\';
+  }
+
+  public SqlFragment renderBinaryOperator(final BinaryOperatorKind operator,
+      final SqlFragment left, final SqlFragment right) throws ODataApplicationException {
+    switch (operator) {
+    case AND:
+      return infix(left, "AND", right);
+    case OR:
+      return infix(left, "OR", right);
+    case EQ:
+      return infix(left, "=", right);
+    case NE:
+      return notEqual(left, right);
+    case GT:
+      return infix(left, ">", right);
+    case GE:
+      return infix(left, ">=", right);
+    case LT:
+      return infix(left, "<", right);
+    case LE:
+      return infix(left, "<=", right);
+    case ADD:
+      return infix(left, "+", right);
+    case SUB:
+      return infix(left, "-", right);
+    case MUL:
+      return infix(left, "*", right);
+    case DIV:
+      return infix(left, "/", right);
+    case MOD:
+      return function("MOD", left, right);
+    default:
+      throw notImplemented(operator.name());
+    }
+  }
+
+  public SqlFragment renderUnaryOperator(final UnaryOperatorKind operator, final SqlFragment operand)
+      throws ODataApplicationException {
+    switch (operator) {
+    case NOT:
+      // In OData, a comparison with a null value is false, not unknown, so its negation is true.
+      return renderNotTrue(operand);
+    case MINUS:
+      return new SqlBuilder().append("(-").append(operand).append(")").build();
+    default:
+      throw notImplemented(operator.name());
+    }
+  }
+
+  public SqlFragment renderMethod(final MethodKind method, final List<SqlFragment> parameters)
+      throws ODataApplicationException {
+    switch (method) {
+    case CONTAINS:
+      return like(parameters.get(0), parameters.get(1), true, true);
+    case STARTSWITH:
+      return like(parameters.get(0), parameters.get(1), false, true);
+    case ENDSWITH:
+      return like(parameters.get(0), parameters.get(1), true, false);
+    case LENGTH:
+      return function("CHAR_LENGTH", parameters.get(0));
+    case INDEXOF:
+      return new SqlBuilder().append("(POSITION(").append(parameters.get(1)).append(" IN ")
+          .append(parameters.get(0)).append(") - 1)").build();
+    case SUBSTRING:
+      final SqlBuilder substring = new SqlBuilder().append("SUBSTRING(").append(parameters.get(0))
+          .append(" FROM ").append(parameters.get(1)).append(" + 1");
+      if (parameters.size() > 2) {
+        substring.append(" FOR ").append(parameters.get(2));
+      }
+      return substring.append(")").build();
+    case TOLOWER:
+      return function("LOWER", parameters.get(0));
+    case TOUPPER:
+      return function("UPPER", parameters.get(0));
+    case TRIM:
+      return function("TRIM", parameters.get(0));
+    case CONCAT:
+      return infix(parameters.get(0), "||", parameters.get(1));
+    case YEAR:
+    case MONTH:
+    case DAY:
+    case HOUR:
+    case MINUTE:
+    case SECOND:
+      return new SqlBuilder().append("EXTRACT(").append(method.name()).append(" FROM ")
+          .append(parameters.get(0)).append(")").build();
+    case DATE:
+      return new SqlBuilder().append("CAST(").append(parameters.get(0)).append(" AS DATE)").build();
+    case TIME:
+      return new SqlBuilder().append("CAST(").append(parameters.get(0)).append(" AS TIME)").build();
+    case NOW:
+      return new SqlFragment("CURRENT_TIMESTAMP");
+    case ROUND:
+      return new SqlBuilder().append("ROUND(").append(parameters.get(0)).append(", 0)").build();
+    case FLOOR:
+      return function("FLOOR", parameters.get(0));
+    case CEILING:
+      return function("CEILING", parameters.get(0));
+    default:
+      throw notImplemented(method.name());
+    }
+  }
+
+  /**
+   * Renders a condition that holds if the given condition is false or unknown, i.e., not true.
+   * A CASE expression is used instead of <code>IS NOT TRUE</code>, which not all databases support.
+   * @param condition the condition
+   * @return the negated condition
+   */
+  public SqlFragment renderNotTrue(final SqlFragment condition) {
+    return new SqlBuilder().append("(CASE WHEN ").append(condition).append(" THEN 0 ELSE 1 END = 1)").build();
+  }
+
+  /**
+   * Appends the paging clause to a SELECT statement.
+   * @param statement the statement, already containing an ORDER BY clause
+   * @param top the maximum number of rows or <code>null</code>
+   * @param skip the number of rows to skip or <code>null</code>
+   */
+  public void appendPaging(final SqlBuilder statement, final Integer top, final Integer skip) {
+    if (skip != null) {
+      statement.append(" OFFSET ").appendParameter(skip).append(" ROWS");
+    }
+    if (top != null) {
+      statement.append(" FETCH FIRST ").appendParameter(top).append(" ROWS ONLY");
+    }
+  }
+
+  /**
+   * Determines whether <code>null</code> values are sorted before all other values in ascending order
+   * and after them in descending order, with the null ordering of {@link #getNullOrdering(boolean)}.
+   * This is needed to position pages in server-driven paging.
+   * @return <code>true</code> if <code>null</code> is sorted as the lowest value
+   */
+  public boolean areNullsSortedLow() {
+    return true;
+  }
+
+  /**
+   * Gets the null ordering appended to an ORDER BY item of a nullable column in server-driven paging.
+   * Dialects for databases without explicit null ordering return an empty string
+   * and report the natural null ordering of the database in {@link #areNullsSortedLow()}.
+   * @param descending whether the item is sorted in descending order
+   * @return the null ordering, with leading space
+   */
+  public String getNullOrdering(final boolean descending) {
+    return descending ? " NULLS LAST" : " NULLS FIRST";
+  }
+
+  /**
+   * Renders a null-safe inequality: in OData, a <code>null</code> value differs from every other value.
+   * A literal operand is bound as parameter and is never <code>null</code>,
+   * so comparing to it needs only an additional <code>IS NULL</code> test of the other operand.
+   * @param left the left operand
+   * @param right the right operand
+   * @return a condition that is true if the operands differ
+   */
+  protected SqlFragment notEqual(final SqlFragment left, final SqlFragment right) {
+    if (left.isParameter() || right.isParameter()) {
+      final SqlFragment other = left.isParameter() ? right : left;
+      return new SqlBuilder().append("(").append(left).append(" <> ").append(right)
+          .append(" OR ").append(other).append(" IS NULL)").build();
+    }
+    return infix(left, "IS DISTINCT FROM", right);
+  }
+
+  protected SqlFragment like(final SqlFragment value, final SqlFragment pattern,
+      final boolean leadingWildcard, final boolean trailingWildcard) {
+    final SqlBuilder result = new SqlBuilder().append("(").append(value).append(" LIKE ");
+    if (pattern.isParameter() && pattern.getParameters().get(0) instanceof String) {
+      result.appendParameter((leadingWildcard ? "%" : "")
+          + escapeLikePattern((String) pattern.getParameters().get(0))
+          + (trailingWildcard ? "%" : ""))
+          .append(" ESCAPE '").append(String.valueOf(getLikeEscapeCharacter())).append("')");
+    } else {
+      result.append(leadingWildcard ? "'%' || " : "").append(pattern).append(trailingWildcard ? " || '%'" : "")
+          .append(")");
+    }
+    return result.build();
+  }
+
+  protected String escapeLikePattern(final String pattern) {
+    final char escape = getLikeEscapeCharacter();
+    StringBuilder result = new StringBuilder(pattern.length());
+    for (int i = 0; i < pattern.length(); i++) {
+      final char c = pattern.charAt(i);
+      if (c == '%' || c == '_' || c == escape) {
+        result.append(escape);
+      }
+      result.append(c);
+    }
+    return result.toString();
+  }
+
+  protected static SqlFragment infix(final SqlFragment left, final String operator, final SqlFragment right) {
+    return new SqlBuilder().append("(").append(left).append(" ").append(operator).append(" ").append(right)
+        .append(")").build();
+  }
+
+  protected static SqlFragment function(final String name, final SqlFragment... arguments) {
+    SqlBuilder result = new SqlBuilder().append(name).append("(");
+    for (int i = 0; i < arguments.length; i++) {
+      if (i > 0) {
+        result.append(", ");
+      }
+      result.append(arguments[i]);
+    }
+    return result.append(")").build();
+  }
+
+  protected static ODataApplicationException notImplemented(final String what) {
+    return new ODataApplicationException("SQL translation of '" + what + "' is not implemented.",
+        HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), Locale.ROOT);
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmEnumType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeException;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmType;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceCount;
+import org.apache.olingo.server.api.uri.UriResourceIt;
+import org.apache.olingo.server.api.uri.UriResourceLambdaAll;
+import org.apache.olingo.server.api.uri.UriResourceLambdaAny;
+import org.apache.olingo.server.api.uri.UriResourceLambdaVariable;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.queryoption.AliasQueryOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.BinaryOperatorKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitor;
+import org.apache.olingo.server.api.uri.queryoption.expression.Literal;
+import org.apache.olingo.server.api.uri.queryoption.expression.Member;
+import org.apache.olingo.server.api.uri.queryoption.expression.MethodKind;
+import org.apache.olingo.server.api.uri.queryoption.expression.UnaryOperatorKind;
+
+/**
+ * Translates an expression tree into a SQL condition or value expression with bind variables.
+ * Lambda operators on collection-valued navigation properties become (NOT) EXISTS sub-selects,
+ * members reached over single-valued navigation properties become scalar sub-selects.
+ */
+public class SqlExpressionVisitor implements ExpressionVisitor<SqlFragment> {
+
+  /** The <code>null</code> literal; it needs special treatment in comparisons. */
+  static final SqlFragment NULL = new SqlFragment("NULL");
+
+  private final SqlContext context;
+  private final SqlContext.Table table;
+  private final Map<String, SqlContext.Table> lambdaVariables;
+
+  SqlExpressionVisitor(final SqlContext context, final SqlContext.Table table,
+      final Map<String, SqlContext.Table> lambdaVariables) {
+    this.context = context;
+    this.table = table;
+    this.lambdaVariables = lambdaVariables;
+  }
+
+  @Override
+  public SqlFragment visitBinaryOperator(final BinaryOperatorKind operator, final SqlFragment left,
+      final SqlFragment right) throws ExpressionVisitException, ODataApplicationException {
+    if ((operator == BinaryOperatorKind.EQ || operator == BinaryOperatorKind.NE)
+        && (left == NULL || right == NULL)) {
+      return new SqlBuilder().append("(").append(left == NULL ? right : left)
+          .append(operator == BinaryOperatorKind.EQ ? " IS NULL)" : " IS NOT NULL)").build();
+    }
+    return context.getDialect().renderBinaryOperator(operator, left, right);
+  }
+
+  @Override
+  public SqlFragment visitUnaryOperator(final UnaryOperatorKind operator, final SqlFragment operand)
+      throws ExpressionVisitException, ODataApplicationException {
+    return context.getDialect().renderUnaryOperator(operator, operand);
+  }
+
+  @Override
+  public SqlFragment visitMethodCall(final MethodKind methodCall, final List<SqlFragment> parameters)
+      throws ExpressionVisitException, ODataApplicationException {
+    return context.getDialect().renderMethod(methodCall, parameters);
+  }
+
+  @Override
+  public SqlFragment visitLambdaExpression(final String lambdaFunction, final String lambdaVariable,
+      final Expression expression) throws ExpressionVisitException, ODataApplicationException {
+    // The parser represents lambda expressions as last segment of a member; see visitMember.
+    throw SqlDialect.notImplemented(lambdaFunction);
+  }
+
+  @Override
+  public SqlFragment visitLiteral(final Literal literal) throws ExpressionVisitException, ODataApplicationException {
+    final EdmType type = literal.getType();
+    if (type == null && "null".equals(literal.getText())) {
+      return NULL;
+    } else if (type instanceof EdmPrimitiveType) {
+      return new SqlBuilder()
+          .appendParameter(context.getParameterValue((EdmPrimitiveType) type, literal.getText()))
+          .build();
+    } else {
+      throw SqlDialect.notImplemented(literal.getText());
+    }
+  }
+
+  @Override
+  public SqlFragment visitMember(final Member member) throws ExpressionVisitException, ODataApplicationException {
+    if (member.getStartTypeFilter() != null) {
+      throw SqlDialect.notImplemented(member.toString());
+    }
+    final List<UriResource> parts = member.getResourcePath().getUriResourceParts();
+    SqlContext.Table start = table;
+    int index = 0;
+    if (parts.get(0) instanceof UriResourceLambdaVariable) {
+      start = lambdaVariables.get(((UriResourceLambdaVariable) parts.get(0)).getVariableName());
+      if (start == null) {
+        throw SqlDialect.notImplemented(member.toString());
+      }
+      index++;
+    } else if (parts.get(0) instanceof UriResourceIt) {
+      index++;
+    }
+
+    List<EdmNavigationProperty> navigationPath = new ArrayList<EdmNavigationProperty>();
+    List<EdmProperty> propertyPath = new ArrayList<EdmProperty>();
+    for (; index < parts.size(); index++) {
+      final UriResource part = parts.get(index);
+      final boolean isLast = index == parts.size() - 1;
+      if (part instanceof UriResourceNavigation && propertyPath.isEmpty()) {
+        final UriResourceNavigation navigation = (UriResourceNavigation) part;
+        if (!navigation.getKeyPredicates().isEmpty()
+            || navigation.getTypeFilterOnCollection() != null || navigation.getTypeFilterOnEntry() != null) {
+          throw SqlDialect.notImplemented(member.toString());
+        }
+        navigationPath.add(navigation.getProperty());
+      } else if (part instanceof UriResourceProperty && !((UriResourceProperty) part).isCollection()) {
+        propertyPath.add(((UriResourceProperty) part).getProperty());
+      } else if ((part instanceof UriResourceLambdaAny || part instanceof UriResourceLambdaAll)
+          && isLast && propertyPath.isEmpty() && !navigationPath.isEmpty()) {
+        return lambda(start, navigationPath, part);
+      } else if (part instanceof UriResourceCount && isLast && propertyPath.isEmpty() && !navigationPath.isEmpty()) {
+        final SqlBuilder result = new SqlBuilder().append("(SELECT COUNT(*)");
+        appendNavigation(result, start, navigationPath);
+        return result.append(")").build();
+      } else {
+        throw SqlDialect.notImplemented(member.toString());
+      }
+    }
+    if (propertyPath.isEmpty()) {
+      throw SqlDialect.notImplemented(member.toString());
+    }
+
+    if (navigationPath.isEmpty()) {
+      return new SqlFragment(getColumnSql(start, propertyPath));
+    } else {
+      for (final EdmNavigationProperty navigationProperty : navigationPath) {
+        if (navigationProperty.isCollection()) {
+          throw SqlDialect.notImplemented(member.toString());
+        }
+      }
+      SqlBuilder from = new SqlBuilder();
+      final SqlContext.Table target = appendNavigation(from, start, navigationPath);
+      return new SqlBuilder().append("(SELECT ").append(getColumnSql(target, propertyPath))
+          .append(from.build()).append(")").build();
+    }
+  }
+
+  @Override
+  public SqlFragment visitAlias(final String aliasName) throws ExpressionVisitException, ODataApplicationException {
+    final AliasQueryOption alias = context.getAlias(aliasName);
+    if (alias == null || alias.getValue() == null) {
+      throw new ODataApplicationException("Alias '" + aliasName + "' has no value.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT);
+    }
+    return alias.getValue().accept(this);
+  }
+
+  @Override
+  public SqlFragment visitTypeLiteral(final EdmType type) throws ExpressionVisitException, ODataApplicationException {
+    throw SqlDialect.notImplemented(type.getFullQualifiedName().getFullQualifiedNameAsString());
+  }
+
+  @Override
+  public SqlFragment visitLambdaReference(final String variableName)
+      throws ExpressionVisitException, ODataApplicationException {
+    throw SqlDialect.notImplemented(variableName);
+  }
+
+  @Override
+  public SqlFragment visitEnum(final EdmEnumType type, final List<String> enumValues)
+      throws ExpressionVisitException, ODataApplicationException {
+    Long result = null;
+    try {
+      for (final String enumValue : enumValues) {
+        final Long value = type.valueOfString(enumValue, null, null, null, null, null, Long.class);
+        result = result == null ? value : result | value;
+      }
+    } catch (final EdmPrimitiveTypeException e) {
+      throw new ODataApplicationException("Illegal enum value.",
+          HttpStatusCode.BAD_REQUEST.getStatusCode(), Locale.ROOT, e);
+    }
+    return new SqlBuilder().appendParameter(result).build();
+  }
+
+  private SqlFragment lambda(final SqlContext.Table start, final List<EdmNavigationProperty> navigationPath,
+      final UriResource lambda) throws ExpressionVisitException, ODataApplicationException {
+    final boolean isAll = lambda instanceof UriResourceLambdaAll;
+    final String variable = isAll ?
+        ((UriResourceLambdaAll) lambda).getLambdaVariable() :
+        ((UriResourceLambdaAny) lambda).getLambdaVariable();
+    final Expression expression = isAll ?
+        ((UriResourceLambdaAll) lambda).getExpression() :
+        ((UriResourceLambdaAny) lambda).getExpression();
+
+    SqlBuilder result = new SqlBuilder().append(isAll ? "(NOT EXISTS (SELECT 1" : "(EXISTS (SELECT 1");
+    final SqlContext.Table target = appendNavigation(result, start, navigationPath);
+    if (expression != null) {
+      Map<String, SqlContext.Table> variables = new HashMap<String, SqlContext.Table>(lambdaVariables);
+      variables.put(variable, target);
+      final SqlFragment predicate = expression.accept(new SqlExpressionVisitor(context, table, variables));
+      // For all, entities must not be excluded because the predicate is unknown (SQL NULL) for them.
+      result.append(" AND ").append(isAll ?
+          context.getDialect().renderNotTrue(predicate) :
+          new SqlBuilder().append("(").append(predicate).append(")").build());
+    }
+    return result.append("))").build();
+  }
+
+  /**
+   * Appends FROM and WHERE clauses selecting the targets of a navigation path,
+   * correlated to the given start table.
+   * @return the table occurrence of the last navigation target
+   */
+  SqlContext.Table appendNavigation(SqlBuilder builder, final SqlContext.Table start,
+      final List<EdmNavigationProperty> navigationPath) throws ODataApplicationException {
+    SqlContext.Table previous = start;
+    String correlation = null;
+    for (final EdmNavigationProperty navigationProperty : navigationPath) {
+      final SqlContext.Table next = context.newTable(navigationProperty.getType());
+      if (correlation == null) {
+        builder.append(" FROM ").append(context.getTableSql(next));
+        correlation = context.getJoinSql(previous, navigationProperty, next);
+      } else {
+        builder.append(" INNER JOIN ").append(context.getTableSql(next))
+            .append(" ON ").append(context.getJoinSql(previous, navigationProperty, next));
+      }
+      previous = next;
+    }
+    builder.append(" WHERE ").append(correlation);
+    return previous;
+  }
+
+  private String getColumnSql(final SqlContext.Table target, final List<EdmProperty> propertyPath) {
+    return context.getColumnSql(target,
+        context.getMapping().getColumnName(target.getEntityType(), propertyPath));
+  }
+}
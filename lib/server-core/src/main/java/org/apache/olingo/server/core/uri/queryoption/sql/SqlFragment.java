@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable piece of SQL text together with the values of its bind variables
+ * in the order of their <code>?</code> placeholders.
+ */
+public final class SqlFragment {
+
+  private final String sql;
+  private final List<Object> parameters;
+
+  public SqlFragment(final String sql) {
+    this(sql, Collections.<Object> emptyList());
+  }
+
+  public SqlFragment(final String sql, final List<Object> parameters) {
+    this.sql = sql;
+    this.parameters = Collections.unmodifiableList(new ArrayList<Object>(parameters));
+  }
+
+  /**
+   * @return the SQL text with <code>?</code> placeholders
+   */
+  public String getSql() {
+    return sql;
+  }
+
+  /**
+   * @return the bind-variable values in placeholder order
+   */
+  public List<Object> getParameters() {
+    return parameters;
+  }
+
+  /**
+   * @return <code>true</code> if this fragment consists of a single bind variable only
+   */
+  public boolean isParameter() {
+    return parameters.size() == 1 && "?".equals(sql);
+  }
+
+  @Override
+  public String toString() {
+    return parameters.isEmpty() ? sql : sql + " " + parameters;
+  }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.server.api.ODataApplicationException;
+
+/**
+ * Maps the entity data model onto relational tables.
+ * All returned names are unquoted; quoting is done by the {@link SqlDialect}.
+ */
+public interface SqlMapping {
+
+  /**
+   * @param entityType an entity type
+   * @return name of the table holding the entities of the given type
+   */
+  String getTableName(EdmEntityType entityType);
+
+  /**
+   * Gets the column for a primitive property; properties nested in complex properties are flattened.
+   * @param entityType the entity type owning the first property of the path
+   * @param propertyPath path of structural properties, ending with a primitive property
+   * @return name of the column
+   */
+  String getColumnName(EdmEntityType entityType, List<EdmProperty> propertyPath);
+
+  /**
+   * Gets the columns joining the tables of source and target of a navigation property.
+   * @param sourceType the entity type owning the navigation property
+   * @param navigationProperty the navigation property
+   * @return ordered map from column names of the source table to column names of the target table
+   * @throws ODataApplicationException if the navigation property cannot be expressed as a join
+   */
+  Map<String, String> getJoinColumns(EdmEntityType sourceType, EdmNavigationProperty navigationProperty)
+      throws ODataApplicationException;
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of the {@link SqlTranslator}: the SELECT statement for the addressed resource,
+ * an optional statement counting all matching rows, and one query per expanded navigation property
+ * loading the related rows of all matching entities at once.
+ */
+public class SqlQuery {
+
+  private final SqlFragment statement;
+  private final SqlFragment countStatement;
+  private final List<String> columns;
+  private final Map<String, SqlQuery> expandedQueries;
+
+  SqlQuery(final SqlFragment statement, final SqlFragment countStatement, final List<String> columns,
+      final Map<String, SqlQuery> expandedQueries) {
+    this.statement = statement;
+    this.countStatement = countStatement;
+    this.columns = Collections.unmodifiableList(columns);
+    this.expandedQueries = Collections.unmodifiableMap(expandedQueries);
+  }
+
+  /**
+   * @return the SELECT statement
+   */
+  public SqlFragment getStatement() {
+    return statement;
+  }
+
+  /**
+   * @return the statement counting all rows matching the filter regardless of paging,
+   *         or <code>null</code> if no count has been requested
+   */
+  public SqlFragment getCountStatement() {
+    return countStatement;
+  }
+
+  /**
+   * @return the (unquoted) names of the selected columns in the order of the SELECT list
+   */
+  public List<String> getColumns() {
+    return columns;
+  }
+
+  /**
+   * Gets the queries for expanded navigation properties.
+   * Each query selects the join columns, too, so that the rows can be assigned to their parents.
+   * The queries load the related entities of all parents in the page, or of all parents matching the filter
+   * if there is no paging.
+   * @return map from navigation-property names to queries
+   */
+  public Map<String, SqlQuery> getExpandedQueries() {
+    return expandedQueries;
+  }
+
+  @Override
+  public String toString() {
+    return statement.toString();
+  }
+}
@@ -0,0 +1,564 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.olingo.commons.api.edm.EdmComplexType;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmKeyPropertyRef;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveType;
+import org.apache.olingo.commons.api.edm.EdmProperty;
+import org.apache.olingo.commons.api.edm.EdmStructuredType;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.paging.SeekKey;
+import org.apache.olingo.server.api.paging.SkipTokenException;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriInfoResource;
+import org.apache.olingo.server.api.uri.UriParameter;
+import org.apache.olingo.server.api.uri.UriResource;
+import org.apache.olingo.server.api.uri.UriResourceCount;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.api.uri.UriResourceNavigation;
+import org.apache.olingo.server.api.uri.UriResourceProperty;
+import org.apache.olingo.server.api.uri.UriResourceRef;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.api.uri.queryoption.FilterOption;
+import org.apache.olingo.server.api.uri.queryoption.OrderByItem;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.api.uri.queryoption.SelectItem;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.api.uri.queryoption.expression.ExpressionVisitException;
+import org.apache.olingo.server.core.paging.SkipTokenHelperImpl;
+
+/**
+ * <p>Translates the resource path and the system query options of a request
+ * into parameterized SQL statements so that filtering, sorting, projection, and paging
+ * are executed by the database.</p>
+ * <p>Supported are resource paths consisting of an entity set followed by navigation properties,
+ * each optionally with key predicates, and optionally ending with <code>$count</code> or <code>$ref</code>,
+ * together with <code>$filter</code>, <code>$orderby</code>, <code>$select</code>, <code>$expand</code>,
+ * <code>$top</code>, <code>$skip</code>, and <code>$count</code>,
+ * as well as server-driven paging with skip tokens.
+ * Everything else results in an {@link ODataApplicationException} with status 501 (Not Implemented)
+ * so that applications can fall back to their own evaluation.</p>
+ * <p>Instances are immutable and can be shared between threads.</p>
+ */
+public class SqlTranslator {
+
+  private static final String TABLE_ALIAS_PREFIX = "t";
+
+  private final SqlDialect dialect;
+  private final SqlMapping mapping;
+
+  public SqlTranslator(final SqlDialect dialect, final SqlMapping mapping) {
+    this.dialect = dialect;
+    this.mapping = mapping;
+  }
+
+  /**
+   * Translates the request into SQL statements.
+   * @param uriInfo the parsed request URI
+   * @return the translated query
+   * @throws ODataApplicationException if the request cannot be translated
+   * @throws ExpressionVisitException if an expression cannot be traversed
+   */
+  public SqlQuery translate(final UriInfo uriInfo) throws ODataApplicationException, ExpressionVisitException {
+    return translate(uriInfo, false, null, null);
+  }
+
+  /**
+   * <p>Translates the request into SQL statements for one page of server-driven paging
+   * with skip tokens (keyset pagination).</p>
+   * <p>The entities are sorted by the properties in <code>$orderby</code> followed by the key properties,
+   * and the page starts directly after the given position so that the database can seek to it
+   * instead of skipping all rows of the previous pages.
+   * The statement returns up to <code>pageSize + 1</code> rows; an additional row indicates
+   * that a next page exists, and the last row of the page provides the skip token for it.
+   * Client-driven paging with <code>$top</code> or <code>$skip</code> is not supported in combination.</p>
+   * @param uriInfo the parsed request URI
+   * @param position the position as parsed from the skip token of the request
+   *                 or <code>null</code> for the first page
+   * @param pageSize the maximum number of entities in a page
+   * @return the translated query
+   * @throws ODataApplicationException if the request cannot be translated
+   * @throws ExpressionVisitException if an expression cannot be traversed
+   * @see org.apache.olingo.server.api.paging.SkipTokenHelper
+   */
+  public SqlQuery translate(final UriInfo uriInfo, final List<SeekKey> position, final int pageSize)
+      throws ODataApplicationException, ExpressionVisitException {
+    if (uriInfo.getTopOption() != null) {
+      throw SqlDialect.notImplemented("$top with server-driven paging");
+    }
+    if (uriInfo.getSkipOption() != null) {
+      throw SqlDialect.notImplemented("$skip with server-driven paging");
+    }
+    return translate(uriInfo, true, position, pageSize);
+  }
+
+  private SqlQuery translate(final UriInfo uriInfo, final boolean keyset, final List<SeekKey> position,
+      final Integer pageSize) throws ODataApplicationException, ExpressionVisitException {
+    final List<UriResource> parts = uriInfo.getUriResourceParts();
+    if (parts.isEmpty() || !(parts.get(0) instanceof UriResourceEntitySet)) {
+      throw SqlDialect.notImplemented(parts.toString());
+    }
+    if (uriInfo.getSearchOption() != null) {
+      throw SqlDialect.notImplemented("$search");
+    }
+    final SqlContext context = new SqlContext(dialect, mapping, uriInfo.getAliases(), TABLE_ALIAS_PREFIX);
+
+    final UriResource lastPart = parts.get(parts.size() - 1);
+    final boolean isCount = lastPart instanceof UriResourceCount;
+    final boolean isRef = lastPart instanceof UriResourceRef;
+    final List<UriResource> entityParts = isCount || isRef ? parts.subList(0, parts.size() - 1) : parts;
+
+    final UriResourceEntitySet entitySetPart = (UriResourceEntitySet) entityParts.get(0);
+    if (entitySetPart.getTypeFilterOnCollection() != null || entitySetPart.getTypeFilterOnEntry() != null) {
+      throw SqlDialect.notImplemented(entitySetPart.toString());
+    }
+    List<EdmNavigationProperty> navigationPath = new ArrayList<EdmNavigationProperty>();
+    List<List<UriParameter>> keyPredicates = new ArrayList<List<UriParameter>>();
+    keyPredicates.add(entitySetPart.getKeyPredicates());
+    for (final UriResource part : entityParts.subList(1, entityParts.size())) {
+      if (part instanceof UriResourceNavigation
+          && ((UriResourceNavigation) part).getTypeFilterOnCollection() == null
+          && ((UriResourceNavigation) part).getTypeFilterOnEntry() == null) {
+        navigationPath.add(((UriResourceNavigation) part).getProperty());
+        keyPredicates.add(((UriResourceNavigation) part).getKeyPredicates());
+      } else {
+        throw SqlDialect.notImplemented(part.toString());
+      }
+    }
+
+    // The addressed entities; a navigation path is expressed as correlated sub-select.
+    final SqlContext.Table table = context.newTable(navigationPath.isEmpty() ?
+        entitySetPart.getEntityType() :
+        navigationPath.get(navigationPath.size() - 1).getType());
+    List<SqlFragment> conditions = new ArrayList<SqlFragment>();
+    if (!navigationPath.isEmpty()) {
+      conditions.add(getPathCondition(context, entitySetPart.getEntityType(), navigationPath, keyPredicates,
+          table, uriInfo));
+    }
+    conditions.addAll(getKeyConditions(context, table, keyPredicates.get(keyPredicates.size() - 1), uriInfo));
+    addFilterCondition(conditions, context, table, uriInfo.getFilterOption());
+
+    if (isCount) {
+      return new SqlQuery(getCountStatement(context, table, conditions), null, Collections.<String> emptyList(),
+          Collections.<String, SqlQuery> emptyMap());
+    }
+    final Collection<String> columns = isRef ?
+        getKeyColumns(table.getEntityType()) :
+        getColumns(table.getEntityType(), uriInfo.getSelectOption());
+    final boolean withCount = uriInfo.getCountOption() != null && uriInfo.getCountOption().getValue();
+    final ExpandOption expand = isRef ? null : uriInfo.getExpandOption();
+    if (keyset) {
+      List<SeekKey> order;
+      try {
+        order = position == null ?
+            SkipTokenHelperImpl.getOrder(table.getEntityType(), uriInfo.getOrderByOption()) :
+            position;
+      } catch (final SkipTokenException e) {
+        throw SqlDialect.notImplemented("$orderby with server-driven paging");
+      }
+      // The count is not restricted to the page.
+      final SqlFragment countStatement = withCount ? getCountStatement(context, table, conditions) : null;
+      List<SqlFragment> pageConditions = new ArrayList<SqlFragment>(conditions);
+      if (position != null) {
+        pageConditions.add(getSeekCondition(context, table, position));
+      }
+      List<SqlFragment> orderByItems = new ArrayList<SqlFragment>();
+      for (final SeekKey seekKey : order) {
+        final boolean nullable =
+            seekKey.getPropertyPath().get(seekKey.getPropertyPath().size() - 1).isNullable();
+        orderByItems.add(new SqlBuilder().append(getColumnSql(context, table, seekKey.getPropertyPath()))
+            .append(seekKey.isDescending() ? " DESC" : "")
+            .append(nullable ? dialect.getNullOrdering(seekKey.isDescending()) : "").build());
+      }
+      final SqlQuery query = createQuery(context, table, pageConditions, columns, orderByItems,
+          pageSize + 1, null, false, null);
+      // The additional row only indicates the next page; its related entities are not needed.
+      final Map<String, SqlQuery> expandedQueries =
+          getExpandedQueries(context, table, pageConditions, orderByItems, pageSize, null, expand);
+      return new SqlQuery(query.getStatement(), countStatement, query.getColumns(), expandedQueries);
+    }
+    return createQuery(context, table, conditions, columns,
+        getOrderByItems(context, table, uriInfo.getOrderByOption()),
+        uriInfo.getTopOption() == null ? null : uriInfo.getTopOption().getValue(),
+        uriInfo.getSkipOption() == null ? null : uriInfo.getSkipOption().getValue(),
+        withCount, expand);
+  }
+
+  /**
+   * Translates a single filter expression into a SQL condition.
+   * @param entityType the type of the entities the expression is evaluated on
+   * @param tableAlias the alias of the table holding these entities in the surrounding statement;
+   *                   sub-selects use aliases starting with this alias followed by an underscore
+   * @param expression the expression
+   * @return the SQL condition
+   * @throws ODataApplicationException if the expression cannot be translated
+   * @throws ExpressionVisitException if the expression cannot be traversed
+   */
+  public SqlFragment translateFilter(final EdmEntityType entityType, final String tableAlias,
+      final Expression expression) throws ODataApplicationException, ExpressionVisitException {
+    final SqlContext context = new SqlContext(dialect, mapping, null, tableAlias + '_');
+    return expression.accept(new SqlExpressionVisitor(context, new SqlContext.Table(entityType, tableAlias),
+        Collections.<String, SqlContext.Table> emptyMap()));
+  }
+
+  private SqlQuery createQuery(final SqlContext context, final SqlContext.Table table,
+      final List<SqlFragment> conditions, final Collection<String> columns, final List<SqlFragment> orderByItems,
+      final Integer top, final Integer skip, final boolean withCount, final ExpandOption expand)
+      throws ODataApplicationException, ExpressionVisitException {
+    SqlBuilder statement = new SqlBuilder().append("SELECT ");
+    boolean first = true;
+    for (final String column : columns) {
+      statement.append(first ? "" : ", ").append(context.getColumnSql(table, column));
+      first = false;
+    }
+    statement.append(" FROM ").append(context.getTableSql(table));
+    appendWhere(statement, conditions);
+
+    List<SqlFragment> order = new ArrayList<SqlFragment>(orderByItems);
+    if (order.isEmpty() && (top != null || skip != null)) {
+      // Paging needs a stable order.
+      for (final String column : getKeyColumns(table.getEntityType())) {
+        order.add(new SqlFragment(context.getColumnSql(table, column)));
+      }
+    }
+    for (int i = 0; i < order.size(); i++) {
+      statement.append(i == 0 ? " ORDER BY " : ", ").append(order.get(i));
+    }
+    if (top != null || skip != null) {
+      dialect.appendPaging(statement, top, skip);
+    }
+
+    return new SqlQuery(statement.build(),
+        withCount ? getCountStatement(context, table, conditions) : null,
+        new ArrayList<String>(columns),
+        getExpandedQueries(context, table, conditions, order, top, skip, expand));
+  }
+
+  private List<SqlFragment> getOrderByItems(final SqlContext context, final SqlContext.Table table,
+      final OrderByOption orderBy) throws ODataApplicationException, ExpressionVisitException {
+    List<SqlFragment> orderByItems = new ArrayList<SqlFragment>();
+    if (orderBy != null) {
+      final SqlExpressionVisitor visitor = new SqlExpressionVisitor(context, table,
+          Collections.<String, SqlContext.Table> emptyMap());
+      for (final OrderByItem item : orderBy.getOrders()) {
+        orderByItems.add(new SqlBuilder().append(item.getExpression().accept(visitor))
+            .append(item.isDescending() ? " DESC" : "").build());
+      }
+    }
+    return orderByItems;
+  }
+
+  /**
+   * Creates the queries for the expanded navigation properties of the parent rows
+   * selected by the given conditions and, if <code>top</code> or <code>skip</code> is given, the given page.
+   * @param order the order of the parent rows; needed only for paging
+   */
+  private Map<String, SqlQuery> getExpandedQueries(final SqlContext context, final SqlContext.Table table,
+      final List<SqlFragment> conditions, final List<SqlFragment> order, final Integer top, final Integer skip,
+      final ExpandOption expand) throws ODataApplicationException, ExpressionVisitException {
+    Map<String, SqlQuery> expandedQueries = new LinkedHashMap<String, SqlQuery>();
+    if (expand != null) {
+      for (final ExpandItem item : expand.getExpandItems()) {
+        final EdmNavigationProperty navigationProperty = getExpandedNavigationProperty(item);
+        expandedQueries.put(navigationProperty.getName(),
+            createExpandQuery(context, table, conditions, order, top, skip, navigationProperty, item));
+      }
+    }
+    return expandedQueries;
+  }
+
+  /**
+   * Gets the condition for all rows sorted after the given position:
+   * for one of the seek keys the row is sorted after the position value,
+   * and for all preceding seek keys the row has the position value.
+   */
+  private SqlFragment getSeekCondition(final SqlContext context, final SqlContext.Table table,
+      final List<SeekKey> position) throws ODataApplicationException {
+    SqlBuilder result = new SqlBuilder().append("(");
+    boolean first = true;
+    for (int i = 0; i < position.size(); i++) {
+      final SqlFragment after = getAfterCondition(context, table, position.get(i));
+      if (after == null) {
+        continue;
+      }
+      result.append(first ? "(" : " OR (");
+      for (final SeekKey previous : position.subList(0, i)) {
+        final String column = getColumnSql(context, table, previous.getPropertyPath());
+        if (previous.getValue() == null) {
+          result.append(column).append(" IS NULL AND ");
+        } else {
+          result.append(column).append(" = ")
+              .appendParameter(context.getParameterValue(getType(previous), previous.getValue())).append(" AND ");
+        }
+      }
+      result.append(after).append(")");
+      first = false;
+    }
+    return result.append(first ? "1 = 0)" : ")").build();
+  }
+
+  /** Gets the condition for rows sorted after the seek-key value or <code>null</code> if there are none. */
+  private SqlFragment getAfterCondition(final SqlContext context, final SqlContext.Table table,
+      final SeekKey seekKey) throws ODataApplicationException {
+    final String column = getColumnSql(context, table, seekKey.getPropertyPath());
+    final boolean nullsFirst = dialect.areNullsSortedLow() != seekKey.isDescending();
+    if (seekKey.getValue() == null) {
+      return nullsFirst ? new SqlFragment(column + " IS NOT NULL") : null;
+    }
+    final boolean nullable =
+        seekKey.getPropertyPath().get(seekKey.getPropertyPath().size() - 1).isNullable();
+    SqlBuilder result = new SqlBuilder().append(nullsFirst || !nullable ? "" : "(")
+        .append(column).append(seekKey.isDescending() ? " < " : " > ")
+        .appendParameter(context.getParameterValue(getType(seekKey), seekKey.getValue()));
+    if (!nullsFirst && nullable) {
+      result.append(" OR ").append(column).append(" IS NULL)");
+    }
+    return result.build();
+  }
+
+  private String getColumnSql(final SqlContext context, final SqlContext.Table table,
+      final List<EdmProperty> propertyPath) {
+    return context.getColumnSql(table, mapping.getColumnName(table.getEntityType(), propertyPath));
+  }
+
+  private EdmPrimitiveType getType(final SeekKey seekKey) {
+    return (EdmPrimitiveType) seekKey.getPropertyPath().get(seekKey.getPropertyPath().size() - 1).getType();
+  }
+
+  private SqlQuery createExpandQuery(final SqlContext context, final SqlContext.Table parent,
+      final List<SqlFragment> parentConditions, final List<SqlFragment> parentOrder,
+      final Integer parentTop, final Integer parentSkip, final EdmNavigationProperty navigationProperty,
+      final ExpandItem item) throws ODataApplicationException, ExpressionVisitException {
+    final SqlContext.Table table = context.newTable(navigationProperty.getType());
+    // Load the related entities of all parents with one statement.
+    SqlBuilder correlation = new SqlBuilder().append("EXISTS (SELECT 1 FROM ");
+    if (parentTop == null && parentSkip == null) {
+      correlation.append(context.getTableSql(parent)).append(" WHERE ");
+      for (final SqlFragment condition : parentConditions) {
+        correlation.append(condition).append(" AND ");
+      }
+    } else {
+      // Only the parents of the page: a derived table selects their join columns, under the parent's alias.
+      correlation.append("(SELECT ");
+      boolean first = true;
+      for (final String column : mapping.getJoinColumns(parent.getEntityType(), navigationProperty).keySet()) {
+        correlation.append(first ? "" : ", ").append(context.getColumnSql(parent, column));
+        first = false;
+      }
+      correlation.append(" FROM ").append(context.getTableSql(parent));
+      appendWhere(correlation, parentConditions);
+      for (int i = 0; i < parentOrder.size(); i++) {
+        correlation.append(i == 0 ? " ORDER BY " : ", ").append(parentOrder.get(i));
+      }
+      dialect.appendPaging(correlation, parentTop, parentSkip);
+      correlation.append(") ").append(parent.getAlias()).append(" WHERE ");
+    }
+    correlation.append(context.getJoinSql(parent, navigationProperty, table)).append(")");
+    List<SqlFragment> conditions = new ArrayList<SqlFragment>();
+    conditions.add(correlation.build());
+    addFilterCondition(conditions, context, table, item.getFilterOption());
+
+    Set<String> columns = new LinkedHashSet<String>(item.isRef() ?
+        getKeyColumns(table.getEntityType()) :
+        getColumns(table.getEntityType(), item.getSelectOption()));
+    columns.addAll(mapping.getJoinColumns(parent.getEntityType(), navigationProperty).values());
+    return createQuery(context, table, conditions, columns, getOrderByItems(context, table, item.getOrderByOption()),
+        null, null, false, item.getExpandOption());
+  }
+
+  private EdmNavigationProperty getExpandedNavigationProperty(final ExpandItem item)
+      throws ODataApplicationException {
+    // Paging and counting would have to be done per parent entity.
+    if (item.isStar() || item.getLevelsOption() != null || item.getStartTypeFilter() != null
+        || item.getTopOption() != null || item.getSkipOption() != null || item.getCountOption() != null
+        || item.hasCountPath() || item.getSearchOption() != null) {
+      throw SqlDialect.notImplemented("$expand");
+    }
+    final List<UriResource> parts = item.getResourcePath() == null ?
+        Collections.<UriResource> emptyList() :
+        item.getResourcePath().getUriResourceParts();
+    if (parts.size() != 1 || !(parts.get(0) instanceof UriResourceNavigation)) {
+      throw SqlDialect.notImplemented("$expand=" + parts);
+    }
+    final UriResourceNavigation navigation = (UriResourceNavigation) parts.get(0);
+    if (navigation.getTypeFilterOnCollection() != null || navigation.getTypeFilterOnEntry() != null) {
+      throw SqlDialect.notImplemented("$expand=" + parts);
+    }
+    return navigation.getProperty();
+  }
+
+  private SqlFragment getPathCondition(final SqlContext context, final EdmEntityType entityType,
+      final List<EdmNavigationProperty> navigationPath, final List<List<UriParameter>> keyPredicates,
+      final SqlContext.Table target, final UriInfoResource uriInfo) throws ODataApplicationException {
+    SqlBuilder result = new SqlBuilder().append("EXISTS (SELECT 1 FROM ");
+    List<SqlFragment> conditions = new ArrayList<SqlFragment>();
+    SqlContext.Table previous = context.newTable(entityType);
+    result.append(context.getTableSql(previous));
+    conditions.addAll(getKeyConditions(context, previous, keyPredicates.get(0), uriInfo));
+    for (int i = 0; i < navigationPath.size() - 1; i++) {
+      final SqlContext.Table next = context.newTable(navigationPath.get(i).getType());
+      result.append(" INNER JOIN ").append(context.getTableSql(next))
+          .append(" ON ").append(context.getJoinSql(previous, navigationPath.get(i), next));
+      conditions.addAll(getKeyConditions(context, next, keyPredicates.get(i + 1), uriInfo));
+      previous = next;
+    }
+    conditions.add(0, new SqlFragment(
+        context.getJoinSql(previous, navigationPath.get(navigationPath.size() - 1), target)));
+    appendWhere(result, conditions);
+    return result.append(")").build();
+  }
+
+  private List<SqlFragment> getKeyConditions(final SqlContext context, final SqlContext.Table table,
+      final List<UriParameter> keyPredicates, final UriInfoResource uriInfo) throws ODataApplicationException {
+    List<SqlFragment> conditions = new ArrayList<SqlFragment>();
+    for (final UriParameter key : keyPredicates) {
+      if (key.getReferencedProperty() != null) {
+        // The value is given by the referential constraint and therefore already implied by the join.
+        continue;
+      }
+      final EdmKeyPropertyRef keyPropertyRef = table.getEntityType().getKeyPropertyRef(key.getName());
+      final List<EdmProperty> propertyPath = getPropertyPath(table.getEntityType(), keyPropertyRef.getName());
+      final EdmProperty property = propertyPath.get(propertyPath.size() - 1);
+      final String text = key.getText() == null ? uriInfo.getValueForAlias(key.getAlias()) : key.getText();
+      conditions.add(new SqlBuilder()
+          .append(context.getColumnSql(table, mapping.getColumnName(table.getEntityType(), propertyPath)))
+          .append(" = ")
+          .appendParameter(context.getParameterValue((EdmPrimitiveType) property.getType(), text))
+          .build());
+    }
+    return conditions;
+  }
+
+  private void addFilterCondition(List<SqlFragment> conditions, final SqlContext context,
+      final SqlContext.Table table, final FilterOption filter)
+      throws ODataApplicationException, ExpressionVisitException {
+    if (filter != null && filter.getExpression() != null) {
+      conditions.add(filter.getExpression().accept(
+          new SqlExpressionVisitor(context, table, Collections.<String, SqlContext.Table> emptyMap())));
+    }
+  }
+
+  private SqlFragment getCountStatement(final SqlContext context, final SqlContext.Table table,
+      final List<SqlFragment> conditions) {
+    SqlBuilder result = new SqlBuilder().append("SELECT COUNT(*) FROM ").append(context.getTableSql(table));
+    appendWhere(result, conditions);
+    return result.build();
+  }
+
+  private void appendWhere(SqlBuilder statement, final List<SqlFragment> conditions) {
+    for (int i = 0; i < conditions.size(); i++) {
+      statement.append(i == 0 ? " WHERE " : " AND ").append(conditions.get(i));
+    }
+  }
+
+  private Collection<String> getKeyColumns(final EdmEntityType entityType) {
+    Set<String> columns = new LinkedHashSet<String>();
+    for (final EdmKeyPropertyRef keyPropertyRef : entityType.getKeyPropertyRefs()) {
+      columns.add(mapping.getColumnName(entityType, getPropertyPath(entityType, keyPropertyRef.getName())));
+    }
+    return columns;
+  }
+
+  private Collection<String> getColumns(final EdmEntityType entityType, final SelectOption select)
+      throws ODataApplicationException {
+    Set<String> columns = new LinkedHashSet<String>(getKeyColumns(entityType));
+    boolean all = select == null;
+    if (select != null) {
+      for (final SelectItem item : select.getSelectItems()) {
+        all |= item.isStar();
+      }
+    }
+    if (all) {
+      addColumns(columns, entityType, entityType, Collections.<EdmProperty> emptyList());
+      return columns;
+    }
+    for (final SelectItem item : select.getSelectItems()) {
+      if (item.isAllOperationsInSchema() || item.getResourcePath() == null) {
+        continue;
+      }
+      List<EdmProperty> propertyPath = new ArrayList<EdmProperty>();
+      for (final UriResource part : item.getResourcePath().getUriResourceParts()) {
+        if (part instanceof UriResourceProperty && !((UriResourceProperty) part).isCollection()) {
+          propertyPath.add(((UriResourceProperty) part).getProperty());
+        } else if (part instanceof UriResourceNavigation) {
+          // Selecting a navigation property does not need any column.
+          propertyPath.clear();
+          break;
+        } else {
+          throw SqlDialect.notImplemented("$select=" + item.getResourcePath().getUriResourceParts());
+        }
+      }
+      if (!propertyPath.isEmpty()) {
+        final EdmProperty last = propertyPath.get(propertyPath.size() - 1);
+        if (last.isPrimitive()) {
+          columns.add(mapping.getColumnName(entityType, propertyPath));
+        } else {
+          addColumns(columns, entityType, (EdmComplexType) last.getType(), propertyPath);
+        }
+      }
+    }
+    return columns;
+  }
+
+  /** Adds the columns of all single-valued primitive properties of a structured type, recursively. */
+  private void addColumns(Set<String> columns, final EdmEntityType entityType, final EdmStructuredType type,
+      final List<EdmProperty> path) {
+    for (final String name : type.getPropertyNames()) {
+      final EdmProperty property = type.getStructuralProperty(name);
+      if (property == null || property.isCollection()) {
+        continue;
+      }
+      List<EdmProperty> propertyPath = new ArrayList<EdmProperty>(path);
+      propertyPath.add(property);
+      if (property.isPrimitive()) {
+        columns.add(mapping.getColumnName(entityType, propertyPath));
+      } else if (property.getType() instanceof EdmComplexType) {
+        addColumns(columns, entityType, (EdmComplexType) property.getType(), propertyPath);
+      }
+    }
+  }
+
+  private List<EdmProperty> getPropertyPath(final EdmEntityType entityType, final String path) {
+    List<EdmProperty> propertyPath = new ArrayList<EdmProperty>();
+    EdmStructuredType type = entityType;
+    for (final String name : Arrays.asList(path.split("/"))) {
+      final EdmProperty property = type.getStructuralProperty(name);
+      propertyPath.add(property);
+      if (property.getType() instanceof EdmStructuredType) {
+        type = (EdmStructuredType) property.getType();
+      }
+    }
+    return propertyPath;
+  }
+}
@@ -20,6 +20,8 @@ package org.apache.olingo.server.core;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyListOf;
@@ -176,6 +178,45 @@ public class ContentNegotiatorTest {
     }
   }
 
+  @Test
+  public void cachedNegotiation() throws Exception {
+    ODataRequest request = new ODataRequest();
+    request.addHeader(HttpHeader.ACCEPT, Arrays.asList(ACCEPT_CASE_MIN_UTF8));
+    final ContentType first = ContentNegotiator.doContentNegotiation(null, request, null, RepresentationType.ENTITY);
+    assertSame(first, ContentNegotiator.doContentNegotiation(null, request, null, RepresentationType.ENTITY));
+
+    // The outcome depends on the supported content types; they are part of the cache key.
+    request = new ODataRequest();
+    request.addHeader(HttpHeader.ACCEPT, Arrays.asList(ACCEPT_CASE_WILDCARD1));
+    assertEquals(ContentType.JSON,
+        ContentNegotiator.doContentNegotiation(null, request, null, RepresentationType.ENTITY));
+    assertEquals(ContentType.create("a/a"), ContentNegotiator.doContentNegotiation(null, request,
+        createCustomContentTypeSupport("a/a"), RepresentationType.ENTITY));
+    assertEquals(ContentType.create("b/b"), ContentNegotiator.doContentNegotiation(null, request,
+        createCustomContentTypeSupport("b/b"), RepresentationType.ENTITY));
+
+    // Failures are not cached.
+    request = new ODataRequest();
+    request.addHeader(HttpHeader.ACCEPT, Arrays.asList("a/a"));
+    for (int i = 0; i < 2; i++) {
+      try {
+        ContentNegotiator.doContentNegotiation(null, request, null, RepresentationType.ENTITY);
+        fail("Exception expected.");
+      } catch (final ContentNegotiatorException e) {
+        assertEquals(ContentNegotiatorException.MessageKeys.UNSUPPORTED_ACCEPT_TYPES, e.getMessageKey());
+      }
+    }
+  }
+
+  @Test
+  public void parseContentType() throws Exception {
+    final ContentType contentType = ContentNegotiator.parseContentType(ACCEPT_CASE_MIN_UTF8);
+    assertEquals(ContentType.create(ACCEPT_CASE_MIN_UTF8), contentType);
+    assertSame(contentType, ContentNegotiator.parseContentType(ACCEPT_CASE_MIN_UTF8));
+    assertNull(ContentNegotiator.parseContentType("a"));
+    assertNull(ContentNegotiator.parseContentType(null));
+  }
+
   private void testContentNegotiation(final String[] useCase, final RepresentationType representationType)
       throws ContentNegotiatorException {
 
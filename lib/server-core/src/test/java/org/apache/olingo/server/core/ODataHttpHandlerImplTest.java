@@ -18,16 +18,30 @@
  */
 package org.apache.olingo.server.core;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.Arrays;
+
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.FileUtils;
+import org.apache.olingo.commons.api.http.HttpHeader;
 import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
 import org.apache.olingo.server.api.ODataLibraryException;
 import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.core.media.FileMediaContent;
 import org.junit.Test;
 
 public class ODataHttpHandlerImplTest {
@@ -164,4 +178,90 @@ public class ODataHttpHandlerImplTest {
       assertEquals(rawServiceResolutionUri, odr.getRawServiceResolutionUri());
     }
   }
+
+  @Test
+  public void parseRange() {
+    assertArrayEquals(new long[] { 0, 99 }, ODataHttpHandlerImpl.parseRange("bytes=0-99", 1000));
+    assertArrayEquals(new long[] { 500, 999 }, ODataHttpHandlerImpl.parseRange("bytes=500-", 1000));
+    assertArrayEquals(new long[] { 900, 999 }, ODataHttpHandlerImpl.parseRange("BYTES=900-2000", 1000));
+    assertArrayEquals(new long[] { 990, 999 }, ODataHttpHandlerImpl.parseRange("bytes=-10", 1000));
+    assertArrayEquals(new long[] { 0, 999 }, ODataHttpHandlerImpl.parseRange("bytes=-2000", 1000));
+    assertArrayEquals(new long[0], ODataHttpHandlerImpl.parseRange("bytes=1000-", 1000));
+    assertArrayEquals(new long[0], ODataHttpHandlerImpl.parseRange("bytes=-0", 1000));
+    assertArrayEquals(new long[0], ODataHttpHandlerImpl.parseRange("bytes=0-", 0));
+    assertNull(ODataHttpHandlerImpl.parseRange("bytes=10-5", 1000));
+    assertNull(ODataHttpHandlerImpl.parseRange("bytes=0-1,5-6", 1000));
+    assertNull(ODataHttpHandlerImpl.parseRange("bytes=a-b", 1000));
+    assertNull(ODataHttpHandlerImpl.parseRange("bytes=-", 1000));
+    assertNull(ODataHttpHandlerImpl.parseRange("items=0-9", 1000));
+  }
+
+  @Test
+  public void writeMediaContentRange() throws Exception {
+    final File file = File.createTempFile("media", ".bin");
+    try {
+      final byte[] media = new byte[300];
+      for (int i = 0; i < media.length; i++) {
+        media[i] = (byte) i;
+      }
+      FileUtils.writeByteArrayToFile(file, media);
+
+      ODataRequest request = new ODataRequest();
+      request.setMethod(HttpMethod.GET);
+      request.addHeader(HttpHeader.RANGE, "bytes=100-199");
+      ODataResponse response = createMediaResponse(file);
+      ByteArrayOutputStream sent = new ByteArrayOutputStream();
+      HttpServletResponse servletResponse = mockResponse(sent);
+      ODataHttpHandlerImpl.writeMediaContent(mock(HttpServletRequest.class), servletResponse, request, response);
+      verify(servletResponse).setStatus(HttpStatusCode.PARTIAL_CONTENT.getStatusCode());
+      verify(servletResponse).addHeader(HttpHeader.CONTENT_RANGE, "bytes 100-199/300");
+      verify(servletResponse).addHeader(HttpHeader.CONTENT_LENGTH, "100");
+      assertArrayEquals(Arrays.copyOfRange(media, 100, 200), sent.toByteArray());
+
+      // The representation has changed since the client got the range's entity tag.
+      request.addHeader(HttpHeader.IF_RANGE, "\"1\"");
+      response = createMediaResponse(file);
+      response.setHeader(HttpHeader.ETAG, "\"2\"");
+      sent = new ByteArrayOutputStream();
+      servletResponse = mockResponse(sent);
+      ODataHttpHandlerImpl.writeMediaContent(mock(HttpServletRequest.class), servletResponse, request, response);
+      verify(servletResponse).setStatus(HttpStatusCode.OK.getStatusCode());
+      verify(servletResponse).addHeader(HttpHeader.ACCEPT_RANGES, "bytes");
+      assertArrayEquals(media, sent.toByteArray());
+
+      // The container sends the file.
+      request = new ODataRequest();
+      request.setMethod(HttpMethod.GET);
+      request.addHeader(HttpHeader.RANGE, "bytes=-50");
+      HttpServletRequest servletRequest = mock(HttpServletRequest.class);
+      when(servletRequest.getAttribute("org.apache.tomcat.sendfile.support")).thenReturn(Boolean.TRUE);
+      sent = new ByteArrayOutputStream();
+      ODataHttpHandlerImpl.writeMediaContent(servletRequest, mockResponse(sent), request, createMediaResponse(file));
+      verify(servletRequest).setAttribute("org.apache.tomcat.sendfile.filename", file.getCanonicalPath());
+      verify(servletRequest).setAttribute("org.apache.tomcat.sendfile.start", 250L);
+      verify(servletRequest).setAttribute("org.apache.tomcat.sendfile.end", 300L);
+      assertEquals(0, sent.size());
+    } finally {
+      file.delete();
+    }
+  }
+
+  private static ODataResponse createMediaResponse(final File file) {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, "application/octet-stream");
+    response.setMediaContent(new FileMediaContent(file));
+    return response;
+  }
+
+  private static HttpServletResponse mockResponse(final ByteArrayOutputStream sent) throws Exception {
+    HttpServletResponse response = mock(HttpServletResponse.class);
+    when(response.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(final int b) {
+        sent.write(b);
+      }
+    });
+    return response;
+  }
 }
@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmProvider;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
+import org.apache.olingo.commons.api.edm.provider.CsdlSchema;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.ServiceMetadata;
+import org.junit.Test;
+
+public class ServiceMetadataRegistryTest {
+
+  @Test
+  public void identicalSchemasShareMetadata() throws Exception {
+    ServiceMetadataRegistry registry = new ServiceMetadataRegistry(Long.MAX_VALUE);
+    registry.register("a", new Provider("Namespace", "Product"), null, null);
+    registry.register("b", new Provider("Namespace", "Product"), Collections.<EdmxReference> emptyList(), null);
+    registry.register("c", new Provider("Namespace", "Category"), null, null);
+
+    final ServiceMetadata metadata = registry.getServiceMetadata("a");
+    assertNotNull(metadata.getEdm().getEntityType(new FullQualifiedName("Namespace", "Product")));
+    assertSame(metadata, registry.getServiceMetadata("b"));
+    assertNotSame(metadata, registry.getServiceMetadata("c"));
+    assertEquals(2, registry.getBuiltCount());
+    assertNull(registry.getServiceMetadata("unknown"));
+  }
+
+  @Test
+  public void evictLeastRecentlyUsed() throws Exception {
+    ServiceMetadataRegistry registry = new ServiceMetadataRegistry(0);
+    registry.register("a", new Provider("Namespace", "Product"), null, null);
+    registry.register("b", new Provider("Namespace", "Category"), null, null);
+
+    final ServiceMetadata metadata = registry.getServiceMetadata("a");
+    assertSame(metadata, registry.getServiceMetadata("a"));
+    registry.getServiceMetadata("b");
+    assertEquals(1, registry.getBuiltCount());
+
+    // The metadata of tenant "a" has been evicted and is built again.
+    final ServiceMetadata rebuilt = registry.getServiceMetadata("a");
+    assertNotSame(metadata, rebuilt);
+    assertNotNull(rebuilt.getEdm().getEntityType(new FullQualifiedName("Namespace", "Product")));
+    assertEquals(1, registry.getBuiltCount());
+  }
+
+  @Test
+  public void fingerprintOnFirstUse() throws Exception {
+    ServiceMetadataRegistry registry = new ServiceMetadataRegistry(Long.MAX_VALUE);
+    final Provider first = new Provider("Namespace", "Product");
+    final Provider second = new Provider("Namespace", "Product");
+    registry.register("a", first, null, null);
+    registry.register("b", second, null, null);
+    assertEquals(0, first.schemaRequests);
+    assertEquals(0, registry.getBuiltCount());
+
+    final ServiceMetadata metadata = registry.getServiceMetadata("a");
+    assertSame(metadata, registry.getServiceMetadata("b"));
+    assertEquals(1, registry.getBuiltCount());
+
+    // The shared metadata is built from copies of the schemas, not from the first tenant's provider.
+    registry.unregister("a");
+    first.schema.setEntityTypes(Collections.singletonList(new CsdlEntityType().setName("Changed")));
+    assertNotNull(metadata.getEdm().getEntityType(new FullQualifiedName("Namespace", "Product")));
+    assertNull(metadata.getEdm().getEntityType(new FullQualifiedName("Namespace", "Changed")));
+  }
+
+  private static class Provider extends CsdlAbstractEdmProvider {
+    private final CsdlSchema schema = new CsdlSchema();
+    private int schemaRequests;
+
+    Provider(final String namespace, final String entityTypeName) {
+      schema.setNamespace(namespace);
+      schema.setEntityTypes(Collections.singletonList(new CsdlEntityType().setName(entityTypeName)));
+    }
+
+    @Override
+    public List<CsdlSchema> getSchemas() {
+      schemaRequests++;
+      return Collections.singletonList(schema);
+    }
+
+    @Override
+    public CsdlEntityType getEntityType(final FullQualifiedName entityTypeName) {
+      return schema.getNamespace().equals(entityTypeName.getNamespace()) ?
+          schema.getEntityType(entityTypeName.getName()) : null;
+    }
+  }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.async;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.commons.api.format.ContentType;
+import org.apache.olingo.commons.api.http.HttpHeader;
+import org.apache.olingo.commons.api.http.HttpMethod;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.ODataRequest;
+import org.apache.olingo.server.api.ODataResponse;
+import org.apache.olingo.server.api.async.AsyncOptions;
+import org.apache.olingo.server.api.async.AsyncSupport;
+import org.junit.After;
+import org.junit.Test;
+
+public class AsyncSupportImplTest {
+
+  private static final String BASE_URI = "http://localhost/odata";
+
+  private AsyncSupportImpl asyncSupport;
+
+  @After
+  public void shutdown() {
+    if (asyncSupport != null) {
+      asyncSupport.shutdown();
+    }
+  }
+
+  @Test
+  public void preference() {
+    asyncSupport = new AsyncSupportImpl(AsyncOptions.with().build());
+    ODataRequest request = new ODataRequest();
+    assertFalse(asyncSupport.isAsyncRequested(request));
+    request.addHeader(HttpHeader.PREFER, Collections.singletonList("odata.maxpagesize=10,respond-async"));
+    assertTrue(asyncSupport.isAsyncRequested(request));
+
+    request.setRawODataPath("/$async/123");
+    assertTrue(asyncSupport.isStatusMonitor(request));
+    request.setRawODataPath("/ESAllPrim");
+    assertFalse(asyncSupport.isStatusMonitor(request));
+  }
+
+  @Test
+  public void processAndRetrieve() throws Exception {
+    asyncSupport = new AsyncSupportImpl(AsyncOptions.with().threads(1).build());
+    final CountDownLatch latch = new CountDownLatch(1);
+    final ODataResponse accepted = asyncSupport.submit(createRequest(), new TestTask() {
+      @Override
+      public ODataResponse process() throws Exception {
+        latch.await();
+        return createResponse("{\"value\":42}");
+      }
+    });
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), accepted.getStatusCode());
+    assertEquals("respond-async", accepted.getHeader(HttpHeader.PREFERENCE_APPLIED));
+    final String location = accepted.getHeader(HttpHeader.LOCATION);
+    assertTrue(location.startsWith(BASE_URI + "/$async/"));
+
+    ODataResponse monitor = asyncSupport.handleStatusMonitor(createMonitorRequest(HttpMethod.GET, location));
+    assertEquals(HttpStatusCode.ACCEPTED.getStatusCode(), monitor.getStatusCode());
+    assertEquals(location, monitor.getHeader(HttpHeader.LOCATION));
+
+    latch.countDown();
+    monitor = awaitResult(location);
+    assertEquals(HttpStatusCode.OK.getStatusCode(), monitor.getStatusCode());
+    assertEquals(ContentType.APPLICATION_HTTP.toContentTypeString(), monitor.getHeader(HttpHeader.CONTENT_TYPE));
+    assertEquals("HTTP/1.1 200 OK\r\n"
+        + "Content-Type: application/json\r\n"
+        + "\r\n"
+        + "{\"value\":42}",
+        IOUtils.toString(monitor.getContent(), "ISO-8859-1"));
+
+    // The result can be retrieved only once.
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+        asyncSupport.handleStatusMonitor(createMonitorRequest(HttpMethod.GET, location)).getStatusCode());
+    assertEquals(0, asyncSupport.getRequestCount());
+  }
+
+  @Test
+  public void cancel() throws Exception {
+    asyncSupport = new AsyncSupportImpl(AsyncOptions.with().threads(1).build());
+    final CountDownLatch started = new CountDownLatch(1);
+    final CountDownLatch interrupted = new CountDownLatch(1);
+    final String location = asyncSupport.submit(createRequest(), new TestTask() {
+      @Override
+      public ODataResponse process() throws Exception {
+        started.countDown();
+        try {
+          Thread.sleep(10000);
+        } catch (final InterruptedException e) {
+          interrupted.countDown();
+        }
+        return createResponse("late");
+      }
+    }).getHeader(HttpHeader.LOCATION);
+    assertEquals(1, asyncSupport.getRequestCount());
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+
+    assertEquals(HttpStatusCode.NO_CONTENT.getStatusCode(),
+        asyncSupport.handleStatusMonitor(createMonitorRequest(HttpMethod.DELETE, location)).getStatusCode());
+    assertEquals(0, asyncSupport.getRequestCount());
+    assertEquals(HttpStatusCode.NOT_FOUND.getStatusCode(),
+        asyncSupport.handleStatusMonitor(createMonitorRequest(HttpMethod.GET, location)).getStatusCode());
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void fullQueueRejects() throws Exception {
+    asyncSupport = new AsyncSupportImpl(AsyncOptions.with().threads(1).queueCapacity(1).build());
+    final CountDownLatch latch = new CountDownLatch(1);
+    final TestTask blocking = new TestTask() {
+      @Override
+      public ODataResponse process() throws Exception {
+        latch.await();
+        return createResponse("");
+      }
+    };
+    assertNotNull(asyncSupport.submit(createRequest(), blocking));
+    assertNotNull(asyncSupport.submit(createRequest(), blocking));
+    assertNull(asyncSupport.submit(createRequest(), blocking));
+    assertEquals(2, asyncSupport.getRequestCount());
+    latch.countDown();
+
+    // Finished requests free their places even before their results have been retrieved.
+    final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    ODataResponse accepted;
+    do {
+      Thread.sleep(10);
+      accepted = asyncSupport.submit(createRequest(), blocking);
+    } while (accepted == null && System.currentTimeMillis() < deadline);
+    assertNotNull(accepted);
+  }
+
+  @Test
+  public void exceptionIsSerialized() throws Exception {
+    asyncSupport = new AsyncSupportImpl(AsyncOptions.with().build());
+    final String location = asyncSupport.submit(createRequest(), new TestTask() {
+      @Override
+      public ODataResponse process() {
+        throw new IllegalStateException("failure");
+      }
+    }).getHeader(HttpHeader.LOCATION);
+    assertEquals("HTTP/1.1 500 Internal Server Error\r\n"
+        + "Content-Type: application/json\r\n"
+        + "\r\n"
+        + "{\"error\":\"failure\"}",
+        IOUtils.toString(awaitResult(location).getContent(), "ISO-8859-1"));
+  }
+
+  @Test
+  public void largeRequestBodyIsBuffered() throws Exception {
+    final File directory = new File(System.getProperty("java.io.tmpdir"));
+    asyncSupport = new AsyncSupportImpl(AsyncOptions.with().memoryThreshold(16).spillDirectory(directory).build());
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      content.append("0123456789");
+    }
+    final String body = content.toString();
+    final ODataRequest request = createRequest();
+    final ByteArrayInputStream original = new ByteArrayInputStream(body.getBytes());
+    request.setBody(original);
+    final String location = asyncSupport.submit(request, new TestTask() {
+      @Override
+      public ODataResponse process() throws Exception {
+        return createResponse(IOUtils.toString(request.getBody(), "ISO-8859-1"));
+      }
+    }).getHeader(HttpHeader.LOCATION);
+    // The body has been read before submit returns.
+    assertEquals(-1, original.read());
+    final String result = IOUtils.toString(awaitResult(location).getContent(), "ISO-8859-1");
+    assertTrue(result.endsWith("\r\n\r\n" + body));
+  }
+
+  @Test
+  public void largeResultSpillsToDisk() throws Exception {
+    final File directory = new File(System.getProperty("java.io.tmpdir"));
+    asyncSupport = new AsyncSupportImpl(AsyncOptions.with().memoryThreshold(16).spillDirectory(directory).build());
+    StringBuilder content = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      content.append("0123456789");
+    }
+    final String body = content.toString();
+    final String location = asyncSupport.submit(createRequest(), new TestTask() {
+      @Override
+      public ODataResponse process() {
+        return createResponse(body);
+      }
+    }).getHeader(HttpHeader.LOCATION);
+    final String result = IOUtils.toString(awaitResult(location).getContent(), "ISO-8859-1");
+    assertTrue(result.endsWith("\r\n\r\n" + body));
+
+    final ResultBuffer buffer = new ResultBuffer(4, directory);
+    buffer.write(new byte[] { 1, 2, 3 });
+    assertFalse(buffer.isSpilled());
+    buffer.write(new byte[] { 4, 5 });
+    assertTrue(buffer.isSpilled());
+    buffer.close();
+    assertEquals(5, buffer.size());
+    assertEquals(5, IOUtils.toByteArray(buffer.openStream()).length);
+    buffer.delete();
+  }
+
+  private ODataResponse awaitResult(final String location) throws InterruptedException {
+    final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+    ODataResponse monitor;
+    do {
+      Thread.sleep(10);
+      monitor = asyncSupport.handleStatusMonitor(createMonitorRequest(HttpMethod.GET, location));
+    } while (monitor.getStatusCode() == HttpStatusCode.ACCEPTED.getStatusCode()
+        && System.currentTimeMillis() < deadline);
+    return monitor;
+  }
+
+  private static ODataRequest createRequest() {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(HttpMethod.GET);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath("/ESAllPrim");
+    return request;
+  }
+
+  private static ODataRequest createMonitorRequest(final HttpMethod method, final String location) {
+    ODataRequest request = new ODataRequest();
+    request.setMethod(method);
+    request.setRawBaseUri(BASE_URI);
+    request.setRawODataPath(location.substring(BASE_URI.length()));
+    return request;
+  }
+
+  /** Task that answers exceptions with their message. */
+  private abstract static class TestTask implements AsyncSupport.Task {
+    @Override
+    public ODataResponse handleException(final Exception exception) {
+      ODataResponse response = createResponse("{\"error\":\"" + exception.getMessage() + "\"}");
+      response.setStatusCode(HttpStatusCode.INTERNAL_SERVER_ERROR.getStatusCode());
+      return response;
+    }
+  }
+
+  private static ODataResponse createResponse(final String body) {
+    ODataResponse response = new ODataResponse();
+    response.setStatusCode(HttpStatusCode.OK.getStatusCode());
+    response.setHeader(HttpHeader.CONTENT_TYPE, "application/json");
+    response.setContent(new ByteArrayInputStream(body.getBytes()));
+    return response;
+  }
+}
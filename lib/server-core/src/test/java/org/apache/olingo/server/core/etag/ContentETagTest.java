@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.etag;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.olingo.server.api.ODataContent;
+import org.apache.olingo.server.api.ODataResponse;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+public class ContentETagTest {
+
+  @Test
+  public void smallBody() throws Exception {
+    ODataResponse response = createResponse("0123456789");
+    final String eTag = ContentETag.compute(response, 10);
+    assertNotNull(eTag);
+    assertTrue(eTag.startsWith("W/\""));
+    assertEquals("0123456789", IOUtils.toString(response.getContent()));
+
+    response = createResponse("0123456789");
+    assertEquals(eTag, ContentETag.compute(response, 10));
+  }
+
+  @Test
+  public void largeBody() throws Exception {
+    final ODataResponse response = createResponse("0123456789A");
+    assertNull(ContentETag.compute(response, 10));
+    assertEquals("0123456789A", IOUtils.toString(response.getContent()));
+  }
+
+  @Test
+  public void noBody() throws Exception {
+    assertNull(ContentETag.compute(new ODataResponse()));
+    final ODataResponse response = new ODataResponse();
+    final ODataContent content = Mockito.mock(ODataContent.class);
+    response.setODataContent(content);
+    assertNull(ContentETag.compute(response));
+    Mockito.verifyZeroInteractions(content);
+  }
+
+  private static ODataResponse createResponse(final String body) {
+    ODataResponse response = new ODataResponse();
+    response.setContent(new ByteArrayInputStream(body.getBytes()));
+    return response;
+  }
+}
@@ -531,6 +531,36 @@ public class UriTokenizerTest {
     wrongToken(TokenKind.DescSuffix, " desc", 'D');
   }
 
+  @Test
+  public void apply() {
+    UriTokenizer tokenizer = new UriTokenizer("groupby((p1),aggregate(p2 with sum as a,$count as c))/filter(true)");
+    assertTrue(tokenizer.next(TokenKind.GroupByTrafo));
+    assertTrue(tokenizer.next(TokenKind.OPEN));
+    assertTrue(tokenizer.next(TokenKind.ODataIdentifier));
+    assertTrue(tokenizer.next(TokenKind.CLOSE));
+    assertTrue(tokenizer.next(TokenKind.COMMA));
+    assertTrue(tokenizer.next(TokenKind.AggregateTrafo));
+    assertTrue(tokenizer.next(TokenKind.ODataIdentifier));
+    assertTrue(tokenizer.next(TokenKind.WithOperator));
+    assertTrue(tokenizer.next(TokenKind.ODataIdentifier));
+    assertTrue(tokenizer.next(TokenKind.AsOperator));
+    assertTrue(tokenizer.next(TokenKind.ODataIdentifier));
+    assertTrue(tokenizer.next(TokenKind.COMMA));
+    assertTrue(tokenizer.next(TokenKind.COUNT));
+    assertTrue(tokenizer.next(TokenKind.AsOperator));
+    assertTrue(tokenizer.next(TokenKind.ODataIdentifier));
+    assertTrue(tokenizer.next(TokenKind.CLOSE));
+    assertTrue(tokenizer.next(TokenKind.CLOSE));
+    assertTrue(tokenizer.next(TokenKind.SLASH));
+    assertTrue(tokenizer.next(TokenKind.FilterTrafo));
+    assertTrue(tokenizer.next(TokenKind.BooleanValue));
+    assertTrue(tokenizer.next(TokenKind.CLOSE));
+    assertTrue(tokenizer.next(TokenKind.EOF));
+
+    assertFalse(new UriTokenizer(" with").next(TokenKind.WithOperator));
+    assertFalse(new UriTokenizer("groupby (").next(TokenKind.GroupByTrafo));
+  }
+
   @Test
   public void search() {
     UriTokenizer tokenizer = new UriTokenizer("a AND b OR NOT \"c\" d");
@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.ComplexValue;
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.Property;
+import org.apache.olingo.commons.api.data.ValueType;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntityType;
+import org.apache.olingo.commons.api.edm.EdmPrimitiveTypeKind;
+import org.apache.olingo.commons.api.edm.FullQualifiedName;
+import org.apache.olingo.commons.api.edm.provider.CsdlAbstractEdmProvider;
+import org.apache.olingo.commons.api.edm.provider.CsdlComplexType;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityContainerInfo;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntitySet;
+import org.apache.olingo.commons.api.edm.provider.CsdlEntityType;
+import org.apache.olingo.commons.api.edm.provider.CsdlNavigationProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlNavigationPropertyBinding;
+import org.apache.olingo.commons.api.edm.provider.CsdlProperty;
+import org.apache.olingo.commons.api.edm.provider.CsdlPropertyRef;
+import org.apache.olingo.commons.api.edm.provider.CsdlReferentialConstraint;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.ex.ODataException;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.paging.SkipTokenHelper;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.UriResourceEntitySet;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SqlTranslatorTest {
+
+  private static final String NAMESPACE = "Namespace";
+  private static final FullQualifiedName CUSTOMER = new FullQualifiedName(NAMESPACE, "Customer");
+  private static final FullQualifiedName ORDER = new FullQualifiedName(NAMESPACE, "Order");
+  private static final FullQualifiedName ADDRESS = new FullQualifiedName(NAMESPACE, "Address");
+  private static final FullQualifiedName CONTAINER = new FullQualifiedName(NAMESPACE, "Container");
+
+  private static final OData odata = OData.newInstance();
+  private static Edm edm;
+  private static Connection connection;
+
+  private final SqlTranslator translator = new SqlTranslator(new SqlDialect(), new DefaultSqlMapping());
+
+  @BeforeClass
+  public static void setUp() throws Exception {
+    edm = odata.createServiceMetadata(new Provider(), Collections.<EdmxReference> emptyList()).getEdm();
+    connection = DriverManager.getConnection("jdbc:hsqldb:mem:sqltranslator", "SA", "");
+    Statement statement = connection.createStatement();
+    statement.execute("CREATE TABLE \"Customer\" (\"ID\" INTEGER PRIMARY KEY, \"Name\" VARCHAR(50),"
+        + " \"Address_City\" VARCHAR(50), \"Address_Zip\" VARCHAR(10))");
+    statement.execute("CREATE TABLE \"Order\" (\"ID\" INTEGER PRIMARY KEY, \"CustomerID\" INTEGER,"
+        + " \"Amount\" DECIMAL(10,2), \"Created\" DATE)");
+    statement.execute("INSERT INTO \"Customer\" VALUES (1, 'Alice', 'Berlin', '10115')");
+    statement.execute("INSERT INTO \"Customer\" VALUES (2, 'Bob', 'Paris', '75001')");
+    statement.execute("INSERT INTO \"Customer\" VALUES (3, '100%_Club', 'Berlin', NULL)");
+    statement.execute("INSERT INTO \"Order\" VALUES (10, 1, 100.00, DATE '2016-01-01')");
+    statement.execute("INSERT INTO \"Order\" VALUES (11, 1, 20.00, DATE '2016-02-01')");
+    statement.execute("INSERT INTO \"Order\" VALUES (12, 2, 5.50, DATE '2016-03-01')");
+    statement.execute("INSERT INTO \"Order\" VALUES (13, 3, NULL, NULL)");
+    statement.close();
+  }
+
+  @AfterClass
+  public static void tearDown() throws Exception {
+    connection.createStatement().execute("SHUTDOWN");
+    connection.close();
+  }
+
+  @Test
+  public void filterAndOrderBy() throws Exception {
+    final SqlQuery query = translate("Customers", "$filter=Address/City eq 'Berlin'&$orderby=Name desc");
+    assertEquals(Arrays.asList("ID", "Name", "Address_City", "Address_Zip"), query.getColumns());
+    assertEquals(Arrays.asList(1, 3), ids(query.getStatement()));
+    assertNull(query.getCountStatement());
+  }
+
+  @Test
+  public void literalsAreBound() throws Exception {
+    final SqlQuery query = translate("Customers", "$filter=Name eq 'x'' or 1 eq 1'");
+    assertEquals(Collections.singletonList("x' or 1 eq 1"), query.getStatement().getParameters());
+    assertEquals(Collections.emptyList(), ids(query.getStatement()));
+  }
+
+  @Test
+  public void methods() throws Exception {
+    assertEquals(Arrays.asList(3), ids(translate("Customers", "$filter=contains(Name,'%25_')").getStatement()));
+    assertEquals(Arrays.asList(1), ids(translate("Customers", "$filter=startswith(Name,'Al')").getStatement()));
+    assertEquals(Arrays.asList(2),
+        ids(translate("Customers", "$filter=tolower(Name) eq 'bob' and length(Name) eq 3").getStatement()));
+    assertEquals(Arrays.asList(1, 3),
+        ids(translate("Customers", "$filter=indexof(Address/City,'rl') eq 2").getStatement()));
+    assertEquals(Arrays.asList(2),
+        ids(translate("Customers", "$filter=substring(Name,1,2) eq 'ob'").getStatement()));
+    assertEquals(Arrays.asList(10, 11),
+        ids(translate("Orders", "$filter=year(Created) eq 2016 and Created lt 2016-02-15").getStatement()));
+    assertEquals(Arrays.asList(12),
+        ids(translate("Orders", "$filter=Amount mul 2 eq 11 and not (Amount gt 10)").getStatement()));
+  }
+
+  @Test
+  public void nullComparison() throws Exception {
+    assertEquals(Arrays.asList(3), ids(translate("Customers", "$filter=Address/Zip eq null").getStatement()));
+    assertEquals(Arrays.asList(1, 2), ids(translate("Customers", "$filter=null ne Address/Zip").getStatement()));
+    // A null value differs from every other value, also under negation.
+    assertEquals(Arrays.asList(2, 3),
+        ids(translate("Customers", "$filter=Address/Zip ne '10115'").getStatement()));
+    assertEquals(Arrays.asList(2, 3),
+        ids(translate("Customers", "$filter=not (Address/Zip eq '10115')").getStatement()));
+    assertEquals(Arrays.asList(12, 13), ids(translate("Orders", "$filter=not (Amount gt 10)").getStatement()));
+    assertEquals(Arrays.asList(1, 2, 3),
+        ids(translate("Customers", "$filter=Address/Zip ne Address/City").getStatement()));
+    assertEquals(Collections.emptyList(), ids(translate("Orders", "$filter=Created ne Created").getStatement()));
+  }
+
+  @Test
+  public void lambda() throws Exception {
+    assertEquals(Arrays.asList(1),
+        ids(translate("Customers", "$filter=Orders/any(o:o/Amount gt 50)").getStatement()));
+    assertEquals(Arrays.asList(1, 2, 3), ids(translate("Customers", "$filter=Orders/any()").getStatement()));
+    // The amount of the order of customer 3 is unknown, so not all of its orders have an amount below 50.
+    assertEquals(Arrays.asList(2),
+        ids(translate("Customers", "$filter=Orders/all(o:o/Amount lt 50)").getStatement()));
+    assertEquals(Arrays.asList(2, 3),
+        ids(translate("Customers", "$filter=Orders/all(o:o/Amount lt 50 or o/Amount eq null)").getStatement()));
+    assertEquals(Arrays.asList(1),
+        ids(translate("Customers", "$filter=Orders/any(o:o/Amount gt 50 and Name eq 'Alice')").getStatement()));
+  }
+
+  @Test
+  public void navigationInMember() throws Exception {
+    assertEquals(Arrays.asList(12), ids(translate("Orders", "$filter=Customer/Name eq 'Bob'").getStatement()));
+    assertEquals(Arrays.asList(1), ids(translate("Customers", "$filter=Orders/$count ge 2").getStatement()));
+  }
+
+  @Test
+  public void selectAndPaging() throws Exception {
+    final SqlQuery query = translate("Customers", "$select=Name&$top=1&$skip=1&$count=true");
+    assertEquals(Arrays.asList("ID", "Name"), query.getColumns());
+    assertEquals(Arrays.asList(2), ids(query.getStatement()));
+    assertEquals(3, count(query.getCountStatement()));
+  }
+
+  @Test
+  public void resourcePath() throws Exception {
+    assertEquals(Arrays.asList(10, 11), ids(translate("Customers(1)/Orders", "$orderby=ID").getStatement()));
+    assertEquals(Arrays.asList(11), ids(translate("Customers(1)/Orders(ID=11)", null).getStatement()));
+    assertEquals(Collections.emptyList(), ids(translate("Customers(2)/Orders(ID=11)", null).getStatement()));
+    assertEquals(2, count(translate("Customers(1)/Orders/$count", null).getStatement()));
+    assertEquals(Arrays.asList(2), ids(translate("Orders(12)/Customer", null).getStatement()));
+    assertEquals(Arrays.asList("ID"), translate("Customers/$ref", null).getColumns());
+  }
+
+  @Test
+  public void expand() throws Exception {
+    final SqlQuery query = translate("Customers",
+        "$filter=Address/City eq 'Berlin'&$expand=Orders($filter=Amount gt 50;$select=Amount;$expand=Customer)");
+    final SqlQuery orders = query.getExpandedQueries().get("Orders");
+    assertEquals(Arrays.asList("ID", "Amount", "CustomerID"), orders.getColumns());
+    assertEquals(Arrays.asList(10), ids(orders.getStatement()));
+    assertEquals(Arrays.asList(1), ids(orders.getExpandedQueries().get("Customer").getStatement()));
+  }
+
+  @Test
+  public void expandPage() throws Exception {
+    SqlQuery query = translate("Customers", "$orderby=Name&$top=1&$skip=1&$expand=Orders");
+    assertEquals(Arrays.asList(1), ids(query.getStatement()));
+    assertEquals(Arrays.asList(10, 11), ids(query.getExpandedQueries().get("Orders").getStatement()));
+
+    query = translate("Customers", "$orderby=Name desc&$expand=Orders", null, 1);
+    assertEquals(Arrays.asList(2, 1), ids(query.getStatement()));
+    assertEquals(Arrays.asList(12), ids(query.getExpandedQueries().get("Orders").getStatement()));
+  }
+
+  @Test
+  public void notImplemented() throws Exception {
+    try {
+      translate("Customers", "$search=Alice");
+      fail("Expected exception not thrown.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+    try {
+      translate("Customers", "$expand=Orders($top=1)");
+      fail("Expected exception not thrown.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void keysetPaging() throws Exception {
+    final String orderBy = "$orderby=Address/City,Address/Zip desc&$count=true";
+    final SqlQuery firstPage = translate("Customers", orderBy, null, 2);
+    assertEquals(Arrays.asList(1, 3, 2), ids(firstPage.getStatement()));
+    assertEquals(3, count(firstPage.getCountStatement()));
+
+    assertEquals(Arrays.asList(3, 2), ids(translate("Customers", orderBy, customer(1, "Berlin", "10115"), 2)
+        .getStatement()));
+    // The position has a null value that is sorted after all other values in descending order.
+    final SqlQuery lastPage = translate("Customers", orderBy, customer(3, "Berlin", null), 2);
+    assertEquals(Arrays.asList(2), ids(lastPage.getStatement()));
+    assertEquals(3, count(lastPage.getCountStatement()));
+
+    assertEquals(Arrays.asList(11, 12),
+        ids(translate("Orders", "$filter=Amount lt 50&$orderby=Created", null, 2).getStatement()));
+    try {
+      translate("Customers", "$top=1", null, 2);
+      fail("Expected exception not thrown.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void translateFilter() throws Exception {
+    final SqlFragment condition = translator.translateFilter(edm.getEntityType(CUSTOMER), "c",
+        new Parser(edm, odata).parseUri("Customers", "$filter=Orders/any(o:o/Amount gt 50)", null)
+            .getFilterOption().getExpression());
+    assertEquals("(EXISTS (SELECT 1 FROM \"Order\" c_0 WHERE c.\"ID\" = c_0.\"CustomerID\""
+        + " AND ((c_0.\"Amount\" > ?))))", condition.getSql());
+    assertEquals(Collections.<Object> singletonList((byte) 50), condition.getParameters());
+  }
+
+  private SqlQuery translate(final String path, final String query) throws Exception {
+    return translator.translate(new Parser(edm, odata).parseUri(path, query, null));
+  }
+
+  private SqlQuery translate(final String path, final String query, final Entity lastEntity, final int pageSize)
+      throws Exception {
+    final UriInfo uriInfo = new Parser(edm, odata).parseUri(path, query, null);
+    final EdmEntityType entityType = ((UriResourceEntitySet) uriInfo.getUriResourceParts().get(0)).getEntityType();
+    final SkipTokenHelper helper = odata.createSkipTokenHelper(new byte[] { 1, 2, 3 });
+    return translator.translate(uriInfo,
+        lastEntity == null ? null : helper.parseSkipToken(entityType, uriInfo.getOrderByOption(),
+            helper.createSkipToken(entityType, uriInfo.getOrderByOption(), lastEntity)),
+        pageSize);
+  }
+
+  private Entity customer(final int id, final String city, final String zip) {
+    ComplexValue address = new ComplexValue();
+    address.getValue().add(new Property(null, "City", ValueType.PRIMITIVE, city));
+    address.getValue().add(new Property(null, "Zip", ValueType.PRIMITIVE, zip));
+    return new Entity()
+        .addProperty(new Property(null, "ID", ValueType.PRIMITIVE, id))
+        .addProperty(new Property(null, "Address", ValueType.COMPLEX, address));
+  }
+
+  private List<Integer> ids(final SqlFragment fragment) throws SQLException {
+    List<Integer> result = new ArrayList<Integer>();
+    final PreparedStatement statement = prepare(fragment);
+    final ResultSet resultSet = statement.executeQuery();
+    while (resultSet.next()) {
+      result.add(resultSet.getInt(1));
+    }
+    statement.close();
+    return result;
+  }
+
+  private int count(final SqlFragment fragment) throws SQLException {
+    final PreparedStatement statement = prepare(fragment);
+    final ResultSet resultSet = statement.executeQuery();
+    resultSet.next();
+    final int result = resultSet.getInt(1);
+    statement.close();
+    return result;
+  }
+
+  private PreparedStatement prepare(final SqlFragment fragment) throws SQLException {
+    PreparedStatement statement = connection.prepareStatement(fragment.getSql());
+    for (int i = 0; i < fragment.getParameters().size(); i++) {
+      statement.setObject(i + 1, fragment.getParameters().get(i));
+    }
+    return statement;
+  }
+
+  private static class Provider extends CsdlAbstractEdmProvider {
+
+    @Override
+    public CsdlEntityType getEntityType(final FullQualifiedName entityTypeName) throws ODataException {
+      if (CUSTOMER.equals(entityTypeName)) {
+        return new CsdlEntityType().setName(CUSTOMER.getName())
+            .setKey(Collections.singletonList(new CsdlPropertyRef().setName("ID")))
+            .setProperties(Arrays.asList(
+                new CsdlProperty().setName("ID").setType(EdmPrimitiveTypeKind.Int32.getFullQualifiedName()),
+                new CsdlProperty().setName("Name").setType(EdmPrimitiveTypeKind.String.getFullQualifiedName()),
+                new CsdlProperty().setName("Address").setType(ADDRESS)))
+            .setNavigationProperties(Collections.singletonList(
+                new CsdlNavigationProperty().setName("Orders").setType(ORDER).setCollection(true)
+                    .setPartner("Customer")));
+      } else if (ORDER.equals(entityTypeName)) {
+        return new CsdlEntityType().setName(ORDER.getName())
+            .setKey(Collections.singletonList(new CsdlPropertyRef().setName("ID")))
+            .setProperties(Arrays.asList(
+                new CsdlProperty().setName("ID").setType(EdmPrimitiveTypeKind.Int32.getFullQualifiedName()),
+                new CsdlProperty().setName("CustomerID").setType(EdmPrimitiveTypeKind.Int32.getFullQualifiedName()),
+                new CsdlProperty().setName("Amount").setType(EdmPrimitiveTypeKind.Decimal.getFullQualifiedName())
+                    .setScale(2),
+                new CsdlProperty().setName("Created").setType(EdmPrimitiveTypeKind.Date.getFullQualifiedName())))
+            .setNavigationProperties(Collections.singletonList(
+                new CsdlNavigationProperty().setName("Customer").setType(CUSTOMER).setPartner("Orders")
+                    .setReferentialConstraints(Collections.singletonList(
+                        new CsdlReferentialConstraint().setProperty("CustomerID").setReferencedProperty("ID")))));
+      }
+      return null;
+    }
+
+    @Override
+    public CsdlComplexType getComplexType(final FullQualifiedName complexTypeName) throws ODataException {
+      return ADDRESS.equals(complexTypeName) ?
+          new CsdlComplexType().setName(ADDRESS.getName())
+              .setProperties(Arrays.asList(
+                  new CsdlProperty().setName("City").setType(EdmPrimitiveTypeKind.String.getFullQualifiedName()),
+                  new CsdlProperty().setName("Zip").setType(EdmPrimitiveTypeKind.String.getFullQualifiedName()))) :
+          null;
+    }
+
+    @Override
+    public CsdlEntitySet getEntitySet(final FullQualifiedName entityContainer, final String entitySetName)
+        throws ODataException {
+      if ("Customers".equals(entitySetName)) {
+        return new CsdlEntitySet().setName(entitySetName).setType(CUSTOMER)
+            .setNavigationPropertyBindings(Collections.singletonList(
+                new CsdlNavigationPropertyBinding().setPath("Orders").setTarget("Orders")));
+      } else if ("Orders".equals(entitySetName)) {
+        return new CsdlEntitySet().setName(entitySetName).setType(ORDER)
+            .setNavigationPropertyBindings(Collections.singletonList(
+                new CsdlNavigationPropertyBinding().setPath("Customer").setTarget("Customers")));
+      }
+      return null;
+    }
+
+    @Override
+    public CsdlEntityContainerInfo getEntityContainerInfo(final FullQualifiedName entityContainerName)
+        throws ODataException {
+      return entityContainerName == null || CONTAINER.equals(entityContainerName) ?
+          new CsdlEntityContainerInfo().setContainerName(CONTAINER) :
+          null;
+    }
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.aggregation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.ex.ODataRuntimeException;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.ApplyOption;
+import org.apache.olingo.server.api.uri.queryoption.apply.ApplyItem;
+import org.apache.olingo.server.api.uri.queryoption.expression.Binary;
+import org.apache.olingo.server.api.uri.queryoption.expression.Expression;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class AggregationEngineTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  private final DataProvider data = new DataProvider(odata, edm);
+
+  @Test
+  public void aggregate() throws Exception {
+    final List<Entity> result = apply("ESAllPrim",
+        "aggregate(PropertyInt32 with sum as Total,PropertyInt16 with min as Min,PropertyInt16 with max as Max,"
+            + "PropertyDouble with average as Average,PropertyBoolean with countdistinct as Distinct,$count as Count)");
+    assertEquals(1, result.size());
+    final Entity entity = result.get(0);
+    assertEquals(BigDecimal.valueOf(-1), entity.getProperty("Total").getValue());
+    assertEquals(Short.MIN_VALUE, entity.getProperty("Min").getValue());
+    assertEquals(Short.MAX_VALUE, entity.getProperty("Max").getValue());
+    assertEquals((-1.79E19 - 1.79E5) / 3, (Double) entity.getProperty("Average").getValue(), 1E5);
+    assertEquals(BigDecimal.valueOf(2), entity.getProperty("Distinct").getValue());
+    assertEquals(BigDecimal.valueOf(3), entity.getProperty("Count").getValue());
+  }
+
+  @Test
+  public void aggregateEmpty() throws Exception {
+    final List<Entity> result = apply("ESAllPrim",
+        "filter(PropertyInt16 eq 42)/aggregate(PropertyInt32 with sum as Total,$count as Count)",
+        new AggregationEngine() {
+          @Override
+          protected Object evaluate(final Entity entity, final Expression expression)
+              throws ODataApplicationException {
+            return expression instanceof Binary ? Boolean.FALSE : super.evaluate(entity, expression);
+          }
+        });
+    assertEquals(1, result.size());
+    assertNull(result.get(0).getProperty("Total").getValue());
+    assertEquals(BigDecimal.ZERO, result.get(0).getProperty("Count").getValue());
+  }
+
+  @Test
+  public void groupBy() throws Exception {
+    final List<Entity> result = apply("ESAllPrim",
+        "groupby((PropertyBoolean),aggregate(PropertyInt32 with sum as Total,$count as Count))");
+    assertEquals(2, result.size());
+    assertEquals(true, result.get(0).getProperty("PropertyBoolean").getValue());
+    assertEquals(BigDecimal.valueOf(Integer.MAX_VALUE), result.get(0).getProperty("Total").getValue());
+    assertEquals(BigDecimal.ONE, result.get(0).getProperty("Count").getValue());
+    assertEquals(false, result.get(1).getProperty("PropertyBoolean").getValue());
+    assertEquals(BigDecimal.valueOf(Integer.MIN_VALUE), result.get(1).getProperty("Total").getValue());
+    assertEquals(BigDecimal.valueOf(2), result.get(1).getProperty("Count").getValue());
+  }
+
+  @Test
+  public void groupByWithFilter() throws Exception {
+    final List<Entity> result = apply("ESAllPrim",
+        "filter(PropertyBoolean)/groupby((PropertyBoolean))");
+    assertEquals(1, result.size());
+    assertEquals(1, result.get(0).getProperties().size());
+    assertEquals(true, result.get(0).getProperty("PropertyBoolean").getValue());
+
+    final List<Entity> nested = apply("ESAllPrim",
+        "groupby((PropertyInt16),filter(PropertyBoolean)/aggregate($count as Count))");
+    assertEquals(3, nested.size());
+    assertEquals(BigDecimal.ONE, nested.get(0).getProperty("Count").getValue());
+    assertEquals(BigDecimal.ZERO, nested.get(1).getProperty("Count").getValue());
+  }
+
+  @Test
+  public void groupByComplex() throws Exception {
+    final List<Entity> result = apply("ESCompAllPrim",
+        "groupby((PropertyComp/PropertyBoolean),aggregate(PropertyComp/PropertyInt16 with max as Max))");
+    assertEquals(2, result.size());
+    assertTrue(result.get(0).getProperty("PropertyComp").isComplex());
+    assertEquals(true, result.get(0).getProperty("PropertyComp").asComplex().getValue().get(0).getValue());
+    assertEquals(Short.MAX_VALUE, result.get(0).getProperty("Max").getValue());
+    // Null values form a group of their own.
+    assertNull(result.get(1).getProperty("PropertyComp").asComplex().getValue().get(0).getValue());
+    assertNull(result.get(1).getProperty("Max").getValue());
+  }
+
+  @Test
+  public void filter() throws Exception {
+    assertEquals(BigDecimal.ONE, apply("ESAllPrim", "filter(PropertyInt16 gt 0)/aggregate($count as Count)")
+        .get(0).getProperty("Count").getValue());
+    assertEquals(BigDecimal.valueOf(2),
+        apply("ESAllPrim", "filter(startswith(PropertyString,'Second') or PropertyInt16 add 1 eq 1)"
+            + "/aggregate($count as Count)").get(0).getProperty("Count").getValue());
+    assertEquals(BigDecimal.valueOf(2),
+        apply("ESAllPrim", "filter(not PropertyBoolean and PropertyDecimal ne null)/aggregate($count as Count)")
+            .get(0).getProperty("Count").getValue());
+    // Comparisons with null are false.
+    assertEquals(BigDecimal.ONE,
+        apply("ESCompAllPrim", "filter(not (PropertyComp/PropertyInt16 gt 0) and PropertyComp/PropertyInt16 eq null)"
+            + "/aggregate($count as Count)").get(0).getProperty("Count").getValue());
+  }
+
+  @Test
+  public void notImplemented() throws Exception {
+    try {
+      apply("ESAllPrim", "filter(year(PropertyDate) eq 2012)");
+      fail("Expected exception not thrown.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+    // The failing filter is not the last transformation.
+    try {
+      apply("ESAllPrim", "filter(year(PropertyDate) eq 2012)/filter(PropertyInt16 gt 0)");
+      fail("Expected exception not thrown.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+    try {
+      apply("ESAllPrim", "groupby((PropertyBoolean),groupby((PropertyInt16)))");
+      fail("Expected exception not thrown.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  @Test
+  public void pushdown() throws Exception {
+    final Entity pushedDown = new Entity();
+    final List<Entity> result = apply("ESAllPrim", "filter(PropertyBoolean)/aggregate($count as Count)",
+        new AggregationEngine(new AggregationPushdown() {
+          @Override
+          public int getSupportedCount(final List<ApplyItem> transformations) {
+            return transformations.get(0).getKind() == ApplyItem.Kind.FILTER ? 1 : 0;
+          }
+
+          @Override
+          public Iterator<Entity> execute(final List<ApplyItem> transformations) {
+            assertEquals(1, transformations.size());
+            return Collections.nCopies(5, pushedDown).iterator();
+          }
+        }));
+    assertEquals(BigDecimal.valueOf(5), result.get(0).getProperty("Count").getValue());
+  }
+
+  private List<Entity> apply(final String entitySetName, final String apply) throws Exception {
+    return apply(entitySetName, apply, new AggregationEngine());
+  }
+
+  private List<Entity> apply(final String entitySetName, final String apply, final AggregationEngine engine)
+      throws Exception {
+    final ApplyOption applyOption = new Parser(edm, odata)
+        .parseUri(entitySetName, "$apply=" + apply, null).getApplyOption();
+    final EntityCollection entities = data.readAll(edm.getEntityContainer().getEntitySet(entitySetName));
+    final EntityIterator result = engine.apply(applyOption, entities.getEntities().iterator());
+    List<Entity> list = new ArrayList<Entity>();
+    try {
+      while (result.hasNext()) {
+        list.add(result.next());
+      }
+    } catch (final ODataRuntimeException e) {
+      // Expressions are evaluated while iterating.
+      if (e.getCause() instanceof ODataApplicationException) {
+        throw (ODataApplicationException) e.getCause();
+      }
+      throw e;
+    }
+    return list;
+  }
+}
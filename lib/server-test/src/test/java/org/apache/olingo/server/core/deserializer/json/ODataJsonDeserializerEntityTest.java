@@ -31,6 +31,7 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 
@@ -38,6 +39,7 @@ import org.apache.olingo.commons.api.Constants;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.PrimitiveArrayList;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.EdmEntityType;
@@ -334,6 +336,48 @@ public class ODataJsonDeserializerEntityTest extends AbstractODataDeserializerTe
     assertEquals(true, asCollection.get(2));
   }
 
+  @Test
+  public void primitiveValuesUnboxed() throws Exception {
+    final String entityString = "{"
+        + "\"PropertyInt16\":1,"
+        + "\"PropertyBoolean\":true,"
+        + "\"PropertyInt32\":2147483647,"
+        + "\"PropertyInt64\":9223372036854775807,"
+        + "\"PropertyDouble\":-1.79E308"
+        + "}";
+    final Entity entity = deserialize(entityString, "ETAllPrim");
+    assertEquals(boolean.class, entity.getProperty("PropertyBoolean").getUnboxedType());
+    assertTrue(entity.getProperty("PropertyBoolean").getBooleanValue());
+    assertEquals(int.class, entity.getProperty("PropertyInt32").getUnboxedType());
+    assertEquals(Integer.MAX_VALUE, entity.getProperty("PropertyInt32").getIntValue());
+    assertEquals(Integer.MAX_VALUE, entity.getProperty("PropertyInt32").getValue());
+    assertEquals(long.class, entity.getProperty("PropertyInt64").getUnboxedType());
+    assertEquals(Long.MAX_VALUE, entity.getProperty("PropertyInt64").getValue());
+    assertEquals(double.class, entity.getProperty("PropertyDouble").getUnboxedType());
+    assertEquals(-1.79E308, entity.getProperty("PropertyDouble").getValue());
+    // Types without an unboxed representation are converted as before.
+    assertNull(entity.getProperty("PropertyInt16").getUnboxedType());
+    assertEquals((short) 1, entity.getProperty("PropertyInt16").getValue());
+  }
+
+  @Test
+  public void primitiveCollectionArrayBacked() throws Exception {
+    final String entityString = "{"
+        + "\"PropertyInt16\":1,"
+        + "\"CollPropertyInt32\":[23232323,11223355,10000001],"
+        + "\"CollPropertyInt64\":[929292929292,333333333333,444444444444],"
+        + "\"CollPropertyDouble\":[-17900.0,-2.78E7,3210]"
+        + "}";
+    final Entity entity = deserialize(entityString, "ETCollAllPrim");
+    final List<?> ints = entity.getProperty("CollPropertyInt32").asCollection();
+    assertTrue(ints instanceof PrimitiveArrayList);
+    assertEquals(11223355, ((PrimitiveArrayList) ints).getInt(1));
+    assertEquals(Arrays.asList(23232323, 11223355, 10000001), ints);
+    assertEquals(Arrays.asList(929292929292L, 333333333333L, 444444444444L),
+        entity.getProperty("CollPropertyInt64").asCollection());
+    assertEquals(Arrays.asList(-17900.0, -2.78E7, 3210.0), entity.getProperty("CollPropertyDouble").asCollection());
+  }
+
   @Test
   public void simpleEntityETMixPrimCollComp() throws Exception {
     final String entityString = "{"
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.expand;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.data.EntityCollection;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmBindingTarget;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edm.EdmNavigationProperty;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.commons.api.http.HttpStatusCode;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.ODataApplicationException;
+import org.apache.olingo.server.api.uri.queryoption.ExpandItem;
+import org.apache.olingo.server.api.uri.queryoption.ExpandOption;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class ExpandPlannerTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  private static final EdmEntitySet esKeyNav = edm.getEntityContainer().getEntitySet("ESKeyNav");
+  private final DataProvider data = new DataProvider(odata, edm);
+
+  @Test
+  public void oneCallPerNavigationProperty() throws Exception {
+    final CountingDataSource dataSource = new CountingDataSource();
+    final List<Entity> entities = copies(data.readAll(esKeyNav).getEntities());
+
+    new ExpandPlanner(dataSource).expand(esKeyNav, entities,
+        expand("NavPropertyETKeyNavOne,NavPropertyETKeyNavMany($expand=NavPropertyETKeyNavOne)"));
+
+    assertEquals(3, dataSource.calls.size());
+    assertEquals("NavPropertyETKeyNavOne:3", dataSource.calls.get(0));
+    assertEquals("NavPropertyETKeyNavMany:3", dataSource.calls.get(1));
+    // the related entities of all parents are loaded together, each one only once
+    assertEquals("NavPropertyETKeyNavOne:3", dataSource.calls.get(2));
+
+    assertEquals(2, key(entities.get(0).getNavigationLink("NavPropertyETKeyNavOne").getInlineEntity()));
+    assertNull(entities.get(2).getNavigationLink("NavPropertyETKeyNavOne").getInlineEntity());
+    final List<Entity> many = entities.get(1).getNavigationLink("NavPropertyETKeyNavMany")
+        .getInlineEntitySet().getEntities();
+    assertEquals(2, many.size());
+    assertEquals(3, key(many.get(0).getNavigationLink("NavPropertyETKeyNavOne").getInlineEntity()));
+    assertEquals(0, entities.get(2).getNavigationLink("NavPropertyETKeyNavMany")
+        .getInlineEntitySet().getEntities().size());
+  }
+
+  @Test
+  public void levels() throws Exception {
+    final CountingDataSource dataSource = new CountingDataSource();
+    final List<Entity> entities = copies(data.readAll(esKeyNav).getEntities().subList(0, 1));
+
+    new ExpandPlanner(dataSource).expand(esKeyNav, entities, expand("NavPropertyETKeyNavOne($levels=3)"));
+
+    assertEquals(3, dataSource.calls.size());
+    final Entity second = entities.get(0).getNavigationLink("NavPropertyETKeyNavOne").getInlineEntity();
+    final Entity third = second.getNavigationLink("NavPropertyETKeyNavOne").getInlineEntity();
+    assertEquals(3, key(third));
+    assertNull(third.getNavigationLink("NavPropertyETKeyNavOne").getInlineEntity());
+  }
+
+  @Test
+  public void levelsMax() throws Exception {
+    final CountingDataSource dataSource = new CountingDataSource();
+    final List<Entity> entities = copies(data.readAll(esKeyNav).getEntities().subList(0, 1));
+
+    new ExpandPlanner(dataSource, 2).expand(esKeyNav, entities, expand("NavPropertyETKeyNavMany($levels=max)"));
+
+    assertEquals(2, dataSource.calls.size());
+    assertEquals("NavPropertyETKeyNavMany:2", dataSource.calls.get(1));
+  }
+
+  @Test
+  public void star() throws Exception {
+    final CountingDataSource dataSource = new CountingDataSource();
+    new ExpandPlanner(dataSource).expand(esKeyNav, copies(data.readAll(esKeyNav).getEntities()), expand("*"));
+    assertEquals(esKeyNav.getEntityType().getNavigationPropertyNames().size(), dataSource.calls.size());
+  }
+
+  @Test
+  public void unsupportedPath() throws Exception {
+    try {
+      new ExpandPlanner(new CountingDataSource()).expand(esKeyNav,
+          copies(data.readAll(esKeyNav).getEntities()), expand("PropertyCompNav/NavPropertyETTwoKeyNavOne"));
+      fail("Expected exception not thrown.");
+    } catch (final ODataApplicationException e) {
+      assertEquals(HttpStatusCode.NOT_IMPLEMENTED.getStatusCode(), e.getStatusCode());
+    }
+  }
+
+  private ExpandOption expand(final String expand) throws Exception {
+    return new Parser(edm, odata).parseUri("ESKeyNav", "$expand=" + expand, null).getExpandOption();
+  }
+
+  private static int key(final Entity entity) {
+    return ((Number) entity.getProperty("PropertyInt16").getValue()).intValue();
+  }
+
+  /** Copies the entities without their navigation links. */
+  private static List<Entity> copies(final List<Entity> entities) {
+    final List<Entity> copies = new ArrayList<Entity>();
+    for (final Entity entity : entities) {
+      final Entity copy = new Entity();
+      copy.getProperties().addAll(entity.getProperties());
+      copy.setId(entity.getId());
+      copy.setType(entity.getType());
+      copies.add(copy);
+    }
+    return copies;
+  }
+
+  /** Serves related entities from the navigation links of the test data and records every call. */
+  private class CountingDataSource implements ExpandDataSource {
+    private final List<String> calls = new ArrayList<String>();
+
+    @Override
+    public Map<Entity, EntityCollection> loadRelated(final EdmBindingTarget parentTarget,
+        final EdmNavigationProperty navigationProperty, final List<Entity> parents, final ExpandItem expandItem)
+        throws ODataApplicationException {
+      calls.add(navigationProperty.getName() + ":" + parents.size());
+      final List<Entity> all = data.readAll(esKeyNav).getEntities();
+      final Map<Entity, EntityCollection> result = new IdentityHashMap<Entity, EntityCollection>();
+      for (final Entity parent : parents) {
+        Entity original = null;
+        for (final Entity candidate : all) {
+          if (key(candidate) == key(parent)) {
+            original = candidate;
+          }
+        }
+        final Link link = original == null ? null : original.getNavigationLink(navigationProperty.getName());
+        if (link != null) {
+          final EntityCollection related = new EntityCollection();
+          if (link.getInlineEntity() != null) {
+            related.getEntities().addAll(copies(Collections.singletonList(link.getInlineEntity())));
+          } else if (link.getInlineEntitySet() != null) {
+            related.getEntities().addAll(copies(link.getInlineEntitySet().getEntities()));
+          }
+          result.put(parent, related);
+        }
+      }
+      return result;
+    }
+  }
+}
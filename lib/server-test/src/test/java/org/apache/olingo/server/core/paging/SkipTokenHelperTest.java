@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.paging;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.olingo.commons.api.data.Entity;
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edm.EdmEntitySet;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.paging.SeekKey;
+import org.apache.olingo.server.api.paging.SkipTokenException;
+import org.apache.olingo.server.api.paging.SkipTokenHelper;
+import org.apache.olingo.server.api.uri.queryoption.OrderByOption;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.data.DataProvider;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class SkipTokenHelperTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+  private static final SkipTokenHelper helper = odata.createSkipTokenHelper("secret".getBytes());
+  private final DataProvider data = new DataProvider(odata, edm);
+
+  @Test
+  public void roundTrip() throws Exception {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESAllKey");
+    final OrderByOption orderBy = orderBy("ESAllKey", "PropertyInt16 desc,PropertyString");
+    final Entity entity = data.readAll(entitySet).getEntities().get(0);
+
+    final List<SeekKey> position = helper.parseSkipToken(entitySet.getEntityType(), orderBy,
+        helper.createSkipToken(entitySet.getEntityType(), orderBy, entity));
+    assertEquals(entitySet.getEntityType().getKeyPredicateNames().size(), position.size());
+    assertEquals("PropertyInt16", position.get(0).getPropertyPath().get(0).getName());
+    assertTrue(position.get(0).isDescending());
+    assertEquals("PropertyString", position.get(1).getPropertyPath().get(0).getName());
+    assertFalse(position.get(1).isDescending());
+    assertEquals(entity.getProperty("PropertyString").getValue(), position.get(1).getValue());
+    assertFalse(helper.isAfter(entity, position));
+  }
+
+  @Test
+  public void isAfter() throws Exception {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+    final OrderByOption orderBy = orderBy("ESAllPrim", "PropertyString desc");
+    final List<Entity> entities = data.readAll(entitySet).getEntities();
+    for (final Entity entity : entities) {
+      final List<SeekKey> position = helper.parseSkipToken(entitySet.getEntityType(), orderBy,
+          helper.createSkipToken(entitySet.getEntityType(), orderBy, entity));
+      final String string = (String) entity.getProperty("PropertyString").getValue();
+      final Short key = (Short) entity.getProperty("PropertyInt16").getValue();
+      for (final Entity other : entities) {
+        final int comparison = ((String) other.getProperty("PropertyString").getValue()).compareTo(string);
+        assertEquals(comparison < 0
+            || comparison == 0 && (Short) other.getProperty("PropertyInt16").getValue() > key,
+            helper.isAfter(other, position));
+      }
+    }
+  }
+
+  @Test
+  public void nullValue() throws Exception {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+    final OrderByOption orderBy = orderBy("ESAllPrim", "PropertyString");
+    final List<Entity> entities = data.readAll(entitySet).getEntities();
+    Entity entity = entities.get(0);
+    entity.getProperty("PropertyString").setValue(entity.getProperty("PropertyString").getValueType(), null);
+
+    final List<SeekKey> position = helper.parseSkipToken(entitySet.getEntityType(), orderBy,
+        helper.createSkipToken(entitySet.getEntityType(), orderBy, entity));
+    assertNull(position.get(0).getValue());
+    assertTrue(helper.isAfter(entities.get(1), position));
+  }
+
+  @Test
+  public void invalidToken() throws Exception {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+    final OrderByOption orderBy = orderBy("ESAllPrim", "PropertyString");
+    final Entity entity = data.readAll(entitySet).getEntities().get(0);
+    final String skipToken = helper.createSkipToken(entitySet.getEntityType(), orderBy, entity);
+
+    expectInvalid(helper, entitySet, orderBy, "1");
+    expectInvalid(helper, entitySet, orderBy, 'A' + skipToken);
+    expectInvalid(helper, entitySet, orderBy("ESAllPrim", "PropertyString desc"), skipToken);
+    expectInvalid(helper, entitySet, null, skipToken);
+    expectInvalid(odata.createSkipTokenHelper("other".getBytes()), entitySet, orderBy, skipToken);
+  }
+
+  @Test
+  public void unsupportedOrder() throws Exception {
+    final EdmEntitySet entitySet = edm.getEntityContainer().getEntitySet("ESAllPrim");
+    try {
+      helper.createSkipToken(entitySet.getEntityType(), orderBy("ESAllPrim", "length(PropertyString)"),
+          data.readAll(entitySet).getEntities().get(0));
+      fail("Expected exception not thrown.");
+    } catch (final SkipTokenException e) {
+      assertEquals(SkipTokenException.MessageKeys.UNSUPPORTED_ORDERBY, e.getMessageKey());
+    }
+  }
+
+  @Test
+  public void nextLink() throws Exception {
+    assertEquals("http://host/service/ESAllPrim?$orderby=PropertyString&$top=5&$skiptoken=abc.def",
+        helper.createNextLink("http://host/service/ESAllPrim?$orderby=PropertyString&$skip=1"
+            + "&%24skiptoken=xyz&$top=5", "abc.def").toASCIIString());
+    assertEquals("http://host/service/ESAllPrim?$skiptoken=abc.def",
+        helper.createNextLink("http://host/service/ESAllPrim", "abc.def").toASCIIString());
+  }
+
+  private OrderByOption orderBy(final String entitySetName, final String orderBy) throws Exception {
+    return new Parser(edm, odata).parseUri(entitySetName, "$orderby=" + orderBy, null).getOrderByOption();
+  }
+
+  private void expectInvalid(final SkipTokenHelper skipTokenHelper, final EdmEntitySet entitySet,
+      final OrderByOption orderBy, final String skipToken) {
+    try {
+      skipTokenHelper.parseSkipToken(entitySet.getEntityType(), orderBy, skipToken);
+      fail("Expected exception not thrown.");
+    } catch (final SkipTokenException e) {
+      assertEquals(SkipTokenException.MessageKeys.INVALID_SKIPTOKEN, e.getMessageKey());
+    }
+  }
+}
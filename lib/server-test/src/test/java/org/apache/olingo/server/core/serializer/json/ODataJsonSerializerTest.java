@@ -29,12 +29,15 @@ import java.util.Iterator;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.apache.olingo.commons.api.data.ColumnarEntityCollection;
 import org.apache.olingo.commons.api.data.ComplexValue;
 import org.apache.olingo.commons.api.data.ContextURL;
 import org.apache.olingo.commons.api.data.ContextURL.Suffix;
 import org.apache.olingo.commons.api.data.Entity;
 import org.apache.olingo.commons.api.data.EntityCollection;
 import org.apache.olingo.commons.api.data.EntityIterator;
+import org.apache.olingo.commons.api.data.Link;
+import org.apache.olingo.commons.api.data.PrimitiveArrayList;
 import org.apache.olingo.commons.api.data.Property;
 import org.apache.olingo.commons.api.data.ValueType;
 import org.apache.olingo.commons.api.edm.EdmComplexType;
@@ -142,6 +145,61 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(expectedResult, resultString);
   }
 
+  @Test
+  public void entityUnboxedValues() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final EntitySerializerOptions options = EntitySerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(edmEntitySet).suffix(Suffix.ENTITY).build())
+        .build();
+    final String expected = IOUtils.toString(
+        serializer.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent());
+    final String expectedIEEE = IOUtils.toString(
+        serializerIEEECompatible.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent());
+
+    Property property = entity.getProperty("PropertyInt32");
+    property.setIntValue((Integer) property.getValue());
+    property = entity.getProperty("PropertyInt64");
+    property.setLongValue((Long) property.getValue());
+    property = entity.getProperty("PropertyDouble");
+    property.setDoubleValue((Double) property.getValue());
+    property = entity.getProperty("PropertyBoolean");
+    property.setBooleanValue((Boolean) property.getValue());
+    Assert.assertEquals(int.class, entity.getProperty("PropertyInt32").getUnboxedType());
+
+    Assert.assertEquals(expected, IOUtils.toString(
+        serializer.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent()));
+    Assert.assertEquals(expectedIEEE, IOUtils.toString(
+        serializerIEEECompatible.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent()));
+  }
+
+  @Test
+  public void entityCollAllPrimArrayBacked() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESCollAllPrim");
+    Entity entity = data.readAll(edmEntitySet).getEntities().get(0);
+    final EntitySerializerOptions options = EntitySerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(edmEntitySet).suffix(Suffix.ENTITY).build())
+        .build();
+    final String expected = IOUtils.toString(
+        serializer.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent());
+
+    Property property = entity.getProperty("CollPropertyInt32");
+    PrimitiveArrayList ints = new PrimitiveArrayList(int.class);
+    for (final Object value : property.asCollection()) {
+      ints.addInt((Integer) value);
+    }
+    property.setValue(ValueType.COLLECTION_PRIMITIVE, ints);
+    property = entity.getProperty("CollPropertyDouble");
+    PrimitiveArrayList doubles = new PrimitiveArrayList(double.class);
+    for (final Object value : property.asCollection()) {
+      doubles.addDouble((Double) value);
+    }
+    property.setValue(ValueType.COLLECTION_PRIMITIVE, doubles);
+
+    Assert.assertEquals(expected, IOUtils.toString(
+        serializer.entity(metadata, edmEntitySet.getEntityType(), entity, options).getContent()));
+  }
+
   @Test(expected = SerializerException.class)
   public void entityAllPrimKeyNull() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
@@ -172,6 +230,79 @@ public class ODataJsonSerializerTest {
     }
   }
 
+  @Test
+  public void entitySetColumnar() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final EntityCollection entitySet = data.readAll(edmEntitySet);
+    ColumnarEntityCollection columnar = new ColumnarEntityCollection(edmEntitySet.getEntityType());
+    for (final Entity entity : entitySet.getEntities()) {
+      final int row = columnar.addRow();
+      columnar.setId(row, entity.getId());
+      columnar.setETag(row, entity.getETag());
+      for (final Property property : entity.getProperties()) {
+        columnar.getColumn(property.getName()).setValue(row, property.getValue());
+      }
+    }
+    Assert.assertEquals(entitySet.getEntities().size(), columnar.size());
+    Assert.assertEquals(int.class, columnar.getColumn("PropertyInt32").getUnboxedType());
+    Assert.assertEquals(entitySet.getEntities().get(1).getProperty("PropertyString").getValue(),
+        columnar.getEntity(1).getProperty("PropertyString").getValue());
+
+    final EntityCollectionSerializerOptions options = EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+        .build();
+    Assert.assertEquals(
+        IOUtils.toString(serializer.entityCollection(metadata, edmEntitySet.getEntityType(), entitySet, options)
+            .getContent()),
+        IOUtils.toString(serializer.entityCollection(metadata, edmEntitySet.getEntityType(), columnar, options)
+            .getContent()));
+  }
+
+  @Test
+  public void entitySetColumnarComplex() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESMixPrimCollComp");
+    final EntityCollection entitySet = data.readAll(edmEntitySet);
+    ColumnarEntityCollection columnar = new ColumnarEntityCollection(edmEntitySet.getEntityType());
+    for (final Entity entity : entitySet.getEntities()) {
+      final int row = columnar.addRow();
+      columnar.setId(row, entity.getId());
+      for (final Property property : entity.getProperties()) {
+        // Complex and collection properties have no column; they are kept in the row.
+        columnar.getEntity(row).addProperty(property);
+      }
+    }
+    Assert.assertNull(columnar.getColumn("PropertyComp"));
+    Assert.assertTrue(columnar.getEntity(0).getProperty("PropertyComp").isComplex());
+    Assert.assertEquals(entitySet.getEntities().get(0).getProperties().size(),
+        columnar.getEntity(0).getProperties().size());
+
+    final EntityCollectionSerializerOptions options = EntityCollectionSerializerOptions.with()
+        .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+        .build();
+    final String expected = IOUtils.toString(
+        serializer.entityCollection(metadata, edmEntitySet.getEntityType(), entitySet, options).getContent());
+    Assert.assertThat(expected, CoreMatchers.containsString("\"PropertyComp\":{\"PropertyInt16\":111,"));
+    Assert.assertEquals(expected, IOUtils.toString(
+        serializer.entityCollection(metadata, edmEntitySet.getEntityType(), columnar, options).getContent()));
+
+    // Changes to a row view are stored in the collection or rejected, never silently lost.
+    final Entity row = columnar.iterator().next();
+    row.setETag("W/\"1\"");
+    Assert.assertEquals("W/\"1\"", columnar.getEntity(0).getETag());
+    try {
+      row.getNavigationLinks().add(new Link());
+      Assert.fail("Expected exception not thrown!");
+    } catch (final UnsupportedOperationException e) {
+      Assert.assertTrue(row.getNavigationLinks().isEmpty());
+    }
+    try {
+      row.setMediaETag("W/\"2\"");
+      Assert.fail("Expected exception not thrown!");
+    } catch (final UnsupportedOperationException e) {
+      Assert.assertNull(row.getMediaETag());
+    }
+  }
+
   @Test
   public void entitySetCompAllPrim() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESCompAllPrim");
@@ -244,6 +375,43 @@ public class ODataJsonSerializerTest {
     Assert.assertEquals(3, count);
   }
 
+  @Test
+  public void entityCollectionStreamedWithNextLink() throws Exception {
+    final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
+    final EntityIterator entityIterator = new EntityIterator() {
+      Iterator<Entity> innerIterator = data.readAll(edmEntitySet).iterator();
+      @Override
+      public boolean hasNext() {
+        return innerIterator.hasNext();
+      }
+      @Override
+      public Entity next() {
+        return innerIterator.next();
+      }
+      @Override
+      public boolean hasNextLink() {
+        return true;
+      }
+      @Override
+      public URI getNext() {
+        return URI.create("/next");
+      }
+    };
+
+    ODataContent result = serializer.entityCollectionStreamed(
+        metadata, edmEntitySet.getEntityType(), entityIterator,
+        EntityCollectionSerializerOptions.with()
+            .contextURL(ContextURL.with().entitySet(edmEntitySet).build())
+            .build()).getODataContent();
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    result.write(bout);
+    final String resultString = new String(bout.toByteArray(), "UTF-8");
+
+    Assert.assertThat(resultString, CoreMatchers.endsWith(
+        "\"PropertyTimeOfDay\":\"00:01:01\"}],"
+        + "\"@odata.nextLink\":\"/next\"}"));
+  }
+
   @Test
   public void entityCollectionStreamedWithError() throws Exception {
     final EdmEntitySet edmEntitySet = entityContainer.getEntitySet("ESAllPrim");
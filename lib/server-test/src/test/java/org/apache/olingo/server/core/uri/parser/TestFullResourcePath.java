@@ -5985,4 +5985,28 @@ public class TestFullResourcePath {
     testUri.runEx("ESTwoKeyNav", "$filter=NavPropertyETTwoKeyNavMany(Prop='22',P=2)/PropertyInt16 eq 0")
         .isExValidation(UriValidationException.MessageKeys.INVALID_KEY_PROPERTY);
   }
+
+  @Test
+  public void apply() throws Exception {
+    testUri.run("ESAllPrim", "$apply=aggregate(PropertyInt32 with sum as Total,$count as Count)");
+    testUri.run("ESAllPrim", "$apply=filter(PropertyBoolean)/groupby((PropertyBoolean,PropertyString),"
+        + "aggregate(PropertyDouble with average as Average,PropertyString with countdistinct as Distinct))");
+    testUri.run("ESTwoKeyNav", "$apply=groupby((PropertyComp/PropertyInt16,NavPropertyETKeyNavOne/PropertyString))");
+    testUri.run("ESAllPrim", "$apply=groupby((PropertyBoolean),filter(PropertyInt16 gt 0)/aggregate($count as C))");
+
+    testUri.runEx("ESAllPrim", "$apply=aggregate(PropertyString with sum as Total)")
+        .isExSemantic(MessageKeys.TYPES_NOT_COMPATIBLE);
+    testUri.runEx("ESAllPrim", "$apply=aggregate(PropertyInt32 with median as Median)")
+        .isExSyntax(UriParserSyntaxException.MessageKeys.SYNTAX);
+    testUri.runEx("ESAllPrim", "$apply=aggregate(PropertyInt32 with sum)")
+        .isExSyntax(UriParserSyntaxException.MessageKeys.SYNTAX);
+    testUri.runEx("ESAllPrim", "$apply=groupby((Unknown))")
+        .isExSemantic(MessageKeys.EXPRESSION_PROPERTY_NOT_IN_TYPE);
+    testUri.runEx("ESTwoKeyNav", "$apply=groupby((CollPropertyString))")
+        .isExSemantic(MessageKeys.NOT_IMPLEMENTED);
+    testUri.runEx("ESAllPrim", "$apply=skip(1)")
+        .isExSyntax(UriParserSyntaxException.MessageKeys.SYNTAX);
+    testUri.runEx("ESAllPrim(1)", "$apply=aggregate($count as Count)")
+        .isExValidation(UriValidationException.MessageKeys.SYSTEM_QUERY_OPTION_NOT_ALLOWED);
+  }
 }
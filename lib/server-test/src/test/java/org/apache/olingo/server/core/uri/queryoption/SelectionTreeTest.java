@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.olingo.server.core.uri.queryoption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.olingo.commons.api.edm.Edm;
+import org.apache.olingo.commons.api.edmx.EdmxReference;
+import org.apache.olingo.server.api.OData;
+import org.apache.olingo.server.api.uri.UriInfo;
+import org.apache.olingo.server.api.uri.queryoption.SelectOption;
+import org.apache.olingo.server.core.uri.parser.Parser;
+import org.apache.olingo.server.tecsvc.provider.EdmTechProvider;
+import org.junit.Test;
+
+public class SelectionTreeTest {
+
+  private static final OData odata = OData.newInstance();
+  private static final Edm edm = odata.createServiceMetadata(
+      new EdmTechProvider(), Collections.<EdmxReference> emptyList()).getEdm();
+
+  @Test
+  public void all() throws Exception {
+    assertNull(SelectionTree.of(null));
+    assertNull(SelectionTree.of(select("ESAllPrim", "*")));
+    assertNull(SelectionTree.of(select("ESAllPrim", "PropertyString,*")));
+  }
+
+  @Test
+  public void properties() throws Exception {
+    final SelectOption select = select("ESAllPrim", "PropertyString,PropertyInt16");
+    final SelectionTree tree = SelectionTree.of(select);
+    assertNotNull(tree);
+    assertSame(tree, SelectionTree.of(select));
+    assertEquals(new HashSet<String>(Arrays.asList("PropertyString", "PropertyInt16")),
+        tree.getSelectedPropertyNames());
+    assertTrue(tree.isSelected("PropertyString"));
+    assertNull(tree.getChild("PropertyString"));
+    assertFalse(tree.isSelected("PropertyBoolean"));
+  }
+
+  @Test
+  public void complexPaths() throws Exception {
+    SelectionTree tree = SelectionTree.of(select("ESCompComp",
+        "PropertyComp/PropertyComp/PropertyString,PropertyComp/PropertyComp/PropertyInt16"));
+    assertTrue(tree.isSelected("PropertyComp"));
+    final SelectionTree inner = tree.getChild("PropertyComp").getChild("PropertyComp");
+    assertTrue(inner.isSelected("PropertyString"));
+    assertTrue(inner.isSelected("PropertyInt16"));
+    assertNull(inner.getChild("PropertyString"));
+
+    // Selecting a complex property completely wins over partial selections, in any order.
+    tree = SelectionTree.of(select("ESCompComp", "PropertyComp/PropertyComp,PropertyComp"));
+    assertTrue(tree.isSelected("PropertyComp"));
+    assertNull(tree.getChild("PropertyComp"));
+    tree = SelectionTree.of(select("ESCompComp", "PropertyComp,PropertyComp/PropertyComp"));
+    assertNull(tree.getChild("PropertyComp"));
+  }
+
+  private SelectOption select(final String entitySetName, final String select) throws Exception {
+    final UriInfo uriInfo = new Parser(edm, odata).parseUri(entitySetName, "$select=" + select, null);
+    return uriInfo.getSelectOption();
+  }
+}